@@ -0,0 +1,50 @@
+package org.example.assessment.benchmark;
+
+import java.io.File;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the allocation profiler and writes the results as
+ * JSON to compare the runs. The arguments are regular expressions of the
+ * benchmarks to run, all benchmarks run If none given.
+ *
+ * <pre>
+ * java -Dbenchmark.result=target/jmh-result.json -jar target/benchmarks.jar BookCacheBenchmark
+ * </pre>
+ *
+ * The JMH command line runs them as well, e.g.
+ * {@code java -cp target/benchmarks.jar org.openjdk.jmh.Main -prof gc -rf json}
+ *
+ * @author resulav
+ *
+ */
+public final class BenchmarkRunner {
+
+	// file of the JSON results
+	private static final String PROPERTY_RESULT = "benchmark.result";
+	private static final String DEFAULT_RESULT = "jmh-result.json";
+	private static final String ALL_BENCHMARKS = "org\\.example\\.assessment\\..*Benchmark\\..*";
+
+	private BenchmarkRunner() {
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		String result = System.getProperty(PROPERTY_RESULT, DEFAULT_RESULT);
+		ChainedOptionsBuilder options = new OptionsBuilder().addProfiler(GCProfiler.class)
+				.resultFormat(ResultFormatType.JSON).result(result);
+		if (args.length == 0) {
+			options.include(ALL_BENCHMARKS);
+		}
+		for (String include : args) {
+			options.include(include);
+		}
+		new Runner(options.build()).run();
+		System.out.println("Results written to " + new File(result).getAbsolutePath());
+	}
+}
@@ -0,0 +1,79 @@
+package org.example.assessment.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.example.assessment.model.Book;
+import org.example.assessment.util.BookUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+/**
+ * JSON of the book list, serialized per request as by the JSON provider and
+ * written from the JSON encoded once per book as by the store
+ *
+ * @author resulav
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BookJsonBenchmark {
+
+	private static final ObjectWriter LIST_WRITER = new ObjectMapper().writerFor(List.class);
+
+	@Param({ "100", "1000" })
+	private int bookCount;
+
+	private List<Book> books;
+	private List<byte[]> jsonBooks;
+	private byte[] json;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		books = new CatalogueGenerator(CatalogueGenerator.DEFAULT_SEED, 20).createBooks(bookCount);
+		jsonBooks = books.stream().map(BookUtil::toJson).collect(Collectors.toList());
+		json = BookUtil.toJson(books.get(0));
+	}
+
+	@Benchmark
+	public byte[] serializeBookList() throws IOException {
+		return LIST_WRITER.writeValueAsBytes(books);
+	}
+
+	@Benchmark
+	public byte[] writeEncodedBookList() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		BookUtil.writeJsonArray(out, jsonBooks);
+		return out.toByteArray();
+	}
+
+	@Benchmark
+	public byte[] encodeBook() {
+		return BookUtil.toJson(books.get(0));
+	}
+
+	@Benchmark
+	public Book decodeBook() {
+		return BookUtil.fromJson(json);
+	}
+}
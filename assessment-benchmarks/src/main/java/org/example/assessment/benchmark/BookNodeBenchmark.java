@@ -0,0 +1,98 @@
+package org.example.assessment.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.jcr.Node;
+import javax.jcr.RepositoryException;
+
+import org.example.assessment.common.BookField;
+import org.example.assessment.model.Book;
+import org.example.assessment.service.BookService;
+import org.example.assessment.service.SessionPool;
+import org.example.assessment.util.BookUtil;
+import org.example.assessment.util.RepositoryUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Conversion between the book nodes of the embedded repository and
+ * {@link Book}
+ *
+ * @author resulav
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BookNodeBenchmark {
+
+	private static final int BOOK_COUNT = 1000;
+
+	private EmbeddedRepository repository;
+	private SessionPool sessionPool;
+	private Node[] bookNodes;
+	private List<Book> books;
+	private Node scratchNode;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		repository = EmbeddedRepository.start();
+		sessionPool = SessionPool.newBuilder().withSession(repository.getSession()).build();
+		books = new CatalogueGenerator(CatalogueGenerator.DEFAULT_SEED, 20).createBooks(BOOK_COUNT);
+		new BookService(sessionPool).addBooks(books);
+
+		Node booksNode = RepositoryUtil.getBooksNode(repository.getSession());
+		bookNodes = books.stream().map(b -> {
+			try {
+				return booksNode.getNode(b.getBookId());
+			} catch (RepositoryException e) {
+				throw new IllegalStateException(e);
+			}
+		}).toArray(Node[]::new);
+		// transient node of the write benchmark, never saved
+		scratchNode = booksNode.addNode("scratch");
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws Exception {
+		sessionPool.close();
+		repository.stop();
+	}
+
+	private int nextIndex() {
+		next = (next + 1) % BOOK_COUNT;
+		return next;
+	}
+
+	@Benchmark
+	public Book toBook() throws RepositoryException {
+		return BookUtil.toBook(bookNodes[nextIndex()]);
+	}
+
+	@Benchmark
+	public String[] toStringArray() throws RepositoryException {
+		String name = BookField.PARAGRAPHS.getFieldName();
+		return BookUtil.toStringArray(bookNodes[nextIndex()].getProperty(name), name);
+	}
+
+	@Benchmark
+	public Node toNode() throws RepositoryException {
+		BookUtil.toNode(books.get(nextIndex()), scratchNode);
+		return scratchNode;
+	}
+}
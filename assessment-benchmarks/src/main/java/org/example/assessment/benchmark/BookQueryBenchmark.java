@@ -0,0 +1,79 @@
+package org.example.assessment.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.jcr.RepositoryException;
+
+import org.example.assessment.model.Book;
+import org.example.assessment.model.BookSummary;
+import org.example.assessment.service.BookService;
+import org.example.assessment.service.SessionPool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Query styles of {@link BookService} against the embedded repository
+ *
+ * @author resulav
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BookQueryBenchmark {
+
+	@Param({ "1000", "5000" })
+	private int bookCount;
+
+	private EmbeddedRepository repository;
+	private SessionPool sessionPool;
+	private BookService bookService;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		repository = EmbeddedRepository.start();
+		sessionPool = SessionPool.newBuilder().withSession(repository.getSession()).build();
+		bookService = new BookService(sessionPool);
+		bookService.importBooks(new CatalogueGenerator(CatalogueGenerator.DEFAULT_SEED, 20).createBooks(bookCount),
+				500, 0, chunk -> {
+				});
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws Exception {
+		sessionPool.close();
+		repository.stop();
+	}
+
+	@Benchmark
+	public List<BookSummary> searchBooksByContains() throws RepositoryException {
+		return bookService.searchBooksByContains(CatalogueGenerator.COMMON_WORD);
+	}
+
+	@Benchmark
+	public List<BookSummary> searchBooksByLike() throws RepositoryException {
+		return bookService.searchBooksByLike(CatalogueGenerator.COMMON_WORD);
+	}
+
+	@Benchmark
+	public List<Book> queryBooksByIsbn() throws RepositoryException {
+		next = (next + 1) % bookCount;
+		return bookService.queryBooksByISBN(CatalogueGenerator.toIsbn(next));
+	}
+}
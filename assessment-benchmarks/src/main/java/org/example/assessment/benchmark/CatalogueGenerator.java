@@ -0,0 +1,99 @@
+package org.example.assessment.benchmark;
+
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.example.assessment.model.Book;
+
+/**
+ * Generates a synthetic catalogue. The same seed generates the same books, so
+ * the runs of a benchmark are comparable.
+ *
+ * @author resulav
+ *
+ */
+public final class CatalogueGenerator {
+
+	public static final long DEFAULT_SEED = 42;
+	// a word of each book, found by the text queries
+	public static final String COMMON_WORD = "harbour";
+
+	private static final String[] WORDS = ("the of and to in a is that for it as was with be by on not he this are "
+			+ "or his from at which but have an they you were her she there been one all we their has would when "
+			+ "river garden morning letter silence window captain journey mountain harbour winter summer village "
+			+ "remembered whispered carried followed returned wondered gathered promised answered listened "
+			+ "ancient quiet golden narrow distant restless gentle bitter hollow crimson").split(" ");
+	private static final String[] AUTHORS = { "Ada Shaffer", "Jon Reyes", "Mira Okafor", "Lev Novak", "Ines Park",
+			"Tom Becker", "Sara Lind", "Omar Haddad" };
+
+	private final Random random;
+	private final int paragraphCount;
+
+	/**
+	 * @param seed
+	 *            seed of the catalogue
+	 * @param paragraphCount
+	 *            average count of the paragraphs of a book
+	 */
+	public CatalogueGenerator(long seed, int paragraphCount) {
+		this.random = new Random(seed);
+		this.paragraphCount = paragraphCount;
+	}
+
+	/**
+	 * @param count
+	 *            count of the books
+	 * @return books with unique bookIds and ISBNs
+	 */
+	public List<Book> createBooks(int count) {
+		return IntStream.range(0, count).mapToObj(this::createBook).collect(Collectors.toList());
+	}
+
+	/**
+	 * @param index
+	 *            index of the book in the catalogue, the ISBN of the book
+	 * @return a book with 2-4 introduction paragraphs and paragraphs of 60-140
+	 *         words
+	 */
+	public Book createBook(int index) {
+		Book book = new Book();
+		book.setBookId(new UUID(random.nextLong(), random.nextLong()).toString());
+		book.setName(createText(2 + random.nextInt(4)));
+		book.setAuthor(AUTHORS[random.nextInt(AUTHORS.length)]);
+		book.setIsbn(toIsbn(index));
+		book.setIntroduction(createParagraphs(2 + random.nextInt(3)));
+		book.setParagraphs(createParagraphs(paragraphCount / 2 + random.nextInt(paragraphCount + 1)));
+		return book;
+	}
+
+	/**
+	 * @param index
+	 *            index of the book in the catalogue
+	 * @return the ISBN of the book
+	 */
+	public static String toIsbn(int index) {
+		return String.format("95-8929-%05d", index);
+	}
+
+	private String[] createParagraphs(int count) {
+		String[] paragraphs = new String[count];
+		for (int i = 0; i < count; i++) {
+			paragraphs[i] = createText(60 + random.nextInt(81));
+		}
+		return paragraphs;
+	}
+
+	private String createText(int wordCount) {
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < wordCount; i++) {
+			if (i > 0) {
+				text.append(' ');
+			}
+			text.append(WORDS[random.nextInt(WORDS.length)]);
+		}
+		return text.toString();
+	}
+}
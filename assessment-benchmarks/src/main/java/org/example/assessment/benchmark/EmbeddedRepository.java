@@ -0,0 +1,63 @@
+package org.example.assessment.benchmark;
+
+import javax.jcr.Node;
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+
+import org.example.assessment.common.Constants;
+import org.onehippo.repository.testutils.RepositoryTestCase;
+
+/**
+ * Embedded in-memory repository of the benchmarks, started and logged in as
+ * by the repository tests of the assessment module
+ *
+ * @author resulav
+ *
+ */
+public class EmbeddedRepository extends RepositoryTestCase {
+
+	/**
+	 * starts the repository and logs in
+	 *
+	 * @return the started repository
+	 * @throws Exception
+	 *             If the repository can not be started
+	 */
+	public static EmbeddedRepository start() throws Exception {
+		setUpClass();
+		EmbeddedRepository repository = new EmbeddedRepository();
+		repository.setUp();
+		return repository;
+	}
+
+	/**
+	 * @return the session of the system user
+	 */
+	public Session getSession() {
+		return session;
+	}
+
+	/**
+	 * removes the books, logs out and stops the repository
+	 *
+	 * @throws Exception
+	 *             If the repository can not be stopped
+	 */
+	public void stop() throws Exception {
+		try {
+			removeBooks();
+			tearDown();
+		} finally {
+			tearDownClass();
+		}
+	}
+
+	private void removeBooks() throws RepositoryException {
+		session.refresh(false);
+		if (session.getRootNode().hasNode(Constants.REPOSITORY)) {
+			Node booksNode = session.getRootNode().getNode(Constants.REPOSITORY);
+			booksNode.remove();
+			session.save();
+		}
+	}
+}
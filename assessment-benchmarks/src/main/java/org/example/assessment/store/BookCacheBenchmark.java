@@ -0,0 +1,114 @@
+package org.example.assessment.store;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.example.assessment.benchmark.CatalogueGenerator;
+import org.example.assessment.common.BookField;
+import org.example.assessment.common.BookStorage;
+import org.example.assessment.model.Book;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Mutation and read paths of {@link BookCache}. In the store package for the
+ * package-private mutators of the cache.
+ *
+ * @author resulav
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BookCacheBenchmark {
+
+	@Param({ "1000", "10000" })
+	private int bookCount;
+
+	@Param({ "HEAP", "COMPACT" })
+	private BookStorage storage;
+
+	private BookCache bookCache;
+	private List<Book> books;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		books = new CatalogueGenerator(CatalogueGenerator.DEFAULT_SEED, 20).createBooks(bookCount);
+		bookCache = new BookCache();
+		bookCache.setStorage(storage);
+		books.forEach(bookCache::addOrUpdateBook);
+	}
+
+	/**
+	 * @return the next book of the catalogue, cycling
+	 */
+	private Book nextBook() {
+		next = (next + 1) % books.size();
+		return books.get(next);
+	}
+
+	@Benchmark
+	public Book updateBook() {
+		return bookCache.addOrUpdateBook(nextBook());
+	}
+
+	@Benchmark
+	public Book removeAndAddBook() {
+		Book book = nextBook();
+		bookCache.removeBook(book.getBookId());
+		bookCache.addOrUpdateBook(book);
+		return book;
+	}
+
+	@Benchmark
+	public Optional<Book> getBook() {
+		return bookCache.getBook(nextBook().getBookId());
+	}
+
+	@Benchmark
+	public Optional<Book> getBookByIsbn() {
+		return bookCache.getBookByIsbn(nextBook().getIsbn());
+	}
+
+	@Benchmark
+	public List<Book> getBooksByAuthor() {
+		return bookCache.getBooksByAuthor(nextBook().getAuthor());
+	}
+
+	@Benchmark
+	public List<Book> getBookPage() {
+		return bookCache.getBookPage(BookField.NAME, null, 100);
+	}
+
+	/**
+	 * the shared snapshot of an unchanged cache
+	 */
+	@Benchmark
+	public List<Book> getBookList() {
+		return bookCache.getBookList();
+	}
+
+	/**
+	 * the snapshot rebuilt after a mutation
+	 */
+	@Benchmark
+	public List<byte[]> getBookListJsonAfterUpdate() {
+		bookCache.addOrUpdateBook(nextBook());
+		return bookCache.getBookListJson();
+	}
+}
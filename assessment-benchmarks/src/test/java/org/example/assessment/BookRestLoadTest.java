@@ -0,0 +1,509 @@
+package org.example.assessment;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+
+import org.apache.catalina.LifecycleException;
+import org.example.assessment.benchmark.CatalogueGenerator;
+import org.example.assessment.common.Constants;
+import org.example.assessment.common.ResultCode;
+import org.example.assessment.metrics.LatencyHistogram;
+import org.example.assessment.model.Book;
+import org.example.assessment.model.BookResponse;
+import org.example.assessment.model.BookResult;
+import org.example.assessment.resource.BookResources;
+import org.example.assessment.resource.BookStoreResources;
+import org.example.assessment.util.EmbeddedJaxrsServer;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.onehippo.cms7.services.HippoServiceRegistry;
+import org.onehippo.repository.RepositoryService;
+import org.onehippo.repository.testutils.RepositoryTestCase;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Splitter;
+import com.google.common.collect.Lists;
+import com.google.common.io.ByteStreams;
+
+/**
+ * Load test of the REST services on an embedded Tomcat. Seeds the books, then
+ * drives a concurrent mix of the /books/ and /bookstore/ requests and logs the
+ * throughput and the p50/p95/p99/max latency of each endpoint. The defaults
+ * keep it short for the benchmarks build; raise the books, threads and seconds
+ * to validate the capacity, e.g. {@code -Dbookrest.loadtest.books=10000
+ * -Dbookrest.loadtest.threads=64 -Dbookrest.loadtest.seconds=300}
+ */
+public class BookRestLoadTest extends RepositoryTestCase {
+
+	// count of the books seeded before the load
+	private static final String PROPERTY_BOOKS = "bookrest.loadtest.books";
+	private static final String DEFAULT_BOOKS = "100";
+	// count of the concurrent clients
+	private static final String PROPERTY_THREADS = "bookrest.loadtest.threads";
+	private static final String DEFAULT_THREADS = "4";
+	// load before the measured load, not recorded
+	private static final String PROPERTY_WARMUP_SECONDS = "bookrest.loadtest.warmupseconds";
+	private static final String DEFAULT_WARMUP_SECONDS = "2";
+	private static final String PROPERTY_SECONDS = "bookrest.loadtest.seconds";
+	private static final String DEFAULT_SECONDS = "5";
+	// weights of the endpoints, see Endpoint
+	private static final String PROPERTY_MIX = "bookrest.loadtest.mix";
+	private static final String DEFAULT_MIX = "create=5,get=25,list=1,search=10,update=10,delete=5,store=44";
+	private static final String PROPERTY_QUERY = "bookrest.loadtest.query";
+	private static final String DEFAULT_QUERY = "harbour";
+	// fails the test If the p99 of an endpoint is higher, not checked by
+	// default
+	private static final String PROPERTY_MAX_P99_MILLIS = "bookrest.loadtest.maxp99millis";
+
+	private static final int SEED_BATCH_SIZE = 100;
+	private static final int PARAGRAPH_COUNT = 30;
+	private static final String AUTHORIZATION = "Basic "
+			+ Base64.getEncoder().encodeToString("admin:admin".getBytes(StandardCharsets.UTF_8));
+	private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+	private static EmbeddedJaxrsServer jaxrsServer;
+
+	@ClassRule
+	public static TemporaryFolder tmpTomcatFolder = new TemporaryFolder();
+
+	// books to get, update and delete
+	private final List<SeededBook> seededBooks = Lists.newArrayList();
+	// catalogue index of the next created book, keeps the ISBNs unique
+	private final AtomicInteger nextIndex = new AtomicInteger();
+	private final Map<Endpoint, LatencyHistogram> latencies = new EnumMap<>(Endpoint.class);
+	private final Map<Endpoint, AtomicLong> errors = new EnumMap<>(Endpoint.class);
+
+	@BeforeClass
+	public static void setupTomcat() throws LifecycleException {
+		jaxrsServer = EmbeddedJaxrsServer.start(BookRestLoadTest.class,
+				tmpTomcatFolder.getRoot().getAbsolutePath());
+	}
+
+	@AfterClass
+	public static void tearDownTomcat() throws LifecycleException {
+		jaxrsServer.stop();
+	}
+
+	@Before
+	public void before() {
+		if (HippoServiceRegistry.getService(RepositoryService.class) == null) {
+			HippoServiceRegistry.registerService(server.getRepository(), RepositoryService.class);
+		}
+		for (Endpoint endpoint : Endpoint.values()) {
+			latencies.put(endpoint, new LatencyHistogram());
+			errors.put(endpoint, new AtomicLong());
+		}
+	}
+
+	@After
+	@Override
+	public void tearDown() throws Exception {
+		if (session.nodeExists("/" + Constants.REPOSITORY)) {
+			session.getNode("/" + Constants.REPOSITORY).remove();
+			session.save();
+		}
+		super.tearDown();
+	}
+
+	@Test
+	public void testMixedLoad() throws Exception {
+		int bookCount = Integer.parseInt(System.getProperty(PROPERTY_BOOKS, DEFAULT_BOOKS));
+		int threads = Integer.parseInt(System.getProperty(PROPERTY_THREADS, DEFAULT_THREADS));
+		long warmupSeconds = Long.parseLong(System.getProperty(PROPERTY_WARMUP_SECONDS, DEFAULT_WARMUP_SECONDS));
+		long seconds = Long.parseLong(System.getProperty(PROPERTY_SECONDS, DEFAULT_SECONDS));
+		Mix mix = Mix.parse(System.getProperty(PROPERTY_MIX, DEFAULT_MIX));
+
+		long seedStart = System.nanoTime();
+		seedBooks(bookCount);
+		log.info("{} book(s) seeded in {} ms", bookCount,
+				TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - seedStart));
+
+		long measureFromNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(warmupSeconds);
+		long endNanos = measureFromNanos + TimeUnit.SECONDS.toNanos(seconds);
+		ExecutorService clients = Executors.newFixedThreadPool(threads);
+		List<Future<?>> futures = IntStream.range(0, threads)
+				.mapToObj(i -> clients.submit(() -> drive(mix, measureFromNanos, endNanos)))
+				.collect(Collectors.toList());
+		for (Future<?> future : futures) {
+			future.get();
+		}
+		clients.shutdown();
+		clients.awaitTermination(1, TimeUnit.MINUTES);
+
+		logReport(threads, seconds);
+		for (Endpoint endpoint : Endpoint.values()) {
+			Assert.assertEquals(endpoint.getName() + " failed", 0, errors.get(endpoint).get());
+		}
+		String maxP99Millis = System.getProperty(PROPERTY_MAX_P99_MILLIS);
+		if (maxP99Millis != null) {
+			for (Endpoint endpoint : Endpoint.values()) {
+				Assert.assertTrue(endpoint.getName() + " p99 exceeded " + maxP99Millis + " ms",
+						latencies.get(endpoint).getMicrosAtPercentile(99) <= Long.parseLong(maxP99Millis) * 1000);
+			}
+		}
+	}
+
+	/**
+	 * adds the books by POST /books/ in batches
+	 *
+	 * @param bookCount
+	 *            count of the books
+	 * @throws IOException
+	 *             If a batch fails
+	 */
+	private void seedBooks(int bookCount) throws IOException {
+		for (int start = 0; start < bookCount; start += SEED_BATCH_SIZE) {
+			List<Integer> indexes = IntStream.range(0, Math.min(SEED_BATCH_SIZE, bookCount - start))
+					.mapToObj(i -> nextIndex.getAndIncrement()).collect(Collectors.toList());
+			Reply reply = send(createRequest(indexes));
+			Assert.assertEquals("seeding failed", 200, reply.status);
+			addSeededBooks(indexes, reply.body);
+		}
+	}
+
+	/**
+	 * sends the requests of the mix until the end, records the latencies
+	 * after the warm-up
+	 */
+	private void drive(Mix mix, long measureFromNanos, long endNanos) {
+		Random random = ThreadLocalRandom.current();
+		while (System.nanoTime() < endNanos) {
+			Endpoint endpoint = mix.next(random);
+			Request request = prepare(endpoint, random);
+			if (request == null) {
+				// no book left to get, update or delete
+				continue;
+			}
+
+			long start = System.nanoTime();
+			Reply reply = null;
+			try {
+				reply = send(request);
+			} catch (IOException e) {
+				log.debug("{} failed: {}", endpoint.getName(), e.getMessage());
+			}
+			long elapsedNanos = System.nanoTime() - start;
+
+			boolean succeeded = reply != null
+					&& (reply.status == 200 || endpoint == Endpoint.GET && reply.status == 404);
+			if (start >= measureFromNanos) {
+				latencies.get(endpoint).recordNanos(elapsedNanos);
+				if (!succeeded) {
+					errors.get(endpoint).incrementAndGet();
+				}
+			}
+			if (succeeded && request.indexes != null) {
+				addSeededBooks(request.indexes, reply.body);
+			}
+		}
+	}
+
+	/**
+	 * @param endpoint
+	 *            endpoint to call
+	 * @param random
+	 *            random of the client
+	 * @return the request, null If there is no book to get, update or delete
+	 */
+	private Request prepare(Endpoint endpoint, Random random) {
+		SeededBook seededBook;
+		switch (endpoint) {
+		case CREATE:
+			return createRequest(Lists.newArrayList(nextIndex.getAndIncrement()));
+		case GET:
+			seededBook = getSeededBook(random, false);
+			return seededBook == null ? null
+					: new Request("GET", BookResources.SERVICE_PATH + Constants.PATH_SEPARATOR + seededBook.bookId);
+		case LIST:
+			return new Request("GET", BookResources.SERVICE_PATH);
+		case SEARCH:
+			return new Request("GET", BookResources.SERVICE_PATH + BookResources.METHOD_SEARCH_BOOK
+					+ Constants.PATH_SEPARATOR + System.getProperty(PROPERTY_QUERY, DEFAULT_QUERY));
+		case UPDATE:
+			seededBook = getSeededBook(random, false);
+			if (seededBook == null) {
+				return null;
+			}
+			Book book = createCatalogueBook(seededBook.index);
+			book.setBookId(seededBook.bookId);
+			book.setName(book.getName() + " " + random.nextInt(1000));
+			return new Request("POST", BookResources.SERVICE_PATH + BookResources.METHOD_UPDATE_BOOK, toJson(book));
+		case DELETE:
+			// taken out, so no other client updates the deleted book
+			seededBook = getSeededBook(random, true);
+			return seededBook == null ? null
+					: new Request("DELETE", BookResources.SERVICE_PATH + BookResources.METHOD_DELETE_BOOK
+							+ Constants.PATH_SEPARATOR + seededBook.bookId);
+		case STORE:
+			Request request = new Request("GET", BookStoreResources.SERVICE_PATH);
+			request.acceptEncoding = "gzip";
+			return request;
+		default:
+			throw new IllegalArgumentException("Unknown endpoint " + endpoint);
+		}
+	}
+
+	/**
+	 * @param indexes
+	 *            catalogue indexes of the books
+	 * @return POST /books/ of the catalogue books
+	 */
+	private Request createRequest(List<Integer> indexes) {
+		List<Book> books = indexes.stream().map(BookRestLoadTest::createCatalogueBook)
+				.collect(Collectors.toList());
+		Request request = new Request("POST", BookResources.SERVICE_PATH, toJson(books));
+		request.indexes = indexes;
+		return request;
+	}
+
+	/**
+	 * @param index
+	 *            catalogue index of the book
+	 * @return the same book for the same index
+	 */
+	private static Book createCatalogueBook(int index) {
+		return new CatalogueGenerator(index, PARAGRAPH_COUNT).createBook(index);
+	}
+
+	private void addSeededBooks(List<Integer> indexes, byte[] body) {
+		BookResponse response;
+		try {
+			response = OBJECT_MAPPER.readValue(body, BookResponse.class);
+		} catch (IOException e) {
+			throw new IllegalStateException("Invalid response of adding books", e);
+		}
+		Assert.assertEquals("adding books failed", ResultCode.SUCCESS.getCode(), response.getResultCode());
+		synchronized (seededBooks) {
+			for (BookResult result : response.getResults()) {
+				seededBooks.add(new SeededBook(result.getBookId(), indexes.get(result.getIndex())));
+			}
+		}
+	}
+
+	private SeededBook getSeededBook(Random random, boolean remove) {
+		synchronized (seededBooks) {
+			if (seededBooks.isEmpty()) {
+				return null;
+			}
+			int i = random.nextInt(seededBooks.size());
+			SeededBook seededBook = seededBooks.get(i);
+			if (remove) {
+				// swap with the last one, removes in constant time
+				seededBooks.set(i, seededBooks.get(seededBooks.size() - 1));
+				seededBooks.remove(seededBooks.size() - 1);
+			}
+			return seededBook;
+		}
+	}
+
+	/**
+	 * sends the request over a kept-alive connection and reads the whole
+	 * response
+	 *
+	 * @param request
+	 *            the request
+	 * @return status, and the body If books are created
+	 * @throws IOException
+	 *             If the connection fails
+	 */
+	private static Reply send(Request request) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) new URL(jaxrsServer.getServiceUrl(request.path))
+				.openConnection();
+		connection.setRequestMethod(request.method);
+		connection.setRequestProperty(HttpHeaders.AUTHORIZATION, AUTHORIZATION);
+		connection.setRequestProperty(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON);
+		if (request.acceptEncoding != null) {
+			connection.setRequestProperty(HttpHeaders.ACCEPT_ENCODING, request.acceptEncoding);
+		}
+		if (request.body != null) {
+			connection.setDoOutput(true);
+			connection.setRequestProperty(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON);
+			try (OutputStream out = connection.getOutputStream()) {
+				out.write(request.body);
+			}
+		}
+		Reply reply = new Reply(connection.getResponseCode());
+		// the body is read to the end, so the connection is reused
+		try (InputStream in = reply.status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+			if (in != null) {
+				if (request.indexes != null) {
+					reply.body = ByteStreams.toByteArray(in);
+				} else {
+					ByteStreams.exhaust(in);
+				}
+			}
+		}
+		return reply;
+	}
+
+	private static byte[] toJson(Object value) {
+		try {
+			return OBJECT_MAPPER.writeValueAsBytes(value);
+		} catch (IOException e) {
+			throw new IllegalStateException("Invalid request body", e);
+		}
+	}
+
+	private void logReport(int threads, long seconds) {
+		StringBuilder report = new StringBuilder(String.format("%d client(s) for %d s", threads, seconds));
+		report.append(String.format("%n%-8s %10s %8s %10s %9s %9s %9s %9s", "endpoint", "requests", "errors", "req/s",
+				"p50 ms", "p95 ms", "p99 ms", "max ms"));
+		long totalCount = 0;
+		for (Endpoint endpoint : Endpoint.values()) {
+			LatencyHistogram histogram = latencies.get(endpoint);
+			totalCount += histogram.getTotalCount();
+			report.append(String.format("%n%-8s %10d %8d %10.1f %9.2f %9.2f %9.2f %9.2f", endpoint.getName(),
+					histogram.getTotalCount(), errors.get(endpoint).get(), (double) histogram.getTotalCount() / seconds,
+					toMillis(histogram.getMicrosAtPercentile(50)), toMillis(histogram.getMicrosAtPercentile(95)),
+					toMillis(histogram.getMicrosAtPercentile(99)), toMillis(histogram.getMaxMicros())));
+		}
+		report.append(String.format("%n%-8s %10d %8s %10.1f", "total", totalCount, "",
+				(double) totalCount / seconds));
+		log.info("{}", report);
+	}
+
+	private static double toMillis(long micros) {
+		return micros / 1000.0;
+	}
+
+	/**
+	 * Endpoints of the load, named in lower case in the mix
+	 */
+	private enum Endpoint {
+		// POST /books/
+		CREATE,
+		// GET /books/{bookId}
+		GET,
+		// GET /books/
+		LIST,
+		// GET /books/search/{query}
+		SEARCH,
+		// POST /books/update
+		UPDATE,
+		// DELETE /books/delete/{bookId}
+		DELETE,
+		// GET /bookstore/ accepting gzip
+		STORE;
+
+		String getName() {
+			return name().toLowerCase();
+		}
+	}
+
+	/**
+	 * Weighted random choice of the endpoints
+	 */
+	private static final class Mix {
+		private final Endpoint[] endpoints;
+		private final int[] cumulativeWeights;
+
+		private Mix(Map<Endpoint, Integer> weights) {
+			this.endpoints = weights.keySet().toArray(new Endpoint[0]);
+			this.cumulativeWeights = new int[endpoints.length];
+			int cumulative = 0;
+			for (int i = 0; i < endpoints.length; i++) {
+				cumulative += weights.get(endpoints[i]);
+				cumulativeWeights[i] = cumulative;
+			}
+			Assert.assertTrue("mix has no weight", cumulative > 0);
+		}
+
+		/**
+		 * @param mix
+		 *            like {@code get=80,update=20}
+		 * @return the mix
+		 */
+		static Mix parse(String mix) {
+			Map<Endpoint, Integer> weights = new EnumMap<>(Endpoint.class);
+			Splitter.on(',').trimResults().omitEmptyStrings().withKeyValueSeparator('=').split(mix)
+					.forEach((name, weight) -> weights.put(toEndpoint(name.trim()), Integer.parseInt(weight.trim())));
+			return new Mix(weights);
+		}
+
+		private static Endpoint toEndpoint(String name) {
+			return Arrays.stream(Endpoint.values()).filter(e -> e.getName().equals(name)).findFirst()
+					.orElseThrow(() -> new IllegalArgumentException("Unknown endpoint " + name));
+		}
+
+		Endpoint next(Random random) {
+			int value = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+			for (int i = 0; i < endpoints.length; i++) {
+				if (value < cumulativeWeights[i]) {
+					return endpoints[i];
+				}
+			}
+			return endpoints[endpoints.length - 1];
+		}
+	}
+
+	/**
+	 * A book in repository, its content is created again from the catalogue
+	 * index
+	 */
+	private static final class SeededBook {
+		private final String bookId;
+		private final int index;
+
+		private SeededBook(String bookId, int index) {
+			this.bookId = bookId;
+			this.index = index;
+		}
+	}
+
+	private static final class Request {
+		private final String method;
+		private final String path;
+		private final byte[] body;
+		private String acceptEncoding;
+		// catalogue indexes of the created books, the body of the reply is
+		// kept for their bookIds
+		private List<Integer> indexes;
+
+		private Request(String method, String path) {
+			this(method, path, null);
+		}
+
+		private Request(String method, String path, byte[] body) {
+			this.method = method;
+			this.path = path;
+			this.body = body;
+		}
+	}
+
+	private static final class Reply {
+		private final int status;
+		private byte[] body;
+
+		private Reply(int status) {
+			this.status = status;
+		}
+	}
+}
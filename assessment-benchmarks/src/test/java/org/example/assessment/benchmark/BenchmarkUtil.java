@@ -0,0 +1,41 @@
+package org.example.assessment.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+
+/**
+ * Helpers of the benchmark tests
+ */
+public final class BenchmarkUtil {
+
+	private BenchmarkUtil() {
+	}
+
+	/**
+	 * collects the garbage and resets the peak usage of the memory pools
+	 */
+	public static void resetPeakHeap() {
+		System.gc();
+		ManagementFactory.getMemoryPoolMXBeans().forEach(MemoryPoolMXBean::resetPeakUsage);
+	}
+
+	/**
+	 * @return the peak heap usage in bytes since the last
+	 *         {@link #resetPeakHeap()}
+	 */
+	public static long getPeakHeap() {
+		return ManagementFactory.getMemoryPoolMXBeans().stream().filter(p -> p.getType() == MemoryType.HEAP)
+				.mapToLong(p -> p.getPeakUsage().getUsed()).sum();
+	}
+
+	/**
+	 * @return the used heap in bytes after collecting the garbage
+	 */
+	public static long getUsedHeap() {
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+	}
+}
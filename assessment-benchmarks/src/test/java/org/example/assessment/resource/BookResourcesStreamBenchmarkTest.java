@@ -0,0 +1,122 @@
+package org.example.assessment.resource;
+
+import static org.example.assessment.benchmark.BenchmarkUtil.getPeakHeap;
+import static org.example.assessment.benchmark.BenchmarkUtil.resetPeakHeap;
+
+import java.io.OutputStream;
+import java.util.List;
+
+import javax.jcr.RepositoryException;
+
+import org.example.assessment.benchmark.CatalogueGenerator;
+import org.example.assessment.common.Constants;
+import org.example.assessment.model.Book;
+import org.example.assessment.service.BookService;
+import org.example.assessment.service.SessionPool;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.onehippo.repository.testutils.RepositoryTestCase;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Writes all books of the repository as json with the materialized list of
+ * GET /books/ and with the streaming GET /books/stream, and logs the time to
+ * the first byte, the total time and the peak heap of each
+ */
+public class BookResourcesStreamBenchmarkTest extends RepositoryTestCase {
+
+	// count of the books in repository, 100000 for the catalogue size
+	private static final String PROPERTY_BENCHMARK_BOOKS = "bookresources.benchmark.books";
+	private static final String DEFAULT_BENCHMARK_BOOKS = "10000";
+	private static final int PARAGRAPH_COUNT = 2;
+
+	private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+	private SessionPool sessionPool;
+
+	@Before
+	public void before() throws RepositoryException {
+		sessionPool = SessionPool.newBuilder().withSession(session).build();
+	}
+
+	@After
+	@Override
+	public void tearDown() throws Exception {
+		sessionPool.close();
+		if (session.nodeExists("/" + Constants.REPOSITORY)) {
+			session.getNode("/" + Constants.REPOSITORY).remove();
+			session.save();
+		}
+		super.tearDown();
+	}
+
+	@Test
+	public void testStreamingAgainstMaterializedList() throws Exception {
+		int bookCount = Integer.parseInt(System.getProperty(PROPERTY_BENCHMARK_BOOKS, DEFAULT_BENCHMARK_BOOKS));
+		List<Book> books = new CatalogueGenerator(CatalogueGenerator.DEFAULT_SEED, PARAGRAPH_COUNT)
+				.createBooks(bookCount);
+		new BookService(sessionPool).importBooks(books, 1000, 0, chunk -> {
+		});
+		session.refresh(false);
+		BookResources bookResources = new BookResources(sessionPool);
+
+		resetPeakHeap();
+		FirstByteOutputStream materialized = new FirstByteOutputStream();
+		OBJECT_MAPPER.writeValue(materialized, bookResources.getBooks());
+		logRun("materialized", bookCount, materialized);
+		session.refresh(false);
+
+		resetPeakHeap();
+		FirstByteOutputStream streamed = new FirstByteOutputStream();
+		bookResources.streamBooks().write(streamed);
+		logRun("streaming", bookCount, streamed);
+
+		Assert.assertEquals("streamed bytes not matched", materialized.getByteCount(), streamed.getByteCount());
+	}
+
+	private void logRun(String run, int bookCount, FirstByteOutputStream out) {
+		log.info("GET of {} books, {}: first byte {} ms, total {} ms, {} KB, peak heap {} MB", bookCount, run,
+				out.getFirstByteMillis(), out.getElapsedMillis(), out.getByteCount() / 1024,
+				getPeakHeap() / (1024 * 1024));
+	}
+
+	/**
+	 * Counts the written bytes without keeping them and records the time of
+	 * the first and the last byte
+	 */
+	private static final class FirstByteOutputStream extends OutputStream {
+		private final long startNanos = System.nanoTime();
+		private long firstByteNanos = -1;
+		private long lastByteNanos = -1;
+		private long byteCount;
+
+		@Override
+		public void write(int b) {
+			write(null, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+			lastByteNanos = System.nanoTime();
+			if (firstByteNanos < 0) {
+				firstByteNanos = lastByteNanos;
+			}
+			byteCount += len;
+		}
+
+		long getFirstByteMillis() {
+			return (firstByteNanos - startNanos) / 1_000_000;
+		}
+
+		long getElapsedMillis() {
+			return (lastByteNanos - startNanos) / 1_000_000;
+		}
+
+		long getByteCount() {
+			return byteCount;
+		}
+	}
+}
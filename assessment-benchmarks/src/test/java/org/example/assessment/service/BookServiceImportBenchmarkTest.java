@@ -0,0 +1,97 @@
+package org.example.assessment.service;
+
+import static org.example.assessment.benchmark.BenchmarkUtil.getPeakHeap;
+import static org.example.assessment.benchmark.BenchmarkUtil.resetPeakHeap;
+
+import java.util.Arrays;
+import java.util.List;
+
+import javax.jcr.RepositoryException;
+
+import org.example.assessment.benchmark.CatalogueGenerator;
+import org.example.assessment.common.Constants;
+import org.example.assessment.common.ResultCode;
+import org.example.assessment.model.Book;
+import org.example.assessment.model.ChunkResult;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.onehippo.repository.testutils.RepositoryTestCase;
+
+/**
+ * Imports the same catalogue with a single session.save() and with chunked
+ * saves of different sizes, and logs the throughput and the peak heap of each
+ * run
+ */
+public class BookServiceImportBenchmarkTest extends RepositoryTestCase {
+
+	// count of the imported books
+	private static final String PROPERTY_BENCHMARK_BOOKS = "bookservice.benchmark.books";
+	private static final String DEFAULT_BENCHMARK_BOOKS = "2000";
+	// comma separated chunk sizes
+	private static final String PROPERTY_BENCHMARK_CHUNK_SIZES = "bookservice.benchmark.chunksizes";
+	private static final String DEFAULT_BENCHMARK_CHUNK_SIZES = "100,500,2000";
+	private static final int PARAGRAPH_COUNT = 2;
+
+	private SessionPool sessionPool;
+
+	@Before
+	public void before() throws RepositoryException {
+		sessionPool = SessionPool.newBuilder().withSession(session).build();
+	}
+
+	@After
+	@Override
+	public void tearDown() throws Exception {
+		sessionPool.close();
+		removeBooks();
+		super.tearDown();
+	}
+
+	@Test
+	public void testChunkedImport() throws RepositoryException {
+		int bookCount = Integer.parseInt(System.getProperty(PROPERTY_BENCHMARK_BOOKS, DEFAULT_BENCHMARK_BOOKS));
+		int[] chunkSizes = Arrays
+				.stream(System.getProperty(PROPERTY_BENCHMARK_CHUNK_SIZES, DEFAULT_BENCHMARK_CHUNK_SIZES).split(","))
+				.mapToInt(s -> Integer.parseInt(s.trim())).toArray();
+		BookService bookService = new BookService(sessionPool);
+
+		CatalogueGenerator catalogue = new CatalogueGenerator(CatalogueGenerator.DEFAULT_SEED, PARAGRAPH_COUNT);
+		List<Book> books = catalogue.createBooks(bookCount);
+		resetPeakHeap();
+		long start = System.nanoTime();
+		bookService.addBooks(books);
+		logRun("single save", bookCount, start);
+		removeBooks();
+
+		for (int chunkSize : chunkSizes) {
+			books = catalogue.createBooks(bookCount);
+			resetPeakHeap();
+			start = System.nanoTime();
+			List<ChunkResult> results = bookService.importBooks(books, chunkSize, 0, chunk -> {
+			});
+			logRun("chunk size " + chunkSize, bookCount, start);
+
+			Assert.assertEquals("chunk count not matched", (bookCount + chunkSize - 1) / chunkSize, results.size());
+			Assert.assertTrue("chunk failed",
+					results.stream().allMatch(r -> r.getResultCode() == ResultCode.SUCCESS.getCode()));
+			Assert.assertEquals("imported books not matched", bookCount,
+					session.getNode("/" + Constants.REPOSITORY).getNodes().getSize());
+			removeBooks();
+		}
+	}
+
+	private void removeBooks() throws RepositoryException {
+		if (session.nodeExists("/" + Constants.REPOSITORY)) {
+			session.getNode("/" + Constants.REPOSITORY).remove();
+			session.save();
+		}
+	}
+
+	private void logRun(String run, int bookCount, long startNanos) {
+		long elapsedNanos = Math.max(1, System.nanoTime() - startNanos);
+		log.info("import of {} books, {}: {} books/sec, {} ms, peak heap {} MB", bookCount, run,
+				bookCount * 1_000_000_000L / elapsedNanos, elapsedNanos / 1_000_000, getPeakHeap() / (1024 * 1024));
+	}
+}
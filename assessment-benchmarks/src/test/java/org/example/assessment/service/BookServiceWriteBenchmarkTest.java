@@ -0,0 +1,151 @@
+package org.example.assessment.service;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.jcr.RepositoryException;
+
+import org.example.assessment.benchmark.CatalogueGenerator;
+import org.example.assessment.common.Constants;
+import org.example.assessment.model.Book;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.onehippo.repository.testutils.RepositoryTestCase;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Updates the books by concurrent writers, each write saved by itself and
+ * with the group commit, and logs the writes/sec of each writer count
+ */
+public class BookServiceWriteBenchmarkTest extends RepositoryTestCase {
+
+	// count of the updates of a run
+	private static final String PROPERTY_BENCHMARK_WRITES = "bookservice.benchmark.writes";
+	private static final String DEFAULT_BENCHMARK_WRITES = "2000";
+	// comma separated counts of the concurrent writers
+	private static final String PROPERTY_BENCHMARK_WRITERS = "bookservice.benchmark.writers";
+	private static final String DEFAULT_BENCHMARK_WRITERS = "1,8,64";
+	private static final int BOOK_COUNT = 500;
+	private static final int PARAGRAPH_COUNT = 2;
+
+	private List<Book> books;
+
+	@Before
+	public void before() throws RepositoryException {
+		books = new CatalogueGenerator(CatalogueGenerator.DEFAULT_SEED, PARAGRAPH_COUNT).createBooks(BOOK_COUNT);
+		SessionPool sessionPool = SessionPool.newBuilder().withSession(session).build();
+		try {
+			new BookService(sessionPool).addBooks(books);
+		} finally {
+			sessionPool.close();
+		}
+	}
+
+	@After
+	@Override
+	public void tearDown() throws Exception {
+		if (session.nodeExists("/" + Constants.REPOSITORY)) {
+			session.getNode("/" + Constants.REPOSITORY).remove();
+			session.save();
+		}
+		super.tearDown();
+	}
+
+	@Test
+	public void testConcurrentWrites() throws Exception {
+		int writeCount = Integer.parseInt(System.getProperty(PROPERTY_BENCHMARK_WRITES, DEFAULT_BENCHMARK_WRITES));
+		int[] writerCounts = Arrays
+				.stream(System.getProperty(PROPERTY_BENCHMARK_WRITERS, DEFAULT_BENCHMARK_WRITERS).split(","))
+				.mapToInt(s -> Integer.parseInt(s.trim())).toArray();
+
+		for (int writerCount : writerCounts) {
+			// as many write sessions as writers, so only the saves are compared
+			SessionPool sessionPool = SessionPool.newBuilder().withSession(session)
+					.withWriteSessionCount(writerCount).withBorrowTimeoutMillis(60000).build();
+			try {
+				runWriters("single save", new BookService(sessionPool), writerCount, writeCount);
+
+				GroupCommitWriter groupCommitWriter = GroupCommitWriter.newBuilder().withSessionPool(sessionPool)
+						.build();
+				try {
+					runWriters("group commit", new BookService(sessionPool, groupCommitWriter), writerCount,
+							writeCount);
+				} finally {
+					groupCommitWriter.shutdown();
+				}
+				log.info("group commit of {} writer(s): {} write(s) per save", writerCount,
+						groupCommitWriter.getWriteCount() / Math.max(1, groupCommitWriter.getCommitCount()));
+			} finally {
+				sessionPool.close();
+			}
+		}
+
+		String name = session.getNode("/" + Constants.REPOSITORY + "/" + books.get(0).getBookId())
+				.getProperty("name").getString();
+		Assert.assertTrue("book not updated", name.startsWith("update"));
+	}
+
+	/**
+	 * updates the books by the writers, each writer updates its own books
+	 *
+	 * @param run
+	 *            name of the run to log
+	 * @param bookService
+	 *            service to write
+	 * @param writerCount
+	 *            count of the concurrent writers
+	 * @param writeCount
+	 *            count of the updates of all writers
+	 * @throws Exception
+	 *             If a write fails
+	 */
+	private void runWriters(String run, BookService bookService, int writerCount, int writeCount)
+			throws Exception {
+		Assert.assertTrue("more writers than books", writerCount <= BOOK_COUNT);
+		int booksPerWriter = BOOK_COUNT / writerCount;
+		ExecutorService writers = Executors.newFixedThreadPool(writerCount);
+		try {
+			List<Future<?>> futures = Lists.newArrayList();
+			long start = System.nanoTime();
+			for (int w = 0; w < writerCount; w++) {
+				int writer = w;
+				futures.add(writers.submit(() -> {
+					// the books of the writers do not overlap, so the saves do
+					// not conflict
+					for (int i = writer, k = 0; i < writeCount; i += writerCount, k++) {
+						Book book = books.get(writer + (k % booksPerWriter) * writerCount);
+						bookService.updateBook(rename(book, "update" + i));
+					}
+					return null;
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+			long elapsedNanos = Math.max(1, System.nanoTime() - start);
+			log.info("{} updates by {} writer(s), {}: {} writes/sec, {} ms", writeCount, writerCount, run,
+					writeCount * 1_000_000_000L / elapsedNanos, elapsedNanos / 1_000_000);
+		} finally {
+			writers.shutdownNow();
+			writers.awaitTermination(10, TimeUnit.SECONDS);
+		}
+	}
+
+	private static Book rename(Book book, String name) {
+		Book renamed = new Book();
+		renamed.setBookId(book.getBookId());
+		renamed.setName(name);
+		renamed.setAuthor(book.getAuthor());
+		renamed.setIsbn(book.getIsbn());
+		renamed.setIntroduction(book.getIntroduction());
+		renamed.setParagraphs(book.getParagraphs());
+		return renamed;
+	}
+}
@@ -0,0 +1,59 @@
+package org.example.assessment.store;
+
+import static org.example.assessment.benchmark.BenchmarkUtil.getUsedHeap;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.example.assessment.benchmark.CatalogueGenerator;
+import org.example.assessment.common.BookStorage;
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Loads the same generated catalogue to the cache in each storage and logs the
+ * retained heap and the read time of each storage
+ */
+public class BookCacheFootprintBenchmarkTest {
+
+	// count of the books of the catalogue
+	private static final String PROPERTY_BENCHMARK_BOOKS = "bookcache.benchmark.books";
+	private static final String DEFAULT_BENCHMARK_BOOKS = "5000";
+	private static final int PARAGRAPH_COUNT = 30;
+
+	protected final Logger log = LoggerFactory.getLogger(getClass());
+
+	@Test
+	public void testFootprintByStorage() {
+		int bookCount = Integer.parseInt(System.getProperty(PROPERTY_BENCHMARK_BOOKS, DEFAULT_BENCHMARK_BOOKS));
+		Map<BookStorage, Long> footprints = new EnumMap<>(BookStorage.class);
+
+		for (BookStorage storage : BookStorage.values()) {
+			long before = getUsedHeap();
+			BookCache bookCache = new BookCache();
+			bookCache.setStorage(storage);
+			// the books are created while loading, only the cache retains them
+			CatalogueGenerator catalogue = new CatalogueGenerator(CatalogueGenerator.DEFAULT_SEED, PARAGRAPH_COUNT);
+			for (int i = 0; i < bookCount; i++) {
+				bookCache.addOrUpdateBook(catalogue.createBook(i));
+			}
+			long footprint = getUsedHeap() - before;
+			footprints.put(storage, footprint);
+
+			long start = System.nanoTime();
+			int paragraphs = bookCache.getBookList().stream().mapToInt(b -> b.getParagraphs().length).sum();
+			long readMillis = (System.nanoTime() - start) / 1000000;
+
+			Assert.assertEquals("cached books not matched", bookCount, bookCache.size());
+			log.info("{}: {} book(s) retain {} KB, {} bytes per book; {} paragraph(s) read in {} ms", storage,
+					bookCount, footprint / 1024, footprint / bookCount, paragraphs, readMillis);
+		}
+
+		Assert.assertTrue("compact storage not smaller",
+				footprints.get(BookStorage.COMPACT) < footprints.get(BookStorage.HEAP));
+		Assert.assertTrue("compressed storage not smaller",
+				footprints.get(BookStorage.COMPRESSED) < footprints.get(BookStorage.COMPACT));
+	}
+}
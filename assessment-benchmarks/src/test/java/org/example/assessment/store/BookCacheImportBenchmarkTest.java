@@ -0,0 +1,104 @@
+package org.example.assessment.store;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import org.example.assessment.benchmark.CatalogueGenerator;
+import org.example.assessment.model.Book;
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * Imports (add + update of every book) catalogues of growing size into the
+ * copy-on-write store which BookCache used before and into BookCache, and logs
+ * the import time of both
+ */
+public class BookCacheImportBenchmarkTest {
+
+	// comma separated book counts of the catalogues
+	private static final String PROPERTY_BENCHMARK_SIZES = "bookcache.benchmark.sizes";
+	private static final String DEFAULT_BENCHMARK_SIZES = "1000,5000,10000,20000";
+	private static final int PARAGRAPH_COUNT = 2;
+
+	protected final Logger log = LoggerFactory.getLogger(getClass());
+
+	@Test
+	public void testImport() {
+		int[] sizes = Arrays.stream(System.getProperty(PROPERTY_BENCHMARK_SIZES, DEFAULT_BENCHMARK_SIZES).split(","))
+				.mapToInt(s -> Integer.parseInt(s.trim())).toArray();
+
+		for (int size : sizes) {
+			List<Book> books = new CatalogueGenerator(CatalogueGenerator.DEFAULT_SEED, PARAGRAPH_COUNT)
+					.createBooks(size);
+
+			CopyOnWriteBookStore copyOnWriteStore = new CopyOnWriteBookStore();
+			long copyOnWriteMillis = importBooks(books, copyOnWriteStore::addOrUpdateBook);
+
+			BookCache cache = new BookCache();
+			long cacheMillis = importBooks(books, cache::addOrUpdateBook);
+
+			Assert.assertEquals("cache size not matched", size, cache.size());
+			Assert.assertEquals("store sizes not matched", copyOnWriteStore.bookList.size(), cache.size());
+
+			log.info("import of {} books: copy-on-write store {} ms, BookCache {} ms", size, copyOnWriteMillis,
+					cacheMillis);
+		}
+	}
+
+	/**
+	 * adds every book, then updates every book as BookObservator does on
+	 * NODE_ADDED and PROPERTY_CHANGED events
+	 *
+	 * @return elapsed milliseconds
+	 */
+	private long importBooks(List<Book> books, Consumer<Book> store) {
+		long start = System.nanoTime();
+		books.forEach(store);
+		books.forEach(b -> store.accept(copyBook(b)));
+		return (System.nanoTime() - start) / 1_000_000;
+	}
+
+	private static Book copyBook(Book book) {
+		Book copy = new Book();
+		copy.setBookId(book.getBookId());
+		copy.setName(book.getName());
+		copy.setAuthor(book.getAuthor());
+		copy.setIsbn(book.getIsbn());
+		copy.setIntroduction(book.getIntroduction());
+		copy.setParagraphs(book.getParagraphs());
+
+		return copy;
+	}
+
+	/**
+	 * The store of the previous BookCache implementation, kept as baseline of
+	 * the import benchmark
+	 */
+	private static final class CopyOnWriteBookStore {
+		private final List<Book> bookList = Lists.newCopyOnWriteArrayList();
+		private final Map<String, Book> bookMap = Maps.newConcurrentMap();
+
+		private Book addOrUpdateBook(Book book) {
+			Book cachedBook = bookMap.get(book.getBookId());
+			if (cachedBook == null) {
+				bookList.add(book);
+				return bookMap.put(book.getBookId(), book);
+			}
+
+			if (bookList.contains(book)) {
+				bookList.set(bookList.indexOf(cachedBook), book);
+			} else {
+				bookList.add(book);
+			}
+
+			return bookMap.put(book.getBookId(), book);
+		}
+	}
+}
@@ -0,0 +1,101 @@
+package org.example.assessment.store;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.example.assessment.benchmark.CatalogueGenerator;
+import org.example.assessment.model.Book;
+import org.example.assessment.model.BookChange;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Broadcasts the changes to many subscribers read by a few consumers, and logs
+ * the time until every subscriber received every change
+ */
+public class BookChangeBroadcasterBenchmarkTest {
+
+	// count of the subscribers
+	private static final String PROPERTY_BENCHMARK_SUBSCRIBERS = "bookbroadcaster.benchmark.subscribers";
+	private static final int DEFAULT_BENCHMARK_SUBSCRIBERS = 2000;
+	private static final int BENCHMARK_CHANGES = 100;
+	private static final int PARAGRAPH_COUNT = 2;
+	private static final long POLL_MILLIS = 5000;
+
+	protected final Logger log = LoggerFactory.getLogger(getClass());
+
+	private BookCache bookCache;
+	private BookChangeBroadcaster broadcaster;
+
+	@Before
+	public void before() {
+		bookCache = new BookCache();
+		broadcaster = new BookChangeBroadcaster(bookCache, BookChangeBroadcaster.DEFAULT_BUFFER_CAPACITY);
+	}
+
+	@After
+	public void after() {
+		broadcaster.shutdown();
+	}
+
+	@Test
+	public void testManySubscribers() throws Exception {
+		int subscriberCount = Integer.getInteger(PROPERTY_BENCHMARK_SUBSCRIBERS, DEFAULT_BENCHMARK_SUBSCRIBERS);
+		broadcaster.setMaxSubscribers(subscriberCount);
+		List<BookChangeBroadcaster.Subscriber> subscribers = IntStream.range(0, subscriberCount)
+				.mapToObj(i -> broadcaster.subscribe(null).get()).collect(Collectors.toList());
+
+		List<Book> books = new CatalogueGenerator(CatalogueGenerator.DEFAULT_SEED, PARAGRAPH_COUNT)
+				.createBooks(BENCHMARK_CHANGES);
+
+		AtomicLong maxLatencyNanos = new AtomicLong();
+		long start = System.nanoTime();
+		for (Book book : books) {
+			bookCache.addOrUpdateBook(book);
+			broadcaster.changed();
+		}
+
+		// a few consumers read all subscribers, as the container threads
+		// would
+		ExecutorService consumers = Executors.newFixedThreadPool(8);
+		List<Future<?>> futures = Lists.newArrayList();
+		for (List<BookChangeBroadcaster.Subscriber> part : Lists.partition(subscribers, subscriberCount / 8 + 1)) {
+			futures.add(consumers.submit(() -> {
+				for (BookChangeBroadcaster.Subscriber subscriber : part) {
+					long previous = -1;
+					for (int i = 0; i < BENCHMARK_CHANGES; i++) {
+						BookChange change = subscriber.poll(POLL_MILLIS);
+						Assert.assertNotNull("change not received", change);
+						Assert.assertTrue("changes not in order", change.getSequence() > previous);
+						previous = change.getSequence();
+					}
+					maxLatencyNanos.accumulateAndGet(System.nanoTime() - start, Math::max);
+				}
+				return null;
+			}));
+		}
+		for (Future<?> future : futures) {
+			future.get();
+		}
+		consumers.shutdown();
+		consumers.awaitTermination(1, TimeUnit.MINUTES);
+
+		log.info("{} change(s) delivered to {} subscriber(s) in {} ms", BENCHMARK_CHANGES, subscriberCount,
+				TimeUnit.NANOSECONDS.toMillis(maxLatencyNanos.get()));
+		Assert.assertEquals("closed subscribers not matched", 0, broadcaster.getClosedSubscriberCount());
+		Assert.assertEquals("dispatched changes not matched", BENCHMARK_CHANGES,
+				broadcaster.getDispatchedChangeCount());
+	}
+}
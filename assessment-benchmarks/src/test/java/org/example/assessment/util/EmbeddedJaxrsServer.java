@@ -0,0 +1,71 @@
+package org.example.assessment.util;
+
+import org.apache.catalina.Context;
+import org.apache.catalina.LifecycleException;
+import org.apache.catalina.startup.Tomcat;
+import org.onehippo.repository.jaxrs.RepositoryJaxrsServlet;
+import org.onehippo.repository.testutils.PortUtil;
+
+/**
+ * Embedded Tomcat serving the endpoints of the repository with
+ * {@link RepositoryJaxrsServlet} at {@code /cms/ws}, for the tests against
+ * the REST services
+ */
+public final class EmbeddedJaxrsServer {
+
+	private static final String CONTEXT_PATH = "/cms";
+	private static final String SERVLET_NAME = "RepositoryJaxrsServlet";
+	private static final String SERVLET_MAPPING = "/ws/*";
+
+	private final Tomcat tomcat;
+	private final String baseUrl;
+
+	private EmbeddedJaxrsServer(Tomcat tomcat, int portNumber) {
+		this.tomcat = tomcat;
+		this.baseUrl = "http://localhost:" + portNumber + CONTEXT_PATH + "/ws";
+	}
+
+	/**
+	 * Starts the server on the port reserved for the test class
+	 *
+	 * @param testClass
+	 *            class of the test
+	 * @param baseDir
+	 *            temporary folder of Tomcat
+	 * @return the started server
+	 * @throws LifecycleException
+	 *             If Tomcat fails to start
+	 */
+	public static EmbeddedJaxrsServer start(Class<?> testClass, String baseDir) throws LifecycleException {
+		Tomcat tomcat = new Tomcat();
+		tomcat.setBaseDir(baseDir);
+		int portNumber = PortUtil.getPortNumber(testClass);
+		tomcat.setPort(portNumber);
+		Context context = tomcat.addContext(CONTEXT_PATH, baseDir);
+		Tomcat.addServlet(context, SERVLET_NAME, new RepositoryJaxrsServlet());
+		context.addServletMappingDecoded(SERVLET_MAPPING, SERVLET_NAME);
+		tomcat.start();
+
+		return new EmbeddedJaxrsServer(tomcat, portNumber);
+	}
+
+	/**
+	 * @param path
+	 *            path of the service, like {@code /books/}
+	 * @return the url of the service
+	 */
+	public String getServiceUrl(String path) {
+		return baseUrl + path;
+	}
+
+	/**
+	 * stops and destroys Tomcat
+	 *
+	 * @throws LifecycleException
+	 *             If Tomcat fails to stop
+	 */
+	public void stop() throws LifecycleException {
+		tomcat.stop();
+		tomcat.destroy();
+	}
+}
@@ -1,9 +1,20 @@
 package org.example.assessment;
 
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
 import javax.jcr.RepositoryException;
 import javax.jcr.Session;
 
+import org.apache.commons.lang3.StringUtils;
+import org.example.assessment.common.BookStorage;
+import org.example.assessment.resource.BookMetricsFilter;
 import org.example.assessment.resource.BookResources;
+import org.example.assessment.service.GroupCommitWriter;
+import org.example.assessment.service.SessionPool;
+import org.example.assessment.store.BookCache;
+import org.example.assessment.store.BookObservator;
+import org.example.assessment.util.RepositoryUtil;
 import org.onehippo.repository.jaxrs.RepositoryJaxrsEndpoint;
 import org.onehippo.repository.jaxrs.RepositoryJaxrsService;
 import org.onehippo.repository.modules.DaemonModule;
@@ -17,14 +28,81 @@ import com.fasterxml.jackson.jaxrs.json.JacksonJsonProvider;
  */
 public class BookModule implements DaemonModule{
 
+    private static final String MODULE_CONFIG_PATH = "/hippo:configuration/hippo:modules/book-module/hippo:moduleconfig";
+    private static final String CONFIG_COALESCE_WINDOW_MILLIS = "coalesceWindowMillis";
+    private static final String CONFIG_WORKER_COUNT = "workerCount";
+    private static final String CONFIG_WORKER_QUEUE_CAPACITY = "workerQueueCapacity";
+    private static final String CONFIG_WARM_UP_LOADER_COUNT = "warmUpLoaderCount";
+    private static final String CONFIG_WARM_UP_CHUNK_SIZE = "warmUpChunkSize";
+    private static final String CONFIG_SNAPSHOT_FILE = "snapshotFile";
+    private static final String CONFIG_SNAPSHOT_INTERVAL_MILLIS = "snapshotIntervalMillis";
+    private static final String CONFIG_SNAPSHOT_MAX_AGE_MILLIS = "snapshotMaxAgeMillis";
+    private static final String CONFIG_BOOK_STORAGE = "bookStorage";
+    private static final String CONFIG_READ_SESSION_COUNT = "readSessionCount";
+    private static final String CONFIG_WRITE_SESSION_COUNT = "writeSessionCount";
+    private static final String CONFIG_STREAM_SESSION_COUNT = "streamSessionCount";
+    private static final String CONFIG_SESSION_BORROW_TIMEOUT_MILLIS = "sessionBorrowTimeoutMillis";
+    private static final String CONFIG_GROUP_COMMIT_BATCH_SIZE = "groupCommitBatchSize";
+    private static final String CONFIG_GROUP_COMMIT_WINDOW_MILLIS = "groupCommitWindowMillis";
+    // work directory of the repository
+    private static final String PROPERTY_REPOSITORY_PATH = "repo.path";
+    private static final String DEFAULT_SNAPSHOT_FILE_NAME = "book-cache.snapshot";
+
     protected final Logger log = LoggerFactory.getLogger(getClass());
 
+    private BookObservator bookObservator;
+    private SessionPool sessionPool;
+    private GroupCommitWriter groupCommitWriter;
+
     @Override
     public void initialize(Session session) throws RepositoryException {
+        // before the books are loaded
+        BookCache.getInstance().setStorage(getBookStorage(session));
+        bookObservator = BookObservator.newBuilder().withSession(session)
+                .withCoalesceWindowMillis(
+                        RepositoryUtil.getConfigLong(session, MODULE_CONFIG_PATH, CONFIG_COALESCE_WINDOW_MILLIS, 0))
+                .withWorkerCount(
+                        (int) RepositoryUtil.getConfigLong(session, MODULE_CONFIG_PATH, CONFIG_WORKER_COUNT, 0))
+                .withWorkerQueueCapacity((int) RepositoryUtil.getConfigLong(session, MODULE_CONFIG_PATH,
+                        CONFIG_WORKER_QUEUE_CAPACITY, 10000))
+                .withWarmUpLoaderCount((int) RepositoryUtil.getConfigLong(session, MODULE_CONFIG_PATH,
+                        CONFIG_WARM_UP_LOADER_COUNT, 0))
+                .withWarmUpChunkSize((int) RepositoryUtil.getConfigLong(session, MODULE_CONFIG_PATH,
+                        CONFIG_WARM_UP_CHUNK_SIZE, 1000))
+                .withSnapshotFile(getSnapshotFile(session))
+                .withSnapshotIntervalMillis(
+                        RepositoryUtil.getConfigLong(session, MODULE_CONFIG_PATH, CONFIG_SNAPSHOT_INTERVAL_MILLIS, 0))
+                .withSnapshotMaxAgeMillis(RepositoryUtil.getConfigLong(session, MODULE_CONFIG_PATH,
+                        CONFIG_SNAPSHOT_MAX_AGE_MILLIS, 86400000))
+                .build();
+
+        // the requests borrow sessions, the system session is not shared
+        sessionPool = SessionPool.newBuilder().withSession(session)
+                .withReadSessionCount((int) RepositoryUtil.getConfigLong(session, MODULE_CONFIG_PATH,
+                        CONFIG_READ_SESSION_COUNT, Runtime.getRuntime().availableProcessors() * 2))
+                .withWriteSessionCount((int) RepositoryUtil.getConfigLong(session, MODULE_CONFIG_PATH,
+                        CONFIG_WRITE_SESSION_COUNT, 2))
+                .withStreamSessionCount((int) RepositoryUtil.getConfigLong(session, MODULE_CONFIG_PATH,
+                        CONFIG_STREAM_SESSION_COUNT, 2))
+                .withBorrowTimeoutMillis(RepositoryUtil.getConfigLong(session, MODULE_CONFIG_PATH,
+                        CONFIG_SESSION_BORROW_TIMEOUT_MILLIS, 5000))
+                .build();
+        // 0 saves each write by itself
+        int groupCommitBatchSize = (int) RepositoryUtil.getConfigLong(session, MODULE_CONFIG_PATH,
+                CONFIG_GROUP_COMMIT_BATCH_SIZE, 0);
+        if (groupCommitBatchSize > 0) {
+            groupCommitWriter = GroupCommitWriter.newBuilder().withSessionPool(sessionPool)
+                    .withBatchSize(groupCommitBatchSize)
+                    .withWindowMillis(RepositoryUtil.getConfigLong(session, MODULE_CONFIG_PATH,
+                            CONFIG_GROUP_COMMIT_WINDOW_MILLIS, 1))
+                    .build();
+        }
+
         RepositoryJaxrsService.addEndpoint(
                 new RepositoryJaxrsEndpoint(BookResources.SERVICE_PATH)
                         .singleton(new JacksonJsonProvider())
-                        .singleton(new BookResources(session)));
+                        .singleton(new BookMetricsFilter())
+                        .singleton(new BookResources(sessionPool, groupCommitWriter)));
         log.info("{} endpoint added",BookResources.SERVICE_PATH);
     }
 
@@ -32,5 +110,63 @@ public class BookModule implements DaemonModule{
     public void shutdown() {
         RepositoryJaxrsService.removeEndpoint(BookResources.SERVICE_PATH);
         log.info("{} endpoint removed", BookResources.SERVICE_PATH);
+        // commits the queued writes with the pooled sessions
+        if (groupCommitWriter != null) {
+            groupCommitWriter.shutdown();
+        }
+        if (sessionPool != null) {
+            sessionPool.close();
+        }
+        if (bookObservator != null) {
+            bookObservator.shutdown();
+        }
+    }
+
+    /**
+     * configured storage of the cached books
+     *
+     * @param session
+     *            system session
+     * @return the storage, {@link BookStorage#HEAP} If not configured or
+     *         unknown
+     * @throws RepositoryException
+     *             as generic exception
+     */
+    private BookStorage getBookStorage(Session session) throws RepositoryException {
+        String storage = RepositoryUtil.getConfigString(session, MODULE_CONFIG_PATH, CONFIG_BOOK_STORAGE);
+        if (StringUtils.isEmpty(storage)) {
+            return BookStorage.HEAP;
+        }
+        try {
+            return BookStorage.valueOf(storage.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            log.warn("Unknown {} {}, using {}", CONFIG_BOOK_STORAGE, storage, BookStorage.HEAP);
+            return BookStorage.HEAP;
+        }
+    }
+
+    /**
+     * configured snapshot file, or the default file in the work directory of
+     * the repository
+     *
+     * @param session
+     *            system session
+     * @return the snapshot file, null If neither configured nor the work
+     *         directory is known
+     * @throws RepositoryException
+     *             as generic exception
+     */
+    private Path getSnapshotFile(Session session) throws RepositoryException {
+        String snapshotFile = RepositoryUtil.getConfigString(session, MODULE_CONFIG_PATH, CONFIG_SNAPSHOT_FILE);
+        if (StringUtils.isNotEmpty(snapshotFile)) {
+            return Paths.get(snapshotFile);
+        }
+        String repositoryPath = System.getProperty(PROPERTY_REPOSITORY_PATH);
+        if (StringUtils.isNotEmpty(repositoryPath)) {
+            return Paths.get(repositoryPath, DEFAULT_SNAPSHOT_FILE_NAME);
+        }
+        log.info("No {} and {} is not set, book cache snapshot is disabled", CONFIG_SNAPSHOT_FILE,
+                PROPERTY_REPOSITORY_PATH);
+        return null;
     }
 }
@@ -1,9 +1,19 @@
 package org.example.assessment;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
 import javax.jcr.RepositoryException;
 import javax.jcr.Session;
 
+import org.apache.commons.lang3.StringUtils;
+import org.example.assessment.metrics.BookMetrics;
+import org.example.assessment.resource.BookMetricsFilter;
 import org.example.assessment.resource.BookStoreResources;
+import org.example.assessment.store.BookChangeBroadcaster;
+import org.example.assessment.store.CompressedBookList;
+import org.example.assessment.util.RepositoryUtil;
 import org.onehippo.repository.jaxrs.RepositoryJaxrsEndpoint;
 import org.onehippo.repository.jaxrs.RepositoryJaxrsService;
 import org.onehippo.repository.modules.DaemonModule;
@@ -17,14 +27,33 @@ import com.fasterxml.jackson.jaxrs.json.JacksonJsonProvider;
  */
 public class BookStoreModule implements DaemonModule{
 
+    private static final String MODULE_CONFIG_PATH = "/hippo:configuration/hippo:modules/book-store-module/hippo:moduleconfig";
+    private static final String CONFIG_COMPRESSED_ENCODINGS = "compressedEncodings";
+    private static final String CONFIG_COMPRESS_INTERVAL_MILLIS = "compressIntervalMillis";
+    private static final String CONFIG_MAX_EVENT_SUBSCRIBERS = "maxEventSubscribers";
+    private static final String DEFAULT_COMPRESSED_ENCODINGS = CompressedBookList.GZIP;
+
     protected final Logger log = LoggerFactory.getLogger(getClass());
 
+    private CompressedBookList compressedBookList;
+
     @Override
     public void initialize(Session session) throws RepositoryException {
+        compressedBookList = new CompressedBookList(getCompressedEncodings(session),
+                RepositoryUtil.getConfigLong(session, MODULE_CONFIG_PATH, CONFIG_COMPRESS_INTERVAL_MILLIS, 1000));
+        compressedBookList.start();
+        BookChangeBroadcaster.getInstance().setMaxSubscribers((int) RepositoryUtil.getConfigLong(session,
+                MODULE_CONFIG_PATH, CONFIG_MAX_EVENT_SUBSCRIBERS, BookChangeBroadcaster.DEFAULT_MAX_SUBSCRIBERS));
+        // serves /bookstore/events, restarted with this module
+        BookChangeBroadcaster.getInstance().start();
+
+        BookMetrics.getInstance().register();
+
         RepositoryJaxrsService.addEndpoint(
                 new RepositoryJaxrsEndpoint(BookStoreResources.SERVICE_PATH)
                         .singleton(new JacksonJsonProvider())
-                        .singleton(new BookStoreResources()));
+                        .singleton(new BookMetricsFilter())
+                        .singleton(new BookStoreResources(compressedBookList)));
         log.info("{} endpoint added",BookStoreResources.SERVICE_PATH);
     }
 
@@ -32,5 +61,29 @@ public class BookStoreModule implements DaemonModule{
     public void shutdown() {
         RepositoryJaxrsService.removeEndpoint(BookStoreResources.SERVICE_PATH);
         log.info("{} endpoint removed", BookStoreResources.SERVICE_PATH);
+        BookChangeBroadcaster.getInstance().shutdown();
+        if (compressedBookList != null) {
+            compressedBookList.shutdown();
+        }
+        BookMetrics.getInstance().unregister();
+    }
+
+    /**
+     * configured content encodings of the full book list
+     *
+     * @param session
+     *            system session
+     * @return the encodings in the order of preference, empty If compression
+     *         is disabled
+     * @throws RepositoryException
+     *             as generic exception
+     */
+    private List<String> getCompressedEncodings(Session session) throws RepositoryException {
+        String encodings = RepositoryUtil.getConfigString(session, MODULE_CONFIG_PATH, CONFIG_COMPRESSED_ENCODINGS);
+        if (encodings == null) {
+            encodings = DEFAULT_COMPRESSED_ENCODINGS;
+        }
+        return Arrays.stream(encodings.split(",")).map(String::trim).filter(StringUtils::isNotEmpty)
+                .collect(Collectors.toList());
     }
 }
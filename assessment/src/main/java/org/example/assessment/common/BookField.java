@@ -3,22 +3,27 @@
  */
 package org.example.assessment.common;
 
+import java.util.Arrays;
+import java.util.Optional;
+
 /**
  * Created by resulav on 02.05.2018.
  */
 public enum BookField {
 	
-	BOOK_ID("book-id"), 
-	NAME("name"), 
-	AUTHOR("author"), 
-	ISBN("isbn"), 
-	INTRODUCTION("introduction"), 
-	PARAGRAPHS("paragraphs");
+	BOOK_ID("book-id", "bookId"), 
+	NAME("name", "name"), 
+	AUTHOR("author", "author"), 
+	ISBN("isbn", "isbn"), 
+	INTRODUCTION("introduction", "introduction"), 
+	PARAGRAPHS("paragraphs", "paragraphs");
 	
 	private final String fieldName;
+	private final String propertyName;
 
-	BookField(String fieldName) {
+	BookField(String fieldName, String propertyName) {
 		this.fieldName = fieldName;
+		this.propertyName = propertyName;
 	}
 
 	/**
@@ -28,4 +33,20 @@ public enum BookField {
 		return fieldName;
 	}
 
+	/**
+	 * @return the name of the json property of {@code Book}
+	 */
+	public String getPropertyName() {
+		return propertyName;
+	}
+
+	/**
+	 * @param propertyName
+	 *            name of the json property of {@code Book}
+	 * @return the field of the property
+	 */
+	public static Optional<BookField> fromPropertyName(String propertyName) {
+		return Arrays.stream(values()).filter(f -> f.propertyName.equals(propertyName)).findFirst();
+	}
+
 }
@@ -0,0 +1,22 @@
+/**
+ *
+ */
+package org.example.assessment.common;
+
+/**
+ * Storage of the cached books
+ *
+ * @author resulav
+ *
+ */
+public enum BookStorage {
+
+	// Book instances, read without decoding
+	HEAP,
+	// bookId, name, author and ISBN on heap for the indexes, the book as UTF-8
+	// JSON decoded on read
+	COMPACT,
+	// as COMPACT with the JSON compressed
+	COMPRESSED;
+
+}
@@ -0,0 +1,18 @@
+/**
+ *
+ */
+package org.example.assessment.common;
+
+/**
+ * Type of a change of the stored books
+ *
+ * @author resulav
+ *
+ */
+public enum ChangeType {
+
+	ADDED,
+	UPDATED,
+	REMOVED;
+
+}
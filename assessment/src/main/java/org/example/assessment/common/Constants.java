@@ -20,6 +20,10 @@ public class Constants {
 	public static final String PATH_SEPARATOR = "/";
 
 	public static final int ISBN_SIZE = 13;
+
+	// pages of the book lists
+	public static final String DEFAULT_PAGE_LIMIT = "100";
+	public static final int MAX_PAGE_LIMIT = 1000;
 	
 	public static final String ERROR_INTERNAL = "Internal Error";
 
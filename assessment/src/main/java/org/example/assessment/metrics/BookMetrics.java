@@ -0,0 +1,264 @@
+package org.example.assessment.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.example.assessment.common.ResultCode;
+import org.example.assessment.exception.BookException;
+import org.example.assessment.model.BookMetricsReport;
+import org.example.assessment.model.TimerMetrics;
+import org.example.assessment.store.BookCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Metrics of the book endpoints, the store and the observer. The request
+ * threads record into striped counters and histograms without a lock; the
+ * metrics are read by {@link #getReport()} for /bookstore/metrics and by JMX
+ * under {@link #OBJECT_NAME}.
+ *
+ * @author resulav
+ *
+ */
+public class BookMetrics implements BookMetricsMXBean {
+
+	public static final String OBJECT_NAME = "org.example.assessment:type=BookMetrics";
+
+	/**
+	 * Timed phases of the requests
+	 *
+	 * @author resulav
+	 *
+	 */
+	public enum Phase {
+		// a JCR query until its result
+		QUERY,
+		// a node to a book, a summary or a body
+		CONVERSION,
+		// a response body written to the client
+		SERIALIZATION
+	}
+
+	protected final Logger log = LoggerFactory.getLogger(getClass());
+
+	private final BookCache bookCache;
+	// key = resource method
+	private final ConcurrentMap<String, LatencyHistogram> requests = new ConcurrentHashMap<>();
+	private final Map<Phase, LatencyHistogram> phases = new EnumMap<>(Phase.class);
+	private final LatencyHistogram eventLag = new LatencyHistogram();
+	private final LongAdder receivedEvents = new LongAdder();
+	private final LongAdder appliedEvents = new LongAdder();
+	private final LongAdder failedEvents = new LongAdder();
+
+	/**
+	 * @param bookCache
+	 *            store to report
+	 */
+	BookMetrics(BookCache bookCache) {
+		this.bookCache = bookCache;
+		for (Phase phase : Phase.values()) {
+			phases.put(phase, new LatencyHistogram());
+		}
+	}
+
+	public static BookMetrics getInstance() {
+		return HOLDER.INSTANCE;
+	}
+
+	/**
+	 * records a request since its start
+	 *
+	 * @param endpoint
+	 *            resource method of the request
+	 * @param startNanos
+	 *            {@link System#nanoTime()} at the start
+	 */
+	public void recordRequest(String endpoint, long startNanos) {
+		// get first, computeIfAbsent locks the bin even If the key exists
+		LatencyHistogram histogram = requests.get(endpoint);
+		if (histogram == null) {
+			histogram = requests.computeIfAbsent(endpoint, e -> new LatencyHistogram());
+		}
+		histogram.recordSince(startNanos);
+	}
+
+	/**
+	 * records a phase of a request since its start
+	 *
+	 * @param phase
+	 *            the phase
+	 * @param startNanos
+	 *            {@link System#nanoTime()} at the start
+	 */
+	public void recordPhase(Phase phase, long startNanos) {
+		phases.get(phase).recordSince(startNanos);
+	}
+
+	/**
+	 * @param count
+	 *            count of the repository events received
+	 */
+	public void eventsReceived(int count) {
+		receivedEvents.add(count);
+	}
+
+	/**
+	 * records the repository events visible in store
+	 *
+	 * @param count
+	 *            count of the applied events
+	 * @param eventDate
+	 *            date of the latest applied event in milliseconds
+	 */
+	public void eventsApplied(int count, long eventDate) {
+		appliedEvents.add(count);
+		eventLag.recordNanos(TimeUnit.MILLISECONDS.toNanos(Math.max(0, System.currentTimeMillis() - eventDate)));
+	}
+
+	/**
+	 * @param count
+	 *            count of the repository events failed to apply
+	 */
+	public void eventsFailed(int count) {
+		failedEvents.add(count);
+	}
+
+	/**
+	 * @return the metrics for /bookstore/metrics
+	 */
+	public BookMetricsReport getReport() {
+		return BookMetricsReport.newBuilder().withRequests(getRequests()).withPhases(getPhases())
+				.withCachedBooks(getCachedBooks()).withCacheEstimatedBytes(getCacheEstimatedBytes())
+				.withCacheHits(getCacheHits()).withCacheMisses(getCacheMisses())
+				.withCacheHitRatio(getCacheHitRatio()).withReceivedEvents(getReceivedEvents())
+				.withAppliedEvents(getAppliedEvents()).withFailedEvents(getFailedEvents())
+				.withEventLag(getEventLag()).build();
+	}
+
+	/**
+	 * registers the metrics to the platform MBean server, replacing the
+	 * metrics registered by a previous initialization
+	 */
+	public void register() {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName objectName = new ObjectName(OBJECT_NAME);
+			if (server.isRegistered(objectName)) {
+				server.unregisterMBean(objectName);
+			}
+			server.registerMBean(this, objectName);
+			log.info("{} registered", OBJECT_NAME);
+		} catch (JMException e) {
+			log.error("", BookException.newInstance(ResultCode.FAILED, "Error while registering book metrics", e));
+		}
+	}
+
+	/**
+	 * unregisters the metrics from the platform MBean server
+	 */
+	public void unregister() {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName objectName = new ObjectName(OBJECT_NAME);
+			if (server.isRegistered(objectName)) {
+				server.unregisterMBean(objectName);
+			}
+		} catch (JMException e) {
+			log.error("", BookException.newInstance(ResultCode.FAILED, "Error while unregistering book metrics", e));
+		}
+	}
+
+	@Override
+	public Map<String, TimerMetrics> getRequests() {
+		Map<String, TimerMetrics> metrics = new TreeMap<>();
+		requests.forEach((endpoint, histogram) -> metrics.put(endpoint, toMetrics(histogram)));
+		return metrics;
+	}
+
+	@Override
+	public Map<String, TimerMetrics> getPhases() {
+		Map<String, TimerMetrics> metrics = new TreeMap<>();
+		phases.forEach((phase, histogram) -> metrics.put(phase.name().toLowerCase(), toMetrics(histogram)));
+		return metrics;
+	}
+
+	@Override
+	public int getCachedBooks() {
+		return bookCache.size();
+	}
+
+	@Override
+	public long getCacheEstimatedBytes() {
+		return bookCache.getEstimatedBytes();
+	}
+
+	@Override
+	public long getCacheHits() {
+		return bookCache.getHitCount();
+	}
+
+	@Override
+	public long getCacheMisses() {
+		return bookCache.getMissCount();
+	}
+
+	@Override
+	public double getCacheHitRatio() {
+		long hits = bookCache.getHitCount();
+		long lookups = hits + bookCache.getMissCount();
+		return lookups == 0 ? 0 : (double) hits / lookups;
+	}
+
+	@Override
+	public long getReceivedEvents() {
+		return receivedEvents.sum();
+	}
+
+	@Override
+	public long getAppliedEvents() {
+		return appliedEvents.sum();
+	}
+
+	@Override
+	public long getFailedEvents() {
+		return failedEvents.sum();
+	}
+
+	@Override
+	public TimerMetrics getEventLag() {
+		return toMetrics(eventLag);
+	}
+
+	private static TimerMetrics toMetrics(LatencyHistogram histogram) {
+		return TimerMetrics.newBuilder().withCount(histogram.getTotalCount())
+				.withMeanMillis(toMillis(histogram.getMeanMicros()))
+				.withP50Millis(toMillis(histogram.getMicrosAtPercentile(50)))
+				.withP95Millis(toMillis(histogram.getMicrosAtPercentile(95)))
+				.withP99Millis(toMillis(histogram.getMicrosAtPercentile(99)))
+				.withMaxMillis(toMillis(histogram.getMaxMicros())).build();
+	}
+
+	private static double toMillis(long micros) {
+		return micros / 1000.0;
+	}
+
+	/**
+	 * Metrics holder
+	 *
+	 * @author resulav
+	 *
+	 */
+	private static final class HOLDER {
+		private static final BookMetrics INSTANCE = new BookMetrics(BookCache.getInstance());
+	}
+}
@@ -0,0 +1,71 @@
+package org.example.assessment.metrics;
+
+import java.util.Map;
+
+import org.example.assessment.model.TimerMetrics;
+
+/**
+ * JMX view of {@link BookMetrics}, the same metrics as
+ * {@link BookMetrics#getReport()}
+ *
+ * @author resulav
+ *
+ */
+public interface BookMetricsMXBean {
+
+	/**
+	 * @return the latency of the requests, key = resource method
+	 */
+	Map<String, TimerMetrics> getRequests();
+
+	/**
+	 * @return the latency of the query, conversion and serialization phases
+	 */
+	Map<String, TimerMetrics> getPhases();
+
+	/**
+	 * @return the count of the books in store
+	 */
+	int getCachedBooks();
+
+	/**
+	 * @return the estimated heap of the stored books in bytes
+	 */
+	long getCacheEstimatedBytes();
+
+	/**
+	 * @return the count of the store lookups finding the book
+	 */
+	long getCacheHits();
+
+	/**
+	 * @return the count of the store lookups not finding the book
+	 */
+	long getCacheMisses();
+
+	/**
+	 * @return the ratio of the hits to the lookups
+	 */
+	double getCacheHitRatio();
+
+	/**
+	 * @return the count of the repository events received by the observer
+	 */
+	long getReceivedEvents();
+
+	/**
+	 * @return the count of the repository events applied to the store
+	 */
+	long getAppliedEvents();
+
+	/**
+	 * @return the count of the repository events failed to apply
+	 */
+	long getFailedEvents();
+
+	/**
+	 * @return the time from a repository event to its book being visible in
+	 *         store
+	 */
+	TimerMetrics getEventLag();
+}
@@ -0,0 +1,151 @@
+package org.example.assessment.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram in the way of HdrHistogram: the values are counted in
+ * log-linear buckets, exact up to 128 microseconds and within 1/64 of the
+ * value above, so the percentiles of any count of values are read from a
+ * fixed memory. The maximum is kept exact. Recording takes no lock, the
+ * counters are striped and a bucket is allocated on its first value, so the
+ * concurrent request threads do not contend on one counter.
+ *
+ * @author resulav
+ *
+ */
+public final class LatencyHistogram {
+
+	// each power of two is divided into 2^(SUB_BUCKET_BITS - 1) buckets
+	private static final int SUB_BUCKET_BITS = 7;
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+	private static final int SUB_BUCKET_HALF_COUNT = SUB_BUCKET_COUNT / 2;
+	private static final int BUCKET_COUNT = (Long.SIZE - SUB_BUCKET_BITS + 2) * SUB_BUCKET_HALF_COUNT;
+
+	private final AtomicReferenceArray<LongAdder> counts = new AtomicReferenceArray<>(BUCKET_COUNT);
+	private final LongAdder totalCount = new LongAdder();
+	private final LongAdder totalMicros = new LongAdder();
+	private final LongAccumulator maxMicros = new LongAccumulator(Math::max, 0);
+
+	/**
+	 * @param nanos
+	 *            latency in nanoseconds, recorded in microseconds
+	 */
+	public void recordNanos(long nanos) {
+		long micros = Math.max(0, TimeUnit.NANOSECONDS.toMicros(nanos));
+		getCount(toIndex(micros)).increment();
+		totalCount.increment();
+		totalMicros.add(micros);
+		maxMicros.accumulate(micros);
+	}
+
+	/**
+	 * records the latency since the start
+	 *
+	 * @param startNanos
+	 *            {@link System#nanoTime()} at the start
+	 */
+	public void recordSince(long startNanos) {
+		recordNanos(System.nanoTime() - startNanos);
+	}
+
+	/**
+	 * @return count of the recorded values
+	 */
+	public long getTotalCount() {
+		return totalCount.sum();
+	}
+
+	/**
+	 * @return the mean of the recorded values in microseconds, 0 If nothing
+	 *         is recorded
+	 */
+	public long getMeanMicros() {
+		long count = totalCount.sum();
+		return count == 0 ? 0 : totalMicros.sum() / count;
+	}
+
+	/**
+	 * @return the maximum recorded value in microseconds
+	 */
+	public long getMaxMicros() {
+		return maxMicros.get();
+	}
+
+	/**
+	 * @param percentile
+	 *            percentile between 0 and 100
+	 * @return the highest value of the bucket reaching the percentile in
+	 *         microseconds, 0 If nothing is recorded
+	 */
+	public long getMicrosAtPercentile(double percentile) {
+		// the buckets are read once, values recorded meanwhile are counted
+		// or not as a whole
+		long[] bucketCounts = new long[BUCKET_COUNT];
+		long total = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			LongAdder count = counts.get(i);
+			if (count != null) {
+				bucketCounts[i] = count.sum();
+				total += bucketCounts[i];
+			}
+		}
+		if (total == 0) {
+			return 0;
+		}
+		long max = maxMicros.get();
+		long target = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+		long cumulative = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			cumulative += bucketCounts[i];
+			if (cumulative >= target) {
+				return Math.min(toHighestValue(i), max);
+			}
+		}
+		return max;
+	}
+
+	private LongAdder getCount(int index) {
+		LongAdder count = counts.get(index);
+		if (count == null) {
+			// the loser of a race uses the winner's counter
+			counts.compareAndSet(index, null, new LongAdder());
+			count = counts.get(index);
+		}
+		return count;
+	}
+
+	/**
+	 * @param value
+	 *            non-negative value
+	 * @return the bucket of the value
+	 */
+	static int toIndex(long value) {
+		if (value < SUB_BUCKET_COUNT) {
+			return (int) value;
+		}
+		int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+		int shift = exponent - SUB_BUCKET_BITS + 1;
+		// the top SUB_BUCKET_BITS bits, starting with 1
+		int mantissa = (int) (value >>> shift);
+		return (shift + 1) * SUB_BUCKET_HALF_COUNT + mantissa - SUB_BUCKET_HALF_COUNT;
+	}
+
+	/**
+	 * @param index
+	 *            a bucket
+	 * @return the highest value counted in the bucket
+	 */
+	static long toHighestValue(int index) {
+		if (index < SUB_BUCKET_COUNT) {
+			return index;
+		}
+		int shift = index / SUB_BUCKET_HALF_COUNT - 1;
+		long mantissa = index % SUB_BUCKET_HALF_COUNT + SUB_BUCKET_HALF_COUNT;
+		long highest = ((mantissa + 1) << shift) - 1;
+		// the last bucket ends at the largest long
+		return highest < 0 ? Long.MAX_VALUE : highest;
+	}
+}
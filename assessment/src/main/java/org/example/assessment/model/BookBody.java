@@ -0,0 +1,76 @@
+package org.example.assessment.model;
+
+import java.util.Arrays;
+
+/**
+ * Introduction and paragraphs of a {@link Book}, read on demand after its
+ * {@link BookSummary}
+ *
+ * @author resulav
+ *
+ */
+public class BookBody {
+
+	private String bookId;
+
+	private String[] introduction;
+
+	private String[] paragraphs;
+
+	/**
+	 * @return the bookId
+	 */
+	public String getBookId() {
+		return bookId;
+	}
+
+	/**
+	 * @param bookId
+	 *            the bookId to set
+	 */
+	public void setBookId(String bookId) {
+		this.bookId = bookId;
+	}
+
+	/**
+	 * @return the introduction
+	 */
+	public String[] getIntroduction() {
+		return introduction;
+	}
+
+	/**
+	 * @param introduction
+	 *            the introduction to set
+	 */
+	public void setIntroduction(String[] introduction) {
+		this.introduction = introduction;
+	}
+
+	/**
+	 * @return the paragraphs
+	 */
+	public String[] getParagraphs() {
+		return paragraphs;
+	}
+
+	/**
+	 * @param paragraphs
+	 *            the paragraphs to set
+	 */
+	public void setParagraphs(String[] paragraphs) {
+		this.paragraphs = paragraphs;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "BookBody [bookId=" + bookId + ", introduction=" + Arrays.toString(introduction) + ", paragraphs="
+				+ Arrays.toString(paragraphs) + "]";
+	}
+
+}
@@ -0,0 +1,138 @@
+/**
+ *
+ */
+package org.example.assessment.model;
+
+import org.example.assessment.common.ChangeType;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * @author resulav
+ *
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BookChange {
+	private long sequence;
+	private ChangeType type;
+	private String bookId;
+	private Book book;
+
+	private BookChange() {
+		// For json conversion
+	}
+
+	private BookChange(Builder builder) {
+		sequence = builder.sequence;
+		type = builder.type;
+		bookId = builder.bookId;
+		book = builder.book;
+	}
+
+	public static Builder newBuilder() {
+		return new Builder();
+	}
+
+	/**
+	 * @return the sequence number of the change, increasing by one per change
+	 */
+	public long getSequence() {
+		return sequence;
+	}
+
+	/**
+	 * @return the type of the change
+	 */
+	public ChangeType getType() {
+		return type;
+	}
+
+	/**
+	 * @return the bookId of the changed book
+	 */
+	public String getBookId() {
+		return bookId;
+	}
+
+	/**
+	 * @return the book after the change, null If removed
+	 */
+	public Book getBook() {
+		return book;
+	}
+
+	/**
+	 * {@code BookChange} builder static inner class.
+	 */
+	public static final class Builder {
+		private long sequence;
+		private ChangeType type;
+		private String bookId;
+		private Book book;
+
+		private Builder() {
+		}
+
+		/**
+		 * Sets the {@code sequence} and returns a reference to this Builder so
+		 * that the methods can be chained together.
+		 *
+		 * @param sequence
+		 *            the {@code sequence} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withSequence(long sequence) {
+			this.sequence = sequence;
+			return this;
+		}
+
+		/**
+		 * Sets the {@code type} and returns a reference to this Builder so that
+		 * the methods can be chained together.
+		 *
+		 * @param type
+		 *            the {@code type} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withType(ChangeType type) {
+			this.type = type;
+			return this;
+		}
+
+		/**
+		 * Sets the {@code bookId} and returns a reference to this Builder so that
+		 * the methods can be chained together.
+		 *
+		 * @param bookId
+		 *            the {@code bookId} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withBookId(String bookId) {
+			this.bookId = bookId;
+			return this;
+		}
+
+		/**
+		 * Sets the {@code book} and returns a reference to this Builder so that
+		 * the methods can be chained together.
+		 *
+		 * @param book
+		 *            the {@code book} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withBook(Book book) {
+			this.book = book;
+			return this;
+		}
+
+		/**
+		 * Returns a {@code BookChange} built from the parameters previously set.
+		 *
+		 * @return a {@code BookChange} built with parameters of this
+		 *         {@code BookChange.Builder}
+		 */
+		public BookChange build() {
+			return new BookChange(this);
+		}
+	}
+}
@@ -0,0 +1,250 @@
+/**
+ *
+ */
+package org.example.assessment.model;
+
+import java.util.List;
+
+import org.example.assessment.common.ResultCode;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * @author resulav
+ *
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BookChanges {
+	private Integer resultCode;
+	private String resultText;
+	private String message;
+	private long epoch;
+	private long since;
+	private long nextSince;
+	private long latestSequence;
+	private boolean resyncRequired;
+	private List<BookChange> changes;
+
+	private BookChanges() {
+		// For json conversion
+	}
+
+	private BookChanges(Builder builder) {
+		resultCode = builder.resultCode.getCode();
+		resultText = builder.resultCode.name();
+		message = builder.message;
+		epoch = builder.epoch;
+		since = builder.since;
+		nextSince = builder.nextSince;
+		latestSequence = builder.latestSequence;
+		resyncRequired = builder.resyncRequired;
+		changes = builder.changes;
+	}
+
+	public static Builder newBuilder() {
+		return new Builder();
+	}
+
+	/**
+	 * @return the resultCode
+	 */
+	public int getResultCode() {
+		return resultCode;
+	}
+
+	/**
+	 * @return the resultText
+	 */
+	public String getResultText() {
+		return resultText;
+	}
+
+	/**
+	 * @return the message
+	 */
+	public String getMessage() {
+		return message;
+	}
+
+	/**
+	 * @return the creation time of the store, sequence numbers of another
+	 *         epoch are not comparable
+	 */
+	public long getEpoch() {
+		return epoch;
+	}
+
+	/**
+	 * @return the sequence number of the request
+	 */
+	public long getSince() {
+		return since;
+	}
+
+	/**
+	 * @return the sequence number to request the next changes since
+	 */
+	public long getNextSince() {
+		return nextSince;
+	}
+
+	/**
+	 * @return the sequence number of the latest change, more changes exist If
+	 *         it is greater than nextSince
+	 */
+	public long getLatestSequence() {
+		return latestSequence;
+	}
+
+	/**
+	 * @return true If the changes since the requested sequence number are not
+	 *         kept anymore; the client reloads the stored books and requests the
+	 *         changes since nextSince
+	 */
+	public boolean isResyncRequired() {
+		return resyncRequired;
+	}
+
+	/**
+	 * @return the changes in sequence order
+	 */
+	public List<BookChange> getChanges() {
+		return changes;
+	}
+
+	/**
+	 * {@code BookChanges} builder static inner class.
+	 */
+	public static final class Builder {
+		private ResultCode resultCode;
+		private String message;
+		private long epoch;
+		private long since;
+		private long nextSince;
+		private long latestSequence;
+		private boolean resyncRequired;
+		private List<BookChange> changes = ImmutableList.of();
+
+		private Builder() {
+		}
+
+		/**
+		 * Sets the {@code resultCode} and returns a reference to this Builder so
+		 * that the methods can be chained together.
+		 *
+		 * @param resultCode
+		 *            the {@code resultCode} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withResultCode(ResultCode resultCode) {
+			this.resultCode = resultCode;
+			return this;
+		}
+
+		/**
+		 * Sets the {@code message} and returns a reference to this Builder so that
+		 * the methods can be chained together.
+		 *
+		 * @param message
+		 *            the {@code message} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withMessage(String message) {
+			this.message = message;
+			return this;
+		}
+
+		/**
+		 * Sets the {@code epoch} and returns a reference to this Builder so that
+		 * the methods can be chained together.
+		 *
+		 * @param epoch
+		 *            the {@code epoch} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withEpoch(long epoch) {
+			this.epoch = epoch;
+			return this;
+		}
+
+		/**
+		 * Sets the {@code since} and returns a reference to this Builder so that
+		 * the methods can be chained together.
+		 *
+		 * @param since
+		 *            the {@code since} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withSince(long since) {
+			this.since = since;
+			return this;
+		}
+
+		/**
+		 * Sets the {@code nextSince} and returns a reference to this Builder so
+		 * that the methods can be chained together.
+		 *
+		 * @param nextSince
+		 *            the {@code nextSince} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withNextSince(long nextSince) {
+			this.nextSince = nextSince;
+			return this;
+		}
+
+		/**
+		 * Sets the {@code latestSequence} and returns a reference to this Builder
+		 * so that the methods can be chained together.
+		 *
+		 * @param latestSequence
+		 *            the {@code latestSequence} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withLatestSequence(long latestSequence) {
+			this.latestSequence = latestSequence;
+			return this;
+		}
+
+		/**
+		 * Sets the {@code resyncRequired} and returns a reference to this Builder
+		 * so that the methods can be chained together.
+		 *
+		 * @param resyncRequired
+		 *            the {@code resyncRequired} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withResyncRequired(boolean resyncRequired) {
+			this.resyncRequired = resyncRequired;
+			return this;
+		}
+
+		/**
+		 * Sets the {@code changes} and returns a reference to this Builder so that
+		 * the methods can be chained together.
+		 *
+		 * @param changes
+		 *            the {@code changes} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withChanges(List<BookChange> changes) {
+			this.changes = ImmutableList.copyOf(changes);
+			return this;
+		}
+
+		/**
+		 * Returns a {@code BookChanges} built from the parameters previously set.
+		 *
+		 * @return a {@code BookChanges} built with parameters of this
+		 *         {@code BookChanges.Builder}
+		 */
+		public BookChanges build() {
+			if (resultCode == null) {
+				resultCode = ResultCode.SUCCESS;
+			}
+
+			return new BookChanges(this);
+		}
+	}
+}
@@ -0,0 +1,112 @@
+/**
+ *
+ */
+package org.example.assessment.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Optional;
+
+import org.apache.commons.lang3.StringUtils;
+import org.example.assessment.common.BookField;
+import org.example.assessment.common.ResultCode;
+import org.example.assessment.exception.BookException;
+
+/**
+ * Position after the last book of a page in the order of the sort field.
+ * The cursor keeps the sort key of the last book, not an offset, so the next
+ * page starts after that book even if books are added or removed meanwhile.
+ * Books of the same name are ordered by bookId.
+ *
+ * @author resulav
+ *
+ */
+public final class BookCursor {
+
+	private static final char SEPARATOR = '\u0000';
+
+	private final BookField sort;
+	private final String name;
+	private final String bookId;
+
+	private BookCursor(BookField sort, String name, String bookId) {
+		this.sort = sort;
+		this.name = name;
+		this.bookId = bookId;
+	}
+
+	/**
+	 * @param sort
+	 *            sort field of the pages
+	 * @param lastBook
+	 *            last book of the page
+	 * @return cursor after the last book
+	 */
+	public static BookCursor after(BookField sort, Book lastBook) {
+		return new BookCursor(sort, sort == BookField.NAME ? StringUtils.defaultString(lastBook.getName()) : "",
+				lastBook.getBookId());
+	}
+
+	/**
+	 * decodes the cursor of a previous page
+	 *
+	 * @param sort
+	 *            sort field of the requested page
+	 * @param cursor
+	 *            encoded cursor, empty for the first page
+	 * @return the cursor, empty for the first page
+	 * @throws BookException
+	 *             If the cursor is invalid or of another sort field
+	 */
+	public static Optional<BookCursor> decode(BookField sort, String cursor) {
+		if (StringUtils.isEmpty(cursor)) {
+			return Optional.empty();
+		}
+
+		String[] parts;
+		try {
+			parts = StringUtils.splitPreserveAllTokens(
+					new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8), SEPARATOR);
+		} catch (IllegalArgumentException e) {
+			throw BookException.newInstance(ResultCode.VALIDATION_FAILED, "invalid cursor", e);
+		}
+		if (parts.length != 3 || StringUtils.isEmpty(parts[2])) {
+			throw BookException.newInstance(ResultCode.VALIDATION_FAILED, "invalid cursor");
+		}
+		if (!sort.getPropertyName().equals(parts[0])) {
+			throw BookException.newInstance(ResultCode.VALIDATION_FAILED,
+					String.format("cursor of another sort: %s", parts[0]));
+		}
+
+		return Optional.of(new BookCursor(sort, parts[1], parts[2]));
+	}
+
+	/**
+	 * @return the cursor as url safe text
+	 */
+	public String encode() {
+		String text = sort.getPropertyName() + SEPARATOR + name + SEPARATOR + bookId;
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(text.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * @return the sort field
+	 */
+	public BookField getSort() {
+		return sort;
+	}
+
+	/**
+	 * @return the name of the last book, empty If sorted by bookId
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return the bookId of the last book
+	 */
+	public String getBookId() {
+		return bookId;
+	}
+}
@@ -0,0 +1,305 @@
+/**
+ *
+ */
+package org.example.assessment.model;
+
+import java.util.Map;
+
+/**
+ * Metrics of the book endpoints, the store and the observer
+ *
+ * @author resulav
+ *
+ */
+public class BookMetricsReport {
+	private Map<String, TimerMetrics> requests;
+	private Map<String, TimerMetrics> phases;
+	private int cachedBooks;
+	private long cacheEstimatedBytes;
+	private long cacheHits;
+	private long cacheMisses;
+	private double cacheHitRatio;
+	private long receivedEvents;
+	private long appliedEvents;
+	private long failedEvents;
+	private TimerMetrics eventLag;
+
+	private BookMetricsReport() {
+		// For json conversion
+	}
+
+	private BookMetricsReport(Builder builder) {
+		requests = builder.requests;
+		phases = builder.phases;
+		cachedBooks = builder.cachedBooks;
+		cacheEstimatedBytes = builder.cacheEstimatedBytes;
+		cacheHits = builder.cacheHits;
+		cacheMisses = builder.cacheMisses;
+		cacheHitRatio = builder.cacheHitRatio;
+		receivedEvents = builder.receivedEvents;
+		appliedEvents = builder.appliedEvents;
+		failedEvents = builder.failedEvents;
+		eventLag = builder.eventLag;
+	}
+
+	public static Builder newBuilder() {
+		return new Builder();
+	}
+
+	/**
+	 * @return the latency of the requests, key = resource method like
+	 *         {@code BookResources.searchBooks}
+	 */
+	public Map<String, TimerMetrics> getRequests() {
+		return requests;
+	}
+
+	/**
+	 * @return the latency of the phases of the requests, key =
+	 *         {@code query} per JCR query, {@code conversion} per converted
+	 *         node and {@code serialization} per response body
+	 */
+	public Map<String, TimerMetrics> getPhases() {
+		return phases;
+	}
+
+	/**
+	 * @return the count of the books in store
+	 */
+	public int getCachedBooks() {
+		return cachedBooks;
+	}
+
+	/**
+	 * @return the estimated heap of the stored books in bytes
+	 */
+	public long getCacheEstimatedBytes() {
+		return cacheEstimatedBytes;
+	}
+
+	/**
+	 * @return the count of the store lookups by bookId or ISBN finding the
+	 *         book
+	 */
+	public long getCacheHits() {
+		return cacheHits;
+	}
+
+	/**
+	 * @return the count of the store lookups by bookId or ISBN not finding
+	 *         the book
+	 */
+	public long getCacheMisses() {
+		return cacheMisses;
+	}
+
+	/**
+	 * @return the ratio of the hits to the lookups, 0 If there is no lookup
+	 */
+	public double getCacheHitRatio() {
+		return cacheHitRatio;
+	}
+
+	/**
+	 * @return the count of the repository events received by the observer
+	 */
+	public long getReceivedEvents() {
+		return receivedEvents;
+	}
+
+	/**
+	 * @return the count of the repository events applied to the store
+	 */
+	public long getAppliedEvents() {
+		return appliedEvents;
+	}
+
+	/**
+	 * @return the count of the repository events failed to apply
+	 */
+	public long getFailedEvents() {
+		return failedEvents;
+	}
+
+	/**
+	 * @return the time from a repository event to its book being visible in
+	 *         store
+	 */
+	public TimerMetrics getEventLag() {
+		return eventLag;
+	}
+
+	/**
+	 * {@code BookMetricsReport} builder static inner class.
+	 */
+	public static final class Builder {
+		private Map<String, TimerMetrics> requests;
+		private Map<String, TimerMetrics> phases;
+		private int cachedBooks;
+		private long cacheEstimatedBytes;
+		private long cacheHits;
+		private long cacheMisses;
+		private double cacheHitRatio;
+		private long receivedEvents;
+		private long appliedEvents;
+		private long failedEvents;
+		private TimerMetrics eventLag;
+
+		private Builder() {
+		}
+
+		/**
+		 * Sets the {@code requests} and returns a reference to this Builder so
+		 * that the methods can be chained together.
+		 *
+		 * @param requests
+		 *            the {@code requests} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withRequests(Map<String, TimerMetrics> requests) {
+			this.requests = requests;
+			return this;
+		}
+
+		/**
+		 * Sets the {@code phases} and returns a reference to this Builder so
+		 * that the methods can be chained together.
+		 *
+		 * @param phases
+		 *            the {@code phases} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withPhases(Map<String, TimerMetrics> phases) {
+			this.phases = phases;
+			return this;
+		}
+
+		/**
+		 * Sets the {@code cachedBooks} and returns a reference to this Builder
+		 * so that the methods can be chained together.
+		 *
+		 * @param cachedBooks
+		 *            the {@code cachedBooks} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withCachedBooks(int cachedBooks) {
+			this.cachedBooks = cachedBooks;
+			return this;
+		}
+
+		/**
+		 * Sets the {@code cacheEstimatedBytes} and returns a reference to this
+		 * Builder so that the methods can be chained together.
+		 *
+		 * @param cacheEstimatedBytes
+		 *            the {@code cacheEstimatedBytes} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withCacheEstimatedBytes(long cacheEstimatedBytes) {
+			this.cacheEstimatedBytes = cacheEstimatedBytes;
+			return this;
+		}
+
+		/**
+		 * Sets the {@code cacheHits} and returns a reference to this Builder so
+		 * that the methods can be chained together.
+		 *
+		 * @param cacheHits
+		 *            the {@code cacheHits} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withCacheHits(long cacheHits) {
+			this.cacheHits = cacheHits;
+			return this;
+		}
+
+		/**
+		 * Sets the {@code cacheMisses} and returns a reference to this Builder
+		 * so that the methods can be chained together.
+		 *
+		 * @param cacheMisses
+		 *            the {@code cacheMisses} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withCacheMisses(long cacheMisses) {
+			this.cacheMisses = cacheMisses;
+			return this;
+		}
+
+		/**
+		 * Sets the {@code cacheHitRatio} and returns a reference to this
+		 * Builder so that the methods can be chained together.
+		 *
+		 * @param cacheHitRatio
+		 *            the {@code cacheHitRatio} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withCacheHitRatio(double cacheHitRatio) {
+			this.cacheHitRatio = cacheHitRatio;
+			return this;
+		}
+
+		/**
+		 * Sets the {@code receivedEvents} and returns a reference to this
+		 * Builder so that the methods can be chained together.
+		 *
+		 * @param receivedEvents
+		 *            the {@code receivedEvents} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withReceivedEvents(long receivedEvents) {
+			this.receivedEvents = receivedEvents;
+			return this;
+		}
+
+		/**
+		 * Sets the {@code appliedEvents} and returns a reference to this
+		 * Builder so that the methods can be chained together.
+		 *
+		 * @param appliedEvents
+		 *            the {@code appliedEvents} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withAppliedEvents(long appliedEvents) {
+			this.appliedEvents = appliedEvents;
+			return this;
+		}
+
+		/**
+		 * Sets the {@code failedEvents} and returns a reference to this Builder
+		 * so that the methods can be chained together.
+		 *
+		 * @param failedEvents
+		 *            the {@code failedEvents} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withFailedEvents(long failedEvents) {
+			this.failedEvents = failedEvents;
+			return this;
+		}
+
+		/**
+		 * Sets the {@code eventLag} and returns a reference to this Builder so
+		 * that the methods can be chained together.
+		 *
+		 * @param eventLag
+		 *            the {@code eventLag} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withEventLag(TimerMetrics eventLag) {
+			this.eventLag = eventLag;
+			return this;
+		}
+
+		/**
+		 * Returns a {@code BookMetricsReport} built from the parameters
+		 * previously set.
+		 *
+		 * @return a {@code BookMetricsReport} built with parameters of this
+		 *         {@code BookMetricsReport.Builder}
+		 */
+		public BookMetricsReport build() {
+			return new BookMetricsReport(this);
+		}
+	}
+}
@@ -0,0 +1,200 @@
+/**
+ *
+ */
+package org.example.assessment.model;
+
+import java.util.List;
+
+import org.example.assessment.common.ResultCode;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * @author resulav
+ *
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BookPage {
+	private Integer resultCode;
+	private String resultText;
+	private String message;
+	private String sort;
+	private int limit;
+	private String nextCursor;
+	private List<Book> books;
+
+	private BookPage() {
+		// For json conversion
+	}
+
+	private BookPage(Builder builder) {
+		resultCode = builder.resultCode.getCode();
+		resultText = builder.resultCode.name();
+		message = builder.message;
+		sort = builder.sort;
+		limit = builder.limit;
+		nextCursor = builder.nextCursor;
+		books = builder.books;
+	}
+
+	public static Builder newBuilder() {
+		return new Builder();
+	}
+
+	/**
+	 * @return the resultCode
+	 */
+	public int getResultCode() {
+		return resultCode;
+	}
+
+	/**
+	 * @return the resultText
+	 */
+	public String getResultText() {
+		return resultText;
+	}
+
+	/**
+	 * @return the message
+	 */
+	public String getMessage() {
+		return message;
+	}
+
+	/**
+	 * @return the json property name of the sort field
+	 */
+	public String getSort() {
+		return sort;
+	}
+
+	/**
+	 * @return the maximum count of the books of the page
+	 */
+	public int getLimit() {
+		return limit;
+	}
+
+	/**
+	 * @return the cursor of the next page, null If this is the last page
+	 */
+	public String getNextCursor() {
+		return nextCursor;
+	}
+
+	/**
+	 * @return the books of the page, having only the requested fields
+	 */
+	public List<Book> getBooks() {
+		return books;
+	}
+
+	/**
+	 * {@code BookPage} builder static inner class.
+	 */
+	public static final class Builder {
+		private ResultCode resultCode;
+		private String message;
+		private String sort;
+		private int limit;
+		private String nextCursor;
+		private List<Book> books = ImmutableList.of();
+
+		private Builder() {
+		}
+
+		/**
+		 * Sets the {@code resultCode} and returns a reference to this Builder
+		 * so that the methods can be chained together.
+		 *
+		 * @param resultCode
+		 *            the {@code resultCode} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withResultCode(ResultCode resultCode) {
+			this.resultCode = resultCode;
+			return this;
+		}
+
+		/**
+		 * Sets the {@code message} and returns a reference to this Builder so
+		 * that the methods can be chained together.
+		 *
+		 * @param message
+		 *            the {@code message} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withMessage(String message) {
+			this.message = message;
+			return this;
+		}
+
+		/**
+		 * Sets the {@code sort} and returns a reference to this Builder so
+		 * that the methods can be chained together.
+		 *
+		 * @param sort
+		 *            the {@code sort} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withSort(String sort) {
+			this.sort = sort;
+			return this;
+		}
+
+		/**
+		 * Sets the {@code limit} and returns a reference to this Builder so
+		 * that the methods can be chained together.
+		 *
+		 * @param limit
+		 *            the {@code limit} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withLimit(int limit) {
+			this.limit = limit;
+			return this;
+		}
+
+		/**
+		 * Sets the {@code nextCursor} and returns a reference to this Builder
+		 * so that the methods can be chained together.
+		 *
+		 * @param nextCursor
+		 *            the {@code nextCursor} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withNextCursor(String nextCursor) {
+			this.nextCursor = nextCursor;
+			return this;
+		}
+
+		/**
+		 * Sets the {@code books} and returns a reference to this Builder so
+		 * that the methods can be chained together.
+		 *
+		 * @param books
+		 *            the {@code books} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withBooks(List<Book> books) {
+			this.books = ImmutableList.copyOf(books);
+			return this;
+		}
+
+		/**
+		 * Returns a {@code BookPage} built from the parameters previously set.
+		 *
+		 * @return a {@code BookPage} built with parameters of this
+		 *         {@code BookPage.Builder}
+		 */
+		public BookPage build() {
+			if (resultCode == null) {
+				resultCode = ResultCode.SUCCESS;
+			}
+
+			return new BookPage(this);
+		}
+	}
+}
@@ -0,0 +1,15 @@
+package org.example.assessment.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * {@link Book} of a page having only the requested fields. The fields left
+ * out are not written, the other responses write the null fields of a
+ * {@link Book} as before.
+ *
+ * @author resulav
+ *
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BookProjection extends Book {
+}
@@ -3,8 +3,13 @@
  */
 package org.example.assessment.model;
 
+import java.util.List;
+
 import org.example.assessment.common.ResultCode;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.google.common.collect.ImmutableList;
+
 /**
  * @author resulav
  *
@@ -13,6 +18,8 @@ public class BookResponse {
 	private Integer resultCode;
 	private String resultText;
 	private String message;
+	@JsonInclude(JsonInclude.Include.NON_NULL)
+	private List<BookResult> results;
 
 	private BookResponse() {
 		// For json conversion
@@ -22,6 +29,7 @@ public class BookResponse {
 		resultCode = builder.resultCode.getCode();
 		resultText = builder.resultCode.name();
 		message = builder.message;
+		results = builder.results;
 	}
 
 	public static Builder newBuilder() {
@@ -49,12 +57,21 @@ public class BookResponse {
 		return message;
 	}
 
+	/**
+	 * @return the result of each book of the request, null If the service
+	 *         has no per-book result
+	 */
+	public List<BookResult> getResults() {
+		return results;
+	}
+
 	/**
 	 * {@code BookResponse} builder static inner class.
 	 */
 	public static final class Builder {
 		private ResultCode resultCode;
 		private String message;
+		private List<BookResult> results;
 
 		private Builder() {
 		}
@@ -85,6 +102,19 @@ public class BookResponse {
 			return this;
 		}
 
+		/**
+		 * Sets the {@code results} and returns a reference to this Builder so
+		 * that the methods can be chained together.
+		 *
+		 * @param results
+		 *            the {@code results} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withResults(List<BookResult> results) {
+			this.results = ImmutableList.copyOf(results);
+			return this;
+		}
+
 		/**
 		 * Returns a {@code BookResponse} built from the parameters previously
 		 * set.
@@ -0,0 +1,175 @@
+/**
+ *
+ */
+package org.example.assessment.model;
+
+import org.example.assessment.common.ResultCode;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * @author resulav
+ *
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BookResult {
+	private int index;
+	private String bookId;
+	private String isbn;
+	private Integer resultCode;
+	private String resultText;
+	private String message;
+
+	private BookResult() {
+		// For json conversion
+	}
+
+	private BookResult(Builder builder) {
+		index = builder.index;
+		bookId = builder.bookId;
+		isbn = builder.isbn;
+		resultCode = builder.resultCode.getCode();
+		resultText = builder.resultCode.name();
+		message = builder.message;
+	}
+
+	public static Builder newBuilder() {
+		return new Builder();
+	}
+
+	/**
+	 * @return the index of the book in the request
+	 */
+	public int getIndex() {
+		return index;
+	}
+
+	/**
+	 * @return the bookId of the added book, null If the book is not added
+	 */
+	public String getBookId() {
+		return bookId;
+	}
+
+	/**
+	 * @return the isbn
+	 */
+	public String getIsbn() {
+		return isbn;
+	}
+
+	/**
+	 * @return the resultCode
+	 */
+	public int getResultCode() {
+		return resultCode;
+	}
+
+	/**
+	 * @return the resultText
+	 */
+	public String getResultText() {
+		return resultText;
+	}
+
+	/**
+	 * @return the message
+	 */
+	public String getMessage() {
+		return message;
+	}
+
+	/**
+	 * {@code BookResult} builder static inner class.
+	 */
+	public static final class Builder {
+		private int index;
+		private String bookId;
+		private String isbn;
+		private ResultCode resultCode;
+		private String message;
+
+		private Builder() {
+		}
+
+		/**
+		 * Sets the {@code index} and returns a reference to this Builder so
+		 * that the methods can be chained together.
+		 *
+		 * @param index
+		 *            the {@code index} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withIndex(int index) {
+			this.index = index;
+			return this;
+		}
+
+		/**
+		 * Sets the {@code bookId} and returns a reference to this Builder so
+		 * that the methods can be chained together.
+		 *
+		 * @param bookId
+		 *            the {@code bookId} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withBookId(String bookId) {
+			this.bookId = bookId;
+			return this;
+		}
+
+		/**
+		 * Sets the {@code isbn} and returns a reference to this Builder so
+		 * that the methods can be chained together.
+		 *
+		 * @param isbn
+		 *            the {@code isbn} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withIsbn(String isbn) {
+			this.isbn = isbn;
+			return this;
+		}
+
+		/**
+		 * Sets the {@code resultCode} and returns a reference to this Builder
+		 * so that the methods can be chained together.
+		 *
+		 * @param resultCode
+		 *            the {@code resultCode} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withResultCode(ResultCode resultCode) {
+			this.resultCode = resultCode;
+			return this;
+		}
+
+		/**
+		 * Sets the {@code message} and returns a reference to this Builder so
+		 * that the methods can be chained together.
+		 *
+		 * @param message
+		 *            the {@code message} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withMessage(String message) {
+			this.message = message;
+			return this;
+		}
+
+		/**
+		 * Returns a {@code BookResult} built from the parameters previously
+		 * set.
+		 *
+		 * @return a {@code BookResult} built with parameters of this
+		 *         {@code BookResult.Builder}
+		 */
+		public BookResult build() {
+			if (resultCode == null) {
+				resultCode = ResultCode.SUCCESS;
+			}
+
+			return new BookResult(this);
+		}
+	}
+}
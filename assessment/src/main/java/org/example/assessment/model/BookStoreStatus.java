@@ -0,0 +1,203 @@
+/**
+ *
+ */
+package org.example.assessment.model;
+
+/**
+ * @author resulav
+ *
+ */
+public class BookStoreStatus {
+	private boolean ready;
+	private long totalBooks;
+	private long loadedBooks;
+	private long failedBooks;
+	private int progressPercentage;
+	private int bookCount;
+	private long warmUpMillis;
+
+	private BookStoreStatus() {
+		// For json conversion
+	}
+
+	private BookStoreStatus(Builder builder) {
+		ready = builder.ready;
+		totalBooks = builder.totalBooks;
+		loadedBooks = builder.loadedBooks;
+		failedBooks = builder.failedBooks;
+		progressPercentage = builder.progressPercentage;
+		bookCount = builder.bookCount;
+		warmUpMillis = builder.warmUpMillis;
+	}
+
+	public static Builder newBuilder() {
+		return new Builder();
+	}
+
+	/**
+	 * @return true If the books of the repository are loaded to the store
+	 */
+	public boolean isReady() {
+		return ready;
+	}
+
+	/**
+	 * @return the count of the books found in repository at startup
+	 */
+	public long getTotalBooks() {
+		return totalBooks;
+	}
+
+	/**
+	 * @return the count of the books loaded at startup so far
+	 */
+	public long getLoadedBooks() {
+		return loadedBooks;
+	}
+
+	/**
+	 * @return the count of the books failed to load at startup
+	 */
+	public long getFailedBooks() {
+		return failedBooks;
+	}
+
+	/**
+	 * @return the percentage of the loaded books at startup
+	 */
+	public int getProgressPercentage() {
+		return progressPercentage;
+	}
+
+	/**
+	 * @return the count of stored books
+	 */
+	public int getBookCount() {
+		return bookCount;
+	}
+
+	/**
+	 * @return the milliseconds spent loading the books at startup so far
+	 */
+	public long getWarmUpMillis() {
+		return warmUpMillis;
+	}
+
+	/**
+	 * {@code BookStoreStatus} builder static inner class.
+	 */
+	public static final class Builder {
+		private boolean ready;
+		private long totalBooks;
+		private long loadedBooks;
+		private long failedBooks;
+		private int progressPercentage;
+		private int bookCount;
+		private long warmUpMillis;
+
+		private Builder() {
+		}
+
+		/**
+		 * Sets the {@code ready} and returns a reference to this Builder so
+		 * that the methods can be chained together.
+		 *
+		 * @param ready
+		 *            the {@code ready} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withReady(boolean ready) {
+			this.ready = ready;
+			return this;
+		}
+
+		/**
+		 * Sets the {@code totalBooks} and returns a reference to this Builder
+		 * so that the methods can be chained together.
+		 *
+		 * @param totalBooks
+		 *            the {@code totalBooks} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withTotalBooks(long totalBooks) {
+			this.totalBooks = totalBooks;
+			return this;
+		}
+
+		/**
+		 * Sets the {@code loadedBooks} and returns a reference to this Builder
+		 * so that the methods can be chained together.
+		 *
+		 * @param loadedBooks
+		 *            the {@code loadedBooks} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withLoadedBooks(long loadedBooks) {
+			this.loadedBooks = loadedBooks;
+			return this;
+		}
+
+		/**
+		 * Sets the {@code failedBooks} and returns a reference to this Builder
+		 * so that the methods can be chained together.
+		 *
+		 * @param failedBooks
+		 *            the {@code failedBooks} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withFailedBooks(long failedBooks) {
+			this.failedBooks = failedBooks;
+			return this;
+		}
+
+		/**
+		 * Sets the {@code progressPercentage} and returns a reference to this
+		 * Builder so that the methods can be chained together.
+		 *
+		 * @param progressPercentage
+		 *            the {@code progressPercentage} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withProgressPercentage(int progressPercentage) {
+			this.progressPercentage = progressPercentage;
+			return this;
+		}
+
+		/**
+		 * Sets the {@code bookCount} and returns a reference to this Builder
+		 * so that the methods can be chained together.
+		 *
+		 * @param bookCount
+		 *            the {@code bookCount} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withBookCount(int bookCount) {
+			this.bookCount = bookCount;
+			return this;
+		}
+
+		/**
+		 * Sets the {@code warmUpMillis} and returns a reference to this
+		 * Builder so that the methods can be chained together.
+		 *
+		 * @param warmUpMillis
+		 *            the {@code warmUpMillis} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withWarmUpMillis(long warmUpMillis) {
+			this.warmUpMillis = warmUpMillis;
+			return this;
+		}
+
+		/**
+		 * Returns a {@code BookStoreStatus} built from the parameters
+		 * previously set.
+		 *
+		 * @return a {@code BookStoreStatus} built with parameters of this
+		 *         {@code BookStoreStatus.Builder}
+		 */
+		public BookStoreStatus build() {
+			return new BookStoreStatus(this);
+		}
+	}
+}
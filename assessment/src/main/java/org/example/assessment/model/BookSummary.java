@@ -0,0 +1,121 @@
+package org.example.assessment.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Header fields of a {@link Book} without its introduction and paragraphs.
+ * Reading a summary does not touch the multi-valued text properties, the
+ * body of the book is read by {@link BookBody}.
+ *
+ * @author resulav
+ *
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BookSummary {
+
+	private String bookId;
+
+	private String name;
+
+	private String author;
+
+	private String isbn;
+
+	/**
+	 * @return the bookId
+	 */
+	public String getBookId() {
+		return bookId;
+	}
+
+	/**
+	 * @param bookId
+	 *            the bookId to set
+	 */
+	public void setBookId(String bookId) {
+		this.bookId = bookId;
+	}
+
+	/**
+	 * @return the name
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @param name
+	 *            the name to set
+	 */
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * @return the author
+	 */
+	public String getAuthor() {
+		return author;
+	}
+
+	/**
+	 * @param author
+	 *            the author to set
+	 */
+	public void setAuthor(String author) {
+		this.author = author;
+	}
+
+	/**
+	 * @return the isbn
+	 */
+	public String getIsbn() {
+		return isbn;
+	}
+
+	/**
+	 * @param isbn
+	 *            the isbn to set
+	 */
+	public void setIsbn(String isbn) {
+		this.isbn = isbn;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.lang.Object#equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals(Object o) {
+		if (this == o)
+			return true;
+		if (o == null || getClass() != o.getClass())
+			return false;
+
+		BookSummary summary = (BookSummary) o;
+
+		return bookId != null ? bookId.equals(summary.bookId) : summary.bookId == null;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.lang.Object#hashCode()
+	 */
+	@Override
+	public int hashCode() {
+		return bookId != null ? bookId.hashCode() : 0;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "BookSummary [bookId=" + bookId + ", name=" + name + ", author=" + author + ", isbn=" + isbn + "]";
+	}
+
+}
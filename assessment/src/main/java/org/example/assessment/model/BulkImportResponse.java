@@ -0,0 +1,247 @@
+/**
+ *
+ */
+package org.example.assessment.model;
+
+import java.util.List;
+
+import org.example.assessment.common.ResultCode;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * @author resulav
+ *
+ */
+public class BulkImportResponse {
+	private Integer resultCode;
+	private String resultText;
+	private String message;
+	private int totalBooks;
+	private int chunkSize;
+	private int chunkCount;
+	private int importedBooks;
+	private int nextChunk;
+	private List<ChunkResult> chunks;
+
+	private BulkImportResponse() {
+		// For json conversion
+	}
+
+	private BulkImportResponse(Builder builder) {
+		resultCode = builder.resultCode.getCode();
+		resultText = builder.resultCode.name();
+		message = builder.message;
+		totalBooks = builder.totalBooks;
+		chunkSize = builder.chunkSize;
+		chunkCount = builder.chunkCount;
+		importedBooks = builder.importedBooks;
+		nextChunk = builder.nextChunk;
+		chunks = builder.chunks;
+	}
+
+	public static Builder newBuilder() {
+		return new Builder();
+	}
+
+	/**
+	 * @return the resultCode
+	 */
+	public int getResultCode() {
+		return resultCode;
+	}
+
+	/**
+	 * @return the resultText
+	 */
+	public String getResultText() {
+		return resultText;
+	}
+
+	/**
+	 * @return the message
+	 */
+	public String getMessage() {
+		return message;
+	}
+
+	/**
+	 * @return the count of the books of the request
+	 */
+	public int getTotalBooks() {
+		return totalBooks;
+	}
+
+	/**
+	 * @return the count of the books committed by one save
+	 */
+	public int getChunkSize() {
+		return chunkSize;
+	}
+
+	/**
+	 * @return the count of the chunks of the request
+	 */
+	public int getChunkCount() {
+		return chunkCount;
+	}
+
+	/**
+	 * @return the count of the books committed by this request
+	 */
+	public int getImportedBooks() {
+		return importedBooks;
+	}
+
+	/**
+	 * @return the first chunk not committed yet, to resume from after a
+	 *         failure; equals to {@link #getChunkCount()} If all chunks are
+	 *         committed
+	 */
+	public int getNextChunk() {
+		return nextChunk;
+	}
+
+	/**
+	 * @return the results of the processed chunks
+	 */
+	public List<ChunkResult> getChunks() {
+		return chunks;
+	}
+
+	/**
+	 * {@code BulkImportResponse} builder static inner class.
+	 */
+	public static final class Builder {
+		private ResultCode resultCode;
+		private String message;
+		private int totalBooks;
+		private int chunkSize;
+		private int chunkCount;
+		private int importedBooks;
+		private int nextChunk;
+		private List<ChunkResult> chunks = ImmutableList.of();
+
+		private Builder() {
+		}
+
+		/**
+		 * Sets the {@code resultCode} and returns a reference to this Builder
+		 * so that the methods can be chained together.
+		 *
+		 * @param resultCode
+		 *            the {@code resultCode} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withResultCode(ResultCode resultCode) {
+			this.resultCode = resultCode;
+			return this;
+		}
+
+		/**
+		 * Sets the {@code message} and returns a reference to this Builder so
+		 * that the methods can be chained together.
+		 *
+		 * @param message
+		 *            the {@code message} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withMessage(String message) {
+			this.message = message;
+			return this;
+		}
+
+		/**
+		 * Sets the {@code totalBooks} and returns a reference to this Builder
+		 * so that the methods can be chained together.
+		 *
+		 * @param totalBooks
+		 *            the {@code totalBooks} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withTotalBooks(int totalBooks) {
+			this.totalBooks = totalBooks;
+			return this;
+		}
+
+		/**
+		 * Sets the {@code chunkSize} and returns a reference to this Builder
+		 * so that the methods can be chained together.
+		 *
+		 * @param chunkSize
+		 *            the {@code chunkSize} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withChunkSize(int chunkSize) {
+			this.chunkSize = chunkSize;
+			return this;
+		}
+
+		/**
+		 * Sets the {@code chunkCount} and returns a reference to this Builder
+		 * so that the methods can be chained together.
+		 *
+		 * @param chunkCount
+		 *            the {@code chunkCount} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withChunkCount(int chunkCount) {
+			this.chunkCount = chunkCount;
+			return this;
+		}
+
+		/**
+		 * Sets the {@code importedBooks} and returns a reference to this
+		 * Builder so that the methods can be chained together.
+		 *
+		 * @param importedBooks
+		 *            the {@code importedBooks} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withImportedBooks(int importedBooks) {
+			this.importedBooks = importedBooks;
+			return this;
+		}
+
+		/**
+		 * Sets the {@code nextChunk} and returns a reference to this Builder
+		 * so that the methods can be chained together.
+		 *
+		 * @param nextChunk
+		 *            the {@code nextChunk} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withNextChunk(int nextChunk) {
+			this.nextChunk = nextChunk;
+			return this;
+		}
+
+		/**
+		 * Sets the {@code chunks} and returns a reference to this Builder so
+		 * that the methods can be chained together.
+		 *
+		 * @param chunks
+		 *            the {@code chunks} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withChunks(List<ChunkResult> chunks) {
+			this.chunks = ImmutableList.copyOf(chunks);
+			return this;
+		}
+
+		/**
+		 * Returns a {@code BulkImportResponse} built from the parameters
+		 * previously set.
+		 *
+		 * @return a {@code BulkImportResponse} built with parameters of this
+		 *         {@code BulkImportResponse.Builder}
+		 */
+		public BulkImportResponse build() {
+			if (resultCode == null) {
+				resultCode = ResultCode.SUCCESS;
+			}
+
+			return new BulkImportResponse(this);
+		}
+	}
+}
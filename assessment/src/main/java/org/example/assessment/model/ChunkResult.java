@@ -0,0 +1,195 @@
+/**
+ *
+ */
+package org.example.assessment.model;
+
+import org.example.assessment.common.ResultCode;
+
+/**
+ * @author resulav
+ *
+ */
+public class ChunkResult {
+	private int chunk;
+	private int firstBook;
+	private int bookCount;
+	private Integer resultCode;
+	private String resultText;
+	private String message;
+	private long durationMillis;
+
+	private ChunkResult() {
+		// For json conversion
+	}
+
+	private ChunkResult(Builder builder) {
+		chunk = builder.chunk;
+		firstBook = builder.firstBook;
+		bookCount = builder.bookCount;
+		resultCode = builder.resultCode.getCode();
+		resultText = builder.resultCode.name();
+		message = builder.message;
+		durationMillis = builder.durationMillis;
+	}
+
+	public static Builder newBuilder() {
+		return new Builder();
+	}
+
+	/**
+	 * @return the index of the chunk
+	 */
+	public int getChunk() {
+		return chunk;
+	}
+
+	/**
+	 * @return the index of the first book of the chunk in the request
+	 */
+	public int getFirstBook() {
+		return firstBook;
+	}
+
+	/**
+	 * @return the count of the books of the chunk
+	 */
+	public int getBookCount() {
+		return bookCount;
+	}
+
+	/**
+	 * @return the resultCode
+	 */
+	public int getResultCode() {
+		return resultCode;
+	}
+
+	/**
+	 * @return the resultText
+	 */
+	public String getResultText() {
+		return resultText;
+	}
+
+	/**
+	 * @return the message
+	 */
+	public String getMessage() {
+		return message;
+	}
+
+	/**
+	 * @return the milliseconds spent to validate and to save the chunk
+	 */
+	public long getDurationMillis() {
+		return durationMillis;
+	}
+
+	/**
+	 * {@code ChunkResult} builder static inner class.
+	 */
+	public static final class Builder {
+		private int chunk;
+		private int firstBook;
+		private int bookCount;
+		private ResultCode resultCode;
+		private String message;
+		private long durationMillis;
+
+		private Builder() {
+		}
+
+		/**
+		 * Sets the {@code chunk} and returns a reference to this Builder so
+		 * that the methods can be chained together.
+		 *
+		 * @param chunk
+		 *            the {@code chunk} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withChunk(int chunk) {
+			this.chunk = chunk;
+			return this;
+		}
+
+		/**
+		 * Sets the {@code firstBook} and returns a reference to this Builder
+		 * so that the methods can be chained together.
+		 *
+		 * @param firstBook
+		 *            the {@code firstBook} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withFirstBook(int firstBook) {
+			this.firstBook = firstBook;
+			return this;
+		}
+
+		/**
+		 * Sets the {@code bookCount} and returns a reference to this Builder
+		 * so that the methods can be chained together.
+		 *
+		 * @param bookCount
+		 *            the {@code bookCount} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withBookCount(int bookCount) {
+			this.bookCount = bookCount;
+			return this;
+		}
+
+		/**
+		 * Sets the {@code resultCode} and returns a reference to this Builder
+		 * so that the methods can be chained together.
+		 *
+		 * @param resultCode
+		 *            the {@code resultCode} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withResultCode(ResultCode resultCode) {
+			this.resultCode = resultCode;
+			return this;
+		}
+
+		/**
+		 * Sets the {@code message} and returns a reference to this Builder so
+		 * that the methods can be chained together.
+		 *
+		 * @param message
+		 *            the {@code message} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withMessage(String message) {
+			this.message = message;
+			return this;
+		}
+
+		/**
+		 * Sets the {@code durationMillis} and returns a reference to this
+		 * Builder so that the methods can be chained together.
+		 *
+		 * @param durationMillis
+		 *            the {@code durationMillis} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withDurationMillis(long durationMillis) {
+			this.durationMillis = durationMillis;
+			return this;
+		}
+
+		/**
+		 * Returns a {@code ChunkResult} built from the parameters previously
+		 * set.
+		 *
+		 * @return a {@code ChunkResult} built with parameters of this
+		 *         {@code ChunkResult.Builder}
+		 */
+		public ChunkResult build() {
+			if (resultCode == null) {
+				resultCode = ResultCode.SUCCESS;
+			}
+
+			return new ChunkResult(this);
+		}
+	}
+}
@@ -0,0 +1,204 @@
+/**
+ *
+ */
+package org.example.assessment.model;
+
+/**
+ * @author resulav
+ *
+ */
+public class SearchIndexStatus {
+	private int bookCount;
+	private int tokenCount;
+	private long pendingEvents;
+	private long failedEvents;
+	private long lastReceivedEventDate;
+	private long lastAppliedEventDate;
+	private long stalenessMillis;
+
+	private SearchIndexStatus() {
+		// For json conversion
+	}
+
+	private SearchIndexStatus(Builder builder) {
+		bookCount = builder.bookCount;
+		tokenCount = builder.tokenCount;
+		pendingEvents = builder.pendingEvents;
+		failedEvents = builder.failedEvents;
+		lastReceivedEventDate = builder.lastReceivedEventDate;
+		lastAppliedEventDate = builder.lastAppliedEventDate;
+		stalenessMillis = builder.stalenessMillis;
+	}
+
+	public static Builder newBuilder() {
+		return new Builder();
+	}
+
+	/**
+	 * @return the count of indexed books
+	 */
+	public int getBookCount() {
+		return bookCount;
+	}
+
+	/**
+	 * @return the count of distinct indexed tokens
+	 */
+	public int getTokenCount() {
+		return tokenCount;
+	}
+
+	/**
+	 * @return the count of received events not applied to the index yet
+	 */
+	public long getPendingEvents() {
+		return pendingEvents;
+	}
+
+	/**
+	 * @return the count of received events failed to apply to the index
+	 */
+	public long getFailedEvents() {
+		return failedEvents;
+	}
+
+	/**
+	 * @return the date of the last received event in milliseconds
+	 */
+	public long getLastReceivedEventDate() {
+		return lastReceivedEventDate;
+	}
+
+	/**
+	 * @return the date of the last applied event in milliseconds
+	 */
+	public long getLastAppliedEventDate() {
+		return lastAppliedEventDate;
+	}
+
+	/**
+	 * @return the milliseconds the index is behind the last received event,
+	 *         0 If all events are applied
+	 */
+	public long getStalenessMillis() {
+		return stalenessMillis;
+	}
+
+	/**
+	 * {@code SearchIndexStatus} builder static inner class.
+	 */
+	public static final class Builder {
+		private int bookCount;
+		private int tokenCount;
+		private long pendingEvents;
+		private long failedEvents;
+		private long lastReceivedEventDate;
+		private long lastAppliedEventDate;
+		private long stalenessMillis;
+
+		private Builder() {
+		}
+
+		/**
+		 * Sets the {@code bookCount} and returns a reference to this Builder
+		 * so that the methods can be chained together.
+		 *
+		 * @param bookCount
+		 *            the {@code bookCount} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withBookCount(int bookCount) {
+			this.bookCount = bookCount;
+			return this;
+		}
+
+		/**
+		 * Sets the {@code tokenCount} and returns a reference to this Builder
+		 * so that the methods can be chained together.
+		 *
+		 * @param tokenCount
+		 *            the {@code tokenCount} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withTokenCount(int tokenCount) {
+			this.tokenCount = tokenCount;
+			return this;
+		}
+
+		/**
+		 * Sets the {@code pendingEvents} and returns a reference to this
+		 * Builder so that the methods can be chained together.
+		 *
+		 * @param pendingEvents
+		 *            the {@code pendingEvents} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withPendingEvents(long pendingEvents) {
+			this.pendingEvents = pendingEvents;
+			return this;
+		}
+
+		/**
+		 * Sets the {@code failedEvents} and returns a reference to this
+		 * Builder so that the methods can be chained together.
+		 *
+		 * @param failedEvents
+		 *            the {@code failedEvents} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withFailedEvents(long failedEvents) {
+			this.failedEvents = failedEvents;
+			return this;
+		}
+
+		/**
+		 * Sets the {@code lastReceivedEventDate} and returns a reference to
+		 * this Builder so that the methods can be chained together.
+		 *
+		 * @param lastReceivedEventDate
+		 *            the {@code lastReceivedEventDate} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withLastReceivedEventDate(long lastReceivedEventDate) {
+			this.lastReceivedEventDate = lastReceivedEventDate;
+			return this;
+		}
+
+		/**
+		 * Sets the {@code lastAppliedEventDate} and returns a reference to
+		 * this Builder so that the methods can be chained together.
+		 *
+		 * @param lastAppliedEventDate
+		 *            the {@code lastAppliedEventDate} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withLastAppliedEventDate(long lastAppliedEventDate) {
+			this.lastAppliedEventDate = lastAppliedEventDate;
+			return this;
+		}
+
+		/**
+		 * Sets the {@code stalenessMillis} and returns a reference to this
+		 * Builder so that the methods can be chained together.
+		 *
+		 * @param stalenessMillis
+		 *            the {@code stalenessMillis} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withStalenessMillis(long stalenessMillis) {
+			this.stalenessMillis = stalenessMillis;
+			return this;
+		}
+
+		/**
+		 * Returns a {@code SearchIndexStatus} built from the parameters
+		 * previously set.
+		 *
+		 * @return a {@code SearchIndexStatus} built with parameters of this
+		 *         {@code SearchIndexStatus.Builder}
+		 */
+		public SearchIndexStatus build() {
+			return new SearchIndexStatus(this);
+		}
+	}
+}
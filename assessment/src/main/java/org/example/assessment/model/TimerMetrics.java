@@ -0,0 +1,182 @@
+/**
+ *
+ */
+package org.example.assessment.model;
+
+/**
+ * Count and latency percentiles of a timed operation
+ *
+ * @author resulav
+ *
+ */
+public class TimerMetrics {
+	private long count;
+	private double meanMillis;
+	private double p50Millis;
+	private double p95Millis;
+	private double p99Millis;
+	private double maxMillis;
+
+	private TimerMetrics() {
+		// For json conversion
+	}
+
+	private TimerMetrics(Builder builder) {
+		count = builder.count;
+		meanMillis = builder.meanMillis;
+		p50Millis = builder.p50Millis;
+		p95Millis = builder.p95Millis;
+		p99Millis = builder.p99Millis;
+		maxMillis = builder.maxMillis;
+	}
+
+	public static Builder newBuilder() {
+		return new Builder();
+	}
+
+	/**
+	 * @return the count of the timed operations
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * @return the mean latency in milliseconds
+	 */
+	public double getMeanMillis() {
+		return meanMillis;
+	}
+
+	/**
+	 * @return the median latency in milliseconds
+	 */
+	public double getP50Millis() {
+		return p50Millis;
+	}
+
+	/**
+	 * @return the 95th percentile of the latency in milliseconds
+	 */
+	public double getP95Millis() {
+		return p95Millis;
+	}
+
+	/**
+	 * @return the 99th percentile of the latency in milliseconds
+	 */
+	public double getP99Millis() {
+		return p99Millis;
+	}
+
+	/**
+	 * @return the maximum latency in milliseconds
+	 */
+	public double getMaxMillis() {
+		return maxMillis;
+	}
+
+	/**
+	 * {@code TimerMetrics} builder static inner class.
+	 */
+	public static final class Builder {
+		private long count;
+		private double meanMillis;
+		private double p50Millis;
+		private double p95Millis;
+		private double p99Millis;
+		private double maxMillis;
+
+		private Builder() {
+		}
+
+		/**
+		 * Sets the {@code count} and returns a reference to this Builder so
+		 * that the methods can be chained together.
+		 *
+		 * @param count
+		 *            the {@code count} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withCount(long count) {
+			this.count = count;
+			return this;
+		}
+
+		/**
+		 * Sets the {@code meanMillis} and returns a reference to this Builder
+		 * so that the methods can be chained together.
+		 *
+		 * @param meanMillis
+		 *            the {@code meanMillis} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withMeanMillis(double meanMillis) {
+			this.meanMillis = meanMillis;
+			return this;
+		}
+
+		/**
+		 * Sets the {@code p50Millis} and returns a reference to this Builder
+		 * so that the methods can be chained together.
+		 *
+		 * @param p50Millis
+		 *            the {@code p50Millis} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withP50Millis(double p50Millis) {
+			this.p50Millis = p50Millis;
+			return this;
+		}
+
+		/**
+		 * Sets the {@code p95Millis} and returns a reference to this Builder
+		 * so that the methods can be chained together.
+		 *
+		 * @param p95Millis
+		 *            the {@code p95Millis} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withP95Millis(double p95Millis) {
+			this.p95Millis = p95Millis;
+			return this;
+		}
+
+		/**
+		 * Sets the {@code p99Millis} and returns a reference to this Builder
+		 * so that the methods can be chained together.
+		 *
+		 * @param p99Millis
+		 *            the {@code p99Millis} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withP99Millis(double p99Millis) {
+			this.p99Millis = p99Millis;
+			return this;
+		}
+
+		/**
+		 * Sets the {@code maxMillis} and returns a reference to this Builder
+		 * so that the methods can be chained together.
+		 *
+		 * @param maxMillis
+		 *            the {@code maxMillis} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withMaxMillis(double maxMillis) {
+			this.maxMillis = maxMillis;
+			return this;
+		}
+
+		/**
+		 * Returns a {@code TimerMetrics} built from the parameters previously
+		 * set.
+		 *
+		 * @return a {@code TimerMetrics} built with parameters of this
+		 *         {@code TimerMetrics.Builder}
+		 */
+		public TimerMetrics build() {
+			return new TimerMetrics(this);
+		}
+	}
+}
@@ -0,0 +1,77 @@
+package org.example.assessment.resource;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+
+import org.example.assessment.metrics.BookMetrics;
+
+/**
+ * Records the latency of the requests by their resource method, like
+ * {@code BookResources.searchBooks}, and the serialization of the response
+ * bodies to {@link BookMetrics}. A request with a body is recorded after the
+ * body is written. The event streams are not recorded, they are open until
+ * the client disconnects.
+ *
+ * @author resulav
+ *
+ */
+@Provider
+public class BookMetricsFilter implements ContainerRequestFilter, ContainerResponseFilter, WriterInterceptor {
+
+	private static final String PROPERTY_START_NANOS = BookMetricsFilter.class.getName() + ".startNanos";
+	private static final String PROPERTY_ENDPOINT = BookMetricsFilter.class.getName() + ".endpoint";
+	private static final MediaType EVENT_STREAM_TYPE = MediaType
+			.valueOf(BookStoreResources.MEDIA_TYPE_EVENT_STREAM);
+
+	@Context
+	private ResourceInfo resourceInfo;
+
+	@Override
+	public void filter(ContainerRequestContext requestContext) {
+		requestContext.setProperty(PROPERTY_START_NANOS, System.nanoTime());
+	}
+
+	@Override
+	public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+		Object startNanos = requestContext.getProperty(PROPERTY_START_NANOS);
+		Method method = resourceInfo == null ? null : resourceInfo.getResourceMethod();
+		MediaType mediaType = responseContext.getMediaType();
+		if (startNanos == null || method == null || mediaType != null && EVENT_STREAM_TYPE.isCompatible(mediaType)) {
+			return;
+		}
+		String endpoint = resourceInfo.getResourceClass().getSimpleName() + "." + method.getName();
+		if (responseContext.hasEntity()) {
+			requestContext.setProperty(PROPERTY_ENDPOINT, endpoint);
+		} else {
+			BookMetrics.getInstance().recordRequest(endpoint, (Long) startNanos);
+		}
+	}
+
+	@Override
+	public void aroundWriteTo(WriterInterceptorContext context) throws IOException {
+		Object endpoint = context.getProperty(PROPERTY_ENDPOINT);
+		if (endpoint == null) {
+			context.proceed();
+			return;
+		}
+		long start = System.nanoTime();
+		try {
+			context.proceed();
+		} finally {
+			BookMetrics metrics = BookMetrics.getInstance();
+			metrics.recordPhase(BookMetrics.Phase.SERIALIZATION, start);
+			metrics.recordRequest((String) endpoint, (Long) context.getProperty(PROPERTY_START_NANOS));
+		}
+	}
+}
@@ -1,32 +1,64 @@
 package org.example.assessment.resource;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import javax.jcr.RepositoryException;
-import javax.jcr.Session;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 
+import org.apache.commons.lang3.StringUtils;
+import org.example.assessment.common.BookField;
 import org.example.assessment.common.Constants;
 import org.example.assessment.common.ResultCode;
 import org.example.assessment.exception.BookException;
 import org.example.assessment.model.Book;
+import org.example.assessment.model.BookBody;
+import org.example.assessment.model.BookCursor;
+import org.example.assessment.model.BookPage;
 import org.example.assessment.model.BookResponse;
+import org.example.assessment.model.BookResult;
+import org.example.assessment.model.BookSummary;
+import org.example.assessment.model.BulkImportResponse;
+import org.example.assessment.model.ChunkResult;
 import org.example.assessment.service.BookService;
-import org.example.assessment.store.BookObservator;
+import org.example.assessment.service.GroupCommitWriter;
+import org.example.assessment.service.SessionPool;
+import org.example.assessment.store.BookCache;
+import org.example.assessment.util.BookUtil;
 import org.example.assessment.util.Preconditions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 
 /**
  * Created by resulav on 02.05.2018.
@@ -38,14 +70,43 @@ public class BookResources {
 	public static final String METHOD_SEARCH_BOOK = "/search";
 	public static final String METHOD_DELETE_BOOK = "/delete";
 	public static final String METHOD_UPDATE_BOOK = "/update";
+	public static final String METHOD_IMPORT_BOOKS = "/import";
+	public static final String METHOD_STREAM_BOOKS = "/stream";
+	public static final String METHOD_GET_BOOK_PAGE = "/page";
+	public static final String METHOD_GET_BOOK_PARAGRAPHS = "/paragraphs";
+	// bookIds are UUIDs, so the path of a book does not match the other
+	// methods like /search/{query}
+	public static final String PATH_BOOK_ID = "/{bookId: [0-9a-fA-F-]{36}}";
+
+	private static final String DEFAULT_IMPORT_CHUNK_SIZE = "1000";
 
 	protected final Logger log = LoggerFactory.getLogger(getClass());
 
+	// flushes only when the buffer of the generator is full, and leaves the
+	// array open on an error so a broken stream is not valid json
+	private static final ObjectWriter BOOK_WRITER = new ObjectMapper()
+			.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET, JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT)
+			.writerFor(Book.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
 	private BookService bookService;
 
-	public BookResources(Session session) {
-		bookService = new BookService(session);
-		BookObservator.newBuilder().withSession(session).build();
+	/**
+	 * @param sessionPool
+	 *            sessions of the requests
+	 */
+	public BookResources(SessionPool sessionPool) {
+		bookService = new BookService(sessionPool);
+	}
+
+	/**
+	 * @param sessionPool
+	 *            sessions of the requests
+	 * @param groupCommitWriter
+	 *            commits the writes of concurrent requests together, null to
+	 *            save each write by itself
+	 */
+	public BookResources(SessionPool sessionPool, GroupCommitWriter groupCommitWriter) {
+		bookService = new BookService(sessionPool, groupCommitWriter);
 	}
 
 	/**
@@ -67,16 +128,18 @@ public class BookResources {
 			log.debug("addBooks service is called.");
 			// constraint check
 			Preconditions.checkNotEmpty(books, "books can not be empty");
-			books.forEach(b -> {
-				validateBook(b);
-				validateBookByISBN(b.getIsbn());
-				// generate and set a unique bookId
-				b.setBookId(UUID.randomUUID().toString());
-			});
+			List<BookResult> results = validateBooks(books);
+			response.withResults(results);
+			checkValidationResults(results);
+			assignBookIds(books);
 
 			log.debug("Size of books to add: {}: ", books.size());
 			// call service
 			bookService.addBooks(books);
+			response.withResults(IntStream.range(0, books.size())
+					.mapToObj(i -> BookResult.newBuilder().withIndex(i).withBookId(books.get(i).getBookId())
+							.withIsbn(books.get(i).getIsbn()).build())
+					.collect(Collectors.toList()));
 
 		} catch (BookException e) {
 			response.withResultCode(e.getResultCode()).withMessage(e.getReason());
@@ -93,13 +156,143 @@ public class BookResources {
 		return response.build();
 	}
 
-	private void validateBookByISBN(String isbn) {
+	/**
+	 * Imports books to repository in chunks, each chunk is committed on its
+	 * own. Stops at the first failed chunk, the committed chunks are kept. A
+	 * failed import is resumed by posting the same books with the
+	 * {@code nextChunk} of the response as {@code resumeFromChunk}.
+	 *
+	 * @param books
+	 *            as list of {@link Book}
+	 * @param chunkSize
+	 *            count of the books committed at once
+	 * @param resumeFromChunk
+	 *            index of the first chunk to import
+	 * @return result of each processed chunk
+	 */
+	@Path(METHOD_IMPORT_BOOKS)
+	@Consumes(MediaType.APPLICATION_JSON)
+	@Produces(MediaType.APPLICATION_JSON)
+	@POST
+	public BulkImportResponse importBooks(List<Book> books,
+			@QueryParam("chunkSize") @DefaultValue(DEFAULT_IMPORT_CHUNK_SIZE) int chunkSize,
+			@QueryParam("resumeFromChunk") @DefaultValue("0") int resumeFromChunk) {
+
+		BulkImportResponse.Builder response = BulkImportResponse.newBuilder().withChunkSize(chunkSize)
+				.withNextChunk(resumeFromChunk);
+
 		try {
-			Preconditions.checkEmpty(bookService.queryBooksByISBN(isbn), ResultCode.ALREADY_EXIST,
-					String.format("A book already exist by ISBN: %s", isbn));
+			log.debug("importBooks service is called.");
+			// constraint check
+			Preconditions.checkNotEmpty(books, "books can not be empty");
+			Preconditions.checkArgument(chunkSize > 0, "chunkSize should be positive");
+			int chunkCount = (books.size() + chunkSize - 1) / chunkSize;
+			Preconditions.checkArgument(resumeFromChunk >= 0 && resumeFromChunk < chunkCount,
+					String.format("resumeFromChunk should be between 0 and %d", chunkCount - 1));
+			response.withTotalBooks(books.size()).withChunkCount(chunkCount);
+
+			log.debug("Size of books to import: {}, chunk size: {}, from chunk: {}", books.size(), chunkSize,
+					resumeFromChunk);
+			// call service
+			List<ChunkResult> chunks = bookService.importBooks(books, chunkSize, resumeFromChunk,
+					chunk -> {
+						checkValidationResults(validateBooks(chunk));
+						assignBookIds(chunk);
+					});
+
+			int importedBooks = 0;
+			int nextChunk = resumeFromChunk;
+			for (ChunkResult chunk : chunks) {
+				if (chunk.getResultCode() != ResultCode.SUCCESS.getCode()) {
+					response.withResultCode(ResultCode.FAILED)
+							.withMessage(String.format("chunk %d failed: %s", chunk.getChunk(), chunk.getMessage()));
+					break;
+				}
+				importedBooks += chunk.getBookCount();
+				nextChunk = chunk.getChunk() + 1;
+			}
+			response.withChunks(chunks).withImportedBooks(importedBooks).withNextChunk(nextChunk);
+
+		} catch (BookException e) {
+			response.withResultCode(e.getResultCode()).withMessage(e.getReason());
+			log.error("", e);
+		} catch (Exception e) {
+			BookException be = BookException.newInstance(ResultCode.FAILED, Constants.ERROR_INTERNAL, e);
+			response.withResultCode(be.getResultCode()).withMessage(Constants.ERROR_INTERNAL);
+			log.error("Error while importBooks", be);
+
+		} finally {
+			log.debug("importBooks executed");
+		}
+
+		return response.build();
+	}
+
+	/**
+	 * validates the books and the uniqueness of their ISBNs in repository and
+	 * in the request. The existing ISBNs are resolved by one pass for all
+	 * books.
+	 *
+	 * @param books
+	 *            books of the request
+	 * @return result of each book in request order
+	 */
+	private List<BookResult> validateBooks(List<Book> books) {
+		Set<String> existingIsbns;
+		try {
+			existingIsbns = bookService.findExistingIsbns(books.stream().map(Book::getIsbn)
+					.filter(StringUtils::isNotEmpty).collect(Collectors.toSet()));
 		} catch (RepositoryException e) {
 			throw BookException.newInstance(ResultCode.FAILED, Constants.ERROR_INTERNAL, e);
 		}
+
+		// key = ISBN, value = index of the first book having the ISBN
+		Map<String, Integer> requestIsbns = Maps.newHashMap();
+		List<BookResult> results = Lists.newArrayListWithCapacity(books.size());
+		for (int i = 0; i < books.size(); i++) {
+			Book book = books.get(i);
+			BookResult.Builder result = BookResult.newBuilder().withIndex(i).withIsbn(book.getIsbn());
+			try {
+				validateBook(book);
+				Preconditions.checkArgument(!existingIsbns.contains(book.getIsbn()), ResultCode.ALREADY_EXIST,
+						String.format("A book already exist by ISBN: %s", book.getIsbn()));
+				Integer firstIndex = requestIsbns.putIfAbsent(book.getIsbn(), i);
+				Preconditions.checkArgument(firstIndex == null, ResultCode.ALREADY_EXIST,
+						String.format("ISBN %s is duplicate of the book %d of the request", book.getIsbn(), firstIndex));
+			} catch (BookException e) {
+				result.withResultCode(e.getResultCode()).withMessage(e.getReason());
+			}
+			results.add(result.build());
+		}
+
+		return results;
+	}
+
+	/**
+	 * fails by the first invalid book
+	 *
+	 * @param results
+	 *            validation results of the books
+	 */
+	private void checkValidationResults(List<BookResult> results) {
+		List<BookResult> failedResults = results.stream()
+				.filter(r -> r.getResultCode() != ResultCode.SUCCESS.getCode()).collect(Collectors.toList());
+		if (!failedResults.isEmpty()) {
+			BookResult firstFailed = failedResults.get(0);
+			throw BookException.newInstance(ResultCode.valueOf(firstFailed.getResultText()),
+					String.format("%d book(s) invalid, book %d: %s", failedResults.size(), firstFailed.getIndex(),
+							firstFailed.getMessage()));
+		}
+	}
+
+	/**
+	 * generates and sets a unique bookId to each book
+	 *
+	 * @param books
+	 *            validated books
+	 */
+	private void assignBookIds(List<Book> books) {
+		books.forEach(b -> b.setBookId(UUID.randomUUID().toString()));
 	}
 
 	/**
@@ -127,18 +320,112 @@ public class BookResources {
 		return Lists.newArrayList();
 	}
 
+	/**
+	 * lists a page of books in repository, reading only the properties of the
+	 * requested fields. The page ends with the cursor of the next
+	 * page, books added or removed between the requests do not shift the
+	 * pages.
+	 *
+	 * @param limit
+	 *            maximum count of the books, at most
+	 *            {@link Constants#MAX_PAGE_LIMIT}
+	 * @param cursor
+	 *            nextCursor of the previous page, empty for the first page
+	 * @param sort
+	 *            {@code bookId} or {@code name}
+	 * @param fields
+	 *            comma separated fields of the books, like
+	 *            {@code bookId,name,author,isbn}, empty for all fields
+	 * @return the page of {@link Book}
+	 */
+	@Path(METHOD_GET_BOOK_PAGE)
+	@Consumes(MediaType.APPLICATION_JSON)
+	@Produces(MediaType.APPLICATION_JSON)
+	@GET
+	public BookPage getBookPage(@QueryParam("limit") @DefaultValue(Constants.DEFAULT_PAGE_LIMIT) int limit,
+			@QueryParam("cursor") String cursor, @QueryParam("sort") @DefaultValue("bookId") String sort,
+			@QueryParam("fields") String fields) {
+		try {
+			log.debug("getBookPage service is called");
+			Preconditions.checkArgument(limit > 0 && limit <= Constants.MAX_PAGE_LIMIT,
+					String.format("limit should be between 1 and %d", Constants.MAX_PAGE_LIMIT));
+			BookField sortField = BookUtil.toSortField(sort);
+			Set<BookField> bookFields = BookUtil.toFields(fields);
+			BookCursor bookCursor = BookCursor.decode(sortField, cursor).orElse(null);
+
+			// one book more tells whether a next page exists
+			List<Book> books = bookService.getBookPage(sortField, bookCursor, limit + 1, bookFields);
+			log.debug("{} book(s) of page found", books.size());
+			return BookUtil.toPage(books, sortField, limit, bookFields);
+		} catch (BookException e) {
+			log.error("", e);
+			return BookPage.newBuilder().withResultCode(e.getResultCode()).withMessage(e.getReason()).build();
+		} catch (Exception e) {
+			log.error("Error while getBookPage",
+					BookException.newInstance(ResultCode.FAILED, Constants.ERROR_INTERNAL, e));
+			return BookPage.newBuilder().withResultCode(ResultCode.FAILED).withMessage(Constants.ERROR_INTERNAL)
+					.build();
+		} finally {
+			log.debug("getBookPage executed");
+		}
+	}
+
+	/**
+	 * streams books in repository as a json array. Each book node is converted
+	 * and written to the response while iterating, so the first book is sent
+	 * before the others are read and the heap holds one book at a time.
+	 * Errors after the first byte abort the response.
+	 *
+	 * @return json array of {@link Book}
+	 */
+	@Path(METHOD_STREAM_BOOKS)
+	@Consumes(MediaType.APPLICATION_JSON)
+	@Produces(MediaType.APPLICATION_JSON)
+	@GET
+	public StreamingOutput streamBooks() {
+		log.debug("streamBooks service is called");
+		return output -> {
+			try (JsonGenerator generator = BOOK_WRITER.getFactory().createGenerator(output)) {
+				generator.writeStartArray();
+				long[] count = new long[1];
+				bookService.forEachBook(book -> {
+					try {
+						BOOK_WRITER.writeValue(generator, book);
+						if (count[0]++ == 0) {
+							// send the first book without waiting for the buffer
+							generator.flush();
+						}
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				});
+				generator.writeEndArray();
+			} catch (UncheckedIOException e) {
+				log.error("Error while streamBooks", e);
+				throw e.getCause();
+			} catch (RepositoryException e) {
+				BookException be = BookException.newInstance(ResultCode.FAILED, Constants.ERROR_INTERNAL, e);
+				log.error("Error while streamBooks", be);
+				throw new WebApplicationException(be);
+			} finally {
+				log.debug("streamBooks executed");
+			}
+		};
+	}
+
 	/**
 	 * Searches books in repository containing text
 	 *
 	 * @param query
 	 *            as search text
-	 * @return list of {@link Book}
+	 * @return list of {@link BookSummary}, the introduction and the
+	 *         paragraphs are read by {@link #getBookParagraphs(String)}
 	 */
 	@Path(METHOD_SEARCH_BOOK + "/{query}")
 	@Consumes(MediaType.APPLICATION_JSON)
 	@Produces(MediaType.APPLICATION_JSON)
 	@GET
-	public List<Book> searchBooks(@PathParam("query") String query) {
+	public List<BookSummary> searchBooks(@PathParam("query") String query) {
 		try {
 			log.debug("searchBooks service is called");
 			// constraint check
@@ -159,6 +446,90 @@ public class BookResources {
 		return Lists.newArrayList();
 	}
 
+	/**
+	 * reads a book from store, or from repository If the book is not stored
+	 * yet. The response has an ETag of the content of the book; a request
+	 * with the same ETag in If-None-Match gets 304 without a body. The store
+	 * keeps the ETag of each book, a 304 does not read the book.
+	 *
+	 * @param bookId
+	 *            bookId of the book
+	 * @param request
+	 *            the request to evaluate the preconditions
+	 * @return {@link Book}, 304 If not modified, 404 If the book does not
+	 *         exist
+	 */
+	@Path(PATH_BOOK_ID)
+	@Consumes(MediaType.APPLICATION_JSON)
+	@Produces(MediaType.APPLICATION_JSON)
+	@GET
+	public Response getBook(@PathParam("bookId") String bookId, @Context Request request) {
+		try {
+			log.debug("getBook service is called");
+			Optional<Response> stored = BookCache.getInstance().readBook(bookId,
+					(contentHash, book) -> toBookResponse(request, contentHash, book));
+			if (stored.isPresent()) {
+				return stored.get();
+			}
+			Optional<Book> book = bookService.getBook(bookId);
+			if (!book.isPresent()) {
+				return Response.status(Response.Status.NOT_FOUND).build();
+			}
+			return toBookResponse(request, BookUtil.contentHash(book.get()), book::get);
+		} catch (Exception e) {
+			log.error("Error while getBook", BookException.newInstance(ResultCode.FAILED, Constants.ERROR_INTERNAL, e));
+			return Response.status(Response.Status.INTERNAL_SERVER_ERROR).build();
+		} finally {
+			log.debug("getBook executed");
+		}
+	}
+
+	/**
+	 * answers 304 If the ETag matches, otherwise the book with its ETag
+	 *
+	 * @param request
+	 *            the request to evaluate the preconditions
+	 * @param contentHash
+	 *            content hash of the book
+	 * @param book
+	 *            reads the book, only If modified
+	 * @return the response of the book
+	 */
+	private Response toBookResponse(Request request, String contentHash, Supplier<Book> book) {
+		EntityTag entityTag = new EntityTag(contentHash);
+		Response.ResponseBuilder notModified = request.evaluatePreconditions(entityTag);
+		if (notModified != null) {
+			return notModified.build();
+		}
+		return Response.ok(book.get()).tag(entityTag).build();
+	}
+
+	/**
+	 * reads the introduction and the paragraphs of a book in repository
+	 *
+	 * @param bookId
+	 *            bookId of the book
+	 * @return {@link BookBody} of the book, 404 If the book does not exist
+	 */
+	@Path(PATH_BOOK_ID + METHOD_GET_BOOK_PARAGRAPHS)
+	@Consumes(MediaType.APPLICATION_JSON)
+	@Produces(MediaType.APPLICATION_JSON)
+	@GET
+	public Response getBookParagraphs(@PathParam("bookId") String bookId) {
+		try {
+			log.debug("getBookParagraphs service is called");
+			Optional<BookBody> body = bookService.getBookBody(bookId);
+			return body.isPresent() ? Response.ok(body.get()).build()
+					: Response.status(Response.Status.NOT_FOUND).build();
+		} catch (Exception e) {
+			log.error("Error while getBookParagraphs",
+					BookException.newInstance(ResultCode.FAILED, Constants.ERROR_INTERNAL, e));
+			return Response.status(Response.Status.INTERNAL_SERVER_ERROR).build();
+		} finally {
+			log.debug("getBookParagraphs executed");
+		}
+	}
+
 	/**
 	 * Searches books in repository containing text
 	 *
@@ -1,21 +1,57 @@
 package org.example.assessment.resource;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
+import java.util.Date;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 import javax.ws.rs.Consumes;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
 import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.CacheControl;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 
+import org.example.assessment.common.BookField;
 import org.example.assessment.common.Constants;
 import org.example.assessment.common.ResultCode;
 import org.example.assessment.exception.BookException;
+import org.example.assessment.metrics.BookMetrics;
 import org.example.assessment.model.Book;
+import org.example.assessment.model.BookChange;
+import org.example.assessment.model.BookChanges;
+import org.example.assessment.model.BookCursor;
+import org.example.assessment.model.BookMetricsReport;
+import org.example.assessment.model.BookPage;
+import org.example.assessment.model.BookStoreStatus;
+import org.example.assessment.model.SearchIndexStatus;
 import org.example.assessment.store.BookCache;
+import org.example.assessment.store.BookChangeBroadcaster;
+import org.example.assessment.store.BookSearchIndex;
+import org.example.assessment.store.CompressedBookList;
+import org.example.assessment.util.BookUtil;
+import org.example.assessment.util.Preconditions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.google.common.collect.Lists;
 
 /**
@@ -25,28 +61,110 @@ public class BookStoreResources {
 
 	public static final String SERVICE_PATH = "/bookstore";
 	public static final String METHOD_GET_BOOK = "/";
+	public static final String METHOD_GET_BOOK_BY_ISBN = "/isbn";
+	public static final String METHOD_GET_BOOKS_BY_AUTHOR = "/author";
+	public static final String METHOD_GET_BOOKS_BY_NAME = "/name";
+	public static final String METHOD_SEARCH_BOOK = "/search";
+	public static final String METHOD_SEARCH_STATUS = "/search-status";
+	public static final String METHOD_STATUS = "/status";
+	public static final String METHOD_GET_BOOK_PAGE = "/page";
+	public static final String METHOD_GET_CHANGES = "/changes";
+	public static final String METHOD_GET_EVENTS = "/events";
+	public static final String METHOD_METRICS = "/metrics";
+	public static final String MEDIA_TYPE_EVENT_STREAM = "text/event-stream";
+	public static final String EVENT_RESYNC = "resync";
+
+	// a comment line keeps the idle connection open through the proxies
+	private static final long HEARTBEAT_MILLIS = 15000;
+	private static final String HEADER_RETRY_AFTER = "Retry-After";
+	// reconnect delay of a subscriber rejected by the limit
+	private static final int EVENTS_RETRY_AFTER_SECONDS = 30;
+	private static final ObjectWriter EVENT_WRITER = new ObjectMapper().writer();
 
 	protected final Logger log = LoggerFactory.getLogger(getClass());
 
+	// compressed full book list, null If the list is served uncompressed
+	private final CompressedBookList compressedBookList;
+
 	public BookStoreResources() {
-		// for sonarqube
+		this(null);
+	}
+
+	/**
+	 * @param compressedBookList
+	 *            compressed full book list, null to serve it uncompressed
+	 */
+	public BookStoreResources(CompressedBookList compressedBookList) {
+		this.compressedBookList = compressedBookList;
 	}
 
 	/**
-	 * lists books in repository
+	 * lists books in repository. The response has an ETag of the version of
+	 * the store and its Last-Modified time; a request with the same ETag in
+	 * If-None-Match, or If-Modified-Since not before the last change, gets
+	 * 304 without a body while the store is unchanged. Last-Modified is sent
+	 * and evaluated only once the second of the last change is over, a later
+	 * change within the second would keep it. The books are written
+	 * from their JSON kept by the store, they are not serialized per request.
+	 * If the client accepts gzip or deflate, the list compressed in the
+	 * background for the version is served as is; the ETag tells the
+	 * encodings apart.
 	 *
-	 * @return list of {@link Book}
+	 * @param request
+	 *            the request to evaluate the preconditions
+	 * @param headers
+	 *            headers of the request, for Accept-Encoding
+	 * @return list of {@link Book}, 304 If not modified
 	 */
 	@Path(METHOD_GET_BOOK)
 	@Consumes(MediaType.APPLICATION_JSON)
 	@Produces(MediaType.APPLICATION_JSON)
 	@GET
-	public List<Book> getStoredBooks() {
+	public Response getStoredBooks(@Context Request request, @Context HttpHeaders headers) {
 		try {
 			log.debug("getStoredBooks service is called");
-			List<Book> bookList = BookCache.getInstance().getBookList();
-			log.debug("{} stored book(s) found", bookList.size());
-			return bookList;
+			BookCache bookCache = BookCache.getInstance();
+			// read the version before the list, the list is never older than
+			// the ETag
+			long version = bookCache.getSnapshotVersion();
+			Optional<String> encoding = Optional.empty();
+			Optional<byte[]> compressed = Optional.empty();
+			if (compressedBookList != null) {
+				encoding = compressedBookList.selectEncoding(headers.getHeaderString(HttpHeaders.ACCEPT_ENCODING));
+				compressed = encoding.flatMap(e -> compressedBookList.getBookList(version, e));
+			}
+			// Last-Modified has seconds precision, it does not tell apart the
+			// changes within the current second
+			long lastModifiedMillis = bookCache.getLastModifiedMillis();
+			boolean secondOver = lastModifiedMillis / 1000 < System.currentTimeMillis() / 1000;
+			Date lastModified = new Date(lastModifiedMillis / 1000 * 1000);
+			String tag = Long.toHexString(bookCache.getCreatedMillis()) + "-" + Long.toHexString(version);
+			EntityTag entityTag = new EntityTag(compressed.isPresent() ? tag + "-" + encoding.get() : tag);
+			CacheControl cacheControl = new CacheControl();
+			// clients revalidate on each poll
+			cacheControl.setNoCache(true);
+
+			Response.ResponseBuilder notModified = secondOver ? request.evaluatePreconditions(lastModified, entityTag)
+					: request.evaluatePreconditions(entityTag);
+			if (notModified != null) {
+				log.debug("stored books not modified since version {}", version);
+				return notModified.cacheControl(cacheControl).header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+						.build();
+			}
+
+			Response.ResponseBuilder response;
+			if (compressed.isPresent()) {
+				log.debug("compressed stored books of version {} found", version);
+				response = Response.ok(compressed.get()).header(HttpHeaders.CONTENT_ENCODING, encoding.get());
+			} else {
+				// shared immutable snapshot, no copy per request
+				List<byte[]> jsonBooks = bookCache.getBookListJson();
+				log.debug("{} stored book(s) found", jsonBooks.size());
+				response = Response.ok((StreamingOutput) output -> BookUtil.writeJsonArray(output, jsonBooks));
+			}
+			return response.type(MediaType.APPLICATION_JSON).tag(entityTag)
+					.lastModified(secondOver ? lastModified : null).cacheControl(cacheControl)
+					.header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING).build();
 		} catch (BookException e) {
 			log.error("", e);
 		} catch (Exception e) {
@@ -56,6 +174,337 @@ public class BookStoreResources {
 			log.debug("getStoredBooks executed");
 		}
 
+		return Response.ok(Lists.newArrayList()).build();
+	}
+
+	/**
+	 * lists a page of books in store. The page ends with the cursor of the next
+	 * page, books added or removed between the requests do not shift the
+	 * pages.
+	 *
+	 * @param limit
+	 *            maximum count of the books, at most
+	 *            {@link Constants#MAX_PAGE_LIMIT}
+	 * @param cursor
+	 *            nextCursor of the previous page, empty for the first page
+	 * @param sort
+	 *            {@code bookId} or {@code name}, names are compared as case
+	 *            in-sensitive
+	 * @param fields
+	 *            comma separated fields of the books, like
+	 *            {@code bookId,name,author,isbn}, empty for all fields
+	 * @return the page of {@link Book}
+	 */
+	@Path(METHOD_GET_BOOK_PAGE)
+	@Consumes(MediaType.APPLICATION_JSON)
+	@Produces(MediaType.APPLICATION_JSON)
+	@GET
+	public BookPage getStoredBookPage(@QueryParam("limit") @DefaultValue(Constants.DEFAULT_PAGE_LIMIT) int limit,
+			@QueryParam("cursor") String cursor, @QueryParam("sort") @DefaultValue("bookId") String sort,
+			@QueryParam("fields") String fields) {
+		try {
+			log.debug("getStoredBookPage service is called");
+			Preconditions.checkArgument(limit > 0 && limit <= Constants.MAX_PAGE_LIMIT,
+					String.format("limit should be between 1 and %d", Constants.MAX_PAGE_LIMIT));
+			BookField sortField = BookUtil.toSortField(sort);
+			Set<BookField> bookFields = BookUtil.toFields(fields);
+			BookCursor bookCursor = BookCursor.decode(sortField, cursor).orElse(null);
+
+			// one book more tells whether a next page exists
+			List<Book> books = BookCache.getInstance().getBookPage(sortField, bookCursor, limit + 1);
+			log.debug("{} book(s) of page found", books.size());
+			return BookUtil.toPage(books, sortField, limit, bookFields);
+		} catch (BookException e) {
+			log.error("", e);
+			return BookPage.newBuilder().withResultCode(e.getResultCode()).withMessage(e.getReason()).build();
+		} catch (Exception e) {
+			log.error("Error while getStoredBookPage",
+					BookException.newInstance(ResultCode.FAILED, Constants.ERROR_INTERNAL, e));
+			return BookPage.newBuilder().withResultCode(ResultCode.FAILED).withMessage(Constants.ERROR_INTERNAL)
+					.build();
+		} finally {
+			log.debug("getStoredBookPage executed");
+		}
+	}
+
+	/**
+	 * lists the changes of the store after a sequence number, so a client
+	 * keeping a copy of the stored books transfers only the delta. A client
+	 * starts with the nextSince of a response having resyncRequired, loads
+	 * {@link #getStoredBooks(Request, HttpHeaders)} and requests the changes since that
+	 * number; then passes the nextSince of each response to the next request.
+	 *
+	 * @param since
+	 *            sequence number of the last applied change
+	 * @param epoch
+	 *            epoch of the previous response, the sequence numbers restart
+	 *            with the store; 0 to skip the check
+	 * @param limit
+	 *            maximum count of the changes, at most
+	 *            {@link Constants#MAX_PAGE_LIMIT}
+	 * @return the changes, or resyncRequired If the changes are not kept
+	 *         anymore
+	 */
+	@Path(METHOD_GET_CHANGES)
+	@Consumes(MediaType.APPLICATION_JSON)
+	@Produces(MediaType.APPLICATION_JSON)
+	@GET
+	public BookChanges getChanges(@QueryParam("since") @DefaultValue("-1") long since,
+			@QueryParam("epoch") @DefaultValue("0") long epoch,
+			@QueryParam("limit") @DefaultValue(Constants.DEFAULT_PAGE_LIMIT) int limit) {
+		try {
+			log.debug("getChanges service is called");
+			Preconditions.checkArgument(limit > 0 && limit <= Constants.MAX_PAGE_LIMIT,
+					String.format("limit should be between 1 and %d", Constants.MAX_PAGE_LIMIT));
+			BookCache bookCache = BookCache.getInstance();
+			// changes of another epoch are not comparable, -1 resyncs
+			BookChanges changes = bookCache.getChangesSince(
+					epoch != 0 && epoch != bookCache.getCreatedMillis() ? -1 : since, limit);
+			log.debug("{} change(s) found since {}", changes.getChanges().size(), since);
+			return changes;
+		} catch (BookException e) {
+			log.error("", e);
+			return BookChanges.newBuilder().withResultCode(e.getResultCode()).withMessage(e.getReason()).build();
+		} catch (Exception e) {
+			log.error("Error while getChanges",
+					BookException.newInstance(ResultCode.FAILED, Constants.ERROR_INTERNAL, e));
+			return BookChanges.newBuilder().withResultCode(ResultCode.FAILED).withMessage(Constants.ERROR_INTERNAL)
+					.build();
+		} finally {
+			log.debug("getChanges executed");
+		}
+	}
+
+	/**
+	 * pushes the changes of the store as server-sent events, each change is an
+	 * event named by its type with the {@link BookChange} as data. A new
+	 * subscriber, or one whose Last-Event-ID is not kept anymore, first gets a
+	 * {@code resync} event with the {@link BookChanges} to continue from after
+	 * loading {@link #getStoredBooks(Request, HttpHeaders)}. A subscriber not reading fast
+	 * enough is disconnected and reconnects with its Last-Event-ID. Each stream
+	 * holds a request thread, beyond the maximum count of subscribers the
+	 * request is answered by 503 with Retry-After.
+	 *
+	 * @param lastEventId
+	 *            id of the last event received, sent by the client on
+	 *            reconnect
+	 * @return the event stream, open until the client disconnects
+	 */
+	@Path(METHOD_GET_EVENTS)
+	@Produces(MEDIA_TYPE_EVENT_STREAM)
+	@GET
+	public Response getEvents(@HeaderParam("Last-Event-ID") String lastEventId) {
+		log.debug("getEvents service is called");
+		BookChangeBroadcaster broadcaster = BookChangeBroadcaster.getInstance();
+		Optional<BookChangeBroadcaster.Subscriber> subscription = broadcaster.subscribe(lastEventId);
+		if (!subscription.isPresent()) {
+			log.debug("getEvents rejected, {} subscriber(s)", broadcaster.getSubscriberCount());
+			return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+					.header(HEADER_RETRY_AFTER, EVENTS_RETRY_AFTER_SECONDS).build();
+		}
+		BookChangeBroadcaster.Subscriber subscriber = subscription.get();
+		return Response.ok((StreamingOutput) output -> {
+			try {
+				if (subscriber.takeResync()) {
+					writeEvent(output, null, EVENT_RESYNC, broadcaster.getResync());
+				}
+				while (!subscriber.isClosed()) {
+					BookChange change = subscriber.poll(HEARTBEAT_MILLIS);
+					if (change != null) {
+						writeEvent(output, broadcaster.toEventId(change), change.getType().name(), change);
+					} else if (!subscriber.isClosed()) {
+						output.write(": keep-alive\n\n".getBytes(StandardCharsets.UTF_8));
+						output.flush();
+					}
+				}
+				// drain what was buffered before a slow consumer was closed
+				BookChange change;
+				while ((change = subscriber.poll(0)) != null) {
+					writeEvent(output, broadcaster.toEventId(change), change.getType().name(), change);
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (IOException e) {
+				// the client disconnected
+				log.debug("getEvents client disconnected", e);
+			} finally {
+				subscriber.close();
+				log.debug("getEvents executed");
+			}
+		}).build();
+	}
+
+	/**
+	 * finds the stored book by ISBN
+	 *
+	 * @param isbn
+	 *            ISBN of the book
+	 * @return list of {@link Book} having the ISBN, empty If not found
+	 */
+	@Path(METHOD_GET_BOOK_BY_ISBN + "/{isbn}")
+	@Consumes(MediaType.APPLICATION_JSON)
+	@Produces(MediaType.APPLICATION_JSON)
+	@GET
+	public List<Book> getStoredBookByIsbn(@PathParam("isbn") String isbn) {
+		return findStoredBooks("getStoredBookByIsbn", () -> {
+			Preconditions.checkNotEmpty(isbn, "isbn can not be empty");
+			return BookCache.getInstance().getBooksByIsbn(isbn);
+		});
+	}
+
+	/**
+	 * finds the stored books of the author as case in-sensitive
+	 *
+	 * @param author
+	 *            author of the books
+	 * @return list of {@link Book}
+	 */
+	@Path(METHOD_GET_BOOKS_BY_AUTHOR + "/{author}")
+	@Consumes(MediaType.APPLICATION_JSON)
+	@Produces(MediaType.APPLICATION_JSON)
+	@GET
+	public List<Book> getStoredBooksByAuthor(@PathParam("author") String author) {
+		return findStoredBooks("getStoredBooksByAuthor", () -> {
+			Preconditions.checkNotEmpty(author, "author can not be empty");
+			return BookCache.getInstance().getBooksByAuthor(author);
+		});
+	}
+
+	/**
+	 * finds the stored books whose name starts with the prefix as case
+	 * in-sensitive
+	 *
+	 * @param prefix
+	 *            prefix of the book name
+	 * @return list of {@link Book} ordered by name
+	 */
+	@Path(METHOD_GET_BOOKS_BY_NAME + "/{prefix}")
+	@Consumes(MediaType.APPLICATION_JSON)
+	@Produces(MediaType.APPLICATION_JSON)
+	@GET
+	public List<Book> getStoredBooksByNamePrefix(@PathParam("prefix") String prefix) {
+		return findStoredBooks("getStoredBooksByNamePrefix", () -> {
+			Preconditions.checkNotEmpty(prefix, "name prefix can not be empty");
+			return BookCache.getInstance().getBooksByNamePrefix(prefix);
+		});
+	}
+
+	/**
+	 * Searches the stored books containing all words of the query as case
+	 * in-sensitive. Answered by the in-memory search index, see
+	 * {@link #getSearchStatus()} for its freshness.
+	 *
+	 * @param query
+	 *            as search text
+	 * @return list of {@link Book} ordered by name
+	 */
+	@Path(METHOD_SEARCH_BOOK + "/{query}")
+	@Consumes(MediaType.APPLICATION_JSON)
+	@Produces(MediaType.APPLICATION_JSON)
+	@GET
+	public List<Book> searchStoredBooks(@PathParam("query") String query) {
+		return findStoredBooks("searchStoredBooks", () -> {
+			Preconditions.checkNotEmpty(query, "query text not be empty");
+			return BookSearchIndex.getInstance().search(query).stream().map(BookCache.getInstance()::getBook)
+					.filter(Optional::isPresent).map(Optional::get)
+					.sorted(Comparator.comparing(Book::getName, Comparator.nullsLast(Comparator.naturalOrder())))
+					.collect(Collectors.toList());
+		});
+	}
+
+	/**
+	 * reports the freshness of the search index
+	 *
+	 * @return status of the search index
+	 */
+	@Path(METHOD_SEARCH_STATUS)
+	@Consumes(MediaType.APPLICATION_JSON)
+	@Produces(MediaType.APPLICATION_JSON)
+	@GET
+	public SearchIndexStatus getSearchStatus() {
+		return BookSearchIndex.getInstance().getStatus();
+	}
+
+	/**
+	 * reports whether the books are loaded to the store and the progress of
+	 * the loading at startup. The store serves the books loaded so far until
+	 * it is ready.
+	 *
+	 * @return status of the store
+	 */
+	@Path(METHOD_STATUS)
+	@Consumes(MediaType.APPLICATION_JSON)
+	@Produces(MediaType.APPLICATION_JSON)
+	@GET
+	public BookStoreStatus getStatus() {
+		return BookCache.getInstance().getStatus();
+	}
+
+	/**
+	 * reports the request counts and latencies of the book endpoints, the
+	 * time of the queries, the conversions and the serialization, the size
+	 * and hit ratio of the store and the events of the observer. The same
+	 * metrics are published by JMX as {@link BookMetrics#OBJECT_NAME}.
+	 *
+	 * @return metrics since startup
+	 */
+	@Path(METHOD_METRICS)
+	@Consumes(MediaType.APPLICATION_JSON)
+	@Produces(MediaType.APPLICATION_JSON)
+	@GET
+	public BookMetricsReport getMetrics() {
+		return BookMetrics.getInstance().getReport();
+	}
+
+	/**
+	 * writes a server-sent event and flushes it
+	 *
+	 * @param output
+	 *            the event stream
+	 * @param id
+	 *            id of the event, null for an event not to resume from
+	 * @param name
+	 *            name of the event
+	 * @param data
+	 *            written as JSON on one line
+	 * @throws IOException
+	 *             If the client disconnected
+	 */
+	private static void writeEvent(OutputStream output, String id, String name, Object data) throws IOException {
+		StringBuilder event = new StringBuilder();
+		if (id != null) {
+			event.append("id: ").append(id).append('\n');
+		}
+		event.append("event: ").append(name).append('\n');
+		event.append("data: ").append(EVENT_WRITER.writeValueAsString(data)).append("\n\n");
+		output.write(event.toString().getBytes(StandardCharsets.UTF_8));
+		output.flush();
+	}
+
+	/**
+	 * runs an index lookup of the store
+	 *
+	 * @param serviceName
+	 *            name of the service for logging
+	 * @param lookup
+	 *            the lookup
+	 * @return found books, empty list on error
+	 */
+	private List<Book> findStoredBooks(String serviceName, Supplier<List<Book>> lookup) {
+		try {
+			log.debug("{} service is called", serviceName);
+			List<Book> bookList = lookup.get();
+			log.debug("{} stored book(s) found", bookList.size());
+			return bookList;
+		} catch (BookException e) {
+			log.error("", e);
+		} catch (Exception e) {
+			log.error("Error while " + serviceName,
+					BookException.newInstance(ResultCode.FAILED, Constants.ERROR_INTERNAL, e));
+		} finally {
+			log.debug("{} executed", serviceName);
+		}
+
 		return Lists.newArrayList();
 	}
 }
@@ -1,24 +1,44 @@
 package org.example.assessment.service;
 
+import java.util.Collection;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 import javax.jcr.Node;
 import javax.jcr.NodeIterator;
 import javax.jcr.RepositoryException;
 import javax.jcr.Session;
+import javax.jcr.ValueFactory;
 import javax.jcr.query.Query;
 import javax.jcr.query.QueryResult;
 
 import org.apache.commons.lang3.StringUtils;
+import org.example.assessment.common.BookField;
 import org.example.assessment.common.Constants;
 import org.example.assessment.common.ResultCode;
+import org.example.assessment.exception.BookException;
+import org.example.assessment.metrics.BookMetrics;
 import org.example.assessment.model.Book;
+import org.example.assessment.model.BookBody;
+import org.example.assessment.model.BookCursor;
+import org.example.assessment.model.BookSummary;
+import org.example.assessment.model.ChunkResult;
+import org.example.assessment.service.SessionPool.SessionWork;
 import org.example.assessment.util.BookUtil;
 import org.example.assessment.util.Preconditions;
 import org.example.assessment.util.RepositoryUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
 /**
  * Created by resulav on 02.05.2018.
  */
@@ -26,11 +46,41 @@ public class BookService {
 
 	protected final Logger log = LoggerFactory.getLogger(getClass());
 
+	// maximum count of the ISBNs of one query
+	private static final int ISBN_QUERY_BATCH_SIZE = 500;
+
 	private final String QUERY_PREFIX = StringUtils.join("/jcr:root/", Constants.REPOSITORY, "//(*,nt:unstructured)");
-	private final Session session;
+	// keyset pages of the child nodes of the books node, the cursor is bound
+	private static final String PAGE_QUERY_PREFIX = StringUtils.join(
+			"SELECT * FROM [nt:unstructured] AS b WHERE ISCHILDNODE(b, [/", Constants.REPOSITORY, "])");
+	private static final String PAGE_BY_ID_AFTER = " AND NAME(b) > $bookId";
+	private static final String PAGE_BY_ID_ORDER = " ORDER BY NAME(b)";
+	// names are compared in lower case like the name index of the store
+	private static final String PAGE_BY_NAME_AFTER = " AND (LOWER(b.[name]) > $name"
+			+ " OR (LOWER(b.[name]) = $name AND NAME(b) > $bookId))";
+	private static final String PAGE_BY_NAME_ORDER = " AND b.[name] IS NOT NULL ORDER BY LOWER(b.[name]), NAME(b)";
+	private final SessionPool sessionPool;
+	// null If each write saves its own changes
+	private final GroupCommitWriter groupCommitWriter;
+
+	/**
+	 * @param sessionPool
+	 *            sessions of the requests, a session is borrowed per call
+	 */
+	public BookService(SessionPool sessionPool) {
+		this(sessionPool, null);
+	}
 
-	public BookService(Session session) {
-		this.session = session;
+	/**
+	 * @param sessionPool
+	 *            sessions of the requests, a session is borrowed per call
+	 * @param groupCommitWriter
+	 *            commits the adds, updates and deletes of concurrent requests
+	 *            together, null to save each write by itself
+	 */
+	public BookService(SessionPool sessionPool, GroupCommitWriter groupCommitWriter) {
+		this.sessionPool = sessionPool;
+		this.groupCommitWriter = groupCommitWriter;
 	}
 
 	/**
@@ -42,15 +92,80 @@ public class BookService {
 	 * 
 	 */
 	public void addBooks(List<Book> books) throws RepositoryException {
-		Node booksNode = RepositoryUtil.getBooksNode(session);
+		write(session -> {
+			Node booksNode = RepositoryUtil.getBooksNode(session);
+
+			// add book node and set properties
+			for (Book book : books) {
+				Node bookNode = booksNode.addNode(book.getBookId());
+				BookUtil.toNode(book, bookNode);
+			}
+
+			return null;
+		});
+	}
 
-		// add book node and set properties
-		for (Book book : books) {
-			Node bookNode = booksNode.addNode(book.getBookId());
-			BookUtil.toNode(book, bookNode);
+	/**
+	 * Imports books to the repository in chunks, each chunk is committed by
+	 * its own session.save(), so the transient space holds one chunk at a
+	 * time. Stops at the first failed chunk; the committed chunks stay in
+	 * repository and the import can be resumed from the failed chunk.
+	 *
+	 * @param books
+	 *            books to import, bookIds are set
+	 * @param chunkSize
+	 *            count of the books committed at once
+	 * @param fromChunk
+	 *            index of the first chunk to import, the previous chunks are
+	 *            skipped
+	 * @param chunkValidator
+	 *            validates the books of a chunk before adding, throws
+	 *            {@link BookException} to fail the chunk
+	 * @return results of the processed chunks
+	 * @throws RepositoryException
+	 *             as generic exception
+	 */
+	public List<ChunkResult> importBooks(List<Book> books, int chunkSize, int fromChunk,
+			Consumer<List<Book>> chunkValidator) throws RepositoryException {
+		List<List<Book>> chunks = Lists.partition(books, chunkSize);
+		List<ChunkResult> results = Lists.newArrayList();
+
+		for (int i = fromChunk; i < chunks.size(); i++) {
+			List<Book> chunk = chunks.get(i);
+			long start = System.nanoTime();
+			ChunkResult.Builder result = ChunkResult.newBuilder().withChunk(i).withFirstBook(i * chunkSize)
+					.withBookCount(chunk.size());
+			boolean failed = true;
+			try {
+				chunkValidator.accept(chunk);
+				// a write session per chunk, so a long import does not hold
+				// it from the other writes; the pool drops the unsaved books
+				// of a failed chunk
+				sessionPool.write(session -> {
+					Node booksNode = RepositoryUtil.getBooksNode(session);
+					for (Book book : chunk) {
+						Node bookNode = booksNode.addNode(book.getBookId());
+						BookUtil.toNode(book, bookNode);
+					}
+					session.save();
+					return null;
+				});
+				failed = false;
+			} catch (BookException e) {
+				result.withResultCode(e.getResultCode()).withMessage(e.getReason());
+				log.error("chunk {} failed", i, e);
+			} catch (RepositoryException | RuntimeException e) {
+				result.withResultCode(ResultCode.FAILED).withMessage(Constants.ERROR_INTERNAL);
+				log.error("chunk {} failed", i, BookException.newInstance(ResultCode.FAILED, Constants.ERROR_INTERNAL, e));
+			}
+			results.add(result.withDurationMillis((System.nanoTime() - start) / 1_000_000).build());
+			log.debug("chunk {} of {} book(s) processed", i, chunk.size());
+			if (failed) {
+				break;
+			}
 		}
 
-		session.save();
+		return results;
 	}
 
 	/**
@@ -58,16 +173,18 @@ public class BookService {
 	 * @throws RepositoryException
 	 */
 	public void updateBook(Book book) throws RepositoryException {
-		Node booksNode = RepositoryUtil.getBooksNode(session);
-		// validate the book exists or not
-		Preconditions.checkArgument(booksNode.hasNode(book.getBookId()), ResultCode.NOT_FOUND,
-				String.format("No book found by bookId: %s", book.getBookId()));
-
-		// get book node and set properties
-		Node bookNode = booksNode.getNode(book.getBookId());
-		BookUtil.toNodeForUpdate(book, bookNode);
-
-		session.save();
+		write(session -> {
+			Node booksNode = RepositoryUtil.getBooksNode(session);
+			// validate the book exists or not
+			Preconditions.checkArgument(booksNode.hasNode(book.getBookId()), ResultCode.NOT_FOUND,
+					String.format("No book found by bookId: %s", book.getBookId()));
+
+			// get book node and set properties
+			Node bookNode = booksNode.getNode(book.getBookId());
+			BookUtil.toNodeForUpdate(book, bookNode);
+
+			return null;
+		});
 	}
 
 	/**
@@ -75,17 +192,40 @@ public class BookService {
 	 * @throws RepositoryException
 	 */
 	public void deleteBook(String bookId) throws RepositoryException {
-		Node booksNode = RepositoryUtil.getBooksNode(session);
+		write(session -> {
+			Node booksNode = RepositoryUtil.getBooksNode(session);
 
-		NodeIterator nodeIterator = booksNode.getNodes(bookId);
-		Preconditions.checkArgument(nodeIterator.getSize() > 0, ResultCode.NOT_FOUND,
-				String.format("No book found by bookId: %s", bookId));
+			NodeIterator nodeIterator = booksNode.getNodes(bookId);
+			Preconditions.checkArgument(nodeIterator.getSize() > 0, ResultCode.NOT_FOUND,
+					String.format("No book found by bookId: %s", bookId));
 
-		while (nodeIterator.hasNext()) {
-			((Node) nodeIterator.next()).remove();
-		}
+			while (nodeIterator.hasNext()) {
+				((Node) nodeIterator.next()).remove();
+			}
+
+			return null;
+		});
+	}
 
-		session.save();
+	/**
+	 * saves the change by the group commit writer If configured, else by its
+	 * own write session
+	 *
+	 * @param change
+	 *            changes the session without saving it
+	 * @throws RepositoryException
+	 *             as generic exception
+	 */
+	private void write(SessionWork<Void> change) throws RepositoryException {
+		if (groupCommitWriter != null) {
+			groupCommitWriter.write(change);
+			return;
+		}
+		sessionPool.write(session -> {
+			change.execute(session);
+			session.save();
+			return null;
+		});
 	}
 
 	/**
@@ -95,12 +235,97 @@ public class BookService {
 	 * @throws RepositoryException
 	 */
 	public List<Book> getBooks() throws RepositoryException {
-		List<Book> bookList = RepositoryUtil.getBooks(session);
+		List<Book> bookList = sessionPool.read(RepositoryUtil::getBooks);
 		log.debug("{} book(s) found", bookList.size());
 
 		return bookList;
 	}
 
+	/**
+	 * passes books of repository one by one to the consumer while iterating
+	 * the nodes, so only one book is held at a time. The nodes are iterated
+	 * once with a stream session, which is held until the last book is
+	 * consumed; a slow consumer, like a slow client of /books/stream, holds
+	 * a stream session instead of a read session.
+	 *
+	 * @param consumer
+	 *            consumer of the books
+	 * @return count of the books
+	 * @throws RepositoryException
+	 *             as generic exception
+	 */
+	public long forEachBook(Consumer<Book> consumer) throws RepositoryException {
+		long count = sessionPool.stream(session -> {
+			NodeIterator nodeIterator = RepositoryUtil.getBooksNode(session).getNodes();
+			long consumed = 0;
+			while (nodeIterator.hasNext()) {
+				consumer.accept(BookUtil.toBook(nodeIterator.nextNode()));
+				consumed++;
+			}
+			return consumed;
+		});
+		log.debug("{} book(s) streamed", count);
+
+		return count;
+	}
+
+	/**
+	 * retrieves a page of books after the cursor by a keyset query, reading
+	 * only the properties of the fields and the sort field. Books are ordered
+	 * by bookId, or by the lower case name then by bookId like the pages of
+	 * the store; books without a name are not listed by name.
+	 *
+	 * @param sort
+	 *            {@link BookField#BOOK_ID} or {@link BookField#NAME}
+	 * @param cursor
+	 *            position after the last book of the previous page, null for
+	 *            the first page
+	 * @param limit
+	 *            maximum count of the books
+	 * @param fields
+	 *            fields to read
+	 * @return books of the page
+	 * @throws RepositoryException
+	 *             as generic exception
+	 */
+	public List<Book> getBookPage(BookField sort, BookCursor cursor, int limit, Set<BookField> fields)
+			throws RepositoryException {
+		boolean byName = sort == BookField.NAME;
+		StringBuilder queryText = new StringBuilder(PAGE_QUERY_PREFIX);
+		if (cursor != null) {
+			queryText.append(byName ? PAGE_BY_NAME_AFTER : PAGE_BY_ID_AFTER);
+		}
+		queryText.append(byName ? PAGE_BY_NAME_ORDER : PAGE_BY_ID_ORDER);
+		log.debug("QUERY: {}", queryText);
+
+		Set<BookField> readFields = EnumSet.of(sort);
+		readFields.addAll(fields);
+		List<Book> books = sessionPool.read(session -> {
+			Query query = session.getWorkspace().getQueryManager().createQuery(queryText.toString(),
+					Query.JCR_SQL2);
+			if (cursor != null) {
+				ValueFactory valueFactory = session.getValueFactory();
+				query.bindValue("bookId", valueFactory.createValue(cursor.getBookId()));
+				if (byName) {
+					query.bindValue("name", valueFactory.createValue(cursor.getName().toLowerCase(Locale.ROOT)));
+				}
+			}
+			query.setLimit(limit);
+
+			List<Book> page = Lists.newArrayListWithCapacity(limit);
+			long start = System.nanoTime();
+			NodeIterator nodeIterator = query.execute().getNodes();
+			BookMetrics.getInstance().recordPhase(BookMetrics.Phase.QUERY, start);
+			while (nodeIterator.hasNext()) {
+				page.add(BookUtil.toBook(nodeIterator.nextNode(), readFields));
+			}
+			return page;
+		});
+		log.debug("{} book(s) of page found", books.size());
+
+		return books;
+	}
+
 	/**
 	 * Searches books containing text as case in-sensitive
 	 *
@@ -108,14 +333,14 @@ public class BookService {
 	 * @return list of books
 	 * @throws RepositoryException
 	 */
-	public List<Book> searchBooksByContains(String text) throws RepositoryException {
+	public List<BookSummary> searchBooksByContains(String text) throws RepositoryException {
 		log.info("Searching books contains text: {}", text);
 
 		String escapedText = escapeIllegalXpathSearchChars(text);
 
 		String queryText = StringUtils.join(QUERY_PREFIX, "[jcr:contains(.,'", escapedText, "')]");
 
-		return queryBooks(queryText);
+		return queryBookSummaries(queryText);
 	}
 
 
@@ -127,7 +352,7 @@ public class BookService {
 	 * @return list of books
 	 * @throws RepositoryException
 	 */
-	public List<Book> searchBooksByLike(String text) throws RepositoryException {
+	public List<BookSummary> searchBooksByLike(String text) throws RepositoryException {
         String escapedText = escapeIllegalXpathSearchChars(text);
 		log.info("Searching books contains text: {} escapedText: {}", text,escapedText);
 
@@ -135,7 +360,7 @@ public class BookService {
 				escapedText, "%')or jcr:like(@author,'%", escapedText, "%') or jcr:like(@paragraphs,'%", escapedText,
 				"%') or jcr:like(@introduction,'%", escapedText, "%')]");
 
-		return queryBooks(queryText);
+		return queryBookSummaries(queryText);
 	}
 
 	/**
@@ -153,6 +378,70 @@ public class BookService {
 		return queryBooks(queryText);
 	}
 
+	/**
+	 * Finds the ISBNs which already exist in repository by one query per
+	 * batch of ISBNs, instead of one query per book
+	 *
+	 * @param isbns
+	 *            ISBNs to check
+	 * @return the existing ISBNs
+	 * @throws RepositoryException
+	 *             as generic exception
+	 */
+	public Set<String> findExistingIsbns(Collection<String> isbns) throws RepositoryException {
+		Set<String> existingIsbns = sessionPool.read(session -> {
+			Set<String> found = Sets.newHashSet();
+			for (List<String> batch : Iterables.partition(isbns, ISBN_QUERY_BATCH_SIZE)) {
+				String condition = batch.stream().map(i -> StringUtils.join("@isbn='", i.replace("'", "''"), "'"))
+						.collect(Collectors.joining(" or "));
+				NodeIterator nodeIterator = executeQuery(session, StringUtils.join(QUERY_PREFIX, "[", condition, "]"))
+						.getNodes();
+				while (nodeIterator.hasNext()) {
+					Node bookNode = nodeIterator.nextNode();
+					if (bookNode.hasProperty(BookField.ISBN.getFieldName())) {
+						found.add(bookNode.getProperty(BookField.ISBN.getFieldName()).getString());
+					}
+				}
+			}
+			return found;
+		});
+		log.debug("{} of {} ISBN(s) exist", existingIsbns.size(), isbns.size());
+
+		return existingIsbns;
+	}
+
+	/**
+	 * retrieves a book from repository
+	 *
+	 * @param bookId
+	 *            bookId of the book
+	 * @return the book, empty If the book does not exist
+	 * @throws RepositoryException
+	 *             as generic exception
+	 */
+	public Optional<Book> getBook(String bookId) throws RepositoryException {
+		return sessionPool.read(session -> RepositoryUtil.getBookByPath(session,
+				Constants.REPOSITORY + Constants.PATH_SEPARATOR + bookId));
+	}
+
+	/**
+	 * retrieves the introduction and the paragraphs of a book
+	 *
+	 * @param bookId
+	 *            bookId of the book
+	 * @return the body of the book, empty If the book does not exist
+	 * @throws RepositoryException
+	 *             as generic exception
+	 */
+	public Optional<BookBody> getBookBody(String bookId) throws RepositoryException {
+		return sessionPool.read(session -> {
+			Optional<Node> bookNode = RepositoryUtil.getBookNode(session,
+					Constants.REPOSITORY + Constants.PATH_SEPARATOR + bookId);
+
+			return bookNode.isPresent() ? Optional.of(BookUtil.toBookBody(bookNode.get())) : Optional.empty();
+		});
+	}
+
 	/**
 	 * Searches books containing text as case in-sensitive
 	 *
@@ -160,14 +449,40 @@ public class BookService {
 	 * @return list of books
 	 * @throws RepositoryException
 	 */
-	@SuppressWarnings("deprecation")
 	private List<Book> queryBooks(String queryText) throws RepositoryException {
+		return sessionPool.read(session -> BookUtil.toBookList(executeQuery(session, queryText).getNodes()));
+	}
+
+	/**
+	 * Searches books reading only their summaries
+	 *
+	 * @param queryText
+	 * @return list of book summaries
+	 * @throws RepositoryException
+	 */
+	private List<BookSummary> queryBookSummaries(String queryText) throws RepositoryException {
+		return sessionPool
+				.read(session -> BookUtil.toBookSummaryList(executeQuery(session, queryText).getNodes()));
+	}
+
+	/**
+	 * @param session
+	 *            borrowed session
+	 * @param queryText
+	 *            XPath query
+	 * @return result of the query
+	 * @throws RepositoryException
+	 *             as generic exception
+	 */
+	@SuppressWarnings("deprecation")
+	private QueryResult executeQuery(Session session, String queryText) throws RepositoryException {
 		log.debug("QUERY: {}", queryText);
 		// Query repository for the books containing text
 		Query query = session.getWorkspace().getQueryManager().createQuery(queryText, Query.XPATH);
-		QueryResult queryResult = query.execute();
-
-		return BookUtil.toBookList(queryResult.getNodes());
+		long start = System.nanoTime();
+		QueryResult result = query.execute();
+		BookMetrics.getInstance().recordPhase(BookMetrics.Phase.QUERY, start);
+		return result;
 	}
 	
 	/**
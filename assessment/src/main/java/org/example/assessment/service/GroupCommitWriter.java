@@ -0,0 +1,395 @@
+package org.example.assessment.service;
+
+import java.util.List;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+
+import org.example.assessment.common.ResultCode;
+import org.example.assessment.exception.BookException;
+import org.example.assessment.service.SessionPool.SessionWork;
+import org.example.assessment.util.Preconditions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Commits the changes of concurrent requests together. A committer thread
+ * collects the queued changes for a short window or up to a batch size,
+ * applies them in order with one write session and saves them once, then
+ * returns each caller its own result. A change failing by a
+ * {@link BookException}, like a book not found, fails only its caller; the
+ * session is refreshed and the other changes are applied again, so nothing
+ * of the failed change is saved. If a change fails otherwise, the changes
+ * can not be applied again or the save fails, the changes of the batch are committed one by
+ * one to find the failed one. An {@link Error} stops the committer, the
+ * waiting and the later changes fail instead of blocking their callers.
+ *
+ * @author resulav
+ *
+ */
+public class GroupCommitWriter {
+
+	private static final int DEFAULT_BATCH_SIZE = 100;
+	private static final long DEFAULT_WINDOW_MILLIS = 1;
+	private static final long SHUTDOWN_TIMEOUT_MILLIS = 10000;
+
+	// queued to stop the committer after the changes before it
+	private static final Write<Void> STOP = new Write<>(null);
+
+	protected final Logger log = LoggerFactory.getLogger(getClass());
+
+	private final SessionPool sessionPool;
+	private final int batchSize;
+	private final long windowNanos;
+	private final BlockingDeque<Write<?>> queue = new LinkedBlockingDeque<>();
+	private final Thread committer;
+	private volatile boolean stopped;
+
+	private final AtomicLong writeCount = new AtomicLong();
+	private final AtomicLong commitCount = new AtomicLong();
+
+	private GroupCommitWriter(Builder builder) {
+		this.sessionPool = builder.sessionPool;
+		this.batchSize = builder.batchSize;
+		this.windowNanos = TimeUnit.MILLISECONDS.toNanos(builder.windowMillis);
+		this.committer = new Thread(this::run, "book-group-commit");
+		committer.setDaemon(true);
+		committer.start();
+	}
+
+	/**
+	 * queues the change and waits until it is committed with the changes of
+	 * the other requests
+	 *
+	 * @param change
+	 *            changes the session without saving it, throws
+	 *            {@link BookException} before changing the session to fail
+	 * @return result of the change
+	 * @throws RepositoryException
+	 *             as generic exception
+	 */
+	public <T> T write(SessionWork<T> change) throws RepositoryException {
+		Preconditions.checkArgument(!stopped, ResultCode.FAILED, "Group commit writer is shut down");
+		Write<T> write = new Write<>(change);
+		queue.add(write);
+		// shut down while queueing, the write is failed here If the committer
+		// has not taken it
+		if (stopped && queue.remove(write)) {
+			write.fail(BookException.newInstance(ResultCode.FAILED, "Group commit writer is shut down"));
+		}
+		return write.await();
+	}
+
+	/**
+	 * stops the committer after committing the queued changes
+	 */
+	public void shutdown() {
+		stopped = true;
+		queue.add(STOP);
+		try {
+			committer.join(SHUTDOWN_TIMEOUT_MILLIS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		log.info("{} write(s) committed by {} save(s)", writeCount.get(), commitCount.get());
+	}
+
+	/**
+	 * @return count of the committed changes
+	 */
+	long getWriteCount() {
+		return writeCount.get();
+	}
+
+	/**
+	 * @return count of the saves
+	 */
+	long getCommitCount() {
+		return commitCount.get();
+	}
+
+	public static Builder newBuilder() {
+		return new Builder();
+	}
+
+	private void run() {
+		try {
+			while (true) {
+				Write<?> first;
+				try {
+					first = queue.take();
+				} catch (InterruptedException e) {
+					log.warn("{} interrupted, {} write(s) not committed", committer.getName(), queue.size());
+					break;
+				}
+				if (first == STOP) {
+					break;
+				}
+				List<Write<?>> batch = Lists.newArrayListWithCapacity(batchSize);
+				boolean interrupted = collectBatch(first, batch);
+				commit(batch);
+				if (interrupted) {
+					// the next take stops the committer
+					Thread.currentThread().interrupt();
+				}
+			}
+		} finally {
+			// also If the committer dies by an error, no writer waits forever
+			stopped = true;
+			Write<?> write;
+			while ((write = queue.poll()) != null) {
+				write.fail(BookException.newInstance(ResultCode.FAILED, "Group commit writer is shut down"));
+			}
+		}
+	}
+
+	/**
+	 * collects the changes queued within the window after the first one
+	 *
+	 * @param first
+	 *            first change of the batch
+	 * @param batch
+	 *            receives the changes of the batch in the order queued
+	 * @return true If interrupted while collecting; the interrupt is
+	 *         cleared, so the collected changes can borrow a session
+	 */
+	private boolean collectBatch(Write<?> first, List<Write<?>> batch) {
+		batch.add(first);
+		long deadline = System.nanoTime() + windowNanos;
+		try {
+			while (batch.size() < batchSize) {
+				long remaining = deadline - System.nanoTime();
+				Write<?> next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+				if (next == null) {
+					break;
+				}
+				if (next == STOP) {
+					// stop after this batch
+					queue.addFirst(STOP);
+					break;
+				}
+				batch.add(next);
+			}
+		} catch (InterruptedException e) {
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * commits the batch with a write session and completes its changes
+	 *
+	 * @param batch
+	 *            changes to commit
+	 */
+	private void commit(List<Write<?>> batch) {
+		try {
+			sessionPool.write(session -> {
+				commit(session, batch);
+				return null;
+			});
+		} catch (RepositoryException | RuntimeException e) {
+			log.error("", BookException.newInstance(ResultCode.FAILED, "Error while committing writes", e));
+			batch.forEach(write -> write.fail(e));
+		} catch (Error e) {
+			// stops the committer, the queued writes are failed by run()
+			log.error("Committer stopped by an error, {} write(s) failed", batch.size(), e);
+			batch.forEach(write -> write.fail(e));
+			throw e;
+		}
+		log.debug("{} write(s) processed", batch.size());
+	}
+
+	/**
+	 * applies the changes and saves them once
+	 *
+	 * @param session
+	 *            write session
+	 * @param batch
+	 *            changes to commit
+	 * @throws RepositoryException
+	 *             If the session could not be refreshed
+	 */
+	private void commit(Session session, List<Write<?>> batch) throws RepositoryException {
+		List<Write<?>> applied = Lists.newArrayListWithCapacity(batch.size());
+		try {
+			for (Write<?> write : batch) {
+				try {
+					write.apply(session);
+					applied.add(write);
+				} catch (BookException e) {
+					write.fail(e);
+					// drops what the failed change did before throwing
+					session.refresh(false);
+					for (Write<?> appliedWrite : applied) {
+						appliedWrite.apply(session);
+					}
+				}
+			}
+			session.save();
+			commitCount.incrementAndGet();
+		} catch (RepositoryException | RuntimeException e) {
+			log.warn("Group commit of {} write(s) failed, committing one by one: {}", batch.size(), e.toString());
+			session.refresh(false);
+			commitEach(session, batch);
+			return;
+		}
+		applied.forEach(Write::complete);
+		writeCount.addAndGet(applied.size());
+	}
+
+	/**
+	 * saves the pending changes of the batch one by one
+	 *
+	 * @param session
+	 *            write session without changes
+	 * @param batch
+	 *            changes to commit, the failed ones are skipped
+	 * @throws RepositoryException
+	 *             If the session could not be refreshed
+	 */
+	private void commitEach(Session session, List<Write<?>> batch) throws RepositoryException {
+		for (Write<?> write : batch) {
+			if (write.isDone()) {
+				continue;
+			}
+			try {
+				write.apply(session);
+				session.save();
+				commitCount.incrementAndGet();
+				write.complete();
+				writeCount.incrementAndGet();
+			} catch (RepositoryException | RuntimeException e) {
+				write.fail(e);
+				session.refresh(false);
+			}
+		}
+	}
+
+	/**
+	 * A queued change and the result returned to its caller
+	 *
+	 * @param <T>
+	 *            result of the change
+	 */
+	private static final class Write<T> {
+		private final SessionWork<T> change;
+		private final CompletableFuture<T> future = new CompletableFuture<>();
+		private T result;
+
+		private Write(SessionWork<T> change) {
+			this.change = change;
+		}
+
+		private void apply(Session session) throws RepositoryException {
+			result = change.execute(session);
+		}
+
+		private void complete() {
+			future.complete(result);
+		}
+
+		private void fail(Throwable e) {
+			future.completeExceptionally(e);
+		}
+
+		private boolean isDone() {
+			return future.isDone();
+		}
+
+		private T await() throws RepositoryException {
+			try {
+				return future.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw BookException.newInstance(ResultCode.FAILED, "Interrupted while waiting the commit", e);
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof RepositoryException) {
+					throw (RepositoryException) cause;
+				}
+				if (cause instanceof RuntimeException) {
+					throw (RuntimeException) cause;
+				}
+				throw BookException.newInstance(ResultCode.FAILED, "Error while committing", e);
+			}
+		}
+	}
+
+	/**
+	 * {@code GroupCommitWriter} builder static inner class.
+	 */
+	public static final class Builder {
+		private SessionPool sessionPool;
+		private int batchSize = DEFAULT_BATCH_SIZE;
+		private long windowMillis = DEFAULT_WINDOW_MILLIS;
+
+		private Builder() {
+		}
+
+		/**
+		 * Sets the {@code sessionPool} and returns a reference to this Builder
+		 * so that the methods can be chained together. A batch is committed
+		 * with a write session of the pool.
+		 *
+		 * @param sessionPool
+		 *            the {@code sessionPool} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withSessionPool(SessionPool sessionPool) {
+			this.sessionPool = sessionPool;
+			return this;
+		}
+
+		/**
+		 * Sets the {@code batchSize} and returns a reference to this Builder so
+		 * that the methods can be chained together. The maximum count of the
+		 * changes saved at once.
+		 *
+		 * @param batchSize
+		 *            the {@code batchSize} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withBatchSize(int batchSize) {
+			this.batchSize = batchSize;
+			return this;
+		}
+
+		/**
+		 * Sets the {@code windowMillis} and returns a reference to this Builder
+		 * so that the methods can be chained together. The committer waits for
+		 * more changes within the window after the first change of a batch; 0
+		 * commits only the changes already queued.
+		 *
+		 * @param windowMillis
+		 *            the {@code windowMillis} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withWindowMillis(long windowMillis) {
+			this.windowMillis = windowMillis;
+			return this;
+		}
+
+		/**
+		 * Returns a {@code GroupCommitWriter} built from the parameters
+		 * previously set, its committer is started.
+		 *
+		 * @return a {@code GroupCommitWriter} built with parameters of this
+		 *         {@code GroupCommitWriter.Builder}
+		 */
+		public GroupCommitWriter build() {
+			Preconditions.checkNotNull(sessionPool, "sessionPool canot be null");
+			Preconditions.checkArgument(batchSize > 0, "batchSize should be positive");
+			Preconditions.checkArgument(windowMillis >= 0, "windowMillis can not be negative");
+			return new GroupCommitWriter(this);
+		}
+	}
+}
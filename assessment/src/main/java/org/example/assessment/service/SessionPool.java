@@ -0,0 +1,492 @@
+package org.example.assessment.service;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Deque;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import javax.jcr.AccessDeniedException;
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import javax.jcr.SimpleCredentials;
+import javax.jcr.Workspace;
+
+import org.example.assessment.common.ResultCode;
+import org.example.assessment.exception.BookException;
+import org.example.assessment.util.Preconditions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Pool of the sessions impersonated from the system session. JCR sessions are
+ * not thread-safe, so a request borrows a session for its work instead of
+ * sharing the system session. Reads, writes and streams are pooled
+ * separately, so the writes or the streams to slow clients can not hold all
+ * the sessions of the reads. The sessions are impersonated when the pool is
+ * built, by the thread building it; a session logged out meanwhile is
+ * replaced by impersonating from a session of the pool, one at a time, so
+ * the request threads never use the system session. The read and stream
+ * sessions are read-only, their save and the writes of their workspace fail.
+ * A session is refreshed on borrow, and its unsaved changes are dropped on
+ * return. A borrow waits for a free session while the pool is full and fails
+ * after the borrow timeout.
+ *
+ * @author resulav
+ *
+ */
+public class SessionPool {
+
+	private static final int DEFAULT_READ_SESSION_COUNT = Runtime.getRuntime().availableProcessors() * 2;
+	private static final int DEFAULT_WRITE_SESSION_COUNT = 2;
+	private static final int DEFAULT_STREAM_SESSION_COUNT = 2;
+	private static final long DEFAULT_BORROW_TIMEOUT_MILLIS = 5000;
+	// methods of Workspace changing the repository without a save
+	private static final Set<String> WORKSPACE_WRITES = ImmutableSet.of("copy", "clone", "move", "restore",
+			"importXML", "getImportContentHandler", "createWorkspace", "deleteWorkspace");
+
+	/**
+	 * Work of a request with a borrowed session
+	 *
+	 * @param <T>
+	 *            result of the work
+	 */
+	@FunctionalInterface
+	public interface SessionWork<T> {
+		/**
+		 * @param session
+		 *            borrowed session, used only by the calling thread until
+		 *            the work returns
+		 * @return result of the work
+		 * @throws RepositoryException
+		 *             as generic exception
+		 */
+		T execute(Session session) throws RepositoryException;
+	}
+
+	protected final Logger log = LoggerFactory.getLogger(getClass());
+
+	// impersonates the replaced sessions, used only while locked
+	private final Session impersonator;
+	private final long borrowTimeoutMillis;
+	private final Partition readSessions;
+	private final Partition writeSessions;
+	private final Partition streamSessions;
+	private volatile boolean closed;
+
+	private SessionPool(Builder builder) throws RepositoryException {
+		this.impersonator = impersonate(builder.session);
+		this.borrowTimeoutMillis = builder.borrowTimeoutMillis;
+		this.readSessions = new Partition("read", builder.readSessionCount, true);
+		this.writeSessions = new Partition("write", builder.writeSessionCount, false);
+		this.streamSessions = new Partition("stream", builder.streamSessionCount, true);
+		try {
+			readSessions.open(builder.session);
+			writeSessions.open(builder.session);
+			streamSessions.open(builder.session);
+		} catch (RepositoryException | RuntimeException e) {
+			close();
+			throw e;
+		}
+	}
+
+	/**
+	 * executes the work with a read session. The work should not change the
+	 * session, its changes are dropped.
+	 *
+	 * @param work
+	 *            work to execute
+	 * @return result of the work
+	 * @throws RepositoryException
+	 *             as generic exception
+	 */
+	public <T> T read(SessionWork<T> work) throws RepositoryException {
+		return readSessions.execute(work);
+	}
+
+	/**
+	 * executes the work with a write session. The work saves its changes,
+	 * the unsaved changes are dropped.
+	 *
+	 * @param work
+	 *            work to execute
+	 * @return result of the work
+	 * @throws RepositoryException
+	 *             as generic exception
+	 */
+	public <T> T write(SessionWork<T> work) throws RepositoryException {
+		return writeSessions.execute(work);
+	}
+
+	/**
+	 * executes the work with a stream session. A stream holds its session
+	 * while its client reads, so the streams are limited by their own
+	 * sessions instead of taking the sessions of the reads. The work should
+	 * not change the session, its changes are dropped.
+	 *
+	 * @param work
+	 *            work to execute
+	 * @return result of the work
+	 * @throws RepositoryException
+	 *             as generic exception
+	 */
+	public <T> T stream(SessionWork<T> work) throws RepositoryException {
+		return streamSessions.execute(work);
+	}
+
+	/**
+	 * logs out the idle sessions, the borrowed sessions are logged out when
+	 * returned. The system session is not logged out.
+	 */
+	public void close() {
+		closed = true;
+		readSessions.close();
+		writeSessions.close();
+		streamSessions.close();
+		synchronized (impersonator) {
+			impersonator.logout();
+		}
+	}
+
+	/**
+	 * @return count of the idle read sessions
+	 */
+	int getIdleReadSessionCount() {
+		return readSessions.idle.size();
+	}
+
+	/**
+	 * @return count of the idle write sessions
+	 */
+	int getIdleWriteSessionCount() {
+		return writeSessions.idle.size();
+	}
+
+	/**
+	 * @return count of the idle stream sessions
+	 */
+	int getIdleStreamSessionCount() {
+		return streamSessions.idle.size();
+	}
+
+	public static Builder newBuilder() {
+		return new Builder();
+	}
+
+	/**
+	 * Sessions of one kind, limited by the permits
+	 *
+	 * @author resulav
+	 *
+	 */
+	private final class Partition {
+		private final String name;
+		private final boolean readOnly;
+		private final int sessionCount;
+		private final Semaphore permits;
+		// the last returned session is borrowed first, it is the most likely
+		// to have the nodes of the request cached
+		private final Deque<Session> idle = new ConcurrentLinkedDeque<>();
+
+		private Partition(String name, int sessionCount, boolean readOnly) {
+			this.name = name;
+			this.readOnly = readOnly;
+			this.sessionCount = sessionCount;
+			this.permits = new Semaphore(sessionCount);
+		}
+
+		/**
+		 * impersonates the sessions of the partition
+		 *
+		 * @param session
+		 *            system session, used only by the thread building the
+		 *            pool
+		 * @throws RepositoryException
+		 *             as generic exception
+		 */
+		private void open(Session session) throws RepositoryException {
+			for (int i = 0; i < sessionCount; i++) {
+				idle.offerLast(wrap(impersonate(session)));
+			}
+		}
+
+		private <T> T execute(SessionWork<T> work) throws RepositoryException {
+			acquire();
+			Session borrowed = null;
+			try {
+				borrowed = borrow();
+				return work.execute(borrowed);
+			} finally {
+				if (borrowed != null) {
+					giveBack(borrowed);
+				}
+				permits.release();
+			}
+		}
+
+		private void acquire() {
+			Preconditions.checkArgument(!closed, ResultCode.FAILED, "Session pool is closed");
+			try {
+				if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+					throw BookException.newInstance(ResultCode.FAILED,
+							String.format("No %s session available in %d ms", name, borrowTimeoutMillis));
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw BookException.newInstance(ResultCode.FAILED, "Interrupted while waiting a " + name + " session",
+						e);
+			}
+		}
+
+		/**
+		 * @return an idle session refreshed to the latest saved state, or a new
+		 *         session If no idle session is live
+		 * @throws RepositoryException
+		 *             as generic exception
+		 */
+		private Session borrow() throws RepositoryException {
+			Session idleSession;
+			while ((idleSession = idle.pollFirst()) != null) {
+				if (idleSession.isLive()) {
+					idleSession.refresh(false);
+					return idleSession;
+				}
+			}
+			log.debug("new {} session", name);
+			synchronized (impersonator) {
+				Preconditions.checkArgument(!closed, ResultCode.FAILED, "Session pool is closed");
+				return wrap(impersonate(impersonator));
+			}
+		}
+
+		/**
+		 * @param pooled
+		 *            impersonated session
+		 * @return the session, rejecting the writes If the partition is
+		 *         read-only
+		 */
+		private Session wrap(Session pooled) {
+			return readOnly ? readOnly(pooled, name) : pooled;
+		}
+
+		/**
+		 * drops the unsaved changes and keeps the session for the next borrow
+		 *
+		 * @param borrowed
+		 *            returned session
+		 */
+		private void giveBack(Session borrowed) {
+			try {
+				if (!closed && borrowed.isLive()) {
+					if (borrowed.hasPendingChanges()) {
+						if (readOnly) {
+							log.warn("Unsaved changes of a read session are dropped");
+						}
+						borrowed.refresh(false);
+					}
+					idle.offerFirst(borrowed);
+					// close() may have logged out the idle sessions before
+					// the offer
+					if (closed && idle.remove(borrowed)) {
+						borrowed.logout();
+					}
+					return;
+				}
+			} catch (RepositoryException | RuntimeException e) {
+				log.error("", BookException.newInstance(ResultCode.FAILED, "Error while returning a session", e));
+			}
+			borrowed.logout();
+		}
+
+		private void close() {
+			Session idleSession;
+			while ((idleSession = idle.pollFirst()) != null) {
+				idleSession.logout();
+			}
+		}
+	}
+
+	/**
+	 * @param session
+	 *            session to impersonate, used only by one thread at a time
+	 * @return a new session of the same user
+	 * @throws RepositoryException
+	 *             as generic exception
+	 */
+	private static Session impersonate(Session session) throws RepositoryException {
+		return session.impersonate(new SimpleCredentials(session.getUserID(), new char[] {}));
+	}
+
+	/**
+	 * @param session
+	 *            session to wrap
+	 * @param name
+	 *            name of the partition of the session
+	 * @return the session failing its save and the writes of its workspace
+	 */
+	private static Session readOnly(Session session, String name) {
+		return (Session) Proxy.newProxyInstance(Session.class.getClassLoader(), new Class<?>[] { Session.class },
+				(proxy, method, args) -> {
+					if ("save".equals(method.getName())) {
+						throw new AccessDeniedException("A " + name + " session is read-only");
+					}
+					Object result = invoke(proxy, session, method, args);
+					return result instanceof Workspace ? readOnly((Workspace) result, name) : result;
+				});
+	}
+
+	/**
+	 * @param workspace
+	 *            workspace to wrap
+	 * @param name
+	 *            name of the partition of the session
+	 * @return the workspace failing its writes, the queries are executed
+	 */
+	private static Workspace readOnly(Workspace workspace, String name) {
+		return (Workspace) Proxy.newProxyInstance(Workspace.class.getClassLoader(),
+				new Class<?>[] { Workspace.class }, (proxy, method, args) -> {
+					if (WORKSPACE_WRITES.contains(method.getName())) {
+						throw new AccessDeniedException("The workspace of a " + name + " session is read-only");
+					}
+					return invoke(proxy, workspace, method, args);
+				});
+	}
+
+	/**
+	 * invokes the method of a wrapped session or workspace, the wrapper is
+	 * equal only to itself
+	 *
+	 * @param proxy
+	 *            wrapper
+	 * @param target
+	 *            wrapped object
+	 * @param method
+	 *            invoked method
+	 * @param args
+	 *            arguments of the method
+	 * @return result of the method
+	 * @throws Throwable
+	 *             exception of the method
+	 */
+	private static Object invoke(Object proxy, Object target, Method method, Object[] args) throws Throwable {
+		if ("equals".equals(method.getName()) && args != null && args.length == 1) {
+			return proxy == args[0];
+		}
+		if ("hashCode".equals(method.getName()) && args == null) {
+			return System.identityHashCode(proxy);
+		}
+		try {
+			return method.invoke(target, args);
+		} catch (InvocationTargetException e) {
+			throw e.getCause();
+		}
+	}
+
+	/**
+	 * {@code SessionPool} builder static inner class.
+	 */
+	public static final class Builder {
+		private Session session;
+		private int readSessionCount = DEFAULT_READ_SESSION_COUNT;
+		private int writeSessionCount = DEFAULT_WRITE_SESSION_COUNT;
+		private int streamSessionCount = DEFAULT_STREAM_SESSION_COUNT;
+		private long borrowTimeoutMillis = DEFAULT_BORROW_TIMEOUT_MILLIS;
+
+		private Builder() {
+		}
+
+		/**
+		 * Sets the {@code session} and returns a reference to this Builder so
+		 * that the methods can be chained together. The pooled sessions are
+		 * impersonated from the session.
+		 *
+		 * @param session
+		 *            the {@code session} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withSession(Session session) {
+			this.session = session;
+			return this;
+		}
+
+		/**
+		 * Sets the {@code readSessionCount} and returns a reference to this
+		 * Builder so that the methods can be chained together. The reads
+		 * executed at once, twice the processors by default.
+		 *
+		 * @param readSessionCount
+		 *            the {@code readSessionCount} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withReadSessionCount(int readSessionCount) {
+			this.readSessionCount = readSessionCount;
+			return this;
+		}
+
+		/**
+		 * Sets the {@code writeSessionCount} and returns a reference to this
+		 * Builder so that the methods can be chained together. The writes
+		 * executed at once.
+		 *
+		 * @param writeSessionCount
+		 *            the {@code writeSessionCount} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withWriteSessionCount(int writeSessionCount) {
+			this.writeSessionCount = writeSessionCount;
+			return this;
+		}
+
+		/**
+		 * Sets the {@code streamSessionCount} and returns a reference to this
+		 * Builder so that the methods can be chained together. The streams
+		 * executed at once.
+		 *
+		 * @param streamSessionCount
+		 *            the {@code streamSessionCount} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withStreamSessionCount(int streamSessionCount) {
+			this.streamSessionCount = streamSessionCount;
+			return this;
+		}
+
+		/**
+		 * Sets the {@code borrowTimeoutMillis} and returns a reference to this
+		 * Builder so that the methods can be chained together. A borrow fails
+		 * If no session is free within the timeout.
+		 *
+		 * @param borrowTimeoutMillis
+		 *            the {@code borrowTimeoutMillis} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withBorrowTimeoutMillis(long borrowTimeoutMillis) {
+			this.borrowTimeoutMillis = borrowTimeoutMillis;
+			return this;
+		}
+
+		/**
+		 * Returns a {@code SessionPool} built from the parameters previously
+		 * set, its sessions are impersonated from the session by the calling
+		 * thread.
+		 *
+		 * @return a {@code SessionPool} built with parameters of this
+		 *         {@code SessionPool.Builder}
+		 * @throws RepositoryException
+		 *             If a session could not be impersonated
+		 */
+		public SessionPool build() throws RepositoryException {
+			Preconditions.checkNotNull(session, "session canot be null");
+			Preconditions.checkArgument(readSessionCount > 0, "readSessionCount should be positive");
+			Preconditions.checkArgument(writeSessionCount > 0, "writeSessionCount should be positive");
+			Preconditions.checkArgument(streamSessionCount > 0, "streamSessionCount should be positive");
+			Preconditions.checkArgument(borrowTimeoutMillis >= 0, "borrowTimeoutMillis can not be negative");
+			return new SessionPool(this);
+		}
+	}
+}
@@ -1,10 +1,32 @@
 package org.example.assessment.store;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import org.example.assessment.common.BookField;
+import org.example.assessment.common.BookStorage;
+import org.example.assessment.common.ChangeType;
 import org.example.assessment.model.Book;
+import org.example.assessment.model.BookChange;
+import org.example.assessment.model.BookChanges;
+import org.example.assessment.model.BookCursor;
+import org.example.assessment.model.BookStoreStatus;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 
@@ -13,11 +35,53 @@ import com.google.common.collect.Maps;
  */
 public class BookCache {
 
-	private List<Book> bookList = Lists.newCopyOnWriteArrayList();
-	private Map<String, Book> bookMap = Maps.newConcurrentMap();
+	public static final int DEFAULT_CHANGE_LOG_CAPACITY = 10000;
 
-	private BookCache() {
-		// for sonarqube
+	// bookMap is the single source of truth, key = bookId
+	private final Map<String, CacheEntry> bookMap = Maps.newConcurrentMap();
+	// insertion order of the cached entries, key = insertion sequence
+	private final ConcurrentNavigableMap<Long, CacheEntry> orderedEntries = new ConcurrentSkipListMap<>();
+	private final AtomicLong insertionSequence = new AtomicLong();
+	// ISBN, author and name indexes, updated under the same lock as bookMap
+	private final BookIndex bookIndex = new BookIndex();
+	// incremented on each mutation
+	private final AtomicLong version = new AtomicLong();
+	// latest changes, the sequence number of a change is its version
+	private final BookChangeLog changeLog;
+	// storage of the books added or updated from now on
+	private volatile BookStorage storage = BookStorage.HEAP;
+	// versions restart with the cache, the creation time tells them apart
+	private final long createdMillis = System.currentTimeMillis();
+	private volatile long lastModifiedMillis = createdMillis;
+	// published book list, shared by all readers until the next mutation
+	private volatile Snapshot snapshot = new Snapshot(0, ImmutableList.of(), ImmutableList.of());
+	private final Object snapshotLock = new Object();
+
+	// startup load of the books, see BookObservator
+	private volatile boolean ready;
+	private volatile long warmUpStartMillis;
+	private volatile long warmUpEndMillis;
+	private final AtomicLong warmUpTotalBooks = new AtomicLong();
+	private final AtomicLong warmUpLoadedBooks = new AtomicLong();
+	private final AtomicLong warmUpFailedBooks = new AtomicLong();
+
+	// metrics, striped as the request threads count the lookups
+	private final LongAdder estimatedBytes = new LongAdder();
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+
+	BookCache() {
+		// package-private for the load tests, use getInstance()
+		this(DEFAULT_CHANGE_LOG_CAPACITY);
+	}
+
+	/**
+	 * @param changeLogCapacity
+	 *            count of the latest changes kept for
+	 *            {@link #getChangesSince(long, int)}
+	 */
+	BookCache(int changeLogCapacity) {
+		this.changeLog = new BookChangeLog(changeLogCapacity);
 	}
 
 	public static BookCache getInstance() {
@@ -25,55 +89,554 @@ public class BookCache {
 	}
 
 	/**
-	 * Retrieve cached book list
-	 * 
-	 * @return books in a new list
+	 * Retrieve cached book list in insertion order. The list is an immutable
+	 * snapshot shared by all readers; it is rebuilt once on the first read
+	 * after a mutation or a batch of mutations.
+	 *
+	 * @return books in an immutable list
 	 */
 	public List<Book> getBookList() {
-		return Lists.newArrayList(bookList);
+		return getSnapshot().books;
 	}
 
 	/**
-	 * Adds the book to cache If bookId is new or updates the book in cache If
-	 * the bookId exists
-	 * 
-	 * @param book
-	 *            book to add or to update
-	 * @return cached book instance
+	 * Sets the storage of the books added or updated from now on, set it
+	 * before the books are loaded. The compact storages keep the fields of the
+	 * indexes on heap and decode the books on read, the book lists of
+	 * {@link #getBookList()} and {@link #getBookListJson()} are decoded on
+	 * access instead of being held per version.
+	 *
+	 * @param storage
+	 *            storage of the books
 	 */
-	protected Book addOrUpdateBook(Book book) {
-		Book cachedBook = bookMap.get(book.getBookId());
-		if (cachedBook == null) {
-			bookList.add(book);
-			return bookMap.put(book.getBookId(), book);
+	public void setStorage(BookStorage storage) {
+		this.storage = storage;
+	}
+
+	/**
+	 * @return storage of the books added or updated from now on
+	 */
+	public BookStorage getStorage() {
+		return storage;
+	}
+
+	/**
+	 * Retrieve the JSON of the cached books in insertion order, as
+	 * {@link #getBookList()}. Each book is encoded once when it is added or
+	 * updated, so the list is written without serializing the books again.
+	 * The arrays are shared, callers must not change them.
+	 *
+	 * @return UTF-8 JSON of each book in an immutable list
+	 */
+	public List<byte[]> getBookListJson() {
+		return getSnapshot().jsonBooks;
+	}
+
+	/**
+	 * Version of the cache, changes on each mutation. Callers can compare
+	 * versions to find out whether anything changed since their last read.
+	 *
+	 * @return current version
+	 */
+	public long getSnapshotVersion() {
+		return version.get();
+	}
+
+	/**
+	 * @return creation time of the cache, versions of different instances
+	 *         differ by their creation time
+	 */
+	public long getCreatedMillis() {
+		return createdMillis;
+	}
+
+	/**
+	 * Time of the last mutation. It is updated after the version, so a reader
+	 * seeing the time reads the book list of that mutation.
+	 *
+	 * @return time of the last mutation, the creation time If not mutated
+	 */
+	public long getLastModifiedMillis() {
+		return lastModifiedMillis;
+	}
+
+	/**
+	 * Lists the changes after the sequence number. Only the changes without
+	 * a gap are listed, a change being applied concurrently ends the list
+	 * until it is logged. If the changes after the sequence number are not
+	 * kept anymore, a resync is required; the client reloads
+	 * {@link #getBookList()} and continues from the nextSince of the
+	 * response, changes already in the reloaded list are repeated. The book of
+	 * a change is the current book of the bookId, so a later change may
+	 * already be visible; null If removed meanwhile.
+	 *
+	 * @param since
+	 *            sequence number of the last change known by the client
+	 * @param limit
+	 *            maximum count of the changes
+	 * @return the changes
+	 */
+	public BookChanges getChangesSince(long since, int limit) {
+		long latest = version.get();
+		BookChanges.Builder response = BookChanges.newBuilder().withEpoch(createdMillis).withSince(since)
+				.withLatestSequence(latest);
+		if (since < 0 || since > latest) {
+			return response.withResyncRequired(true).withNextSince(latest).build();
+		}
+
+		List<BookChange> changes = changeLog.getChangesSince(since, limit, this::getCurrentBook);
+		if (changes.isEmpty() && changeLog.isDroppedAfter(since, latest)) {
+			return response.withResyncRequired(true).withNextSince(latest).build();
+		}
+
+		return response.withNextSince(since + changes.size()).withChanges(changes).build();
+	}
+
+	/**
+	 * Finds the cached book by bookId
+	 *
+	 * @param bookId
+	 *            bookId of the book
+	 * @return the cached book
+	 */
+	public Optional<Book> getBook(String bookId) {
+		return countLookup(Optional.ofNullable(getCachedEntry(bookId)).map(e -> e.stored.getBook()));
+	}
+
+	/**
+	 * Reads the cached book with the content hash of the same update. The hash
+	 * is computed once per update, so a request answered by the hash alone
+	 * does not decode the book.
+	 *
+	 * @param bookId
+	 *            bookId of the book
+	 * @param reader
+	 *            reads the content hash and, If needed, the book
+	 * @return the result of the reader, empty If the book is not cached
+	 */
+	public <T> Optional<T> readBook(String bookId, BiFunction<String, Supplier<Book>, T> reader) {
+		Optional<StoredBook> stored = Optional.ofNullable(getCachedEntry(bookId)).map(e -> e.stored);
+		countLookup(stored.map(StoredBook::getHeader));
+		return stored.map(b -> reader.apply(b.getContentHash(), b::getBook));
+	}
+
+	/**
+	 * Finds the cached book by ISBN
+	 *
+	 * @param isbn
+	 *            ISBN of the book
+	 * @return the first added book having the ISBN
+	 */
+	public Optional<Book> getBookByIsbn(String isbn) {
+		return countLookup(getEntriesByIsbn(isbn).findFirst().map(e -> e.stored.getBook()));
+	}
+
+	/**
+	 * Finds the cached books by ISBN
+	 *
+	 * @param isbn
+	 *            ISBN of the books
+	 * @return books having the ISBN in insertion order
+	 */
+	public List<Book> getBooksByIsbn(String isbn) {
+		return getEntriesByIsbn(isbn).map(e -> e.stored.getBook()).collect(Collectors.toList());
+	}
+
+	/**
+	 * Finds the cached books of the author as case in-sensitive
+	 *
+	 * @param author
+	 *            author of the books
+	 * @return books of the author in insertion order
+	 */
+	public List<Book> getBooksByAuthor(String author) {
+		return bookIndex.getBookIdsByAuthor(author).stream().map(this::getCachedEntry).filter(Objects::nonNull)
+				.filter(e -> author.equalsIgnoreCase(e.stored.getHeader().getAuthor()))
+				.sorted(Comparator.comparingLong(e -> e.order)).map(e -> e.stored.getBook())
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * Finds the cached books whose name starts with the prefix as case
+	 * in-sensitive
+	 *
+	 * @param prefix
+	 *            prefix of the book name
+	 * @return books ordered by name
+	 */
+	public List<Book> getBooksByNamePrefix(String prefix) {
+		Collection<String> bookIds = bookIndex.getBookIdsByNamePrefix(prefix);
+		return bookIds.stream().map(this::getCachedEntry).filter(Objects::nonNull).map(e -> e.stored)
+				.filter(b -> b.getHeader().getName() != null
+						&& b.getHeader().getName().regionMatches(true, 0, prefix, 0, prefix.length()))
+				.map(StoredBook::getBook).collect(Collectors.toList());
+	}
+
+	/**
+	 * Lists a page of the cached books after the cursor. Books are ordered by
+	 * bookId, or by the lower case name then by bookId like the pages of the
+	 * repository; books without a name are not listed by name.
+	 *
+	 * @param sort
+	 *            {@link BookField#BOOK_ID} or {@link BookField#NAME}
+	 * @param cursor
+	 *            position after the last book of the previous page, null for
+	 *            the first page
+	 * @param limit
+	 *            maximum count of the books
+	 * @return books of the page
+	 */
+	public List<Book> getBookPage(BookField sort, BookCursor cursor, int limit) {
+		List<String> bookIds;
+		if (cursor == null) {
+			bookIds = sort == BookField.NAME ? bookIndex.getBookIdsByNameAfter(null, null, limit)
+					: bookIndex.getBookIdsAfter(null, limit);
+		} else {
+			bookIds = sort == BookField.NAME
+					? bookIndex.getBookIdsByNameAfter(cursor.getName(), cursor.getBookId(), limit)
+					: bookIndex.getBookIdsAfter(cursor.getBookId(), limit);
 		}
+		return bookIds.stream().map(this::getCachedEntry).filter(Objects::nonNull).map(e -> e.stored.getBook())
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * @return count of cached books
+	 */
+	public int size() {
+		return bookMap.size();
+	}
+
+	/**
+	 * @return the estimated heap of the cached books in bytes, by the length
+	 *         of their JSON in each storage
+	 */
+	public long getEstimatedBytes() {
+		return estimatedBytes.sum();
+	}
+
+	/**
+	 * @return count of the lookups by bookId or ISBN finding the book
+	 */
+	public long getHitCount() {
+		return hits.sum();
+	}
+
+	/**
+	 * @return count of the lookups by bookId or ISBN not finding the book
+	 */
+	public long getMissCount() {
+		return misses.sum();
+	}
 
-		if (bookList.contains(book)) {
-			bookList.set(bookList.indexOf(cachedBook), book);
+	/**
+	 * Reports whether the books of the repository are loaded and the progress
+	 * of the loading at startup
+	 *
+	 * @return status of the store
+	 */
+	public BookStoreStatus getStatus() {
+		long total = warmUpTotalBooks.get();
+		long loaded = warmUpLoadedBooks.get();
+		long failed = warmUpFailedBooks.get();
+		boolean isReady = ready;
+		int progress;
+		if (isReady) {
+			progress = 100;
 		} else {
-			bookList.add(book);
+			progress = total == 0 ? 0 : (int) Math.min(99, (loaded + failed) * 100 / total);
 		}
+		long start = warmUpStartMillis;
+		long end = isReady ? warmUpEndMillis : System.currentTimeMillis();
+
+		return BookStoreStatus.newBuilder().withReady(isReady).withTotalBooks(total).withLoadedBooks(loaded)
+				.withFailedBooks(failed).withProgressPercentage(progress).withBookCount(size())
+				.withWarmUpMillis(start == 0 ? 0 : Math.max(0, end - start)).build();
+	}
+
+	/**
+	 * Marks the store as not ready until {@link #warmUpFinished()}
+	 */
+	protected void warmUpStarted() {
+		ready = false;
+		warmUpTotalBooks.set(0);
+		warmUpLoadedBooks.set(0);
+		warmUpFailedBooks.set(0);
+		warmUpStartMillis = System.currentTimeMillis();
+	}
+
+	/**
+	 * Records the books found in repository to load
+	 *
+	 * @param count
+	 *            count of the found books
+	 */
+	protected void warmUpBooksFound(long count) {
+		warmUpTotalBooks.addAndGet(count);
+	}
+
+	/**
+	 * Records the loaded and the failed books of a chunk
+	 *
+	 * @param loaded
+	 *            count of the loaded books
+	 * @param failed
+	 *            count of the books failed to load
+	 */
+	protected void warmUpBooksLoaded(long loaded, long failed) {
+		warmUpLoadedBooks.addAndGet(loaded);
+		warmUpFailedBooks.addAndGet(failed);
+	}
+
+	/**
+	 * Marks the store as ready
+	 */
+	protected void warmUpFinished() {
+		warmUpEndMillis = System.currentTimeMillis();
+		ready = true;
+	}
+
+	/**
+	 * Adds or updates the book read at startup unless the book is changed by a
+	 * repository event meanwhile. The check and the update are atomic, so a
+	 * book read before an event can not override the book applied by the
+	 * event.
+	 *
+	 * @param book
+	 *            book read from repository
+	 * @param changedByEvent
+	 *            tests whether an event of the bookId is received
+	 * @return true If the book is added or updated
+	 */
+	protected boolean addOrUpdateBookUnless(Book book, Predicate<String> changedByEvent) {
+		boolean[] updated = new boolean[1];
+		StoredBook stored = StoredBook.of(book, storage);
+		bookMap.compute(book.getBookId(), (bookId, entry) -> {
+			if (changedByEvent.test(bookId)) {
+				return entry;
+			}
+			updated[0] = true;
+			return putEntry(entry, book, stored);
+		});
 
-		return bookMap.put(book.getBookId(), book);
+		return updated[0];
+	}
+
+	/**
+	 * Removes the book missing in repository at startup unless the book is
+	 * changed by a repository event meanwhile
+	 *
+	 * @param bookId
+	 *            bookId of the missing book
+	 * @param changedByEvent
+	 *            tests whether an event of the bookId is received
+	 * @return true If the book is removed
+	 */
+	protected boolean removeBookUnless(String bookId, Predicate<String> changedByEvent) {
+		boolean[] removed = new boolean[1];
+		bookMap.computeIfPresent(bookId, (id, entry) -> {
+			if (changedByEvent.test(id)) {
+				return entry;
+			}
+			removeEntry(entry);
+			removed[0] = true;
+			return null;
+		});
+
+		return removed[0];
+	}
+
+	/**
+	 * Adds the book to cache If bookId is new or updates the book in cache If
+	 * the bookId exists. An update keeps the insertion order of the book.
+	 *
+	 * @param book
+	 *            book to add or to update
+	 * @return previous cached book instance, null If the book is new
+	 */
+	protected Book addOrUpdateBook(Book book) {
+		StoredBook[] previous = new StoredBook[1];
+		// encoded before the lock, only the swap is done under it
+		StoredBook stored = StoredBook.of(book, storage);
+		// compute locks only the bin of the bookId, order index is updated
+		// atomically with the map
+		bookMap.compute(book.getBookId(), (bookId, entry) -> {
+			previous[0] = entry == null ? null : entry.stored;
+			return putEntry(entry, book, stored);
+		});
+
+		return previous[0] == null ? null : previous[0].getBook();
 	}
 
 	/**
 	 * Removes the book from cache by bookId
-	 * 
+	 *
 	 * @param bookId
 	 *            the bookId of the removing book
 	 * @return the removed book instance
 	 */
 	protected Book removeBook(String bookId) {
-		Book removedBook = bookMap.remove(bookId);
-		bookList.remove(removedBook);
+		Book[] removed = new Book[1];
+		bookMap.computeIfPresent(bookId, (id, entry) -> {
+			removeEntry(entry);
+			removed[0] = entry.stored.getBook();
+			return null;
+		});
+
+		return removed[0];
+	}
+
+	/**
+	 * publishes a mutation to the readers of the version and records it in
+	 * the change log, called under the lock of the bookId after the entry is
+	 * changed. The sequence number of the change is the new version, so the
+	 * changes of a bookId are logged in the order they are applied.
+	 *
+	 * @param type
+	 *            type of the change
+	 * @param bookId
+	 *            bookId of the changed book
+	 */
+	private void mutated(ChangeType type, String bookId) {
+		changeLog.add(version.incrementAndGet(), type, bookId);
+		lastModifiedMillis = System.currentTimeMillis();
+	}
+
+	/**
+	 * adds a new entry or updates the book of the entry, called under the lock
+	 * of the bookId
+	 *
+	 * @param entry
+	 *            cached entry of the bookId, null If the book is new
+	 * @param book
+	 *            book to add or to update
+	 * @param stored
+	 *            the book encoded in its storage, once per update instead of
+	 *            once per read
+	 * @return the entry of the book
+	 */
+	private CacheEntry putEntry(CacheEntry entry, Book book, StoredBook stored) {
+		if (entry == null) {
+			estimatedBytes.add(stored.getEstimatedBytes());
+			CacheEntry newEntry = new CacheEntry(insertionSequence.incrementAndGet(), stored);
+			orderedEntries.put(newEntry.order, newEntry);
+			bookIndex.add(book);
+			mutated(ChangeType.ADDED, book.getBookId());
+			return newEntry;
+		}
+		bookIndex.update(entry.stored.getHeader(), book);
+		estimatedBytes.add(stored.getEstimatedBytes() - entry.stored.getEstimatedBytes());
+		entry.stored = stored;
+		mutated(ChangeType.UPDATED, book.getBookId());
+		return entry;
+	}
+
+	/**
+	 * removes the entry from the order and the indexes, called under the lock
+	 * of the bookId
+	 *
+	 * @param entry
+	 *            cached entry to remove
+	 */
+	private void removeEntry(CacheEntry entry) {
+		orderedEntries.remove(entry.order);
+		bookIndex.remove(entry.stored.getHeader());
+		estimatedBytes.add(-entry.stored.getEstimatedBytes());
+		mutated(ChangeType.REMOVED, entry.stored.getHeader().getBookId());
+	}
+
+	/**
+	 * the snapshot of the current version, rebuilt once on the first read
+	 * after a mutation or a batch of mutations
+	 *
+	 * @return the current snapshot
+	 */
+	private Snapshot getSnapshot() {
+		Snapshot current = snapshot;
+		if (current.version == version.get()) {
+			return current;
+		}
+
+		synchronized (snapshotLock) {
+			// read the version before the entries, a mutation applied while
+			// building leaves the snapshot stale for the next reader
+			long currentVersion = version.get();
+			if (snapshot.version != currentVersion) {
+				ImmutableList.Builder<StoredBook> builder = ImmutableList.builder();
+				orderedEntries.values().forEach(e -> builder.add(e.stored));
+				ImmutableList<StoredBook> storedBooks = builder.build();
+				if (storedBooks.stream().allMatch(b -> b.getStorage() == BookStorage.HEAP)) {
+					snapshot = new Snapshot(currentVersion,
+							ImmutableList.copyOf(Lists.transform(storedBooks, StoredBook::getBook)),
+							ImmutableList.copyOf(Lists.transform(storedBooks, StoredBook::getJson)));
+				} else {
+					// decoded on access, the decoded books are not held
+					snapshot = new Snapshot(currentVersion,
+							Collections.unmodifiableList(Lists.transform(storedBooks, StoredBook::getBook)),
+							Collections.unmodifiableList(Lists.transform(storedBooks, StoredBook::getJson)));
+				}
+			}
+			return snapshot;
+		}
+	}
 
-		return removedBook;
+	private Stream<CacheEntry> getEntriesByIsbn(String isbn) {
+		return bookIndex.getBookIdsByIsbn(isbn).stream().map(this::getCachedEntry).filter(Objects::nonNull)
+				.filter(e -> Objects.equals(isbn, e.stored.getHeader().getIsbn()))
+				.sorted(Comparator.comparingLong(e -> e.order));
+	}
+
+	private CacheEntry getCachedEntry(String bookId) {
+		return bookMap.get(bookId);
+	}
+
+	private Book getCurrentBook(String bookId) {
+		CacheEntry entry = getCachedEntry(bookId);
+		return entry == null ? null : entry.stored.getBook();
+	}
+
+	private Optional<Book> countLookup(Optional<Book> book) {
+		(book.isPresent() ? hits : misses).increment();
+		return book;
+	}
+
+	/**
+	 * A cached book with its insertion order
+	 *
+	 * @author resulav
+	 *
+	 */
+	private static final class CacheEntry {
+		private final long order;
+		private volatile StoredBook stored;
+
+		private CacheEntry(long order, StoredBook stored) {
+			this.order = order;
+			this.stored = stored;
+		}
+	}
+
+	/**
+	 * Immutable book and JSON lists of a cache version
+	 *
+	 * @author resulav
+	 *
+	 */
+	private static final class Snapshot {
+		private final long version;
+		private final List<Book> books;
+		private final List<byte[]> jsonBooks;
+
+		private Snapshot(long version, List<Book> books, List<byte[]> jsonBooks) {
+			this.version = version;
+			this.books = books;
+			this.jsonBooks = jsonBooks;
+		}
 	}
 
 	/**
 	 * Cache holder
-	 * 
+	 *
 	 * @author resulav
 	 *
 	 */
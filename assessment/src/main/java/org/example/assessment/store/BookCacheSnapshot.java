@@ -0,0 +1,243 @@
+package org.example.assessment.store;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import org.example.assessment.model.Book;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Binary snapshot file of the cached books. The file holds the books with the
+ * date of the repository events to replay after restoring and the date it is
+ * written, followed by a CRC32 of the content. It is written to a temporary file and moved over the
+ * previous snapshot, so a crash while writing leaves the previous snapshot
+ * intact. Reading maps the file to memory.
+ *
+ * @author resulav
+ *
+ */
+final class BookCacheSnapshot {
+
+	private static final int MAGIC = 0x424F4F4B; // BOOK
+	private static final int FORMAT_VERSION = 2;
+	private static final int NULL_LENGTH = -1;
+
+	protected final Logger log = LoggerFactory.getLogger(getClass());
+
+	private final Path file;
+
+	/**
+	 * @param file
+	 *            snapshot file
+	 */
+	BookCacheSnapshot(Path file) {
+		this.file = file;
+	}
+
+	/**
+	 * @return the snapshot file
+	 */
+	Path getFile() {
+		return file;
+	}
+
+	/**
+	 * writes the books, replacing the previous snapshot
+	 *
+	 * @param replayFromDate
+	 *            date of the last repository event applied to the books, the
+	 *            events since then are replayed
+	 * @param books
+	 *            books to write
+	 * @throws IOException
+	 *             If the file can not be written
+	 */
+	void write(long replayFromDate, List<Book> books) throws IOException {
+		Path parent = file.toAbsolutePath().getParent();
+		Files.createDirectories(parent);
+		Path tempFile = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+		try {
+			CRC32 crc = new CRC32();
+			try (OutputStream fileOut = Files.newOutputStream(tempFile);
+					DataOutputStream out = new DataOutputStream(
+							new BufferedOutputStream(new CheckedOutputStream(fileOut, crc)))) {
+				out.writeInt(MAGIC);
+				out.writeInt(FORMAT_VERSION);
+				out.writeLong(replayFromDate);
+				out.writeLong(System.currentTimeMillis());
+				out.writeInt(books.size());
+				for (Book book : books) {
+					writeString(out, book.getBookId());
+					writeString(out, book.getName());
+					writeString(out, book.getAuthor());
+					writeString(out, book.getIsbn());
+					writeStrings(out, book.getIntroduction());
+					writeStrings(out, book.getParagraphs());
+				}
+				out.flush();
+				// the checksum is not a part of the checked content
+				new DataOutputStream(fileOut).writeLong(crc.getValue());
+			}
+			Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(tempFile);
+		}
+	}
+
+	/**
+	 * reads the snapshot
+	 *
+	 * @return the content of the snapshot, empty If the file does not exist,
+	 *         is corrupt or has another format version
+	 */
+	Optional<Content> read() {
+		if (!Files.isRegularFile(file)) {
+			log.info("No book cache snapshot at {}", file);
+			return Optional.empty();
+		}
+
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size < Integer.BYTES * 3 + Long.BYTES * 3 || size > Integer.MAX_VALUE) {
+				log.warn("Invalid book cache snapshot size {} at {}", size, file);
+				return Optional.empty();
+			}
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+			int contentSize = (int) size - Long.BYTES;
+			ByteBuffer content = buffer.duplicate();
+			content.limit(contentSize);
+			CRC32 crc = new CRC32();
+			crc.update(content);
+			if (crc.getValue() != buffer.getLong(contentSize)) {
+				log.warn("Corrupt book cache snapshot at {}", file);
+				return Optional.empty();
+			}
+
+			buffer.limit(contentSize);
+			if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+				log.warn("Unknown book cache snapshot format at {}", file);
+				return Optional.empty();
+			}
+			long replayFromDate = buffer.getLong();
+			long writtenDate = buffer.getLong();
+			int count = buffer.getInt();
+			List<Book> books = Lists.newArrayListWithCapacity(count);
+			for (int i = 0; i < count; i++) {
+				Book book = new Book();
+				book.setBookId(readString(buffer));
+				book.setName(readString(buffer));
+				book.setAuthor(readString(buffer));
+				book.setIsbn(readString(buffer));
+				book.setIntroduction(readStrings(buffer));
+				book.setParagraphs(readStrings(buffer));
+				books.add(book);
+			}
+
+			return Optional.of(new Content(replayFromDate, writtenDate, books));
+		} catch (IOException | RuntimeException e) {
+			log.warn("Error while reading book cache snapshot at " + file, e);
+			return Optional.empty();
+		}
+	}
+
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		if (value == null) {
+			out.writeInt(NULL_LENGTH);
+			return;
+		}
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static void writeStrings(DataOutputStream out, String[] values) throws IOException {
+		if (values == null) {
+			out.writeInt(NULL_LENGTH);
+			return;
+		}
+		out.writeInt(values.length);
+		for (String value : values) {
+			writeString(out, value);
+		}
+	}
+
+	private static String readString(ByteBuffer buffer) {
+		int length = buffer.getInt();
+		if (length == NULL_LENGTH) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static String[] readStrings(ByteBuffer buffer) {
+		int length = buffer.getInt();
+		if (length == NULL_LENGTH) {
+			return null;
+		}
+		String[] values = new String[length];
+		for (int i = 0; i < length; i++) {
+			values[i] = readString(buffer);
+		}
+		return values;
+	}
+
+	/**
+	 * Books of a snapshot with the date to replay the repository events from
+	 *
+	 * @author resulav
+	 *
+	 */
+	static final class Content {
+		private final long replayFromDate;
+		private final long writtenDate;
+		private final List<Book> books;
+
+		private Content(long replayFromDate, long writtenDate, List<Book> books) {
+			this.replayFromDate = replayFromDate;
+			this.writtenDate = writtenDate;
+			this.books = books;
+		}
+
+		/**
+		 * @return date of the last repository event applied to the books, the
+		 *         events since then are replayed
+		 */
+		long getReplayFromDate() {
+			return replayFromDate;
+		}
+
+		/**
+		 * @return date the snapshot is written
+		 */
+		long getWrittenDate() {
+			return writtenDate;
+		}
+
+		/**
+		 * @return books of the snapshot in cache order
+		 */
+		List<Book> getBooks() {
+			return books;
+		}
+	}
+}
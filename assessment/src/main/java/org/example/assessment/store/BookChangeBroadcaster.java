@@ -0,0 +1,390 @@
+package org.example.assessment.store;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.example.assessment.model.BookChange;
+import org.example.assessment.model.BookChanges;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Pushes the changes of {@link BookCache} to the subscribers. One dispatcher
+ * thread follows the change log of the cache and offers each change to the
+ * bounded buffer of every subscriber; a subscriber whose buffer is full is
+ * closed instead of holding the others back, and resumes by its last event
+ * id while the change is still in the log. Each subscriber holds a request
+ * thread while it streams, so the subscribers are limited.
+ *
+ * @author resulav
+ *
+ */
+public class BookChangeBroadcaster {
+
+	public static final int DEFAULT_BUFFER_CAPACITY = 1000;
+	// well below the request threads of the container, the other requests
+	// are still served
+	public static final int DEFAULT_MAX_SUBSCRIBERS = 100;
+	// changes read from the log at once
+	private static final int DISPATCH_BATCH_SIZE = 1000;
+	// the log is also followed without a signal, e.g. for the warm-up
+	private static final long DISPATCH_INTERVAL_MILLIS = 1000;
+	private static final char EVENT_ID_SEPARATOR = '-';
+	private static final long SHUTDOWN_TIMEOUT_MILLIS = 10000;
+
+	protected final Logger log = LoggerFactory.getLogger(getClass());
+
+	private final BookCache bookCache;
+	private final int bufferCapacity;
+	private volatile int maxSubscribers = DEFAULT_MAX_SUBSCRIBERS;
+	private final Set<Subscriber> subscribers = new CopyOnWriteArraySet<>();
+	// guards the dispatched sequence against the subscriptions
+	private final Object dispatchLock = new Object();
+	private long dispatchedSequence;
+	private final Object signal = new Object();
+	private boolean signalled;
+	private Thread dispatcher;
+	private volatile boolean running = true;
+
+	private final AtomicLong dispatchedChanges = new AtomicLong();
+	private final AtomicLong closedSubscribers = new AtomicLong();
+
+	/**
+	 * @param bookCache
+	 *            cache to follow
+	 * @param bufferCapacity
+	 *            count of the changes buffered for a subscriber
+	 */
+	BookChangeBroadcaster(BookCache bookCache, int bufferCapacity) {
+		this.bookCache = bookCache;
+		this.bufferCapacity = bufferCapacity;
+		this.dispatchedSequence = bookCache.getSnapshotVersion();
+	}
+
+	public static BookChangeBroadcaster getInstance() {
+		return HOLDER.INSTANCE;
+	}
+
+	/**
+	 * Subscribes to the changes after the last event id. If the changes after
+	 * the last event id are not kept anymore, or there is no last event id,
+	 * the subscriber starts with a resync.
+	 *
+	 * @param lastEventId
+	 *            id of the last event received by a previous subscription,
+	 *            null for a new subscription
+	 * @return the subscriber, empty If the maximum count of subscribers is
+	 *         reached
+	 */
+	public Optional<Subscriber> subscribe(String lastEventId) {
+		startDispatcher();
+		synchronized (dispatchLock) {
+			if (subscribers.size() >= maxSubscribers) {
+				log.debug("Subscriber rejected, {} subscriber(s)", subscribers.size());
+				return Optional.empty();
+			}
+			long since = toSequence(lastEventId);
+			Subscriber subscriber = new Subscriber(bufferCapacity);
+			// catch up to the dispatched sequence from the log, the
+			// dispatcher delivers the later changes
+			while (since >= 0 && since < dispatchedSequence) {
+				BookChanges changes = bookCache.getChangesSince(since, DISPATCH_BATCH_SIZE);
+				if (changes.isResyncRequired() || changes.getChanges().isEmpty()
+						|| changes.getChanges().size() > subscriber.buffer.remainingCapacity()) {
+					since = -1;
+					break;
+				}
+				for (BookChange change : changes.getChanges()) {
+					if (change.getSequence() <= dispatchedSequence) {
+						subscriber.buffer.add(change);
+					}
+				}
+				// the dispatcher delivers the changes logged meanwhile
+				since = Math.min(changes.getNextSince(), dispatchedSequence);
+			}
+			if (since < 0) {
+				subscriber.buffer.clear();
+				subscriber.resync = true;
+			}
+			subscriber.lastSequence = since < 0 ? dispatchedSequence : since;
+			subscribers.add(subscriber);
+			log.debug("Subscriber added from sequence {}, {} subscriber(s)", subscriber.lastSequence,
+					subscribers.size());
+			return Optional.of(subscriber);
+		}
+	}
+
+	/**
+	 * wakes the dispatcher up after the cache is changed
+	 */
+	public void changed() {
+		synchronized (signal) {
+			signalled = true;
+			signal.notifyAll();
+		}
+	}
+
+	/**
+	 * @param maxSubscribers
+	 *            maximum count of the open subscribers, a subscription beyond
+	 *            it is rejected
+	 */
+	public void setMaxSubscribers(int maxSubscribers) {
+		this.maxSubscribers = maxSubscribers;
+	}
+
+	/**
+	 * @return count of the open subscribers
+	 */
+	public int getSubscriberCount() {
+		return subscribers.size();
+	}
+
+	/**
+	 * @return count of the subscribers closed for a full buffer
+	 */
+	public long getClosedSubscriberCount() {
+		return closedSubscribers.get();
+	}
+
+	/**
+	 * @return count of the changes dispatched to the subscribers
+	 */
+	public long getDispatchedChangeCount() {
+		return dispatchedChanges.get();
+	}
+
+	/**
+	 * @param change
+	 *            a dispatched change
+	 * @return the event id of the change, the epoch of the cache and the
+	 *         sequence number
+	 */
+	public String toEventId(BookChange change) {
+		return Long.toHexString(bookCache.getCreatedMillis()) + EVENT_ID_SEPARATOR + change.getSequence();
+	}
+
+	/**
+	 * @return the epoch and the sequence number to continue from after a
+	 *         resync, for {@link BookCache#getChangesSince(long, int)}
+	 */
+	public BookChanges getResync() {
+		long sequence = bookCache.getSnapshotVersion();
+		return BookChanges.newBuilder().withEpoch(bookCache.getCreatedMillis()).withSince(-1)
+				.withNextSince(sequence).withLatestSequence(sequence).withResyncRequired(true).build();
+	}
+
+	/**
+	 * accepts subscribers again after {@link #shutdown()}, the dispatcher
+	 * follows the log from the current version of the cache
+	 */
+	public void start() {
+		synchronized (dispatchLock) {
+			dispatchedSequence = bookCache.getSnapshotVersion();
+		}
+		synchronized (this) {
+			running = true;
+		}
+	}
+
+	/**
+	 * stops the dispatcher and closes the subscribers, {@link #start()}
+	 * restarts
+	 */
+	public void shutdown() {
+		Thread thread;
+		synchronized (this) {
+			running = false;
+			thread = dispatcher;
+			dispatcher = null;
+		}
+		if (thread != null) {
+			thread.interrupt();
+			try {
+				thread.join(SHUTDOWN_TIMEOUT_MILLIS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		subscribers.forEach(Subscriber::close);
+		subscribers.clear();
+	}
+
+	/**
+	 * @param lastEventId
+	 *            event id of {@link #toEventId(BookChange)}
+	 * @return the sequence number, -1 If missing, invalid or of another epoch
+	 */
+	private long toSequence(String lastEventId) {
+		String prefix = Long.toHexString(bookCache.getCreatedMillis()) + EVENT_ID_SEPARATOR;
+		if (lastEventId == null || !lastEventId.startsWith(prefix)) {
+			return -1;
+		}
+		try {
+			return Long.parseLong(lastEventId.substring(prefix.length()));
+		} catch (NumberFormatException e) {
+			log.debug("Invalid last event id {}", lastEventId);
+			return -1;
+		}
+	}
+
+	private synchronized void startDispatcher() {
+		if (dispatcher == null && running) {
+			dispatcher = new Thread(this::dispatch, "book-change-broadcaster");
+			dispatcher.setDaemon(true);
+			dispatcher.start();
+		}
+	}
+
+	/**
+	 * follows the change log until shutdown
+	 */
+	private void dispatch() {
+		while (running) {
+			try {
+				awaitSignal();
+				dispatchChanges();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			} catch (Exception e) {
+				log.error("Error while dispatching book changes", e);
+			}
+		}
+	}
+
+	private void awaitSignal() throws InterruptedException {
+		synchronized (signal) {
+			if (!signalled) {
+				signal.wait(DISPATCH_INTERVAL_MILLIS);
+			}
+			signalled = false;
+		}
+	}
+
+	/**
+	 * offers the logged changes after the dispatched sequence to the
+	 * subscribers
+	 */
+	private void dispatchChanges() {
+		synchronized (dispatchLock) {
+			while (dispatchedSequence < bookCache.getSnapshotVersion()) {
+				BookChanges changes = bookCache.getChangesSince(dispatchedSequence, DISPATCH_BATCH_SIZE);
+				if (changes.isResyncRequired()) {
+					// the dispatcher fell out of the log, all subscribers
+					// resync
+					log.warn("Book changes after {} are not kept, subscribers resync", dispatchedSequence);
+					subscribers.forEach(this::closeSubscriber);
+					dispatchedSequence = changes.getNextSince();
+					return;
+				}
+				List<BookChange> batch = changes.getChanges();
+				if (batch.isEmpty()) {
+					// a change is being logged
+					return;
+				}
+				for (Subscriber subscriber : subscribers) {
+					offer(subscriber, batch);
+				}
+				dispatchedSequence = changes.getNextSince();
+				dispatchedChanges.addAndGet(batch.size());
+			}
+		}
+	}
+
+	private void offer(Subscriber subscriber, List<BookChange> batch) {
+		for (BookChange change : batch) {
+			if (change.getSequence() > subscriber.lastSequence && !subscriber.buffer.offer(change)) {
+				// slow consumer, resumes by its last event id
+				log.info("Subscriber closed for a full buffer at sequence {}", change.getSequence());
+				closeSubscriber(subscriber);
+				return;
+			}
+		}
+	}
+
+	private void closeSubscriber(Subscriber subscriber) {
+		if (subscribers.remove(subscriber)) {
+			subscriber.close();
+			closedSubscribers.incrementAndGet();
+		}
+	}
+
+	/**
+	 * A subscription to the book changes. The changes are buffered until the
+	 * subscriber polls them.
+	 *
+	 * @author resulav
+	 *
+	 */
+	public final class Subscriber {
+		private final BlockingQueue<BookChange> buffer;
+		private volatile boolean closed;
+		private boolean resync;
+		// changes up to this sequence are delivered by the subscription
+		private long lastSequence;
+
+		private Subscriber(int capacity) {
+			this.buffer = new ArrayBlockingQueue<>(capacity);
+		}
+
+		/**
+		 * @return true once If the subscriber has to reload the books before
+		 *         applying the changes
+		 */
+		public boolean takeResync() {
+			boolean required = resync;
+			resync = false;
+			return required;
+		}
+
+		/**
+		 * waits for the next change
+		 *
+		 * @param timeoutMillis
+		 *            maximum wait
+		 * @return the next change, null If no change arrived in time
+		 * @throws InterruptedException
+		 *             If interrupted while waiting
+		 */
+		public BookChange poll(long timeoutMillis) throws InterruptedException {
+			BookChange change = buffer.poll();
+			if (change != null || closed) {
+				return change;
+			}
+			return buffer.poll(timeoutMillis, TimeUnit.MILLISECONDS);
+		}
+
+		/**
+		 * @return true If closed by a full buffer or by the client
+		 */
+		public boolean isClosed() {
+			return closed;
+		}
+
+		/**
+		 * ends the subscription, the buffered changes are still polled
+		 */
+		public void close() {
+			closed = true;
+			subscribers.remove(this);
+		}
+	}
+
+	/**
+	 * Broadcaster holder
+	 *
+	 * @author resulav
+	 *
+	 */
+	private static final class HOLDER {
+		private static final BookChangeBroadcaster INSTANCE = new BookChangeBroadcaster(BookCache.getInstance(),
+				DEFAULT_BUFFER_CAPACITY);
+	}
+}
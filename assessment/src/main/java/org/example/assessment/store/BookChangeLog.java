@@ -0,0 +1,121 @@
+package org.example.assessment.store;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Function;
+
+import org.example.assessment.common.ChangeType;
+import org.example.assessment.model.Book;
+import org.example.assessment.model.BookChange;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Latest changes of {@link BookCache} by sequence number. Only the bookId of a
+ * change is kept, the book is read from the cache when the change is listed,
+ * so the log does not hold the replaced books.
+ *
+ * @author resulav
+ *
+ */
+class BookChangeLog {
+
+	// key = sequence number of the change
+	private final ConcurrentNavigableMap<Long, LoggedChange> changes = new ConcurrentSkipListMap<>();
+	private final int capacity;
+
+	/**
+	 * @param capacity
+	 *            count of the latest changes kept
+	 */
+	BookChangeLog(int capacity) {
+		this.capacity = capacity;
+	}
+
+	/**
+	 * Logs the change and drops the change falling out of the capacity. The
+	 * sequence numbers are dense, so dropping one per change keeps the
+	 * capacity.
+	 *
+	 * @param sequence
+	 *            sequence number of the change
+	 * @param type
+	 *            type of the change
+	 * @param bookId
+	 *            bookId of the changed book
+	 */
+	void add(long sequence, ChangeType type, String bookId) {
+		changes.put(sequence, new LoggedChange(type, bookId));
+		changes.remove(sequence - capacity);
+	}
+
+	/**
+	 * Lists the logged changes after the sequence number without a gap, a
+	 * change not logged yet ends the list
+	 *
+	 * @param since
+	 *            sequence number of the last change known by the client
+	 * @param limit
+	 *            maximum count of the changes
+	 * @param currentBook
+	 *            current book of a bookId, null If removed
+	 * @return the changes with the current books
+	 */
+	List<BookChange> getChangesSince(long since, int limit, Function<String, Book> currentBook) {
+		List<BookChange> listed = Lists.newArrayList();
+		long expected = since + 1;
+		for (Map.Entry<Long, LoggedChange> logged : changes.tailMap(since, false).entrySet()) {
+			if (logged.getKey() != expected || listed.size() == limit) {
+				break;
+			}
+			listed.add(logged.getValue().toChange(logged.getKey(), currentBook));
+			expected++;
+		}
+		return listed;
+	}
+
+	/**
+	 * The change after since is dropped once the change of since + 1 +
+	 * capacity is logged, else it is being logged and the next poll gets it
+	 *
+	 * @param since
+	 *            sequence number of the last change known by the client
+	 * @param latest
+	 *            sequence number of the latest change
+	 * @return true If the change after since is not kept anymore
+	 */
+	boolean isDroppedAfter(long since, long latest) {
+		return since + capacity < latest;
+	}
+
+	/**
+	 * A change in the log
+	 *
+	 * @author resulav
+	 *
+	 */
+	private static final class LoggedChange {
+		private final ChangeType type;
+		private final String bookId;
+
+		private LoggedChange(ChangeType type, String bookId) {
+			this.type = type;
+			this.bookId = bookId;
+		}
+
+		/**
+		 * @param sequence
+		 *            sequence number of the change
+		 * @param currentBook
+		 *            current book of a bookId, null If removed
+		 * @return the change with the current book, null book If removed
+		 */
+		private BookChange toChange(long sequence, Function<String, Book> currentBook) {
+			Book book = type == ChangeType.REMOVED ? null : currentBook.apply(bookId);
+			return BookChange.newBuilder().withSequence(sequence).withType(type).withBookId(bookId).withBook(book)
+					.build();
+		}
+	}
+}
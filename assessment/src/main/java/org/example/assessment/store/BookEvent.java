@@ -0,0 +1,103 @@
+package org.example.assessment.store;
+
+import org.example.assessment.common.Constants;
+
+/**
+ * Repository events of one book, coalesced into a single reload or removal
+ *
+ * @author resulav
+ *
+ */
+final class BookEvent {
+
+	enum Type {
+		LOAD, REMOVE
+	}
+
+	private final String bookPath;
+	private Type type;
+	private long eventDate;
+	private int eventCount;
+
+	BookEvent(String bookPath, Type type, long eventDate) {
+		this(bookPath, type, eventDate, 1);
+	}
+
+	private BookEvent(String bookPath, Type type, long eventDate, int eventCount) {
+		this.bookPath = bookPath;
+		this.type = type;
+		this.eventDate = eventDate;
+		this.eventCount = eventCount;
+	}
+
+	/**
+	 * @param bookId
+	 *            bookId of the book failed to load
+	 * @return an event reloading the book, not counted as a repository event
+	 */
+	static BookEvent retryLoad(String bookId) {
+		return new BookEvent(Constants.PATH_SEPARATOR + Constants.REPOSITORY + Constants.PATH_SEPARATOR + bookId,
+				Type.LOAD, System.currentTimeMillis(), 0);
+	}
+
+	/**
+	 * @return an event applying this event again, not counted as a repository
+	 *         event
+	 */
+	BookEvent retry() {
+		return new BookEvent(bookPath, type, eventDate, 0);
+	}
+
+	/**
+	 * Merges a later event of the same book. The later event decides whether
+	 * the book is reloaded or removed.
+	 *
+	 * @param later
+	 *            later event of the book
+	 * @return this event
+	 */
+	BookEvent merge(BookEvent later) {
+		type = later.type;
+		eventDate = Math.max(eventDate, later.eventDate);
+		eventCount += later.eventCount;
+		return this;
+	}
+
+	/**
+	 * @return the real path of the book
+	 */
+	String getBookPath() {
+		return bookPath;
+	}
+
+	/**
+	 * get bookId from book path. The last part of path is bookId
+	 * /content/documents/myhippoproject/books/1090da58-0b99-422d-add9-f8d676fd3948
+	 *
+	 * @return the bookId
+	 */
+	String getBookId() {
+		return bookPath.substring(bookPath.lastIndexOf(Constants.PATH_SEPARATOR) + 1);
+	}
+
+	/**
+	 * @return reload or removal
+	 */
+	Type getType() {
+		return type;
+	}
+
+	/**
+	 * @return date of the latest merged event
+	 */
+	long getEventDate() {
+		return eventDate;
+	}
+
+	/**
+	 * @return count of the merged events
+	 */
+	int getEventCount() {
+		return eventCount;
+	}
+}
@@ -0,0 +1,188 @@
+package org.example.assessment.store;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+
+import org.example.assessment.common.ResultCode;
+import org.example.assessment.exception.BookException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Applies {@link BookEvent}s on a pool of worker lanes. The events of a book
+ * always go to the same lane, so they are applied in the order received. A
+ * full lane blocks the dispatching thread until the lane catches up.
+ *
+ * @author resulav
+ *
+ */
+class BookEventDispatcher {
+
+	// queued to stop a lane after the events before it
+	private static final BookEvent STOP = new BookEvent("", BookEvent.Type.REMOVE, 0);
+
+	protected final Logger log = LoggerFactory.getLogger(getClass());
+
+	/**
+	 * Applies an event with the session of the lane
+	 */
+	interface Handler {
+		void apply(Session session, BookEvent bookEvent) throws RepositoryException;
+	}
+
+	private final Lane[] lanes;
+	private final Handler handler;
+
+	private final AtomicLong dispatchedEvents = new AtomicLong();
+	private final AtomicLong appliedEvents = new AtomicLong();
+	private final AtomicLong failedEvents = new AtomicLong();
+	private final AtomicLong blockedDispatches = new AtomicLong();
+
+	/**
+	 * starts a lane per session
+	 *
+	 * @param sessions
+	 *            sessions of the lanes, a session is used only by its lane
+	 * @param laneCapacity
+	 *            maximum count of the queued events of a lane
+	 * @param handler
+	 *            applies the events
+	 */
+	BookEventDispatcher(Session[] sessions, int laneCapacity, Handler handler) {
+		this.handler = handler;
+		this.lanes = new Lane[sessions.length];
+		for (int i = 0; i < sessions.length; i++) {
+			lanes[i] = new Lane(i, sessions[i], laneCapacity);
+			lanes[i].start();
+		}
+	}
+
+	/**
+	 * queues the event to the lane of its book, blocks while the lane is full
+	 *
+	 * @param bookEvent
+	 *            event to apply
+	 * @throws InterruptedException
+	 *             If interrupted while waiting for the lane
+	 */
+	void dispatch(BookEvent bookEvent) throws InterruptedException {
+		Lane lane = lanes[Math.floorMod(bookEvent.getBookId().hashCode(), lanes.length)];
+		dispatchedEvents.incrementAndGet();
+		if (!lane.queue.offer(bookEvent)) {
+			// back-pressure: wait for the lane instead of dropping the event
+			blockedDispatches.incrementAndGet();
+			lane.queue.put(bookEvent);
+		}
+	}
+
+	/**
+	 * stops the lanes after applying the queued events
+	 *
+	 * @param timeoutMillis
+	 *            maximum wait for a lane
+	 * @return sessions of the lanes
+	 */
+	Session[] shutdown(long timeoutMillis) {
+		Session[] sessions = new Session[lanes.length];
+		for (Lane lane : lanes) {
+			try {
+				if (!lane.queue.offer(STOP, timeoutMillis, TimeUnit.MILLISECONDS)) {
+					lane.interrupt();
+				}
+				lane.join(timeoutMillis);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			sessions[lane.index] = lane.session;
+		}
+		return sessions;
+	}
+
+	/**
+	 * @return count of the queued events of all lanes
+	 */
+	int getQueueDepth() {
+		int depth = 0;
+		for (Lane lane : lanes) {
+			depth += lane.queue.size();
+		}
+		return depth;
+	}
+
+	/**
+	 * @return count of the dispatched events
+	 */
+	long getDispatchedEventCount() {
+		return dispatchedEvents.get();
+	}
+
+	/**
+	 * @return count of the applied events
+	 */
+	long getAppliedEventCount() {
+		return appliedEvents.get();
+	}
+
+	/**
+	 * @return count of the events failed to apply
+	 */
+	long getFailedEventCount() {
+		return failedEvents.get();
+	}
+
+	/**
+	 * @return count of the dispatches blocked by a full lane
+	 */
+	long getBlockedDispatchCount() {
+		return blockedDispatches.get();
+	}
+
+	/**
+	 * A worker thread with its own queue and session
+	 *
+	 * @author resulav
+	 *
+	 */
+	private final class Lane extends Thread {
+		private final int index;
+		private final Session session;
+		private final BlockingQueue<BookEvent> queue;
+
+		private Lane(int index, Session session, int capacity) {
+			super("book-observator-lane-" + index);
+			setDaemon(true);
+			this.index = index;
+			this.session = session;
+			this.queue = new ArrayBlockingQueue<>(capacity);
+		}
+
+		@Override
+		public void run() {
+			while (true) {
+				BookEvent bookEvent;
+				try {
+					bookEvent = queue.take();
+				} catch (InterruptedException e) {
+					log.warn("{} interrupted, {} event(s) not applied", getName(), queue.size());
+					return;
+				}
+				if (bookEvent == STOP) {
+					return;
+				}
+
+				try {
+					handler.apply(session, bookEvent);
+					appliedEvents.incrementAndGet();
+				} catch (Exception e) {
+					failedEvents.incrementAndGet();
+					log.error("", BookException.newInstance(ResultCode.FAILED, "onEvent error", e));
+				}
+			}
+		}
+	}
+}
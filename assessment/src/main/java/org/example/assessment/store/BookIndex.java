@@ -0,0 +1,215 @@
+package org.example.assessment.store;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.stream.Collectors;
+
+import org.example.assessment.model.Book;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+
+/**
+ * Secondary indexes of {@link BookCache}. Values are bookIds, so callers
+ * resolve them through the cache and re-check the matched field.
+ *
+ * @author resulav
+ *
+ */
+class BookIndex {
+
+	// separates the lower case name and the bookId in a name index key
+	private static final char NAME_KEY_SEPARATOR = '\u0000';
+
+	// key = isbn, value = bookIds, books may share an ISBN
+	private final Map<String, Set<String>> isbnIndex = Maps.newConcurrentMap();
+	// key = lower case author, value = bookIds
+	private final Map<String, Set<String>> authorIndex = Maps.newConcurrentMap();
+	// key = lower case name + separator + bookId, value = bookId
+	private final ConcurrentNavigableMap<String, String> nameIndex = new ConcurrentSkipListMap<>();
+	// bookIds in natural order for the pages
+	private final NavigableSet<String> bookIdIndex = new ConcurrentSkipListSet<>();
+
+	/**
+	 * Replaces the index entries of the previous book by the entries of the
+	 * book
+	 *
+	 * @param previous
+	 *            previous instance of the book, null If the book is new
+	 * @param book
+	 *            new instance of the book
+	 */
+	void update(Book previous, Book book) {
+		if (previous == null) {
+			add(book);
+			return;
+		}
+
+		String bookId = book.getBookId();
+		if (!Objects.equals(previous.getIsbn(), book.getIsbn())) {
+			removeIsbn(previous.getIsbn(), bookId);
+			addIsbn(book.getIsbn(), bookId);
+		}
+		if (!Objects.equals(previous.getAuthor(), book.getAuthor())) {
+			removeAuthor(previous.getAuthor(), bookId);
+			addAuthor(book.getAuthor(), bookId);
+		}
+		if (!Objects.equals(previous.getName(), book.getName())) {
+			removeName(previous.getName(), bookId);
+			addName(book.getName(), bookId);
+		}
+	}
+
+	/**
+	 * Adds the index entries of the book
+	 *
+	 * @param book
+	 *            book to index
+	 */
+	void add(Book book) {
+		bookIdIndex.add(book.getBookId());
+		addIsbn(book.getIsbn(), book.getBookId());
+		addAuthor(book.getAuthor(), book.getBookId());
+		addName(book.getName(), book.getBookId());
+	}
+
+	/**
+	 * Removes the index entries of the book
+	 *
+	 * @param book
+	 *            book to remove from indexes
+	 */
+	void remove(Book book) {
+		bookIdIndex.remove(book.getBookId());
+		removeIsbn(book.getIsbn(), book.getBookId());
+		removeAuthor(book.getAuthor(), book.getBookId());
+		removeName(book.getName(), book.getBookId());
+	}
+
+	/**
+	 * @param isbn
+	 *            ISBN of the books
+	 * @return bookIds of the books having the ISBN
+	 */
+	Set<String> getBookIdsByIsbn(String isbn) {
+		Set<String> bookIds = isbn == null ? null : isbnIndex.get(isbn);
+		return bookIds == null ? ImmutableSet.of() : ImmutableSet.copyOf(bookIds);
+	}
+
+	/**
+	 * @param author
+	 *            author as case in-sensitive
+	 * @return bookIds of the books of the author
+	 */
+	Set<String> getBookIdsByAuthor(String author) {
+		Set<String> bookIds = author == null ? null : authorIndex.get(toKey(author));
+		return bookIds == null ? ImmutableSet.of() : ImmutableSet.copyOf(bookIds);
+	}
+
+	/**
+	 * @param prefix
+	 *            name prefix as case in-sensitive
+	 * @return bookIds of the books whose name starts with prefix, ordered by
+	 *         name
+	 */
+	Collection<String> getBookIdsByNamePrefix(String prefix) {
+		String keyPrefix = toKey(prefix);
+		return ImmutableList.copyOf(nameIndex.subMap(keyPrefix, true, keyPrefix + Character.MAX_VALUE, true).values());
+	}
+
+	/**
+	 * @param bookId
+	 *            bookId to start after, null for the first page
+	 * @param limit
+	 *            maximum count of the bookIds
+	 * @return bookIds after the bookId in natural order
+	 */
+	List<String> getBookIdsAfter(String bookId, int limit) {
+		NavigableSet<String> bookIds = bookId == null ? bookIdIndex : bookIdIndex.tailSet(bookId, false);
+		return bookIds.stream().limit(limit).collect(Collectors.toList());
+	}
+
+	/**
+	 * @param name
+	 *            name of the book to start after, null for the first page
+	 * @param bookId
+	 *            bookId of the book to start after
+	 * @param limit
+	 *            maximum count of the bookIds
+	 * @return bookIds of the books after the book ordered by name as case
+	 *         in-sensitive, then by bookId
+	 */
+	List<String> getBookIdsByNameAfter(String name, String bookId, int limit) {
+		Map<String, String> bookIds = name == null ? nameIndex : nameIndex.tailMap(toNameKey(name, bookId), false);
+		return bookIds.values().stream().limit(limit).collect(Collectors.toList());
+	}
+
+	private void addIsbn(String isbn, String bookId) {
+		if (isbn != null) {
+			isbnIndex.compute(isbn, (key, bookIds) -> {
+				Set<String> ids = bookIds == null ? ConcurrentHashMap.newKeySet() : bookIds;
+				ids.add(bookId);
+				return ids;
+			});
+		}
+	}
+
+	private void removeIsbn(String isbn, String bookId) {
+		if (isbn != null) {
+			// the other books keep the ISBN
+			isbnIndex.computeIfPresent(isbn, (key, bookIds) -> {
+				bookIds.remove(bookId);
+				return bookIds.isEmpty() ? null : bookIds;
+			});
+		}
+	}
+
+	private void addAuthor(String author, String bookId) {
+		if (author != null) {
+			authorIndex.compute(toKey(author), (key, bookIds) -> {
+				Set<String> ids = bookIds == null ? ConcurrentHashMap.newKeySet() : bookIds;
+				ids.add(bookId);
+				return ids;
+			});
+		}
+	}
+
+	private void removeAuthor(String author, String bookId) {
+		if (author != null) {
+			authorIndex.computeIfPresent(toKey(author), (key, bookIds) -> {
+				bookIds.remove(bookId);
+				return bookIds.isEmpty() ? null : bookIds;
+			});
+		}
+	}
+
+	private void addName(String name, String bookId) {
+		if (name != null) {
+			nameIndex.put(toNameKey(name, bookId), bookId);
+		}
+	}
+
+	private void removeName(String name, String bookId) {
+		if (name != null) {
+			nameIndex.remove(toNameKey(name, bookId));
+		}
+	}
+
+	private static String toNameKey(String name, String bookId) {
+		return toKey(name) + NAME_KEY_SEPARATOR + bookId;
+	}
+
+	private static String toKey(String value) {
+		return value.toLowerCase(Locale.ROOT);
+	}
+}
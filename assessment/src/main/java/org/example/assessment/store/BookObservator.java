@@ -3,52 +3,259 @@
  */
 package org.example.assessment.store;
 
+import java.nio.file.Path;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
 import javax.jcr.RepositoryException;
 import javax.jcr.Session;
+import javax.jcr.SimpleCredentials;
+import javax.jcr.UnsupportedRepositoryOperationException;
 import javax.jcr.observation.Event;
 import javax.jcr.observation.EventIterator;
+import javax.jcr.observation.EventJournal;
 import javax.jcr.observation.EventListener;
 
 import org.apache.cxf.common.util.CollectionUtils;
 import org.example.assessment.common.Constants;
 import org.example.assessment.common.ResultCode;
 import org.example.assessment.exception.BookException;
+import org.example.assessment.metrics.BookMetrics;
 import org.example.assessment.model.Book;
 import org.example.assessment.util.Preconditions;
 import org.example.assessment.util.RepositoryUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
 /**
  * Created by resulav on 04.05.2018.
  */
 public class BookObservator {
 	protected final Logger log = LoggerFactory.getLogger(getClass());
 
+	private static final long SHUTDOWN_TIMEOUT_MILLIS = 30000;
+	private static final int DEFAULT_WORKER_QUEUE_CAPACITY = 10000;
+	private static final int DEFAULT_WARM_UP_CHUNK_SIZE = 1000;
+	private static final long DEFAULT_SNAPSHOT_MAX_AGE_MILLIS = TimeUnit.DAYS.toMillis(1);
+	private static final int EVENT_TYPES = Event.NODE_ADDED | Event.NODE_REMOVED | Event.PROPERTY_CHANGED;
+
 	private final Session session;
+	private final long coalesceWindowMillis;
+	// applies the events on worker lanes, null If events are applied on the
+	// observation thread
+	private final BookEventDispatcher dispatcher;
+	// loads the books in the background, null If the books are loaded before
+	// observing
+	private final BookWarmUp warmUp;
+	// snapshot file of the cache, null If disabled
+	private final BookCacheSnapshot snapshot;
+	private final ScheduledExecutorService snapshotExecutor;
+	private volatile long lastSnapshotVersion = -1;
+	// date of the last event applied to the store, the events since then are
+	// replayed after restoring a snapshot
+	private final AtomicLong lastAppliedEventDate = new AtomicLong();
+
+	// events coalesced across batches, key = book path
+	private final Map<String, BookEvent> pendingEvents = Maps.newLinkedHashMap();
+	// events and warm-up loads failed and not applied by a later event, retried
+	// before a snapshot, key = bookId
+	private final Map<String, BookEvent> failedEvents = new ConcurrentHashMap<>();
+	private final ScheduledExecutorService coalesceExecutor;
+	private boolean flushScheduled;
+
+	private final AtomicLong receivedEvents = new AtomicLong();
+	private final AtomicLong reloadedBooks = new AtomicLong();
+	private final AtomicLong removedBooks = new AtomicLong();
+
+	private final EventListener listener = this::onEvents;
+
+	/**
+	 * 
+	 * @param builder
+	 *            builder of {@link BookObservator}
+	 */
+	private BookObservator(Builder builder) {
+		this.session = builder.session;
+		this.coalesceWindowMillis = builder.coalesceWindowMillis;
+		this.coalesceExecutor = coalesceWindowMillis > 0
+				? Executors.newSingleThreadScheduledExecutor(r -> newDaemonThread(r, "book-observator-coalescer"))
+				: null;
+		this.snapshot = builder.snapshotFile != null ? new BookCacheSnapshot(builder.snapshotFile) : null;
+		try {
+			this.dispatcher = builder.workerCount > 0
+					? new BookEventDispatcher(newWorkerSessions(builder.workerCount), builder.workerQueueCapacity,
+							this::applyEvent)
+					: null;
+			Optional<BookCacheSnapshot.Content> restored = restoreSnapshot(builder.snapshotMaxAgeMillis);
+			// the events since the snapshot are replayed, the changes before
+			// observing are read by the loading otherwise
+			lastAppliedEventDate.set(
+					restored.isPresent() ? restored.get().getReplayFromDate() : System.currentTimeMillis());
+			if (restored.isPresent()) {
+				// reload only the books changed since the snapshot
+				BookCacheSnapshot.Content content = restored.get();
+				this.warmUp = new BookWarmUp(newSession(), s -> getChangedBookIds(s, content),
+						this::warmUpFailed, Math.max(1, builder.warmUpLoaderCount), builder.warmUpChunkSize);
+				addEventListener();
+				warmUp.start();
+			} else if (builder.warmUpLoaderCount > 0) {
+				// observe first, the events received during the loading win
+				// over the loaded books
+				this.warmUp = new BookWarmUp(newSession(), RepositoryUtil::getBookIds, this::warmUpFailed,
+						builder.warmUpLoaderCount, builder.warmUpChunkSize);
+				addEventListener();
+				warmUp.start();
+			} else {
+				this.warmUp = null;
+				loadBooks();
+				addEventListener();
+			}
+		} catch (Exception e) {
+			throw BookException.newInstance(ResultCode.FAILED, "Error while setting up node EventListener", e);
+		}
+		this.snapshotExecutor = snapshot != null && builder.snapshotIntervalMillis > 0
+				? Executors.newSingleThreadScheduledExecutor(r -> newDaemonThread(r, "book-cache-snapshot"))
+				: null;
+		if (snapshotExecutor != null) {
+			snapshotExecutor.scheduleWithFixedDelay(this::writeSnapshot, builder.snapshotIntervalMillis,
+					builder.snapshotIntervalMillis, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * Stops observing the repository, pending coalesced events are applied
+	 * and the snapshot is written If enabled before returning
+	 */
+	public void shutdown() {
+		try {
+			session.getWorkspace().getObservationManager().removeEventListener(listener);
+		} catch (RepositoryException e) {
+			log.error("", BookException.newInstance(ResultCode.FAILED, "Error while removing node EventListener", e));
+		}
+		if (warmUp != null) {
+			warmUp.shutdown(SHUTDOWN_TIMEOUT_MILLIS);
+		}
+		if (coalesceExecutor != null) {
+			coalesceExecutor.shutdown();
+			flushPendingEvents();
+		}
+		if (dispatcher != null) {
+			for (Session workerSession : dispatcher.shutdown(SHUTDOWN_TIMEOUT_MILLIS)) {
+				workerSession.logout();
+			}
+		}
+		if (snapshotExecutor != null) {
+			snapshotExecutor.shutdown();
+			try {
+				snapshotExecutor.awaitTermination(SHUTDOWN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		if (snapshot != null) {
+			// the workers are stopped, the failed books are retried here
+			retryFailedEvents(true);
+			writeSnapshot();
+		}
+	}
+
+	/**
+	 * @return count of repository events received
+	 */
+	public long getReceivedEventCount() {
+		return receivedEvents.get();
+	}
+
+	/**
+	 * @return count of books reloaded from repository
+	 */
+	public long getReloadedBookCount() {
+		return reloadedBooks.get();
+	}
+
+	/**
+	 * @return count of books removed from store
+	 */
+	public long getRemovedBookCount() {
+		return removedBooks.get();
+	}
+
+	/**
+	 * @return count of coalesced events waiting for a worker, 0 If events are
+	 *         applied on the observation thread
+	 */
+	public int getQueueDepth() {
+		return dispatcher == null ? 0 : dispatcher.getQueueDepth();
+	}
+
+	/**
+	 * @return count of coalesced events failed to apply by the workers
+	 */
+	public long getFailedEventCount() {
+		return dispatcher == null ? 0 : dispatcher.getFailedEventCount();
+	}
+
+	/**
+	 * @return count of books failed to reload or remove and not applied by a
+	 *         later event
+	 */
+	public int getOutstandingFailureCount() {
+		return failedEvents.size();
+	}
+
+	/**
+	 * @return count of dispatches which waited for a full worker queue
+	 */
+	public long getBackPressureCount() {
+		return dispatcher == null ? 0 : dispatcher.getBlockedDispatchCount();
+	}
 
-	private final EventListener listener = (EventIterator events) -> {
+	/**
+	 * coalesces the events of a batch per book, so each touched book is
+	 * reloaded or removed once
+	 *
+	 * @param events
+	 *            batch of repository events
+	 */
+	private void onEvents(EventIterator events) {
+		// key = book path
+		Map<String, BookEvent> bookEvents = Maps.newLinkedHashMap();
+		int eventCount = 0;
 		while (events.hasNext()) {
 			try {
 				Event e = events.nextEvent();
+				eventCount++;
 				if (log.isDebugEnabled()) {
 					log.debug("Path: {}, Type: {}, TypeName: {}", e.getPath(), e.getType(), getEventName(e));
 				}
 
+				// only NODE_ADDED, NODE_REMOVED and PROPERTY_CHANGED are observed
+				BookSearchIndex.getInstance().eventReceived(e.getDate());
+
 				switch (e.getType()) {
 				case Event.NODE_ADDED:
-					loadBookByBookPath(e.getPath());
+					coalesce(bookEvents, new BookEvent(e.getPath(), BookEvent.Type.LOAD, e.getDate()));
 					break;
 
 				case Event.NODE_REMOVED:
-					removeBook(e.getPath());
+					coalesce(bookEvents, new BookEvent(e.getPath(), BookEvent.Type.REMOVE, e.getDate()));
 					break;
 
 				case Event.PROPERTY_CHANGED:
-					loadBookByPropertyPath(e.getPath());
+					coalesce(bookEvents, new BookEvent(getBookPath(e.getPath()), BookEvent.Type.LOAD, e.getDate()));
 					break;
 
 				default:
@@ -58,70 +265,386 @@ public class BookObservator {
 				log.error("", BookException.newInstance(ResultCode.FAILED,"onEvent error", e));
 			}
 		}
-	};
+		receivedEvents.addAndGet(eventCount);
+		BookMetrics.getInstance().eventsReceived(eventCount);
+		log.debug("{} event(s) coalesced to {} book(s)", eventCount, bookEvents.size());
+		if (warmUp != null && warmUp.isRunning()) {
+			bookEvents.values().forEach(be -> warmUp.bookChanged(be.getBookId()));
+		}
+
+		if (coalesceExecutor == null) {
+			applyEvents(bookEvents.values());
+			return;
+		}
+
+		synchronized (pendingEvents) {
+			bookEvents.values().forEach(be -> coalesce(pendingEvents, be));
+			if (!flushScheduled && !pendingEvents.isEmpty()) {
+				flushScheduled = true;
+				coalesceExecutor.schedule(this::flushPendingEvents, coalesceWindowMillis, TimeUnit.MILLISECONDS);
+			}
+		}
+	}
 
 	/**
-	 * 
-	 * @param builder
-	 *            builder of {@link BookObservator}
+	 * applies the events coalesced during the window
 	 */
-	private BookObservator(Builder builder) {
-		this.session = builder.session;
+	private void flushPendingEvents() {
+		List<BookEvent> bookEvents;
+		synchronized (pendingEvents) {
+			bookEvents = Lists.newArrayList(pendingEvents.values());
+			pendingEvents.clear();
+			flushScheduled = false;
+		}
+		applyEvents(bookEvents);
+	}
+
+	/**
+	 * reloads or removes the books of the events, on the worker lanes If
+	 * configured
+	 *
+	 * @param bookEvents
+	 *            coalesced events
+	 */
+	private void applyEvents(Collection<BookEvent> bookEvents) {
+		for (BookEvent bookEvent : bookEvents) {
+			try {
+				if (dispatcher != null) {
+					dispatcher.dispatch(bookEvent);
+				} else {
+					applyEvent(session, bookEvent);
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				log.error("", BookException.newInstance(ResultCode.FAILED, "onEvent interrupted", e));
+				return;
+			} catch (Exception e) {
+				log.error("", BookException.newInstance(ResultCode.FAILED, "onEvent error", e));
+			}
+		}
+		log.debug("{} event(s) received, {} book(s) reloaded, {} book(s) removed, {} event(s) queued",
+				receivedEvents.get(), reloadedBooks.get(), removedBooks.get(), getQueueDepth());
+	}
+
+	/**
+	 * reloads or removes the book of the event, and records the lag of the
+	 * event until the book is visible in store
+	 *
+	 * @param bookSession
+	 *            session to read the book, used only by the calling thread
+	 * @param bookEvent
+	 *            coalesced events of the book
+	 * @throws RepositoryException
+	 *             as generic exception
+	 */
+	private void applyEvent(Session bookSession, BookEvent bookEvent) throws RepositoryException {
+		boolean applied = false;
 		try {
-			loadBooks();
-			this.session.getWorkspace().getObservationManager().addEventListener(listener,
-					Event.NODE_ADDED | Event.NODE_REMOVED | Event.PROPERTY_CHANGED,
-					Constants.PATH_SEPARATOR + Constants.REPOSITORY, true, null, null, false);
-		} catch (Exception e) {
-			throw BookException.newInstance(ResultCode.FAILED, "Error while setting up node EventListener", e);
+			if (bookEvent.getType() == BookEvent.Type.REMOVE) {
+				removeBook(bookEvent);
+			} else {
+				loadBook(bookSession, bookEvent);
+			}
+			applied = true;
+		} catch (RepositoryException | RuntimeException e) {
+			BookMetrics.getInstance().eventsFailed(bookEvent.getEventCount());
+			failedEvents.put(bookEvent.getBookId(), bookEvent);
+			throw e;
+		} finally {
+			// the received events are not pending anymore, also If failed
+			if (applied) {
+				BookSearchIndex.getInstance().eventsApplied(bookEvent.getEventDate(), bookEvent.getEventCount());
+			} else {
+				BookSearchIndex.getInstance().eventsFailed(bookEvent.getEventCount());
+			}
+		}
+		// the book is in the state of the repository again
+		failedEvents.remove(bookEvent.getBookId());
+		lastAppliedEventDate.accumulateAndGet(bookEvent.getEventDate(), Math::max);
+		if (bookEvent.getEventCount() > 0) {
+			BookMetrics.getInstance().eventsApplied(bookEvent.getEventCount(), bookEvent.getEventDate());
+		}
+		BookChangeBroadcaster.getInstance().changed();
+	}
+
+	/**
+	 * records a book failed to load by the warm-up, it is retried before a
+	 * snapshot
+	 *
+	 * @param bookId
+	 *            bookId of the book
+	 */
+	private void warmUpFailed(String bookId) {
+		failedEvents.putIfAbsent(bookId, BookEvent.retryLoad(bookId));
+	}
+
+	/**
+	 * applies the failed events again, a book applied by the retry or by a
+	 * later event is not retried anymore
+	 *
+	 * @param inline
+	 *            true to apply on the calling thread, false to apply on the
+	 *            worker lanes If configured
+	 */
+	private void retryFailedEvents(boolean inline) {
+		if (failedEvents.isEmpty()) {
+			return;
+		}
+		log.info("Retrying {} failed book(s)", failedEvents.size());
+		List<BookEvent> retries = failedEvents.values().stream().map(BookEvent::retry).collect(Collectors.toList());
+		if (!inline) {
+			applyEvents(retries);
+			return;
+		}
+		for (BookEvent retry : retries) {
+			try {
+				applyEvent(session, retry);
+			} catch (Exception e) {
+				log.error("",
+						BookException.newInstance(ResultCode.FAILED, "Error while retrying " + retry.getBookPath(), e));
+			}
 		}
 	}
 
 	/**
 	 * remove book from store
 	 * 
-	 * @param bookpath
-	 *            the real path of book
+	 * @param bookEvent
+	 *            coalesced events of the book
 	 */
-	private void removeBook(String bookpath) {
-		// get bookId from book path. The last part of path is bookId
-		// /content/documents/myhippoproject/books/1090da58-0b99-422d-add9-f8d676fd3948
-		String bookId = bookpath.substring(bookpath.lastIndexOf(Constants.PATH_SEPARATOR) + 1);
+	private void removeBook(BookEvent bookEvent) {
+		String bookId = bookEvent.getBookId();
 		BookCache.getInstance().removeBook(bookId);
+		BookSearchIndex.getInstance().remove(bookId);
+		removedBooks.incrementAndGet();
 		log.debug("Book removed from store by bookId {}", bookId);
 	}
 
 	/**
 	 * gets the book from repository and puts it in store
 	 * 
-	 * @param bookPath
-	 *            the real path of book
+	 * @param bookSession
+	 *            session to read the book
+	 * @param bookEvent
+	 *            coalesced events of the book
 	 * @throws RepositoryException
 	 *             as generic exception
 	 */
-	private void loadBookByBookPath(String bookPath) throws RepositoryException {
+	private void loadBook(Session bookSession, BookEvent bookEvent) throws RepositoryException {
+		String bookPath = bookEvent.getBookPath();
 		// get book from repository by real path
-		Optional<Book> bookOptional = RepositoryUtil.getBookByPath(session, bookPath);
+		Optional<Book> bookOptional = RepositoryUtil.getBookByPath(bookSession, bookPath);
+		reloadedBooks.incrementAndGet();
 		if (bookOptional.isPresent()) {
-			// put book to cache
+			// put book to cache and search index
 			BookCache.getInstance().addOrUpdateBook(bookOptional.get());
+			BookSearchIndex.getInstance().index(bookOptional.get());
 			log.debug("{} is stored", bookPath);
 		} else {
+			// removed from store, the failed load of a removed book is retried
+			// by a load
+			BookCache.getInstance().removeBook(bookEvent.getBookId());
+			BookSearchIndex.getInstance().remove(bookEvent.getBookId());
 			log.debug("No book in repository by {}", bookPath);
 		}
-		log.debug("{} book(s) stored", BookCache.getInstance().getBookList().size());
+		log.debug("{} book(s) stored", BookCache.getInstance().size());
 	}
 
 	/**
-	 * gets the book from repository and puts it in store
-	 * 
-	 * @param propertyPath
-	 *            real path of property
+	 * JCR sessions are not thread-safe, each worker reads with its own
+	 * session
+	 *
+	 * @param workerCount
+	 *            count of workers
+	 * @return sessions impersonated from the system session
+	 * @throws RepositoryException
+	 *             as generic exception
+	 */
+	private Session[] newWorkerSessions(int workerCount) throws RepositoryException {
+		Session[] sessions = new Session[workerCount];
+		for (int i = 0; i < workerCount; i++) {
+			sessions[i] = newSession();
+		}
+		return sessions;
+	}
+
+	/**
+	 * @return a new session impersonated from the system session
+	 * @throws RepositoryException
+	 *             as generic exception
+	 */
+	private Session newSession() throws RepositoryException {
+		return session.impersonate(new SimpleCredentials(session.getUserID(), new char[] {}));
+	}
+
+	/**
+	 * observes the books node
+	 *
+	 * @throws RepositoryException
+	 *             as generic exception
+	 */
+	private void addEventListener() throws RepositoryException {
+		session.getWorkspace().getObservationManager().addEventListener(listener, EVENT_TYPES,
+				Constants.PATH_SEPARATOR + Constants.REPOSITORY, true, null, null, false);
+	}
+
+	/**
+	 * puts the books of the snapshot in store If the snapshot is valid, not
+	 * older than the maximum age and the event journal of the repository still
+	 * reaches back to the replay date of the snapshot
+	 *
+	 * @param maxAgeMillis
+	 *            maximum age of the snapshot
+	 * @return the restored snapshot, empty If the books should be loaded from
+	 *         repository
+	 * @throws RepositoryException
+	 *             as generic exception
+	 */
+	private Optional<BookCacheSnapshot.Content> restoreSnapshot(long maxAgeMillis) throws RepositoryException {
+		if (snapshot == null) {
+			return Optional.empty();
+		}
+		if (getEventJournal(session) == null) {
+			log.info("No event journal to replay, snapshot {} is not used", snapshot.getFile());
+			return Optional.empty();
+		}
+
+		Optional<BookCacheSnapshot.Content> content = snapshot.read();
+		if (!content.isPresent()) {
+			return content;
+		}
+		long ageMillis = System.currentTimeMillis() - content.get().getWrittenDate();
+		if (ageMillis > maxAgeMillis) {
+			log.info("Snapshot {} is stale by {} ms, loading books from repository", snapshot.getFile(), ageMillis);
+			return Optional.empty();
+		}
+		if (!isJournalFrom(session, content.get().getReplayFromDate())) {
+			log.info("Event journal is purged after snapshot {}, loading books from repository", snapshot.getFile());
+			return Optional.empty();
+		}
+
+		content.get().getBooks().forEach(b -> {
+			BookCache.getInstance().addOrUpdateBook(b);
+			BookSearchIndex.getInstance().index(b);
+		});
+		log.info("{} book(s) restored from {}, replaying events of last {} ms", content.get().getBooks().size(),
+				snapshot.getFile(), System.currentTimeMillis() - content.get().getReplayFromDate());
+		return content;
+	}
+
+	/**
+	 * writes the cache to the snapshot file If the cache is changed since the
+	 * last snapshot. Skipped while books are loading, events are waiting or
+	 * failed books are not applied yet, the snapshot should not miss a change
+	 * older than its replay date. The failed books are retried and the next
+	 * run writes the snapshot once they are applied.
+	 */
+	private void writeSnapshot() {
+		if (warmUp != null && warmUp.isRunning() || getQueueDepth() > 0 || hasPendingEvents()) {
+			log.debug("Snapshot skipped, store is not settled");
+			return;
+		}
+		if (!failedEvents.isEmpty()) {
+			retryFailedEvents(false);
+			if (!failedEvents.isEmpty() || getQueueDepth() > 0) {
+				log.debug("Snapshot skipped, {} failed book(s) are retried", failedEvents.size());
+				return;
+			}
+		}
+		long cacheVersion = BookCache.getInstance().getSnapshotVersion();
+		if (cacheVersion == lastSnapshotVersion) {
+			return;
+		}
+
+		// all received events are applied, the events after the last one are
+		// replayed
+		long replayFromDate = lastAppliedEventDate.get();
+		try {
+			List<Book> books = BookCache.getInstance().getBookList();
+			snapshot.write(replayFromDate, books);
+			lastSnapshotVersion = cacheVersion;
+			log.info("{} book(s) written to {}", books.size(), snapshot.getFile());
+		} catch (Exception e) {
+			log.error("", BookException.newInstance(ResultCode.FAILED, "Error while writing book cache snapshot", e));
+		}
+	}
+
+	/**
+	 * @return true If coalesced events are waiting for the window
+	 */
+	private boolean hasPendingEvents() {
+		synchronized (pendingEvents) {
+			return !pendingEvents.isEmpty();
+		}
+	}
+
+	/**
+	 * @param journalSession
+	 *            session to read the journal
+	 * @return the journal of the book events, null If the repository does not
+	 *         keep a journal
+	 * @throws RepositoryException
+	 *             as generic exception
+	 */
+	private static EventJournal getEventJournal(Session journalSession) throws RepositoryException {
+		try {
+			return journalSession.getWorkspace().getObservationManager().getEventJournal(EVENT_TYPES,
+					Constants.PATH_SEPARATOR + Constants.REPOSITORY, true, null, null);
+		} catch (UnsupportedRepositoryOperationException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * @param journalSession
+	 *            session to read the journal
+	 * @param since
+	 *            date of the first event to replay
+	 * @return true If the journal keeps the events since the date, its first
+	 *         event is not later than the date
+	 * @throws RepositoryException
+	 *             as generic exception
+	 */
+	private static boolean isJournalFrom(Session journalSession, long since) throws RepositoryException {
+		EventJournal journal = getEventJournal(journalSession);
+		return journal != null && journal.hasNext() && journal.nextEvent().getDate() <= since;
+	}
+
+	/**
+	 * reads the bookIds of the journal events since the replay date of the
+	 * snapshot. If the journal is purged after the snapshot was restored, all
+	 * books of the repository and the snapshot are listed, so the warm-up
+	 * reloads the repository and removes the books missing in it.
+	 *
+	 * @param journalSession
+	 *            session to read the journal
+	 * @param content
+	 *            restored snapshot
+	 * @return distinct bookIds to reload
 	 * @throws RepositoryException
 	 *             as generic exception
 	 */
-	private void loadBookByPropertyPath(String propertyPath) throws RepositoryException {
-		loadBookByBookPath(propertyPath.substring(0, propertyPath.lastIndexOf('/')));
+	private List<String> getChangedBookIds(Session journalSession, BookCacheSnapshot.Content content)
+			throws RepositoryException {
+		EventJournal journal = getEventJournal(journalSession);
+		if (journal == null) {
+			throw new UnsupportedRepositoryOperationException("No event journal");
+		}
+		if (!isJournalFrom(journalSession, content.getReplayFromDate())) {
+			log.warn("Event journal is purged after the snapshot, reloading all books");
+			Set<String> bookIds = Sets.newLinkedHashSet(RepositoryUtil.getBookIds(journalSession));
+			content.getBooks().forEach(b -> bookIds.add(b.getBookId()));
+			return Lists.newArrayList(bookIds);
+		}
+		journal.skipTo(content.getReplayFromDate());
+
+		Set<String> bookIds = Sets.newLinkedHashSet();
+		while (journal.hasNext()) {
+			Event e = journal.nextEvent();
+			String bookPath = e.getType() == Event.PROPERTY_CHANGED ? getBookPath(e.getPath()) : e.getPath();
+			bookIds.add(bookPath.substring(bookPath.lastIndexOf(Constants.PATH_SEPARATOR) + 1));
+		}
+		return Lists.newArrayList(bookIds);
 	}
 
 	/**
@@ -130,13 +653,48 @@ public class BookObservator {
 	 * @throws RepositoryException as generic exception
 	 */
 	private void loadBooks() throws RepositoryException {
+		BookCache.getInstance().warmUpStarted();
 		List<Book> bookList = RepositoryUtil.getBooks(session);
 		if (CollectionUtils.isEmpty(bookList)) {
 			log.info("No book to store");
+			BookCache.getInstance().warmUpFinished();
 			return;
 		}
-		bookList.forEach(b -> BookCache.getInstance().addOrUpdateBook(b));
-		log.debug("{} book(s) stored", BookCache.getInstance().getBookList().size());
+		BookCache.getInstance().warmUpBooksFound(bookList.size());
+		bookList.forEach(b -> {
+			BookCache.getInstance().addOrUpdateBook(b);
+			BookSearchIndex.getInstance().index(b);
+		});
+		BookCache.getInstance().warmUpBooksLoaded(bookList.size(), 0);
+		BookCache.getInstance().warmUpFinished();
+		log.debug("{} book(s) stored", BookCache.getInstance().size());
+	}
+
+	/**
+	 * merges the event into the event of the same book If exists
+	 *
+	 * @param bookEvents
+	 *            events by book path
+	 * @param bookEvent
+	 *            new event
+	 */
+	private static void coalesce(Map<String, BookEvent> bookEvents, BookEvent bookEvent) {
+		bookEvents.merge(bookEvent.getBookPath(), bookEvent, BookEvent::merge);
+	}
+
+	/**
+	 * @param propertyPath
+	 *            real path of property
+	 * @return real path of the book of the property
+	 */
+	private static String getBookPath(String propertyPath) {
+		return propertyPath.substring(0, propertyPath.lastIndexOf(Constants.PATH_SEPARATOR));
+	}
+
+	private static Thread newDaemonThread(Runnable runnable, String name) {
+		Thread thread = new Thread(runnable, name);
+		thread.setDaemon(true);
+		return thread;
 	}
 
 	/**
@@ -171,6 +729,14 @@ public class BookObservator {
 	 */
 	public static final class Builder {
 		private Session session;
+		private long coalesceWindowMillis;
+		private int workerCount;
+		private int workerQueueCapacity = DEFAULT_WORKER_QUEUE_CAPACITY;
+		private int warmUpLoaderCount;
+		private int warmUpChunkSize = DEFAULT_WARM_UP_CHUNK_SIZE;
+		private Path snapshotFile;
+		private long snapshotIntervalMillis;
+		private long snapshotMaxAgeMillis = DEFAULT_SNAPSHOT_MAX_AGE_MILLIS;
 
 		private Builder() {
 		}
@@ -188,6 +754,124 @@ public class BookObservator {
 			return this;
 		}
 
+		/**
+		 * Sets the {@code coalesceWindowMillis} and returns a reference to this
+		 * Builder so that the methods can be chained together. Events of a
+		 * book received within the window are applied once; 0 coalesces only
+		 * the events of the same batch.
+		 *
+		 * @param coalesceWindowMillis
+		 *            the {@code coalesceWindowMillis} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withCoalesceWindowMillis(long coalesceWindowMillis) {
+			this.coalesceWindowMillis = coalesceWindowMillis;
+			return this;
+		}
+
+		/**
+		 * Sets the {@code workerCount} and returns a reference to this Builder
+		 * so that the methods can be chained together. Books are reloaded on
+		 * the workers instead of the observation thread; 0 applies the events
+		 * on the observation thread.
+		 *
+		 * @param workerCount
+		 *            the {@code workerCount} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withWorkerCount(int workerCount) {
+			this.workerCount = workerCount;
+			return this;
+		}
+
+		/**
+		 * Sets the {@code workerQueueCapacity} and returns a reference to this
+		 * Builder so that the methods can be chained together. The
+		 * observation thread waits while the queue of a worker is full.
+		 *
+		 * @param workerQueueCapacity
+		 *            the {@code workerQueueCapacity} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withWorkerQueueCapacity(int workerQueueCapacity) {
+			this.workerQueueCapacity = workerQueueCapacity;
+			return this;
+		}
+
+		/**
+		 * Sets the {@code warmUpLoaderCount} and returns a reference to this
+		 * Builder so that the methods can be chained together. The books are
+		 * loaded in the background by the loaders while the events are
+		 * observed, see {@link BookCache#getStatus()} for the progress; 0
+		 * loads the books before observing.
+		 *
+		 * @param warmUpLoaderCount
+		 *            the {@code warmUpLoaderCount} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withWarmUpLoaderCount(int warmUpLoaderCount) {
+			this.warmUpLoaderCount = warmUpLoaderCount;
+			return this;
+		}
+
+		/**
+		 * Sets the {@code warmUpChunkSize} and returns a reference to this
+		 * Builder so that the methods can be chained together. A loader reads
+		 * the books of a chunk at once.
+		 *
+		 * @param warmUpChunkSize
+		 *            the {@code warmUpChunkSize} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withWarmUpChunkSize(int warmUpChunkSize) {
+			this.warmUpChunkSize = warmUpChunkSize;
+			return this;
+		}
+
+		/**
+		 * Sets the {@code snapshotFile} and returns a reference to this Builder
+		 * so that the methods can be chained together. The cache is restored
+		 * from the file at startup and written to the file at shutdown; null
+		 * disables the snapshot.
+		 *
+		 * @param snapshotFile
+		 *            the {@code snapshotFile} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withSnapshotFile(Path snapshotFile) {
+			this.snapshotFile = snapshotFile;
+			return this;
+		}
+
+		/**
+		 * Sets the {@code snapshotIntervalMillis} and returns a reference to
+		 * this Builder so that the methods can be chained together. The
+		 * snapshot is written periodically If the cache is changed; 0 writes
+		 * only at shutdown.
+		 *
+		 * @param snapshotIntervalMillis
+		 *            the {@code snapshotIntervalMillis} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withSnapshotIntervalMillis(long snapshotIntervalMillis) {
+			this.snapshotIntervalMillis = snapshotIntervalMillis;
+			return this;
+		}
+
+		/**
+		 * Sets the {@code snapshotMaxAgeMillis} and returns a reference to
+		 * this Builder so that the methods can be chained together. An older
+		 * snapshot is not restored, the books are loaded from repository.
+		 *
+		 * @param snapshotMaxAgeMillis
+		 *            the {@code snapshotMaxAgeMillis} to set
+		 * @return a reference to this Builder
+		 */
+		public Builder withSnapshotMaxAgeMillis(long snapshotMaxAgeMillis) {
+			this.snapshotMaxAgeMillis = snapshotMaxAgeMillis;
+			return this;
+		}
+
 		/**
 		 * Returns a {@code BookStore} built from the parameters previously set.
 		 *
@@ -196,6 +880,13 @@ public class BookObservator {
 		 */
 		public BookObservator build() {
 			Preconditions.checkNotNull(session, "session canot be null");
+			Preconditions.checkArgument(coalesceWindowMillis >= 0, "coalesceWindowMillis can not be negative");
+			Preconditions.checkArgument(workerCount >= 0, "workerCount can not be negative");
+			Preconditions.checkArgument(workerQueueCapacity > 0, "workerQueueCapacity should be positive");
+			Preconditions.checkArgument(warmUpLoaderCount >= 0, "warmUpLoaderCount can not be negative");
+			Preconditions.checkArgument(warmUpChunkSize > 0, "warmUpChunkSize should be positive");
+			Preconditions.checkArgument(snapshotIntervalMillis >= 0, "snapshotIntervalMillis can not be negative");
+			Preconditions.checkArgument(snapshotMaxAgeMillis >= 0, "snapshotMaxAgeMillis can not be negative");
 			return new BookObservator(this);
 		}
 	}
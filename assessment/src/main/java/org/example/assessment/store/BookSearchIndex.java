@@ -0,0 +1,265 @@
+package org.example.assessment.store;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.example.assessment.model.Book;
+import org.example.assessment.model.SearchIndexStatus;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+/**
+ * In-memory inverted index of the books, maintained by {@link BookObservator}
+ * from the repository events. Name, author, ISBN, introduction and paragraphs
+ * are tokenized to lower case words; a query matches the books containing all
+ * of its words.
+ *
+ * @author resulav
+ *
+ */
+public class BookSearchIndex {
+
+	private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+	// key = token, value = bookIds
+	private final Map<String, Set<String>> postings = Maps.newConcurrentMap();
+	// key = bookId, value = tokens of the book
+	private final Map<String, Set<String>> bookTokens = Maps.newConcurrentMap();
+
+	private final AtomicLong receivedEvents = new AtomicLong();
+	private final AtomicLong appliedEvents = new AtomicLong();
+	private final AtomicLong failedEvents = new AtomicLong();
+	private final AtomicLong lastReceivedEventDate = new AtomicLong();
+	private final AtomicLong lastAppliedEventDate = new AtomicLong();
+
+	BookSearchIndex() {
+		// package-private for tests, use getInstance()
+	}
+
+	public static BookSearchIndex getInstance() {
+		return HOLDER.INSTANCE;
+	}
+
+	/**
+	 * Searches the books containing all words of the query as case
+	 * in-sensitive
+	 *
+	 * @param query
+	 *            search text
+	 * @return bookIds of the matched books
+	 */
+	public Set<String> search(String query) {
+		List<Set<String>> postingLists = Lists.newArrayList();
+		for (String token : tokenize(query)) {
+			Set<String> bookIds = postings.get(token);
+			if (bookIds == null) {
+				return Collections.emptySet();
+			}
+			postingLists.add(bookIds);
+		}
+		if (postingLists.isEmpty()) {
+			return Collections.emptySet();
+		}
+
+		// intersect starting from the shortest posting list
+		postingLists.sort(Comparator.comparingInt(Set::size));
+		Set<String> result = Sets.newHashSet(postingLists.get(0));
+		for (int i = 1; i < postingLists.size() && !result.isEmpty(); i++) {
+			result.retainAll(postingLists.get(i));
+		}
+
+		return result;
+	}
+
+	/**
+	 * @return freshness of the index relative to the received events
+	 */
+	public SearchIndexStatus getStatus() {
+		long received = receivedEvents.get();
+		// a failed event is not pending anymore, the book is retried apart
+		long applied = appliedEvents.get() + failedEvents.get();
+		long lastReceived = lastReceivedEventDate.get();
+		long lastApplied = lastAppliedEventDate.get();
+
+		return SearchIndexStatus.newBuilder().withBookCount(bookTokens.size()).withTokenCount(postings.size())
+				.withPendingEvents(Math.max(0, received - applied)).withFailedEvents(failedEvents.get())
+				.withLastReceivedEventDate(lastReceived)
+				.withLastAppliedEventDate(lastApplied)
+				.withStalenessMillis(received > applied ? Math.max(0, lastReceived - lastApplied) : 0).build();
+	}
+
+	/**
+	 * Records an event which will be applied to the index
+	 *
+	 * @param eventDate
+	 *            date of the event
+	 */
+	protected void eventReceived(long eventDate) {
+		receivedEvents.incrementAndGet();
+		lastReceivedEventDate.accumulateAndGet(eventDate, Math::max);
+	}
+
+	/**
+	 * Indexes the book or re-indexes it If the book is already indexed
+	 *
+	 * @param book
+	 *            book to index
+	 */
+	protected void index(Book book) {
+		Set<String> tokens = tokenize(book);
+		bookTokens.compute(book.getBookId(),
+				(bookId, previousTokens) -> updatePostings(bookId, previousTokens, tokens));
+	}
+
+	/**
+	 * Indexes the book read at startup unless the book is changed by a
+	 * repository event meanwhile
+	 *
+	 * @param book
+	 *            book read from repository
+	 * @param changedByEvent
+	 *            tests whether an event of the bookId is received
+	 */
+	protected void indexUnless(Book book, Predicate<String> changedByEvent) {
+		Set<String> tokens = tokenize(book);
+		bookTokens.compute(book.getBookId(), (bookId, previousTokens) -> {
+			if (changedByEvent.test(bookId)) {
+				return previousTokens;
+			}
+			return updatePostings(bookId, previousTokens, tokens);
+		});
+	}
+
+	/**
+	 * Removes the book missing in repository at startup unless the book is
+	 * changed by a repository event meanwhile
+	 *
+	 * @param bookId
+	 *            bookId of the missing book
+	 * @param changedByEvent
+	 *            tests whether an event of the bookId is received
+	 */
+	protected void removeUnless(String bookId, Predicate<String> changedByEvent) {
+		bookTokens.computeIfPresent(bookId, (id, tokens) -> {
+			if (changedByEvent.test(id)) {
+				return tokens;
+			}
+			tokens.forEach(t -> removePosting(t, id));
+			return null;
+		});
+	}
+
+	/**
+	 * Removes the book from index
+	 *
+	 * @param bookId
+	 *            bookId of the removed book
+	 */
+	protected void remove(String bookId) {
+		bookTokens.computeIfPresent(bookId, (id, tokens) -> {
+			tokens.forEach(t -> removePosting(t, id));
+			return null;
+		});
+	}
+
+	/**
+	 * Records received events as applied to the index
+	 *
+	 * @param eventDate
+	 *            date of the latest applied event
+	 * @param eventCount
+	 *            count of the applied events
+	 */
+	protected void eventsApplied(long eventDate, int eventCount) {
+		appliedEvents.addAndGet(eventCount);
+		lastAppliedEventDate.accumulateAndGet(eventDate, Math::max);
+	}
+
+	/**
+	 * Records received events as failed to apply to the index
+	 *
+	 * @param eventCount
+	 *            count of the failed events
+	 */
+	protected void eventsFailed(int eventCount) {
+		failedEvents.addAndGet(eventCount);
+	}
+
+	/**
+	 * moves the book from the postings of the previous tokens to the postings
+	 * of the new tokens
+	 *
+	 * @return the new tokens
+	 */
+	private Set<String> updatePostings(String bookId, Set<String> previousTokens, Set<String> tokens) {
+		Set<String> previous = previousTokens == null ? Collections.emptySet() : previousTokens;
+		Sets.difference(previous, tokens).forEach(t -> removePosting(t, bookId));
+		Sets.difference(tokens, previous).forEach(t -> addPosting(t, bookId));
+		return tokens;
+	}
+
+	private void addPosting(String token, String bookId) {
+		postings.compute(token, (t, bookIds) -> {
+			Set<String> ids = bookIds == null ? ConcurrentHashMap.newKeySet() : bookIds;
+			ids.add(bookId);
+			return ids;
+		});
+	}
+
+	private void removePosting(String token, String bookId) {
+		postings.computeIfPresent(token, (t, bookIds) -> {
+			bookIds.remove(bookId);
+			return bookIds.isEmpty() ? null : bookIds;
+		});
+	}
+
+	/**
+	 * @return distinct tokens of the indexed fields of the book
+	 */
+	private static Set<String> tokenize(Book book) {
+		Stream<String> texts = Stream.of(book.getName(), book.getAuthor(), book.getIsbn());
+		if (book.getIntroduction() != null) {
+			texts = Stream.concat(texts, Arrays.stream(book.getIntroduction()));
+		}
+		if (book.getParagraphs() != null) {
+			texts = Stream.concat(texts, Arrays.stream(book.getParagraphs()));
+		}
+
+		return ImmutableSet.copyOf(texts.flatMap(t -> tokenize(t).stream()).collect(Collectors.toSet()));
+	}
+
+	/**
+	 * @return distinct lower case words of the text
+	 */
+	static Set<String> tokenize(String text) {
+		if (text == null) {
+			return Collections.emptySet();
+		}
+		return TOKEN_SEPARATOR.splitAsStream(text.toLowerCase(Locale.ROOT)).filter(t -> !t.isEmpty())
+				.collect(Collectors.toSet());
+	}
+
+	/**
+	 * Index holder
+	 *
+	 * @author resulav
+	 *
+	 */
+	private static final class HOLDER {
+		private static final BookSearchIndex INSTANCE = new BookSearchIndex();
+	}
+}
@@ -0,0 +1,251 @@
+package org.example.assessment.store;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import javax.jcr.SimpleCredentials;
+
+import org.example.assessment.common.Constants;
+import org.example.assessment.common.ResultCode;
+import org.example.assessment.exception.BookException;
+import org.example.assessment.model.Book;
+import org.example.assessment.util.RepositoryUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Loads the books of the repository to {@link BookCache} and
+ * {@link BookSearchIndex} in the background while the events are already
+ * observed. The bookIds are split into chunks, the chunks are read in parallel
+ * by loaders each with its own session. A book missing in repository is
+ * removed from store. A book changed by an event during the loading is left to
+ * the event, so the loaded state never overrides a newer one.
+ *
+ * @author resulav
+ *
+ */
+class BookWarmUp {
+
+	protected final Logger log = LoggerFactory.getLogger(getClass());
+
+	/**
+	 * Lists the bookIds to load
+	 */
+	interface BookIdSource {
+		List<String> getBookIds(Session session) throws RepositoryException;
+	}
+
+	private final Session session;
+	private final BookIdSource bookIdSource;
+	private final Consumer<String> failedBookHandler;
+	private final int loaderCount;
+	private final int chunkSize;
+
+	// bookIds of the events received during the loading
+	private final Set<String> changedBookIds = ConcurrentHashMap.newKeySet();
+	private volatile boolean running = true;
+
+	private final Thread coordinator;
+	private final ExecutorService loaders;
+
+	/**
+	 * @param session
+	 *            session to list the books, used and logged out by the
+	 *            warm-up
+	 * @param bookIdSource
+	 *            lists the bookIds to load with the session
+	 * @param failedBookHandler
+	 *            receives the bookIds failed to load, called by the loaders
+	 * @param loaderCount
+	 *            count of the parallel loaders
+	 * @param chunkSize
+	 *            count of the books read by a loader at once
+	 */
+	BookWarmUp(Session session, BookIdSource bookIdSource, Consumer<String> failedBookHandler, int loaderCount,
+			int chunkSize) {
+		this.session = session;
+		this.bookIdSource = bookIdSource;
+		this.failedBookHandler = failedBookHandler;
+		this.loaderCount = loaderCount;
+		this.chunkSize = chunkSize;
+		this.coordinator = new Thread(this::run, "book-warm-up");
+		this.coordinator.setDaemon(true);
+		AtomicInteger loaderIndex = new AtomicInteger();
+		this.loaders = Executors.newFixedThreadPool(loaderCount, r -> {
+			Thread thread = new Thread(r, "book-warm-up-loader-" + loaderIndex.getAndIncrement());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * starts loading in the background
+	 */
+	void start() {
+		BookCache.getInstance().warmUpStarted();
+		coordinator.start();
+	}
+
+	/**
+	 * records a book changed by an event, the loaders skip it
+	 *
+	 * @param bookId
+	 *            bookId of the event
+	 */
+	void bookChanged(String bookId) {
+		if (running) {
+			changedBookIds.add(bookId);
+		}
+	}
+
+	/**
+	 * @return true until all chunks are loaded
+	 */
+	boolean isRunning() {
+		return running;
+	}
+
+	/**
+	 * stops loading, the books loaded so far stay in store
+	 *
+	 * @param timeoutMillis
+	 *            maximum wait for the loaders
+	 */
+	void shutdown(long timeoutMillis) {
+		coordinator.interrupt();
+		loaders.shutdownNow();
+		try {
+			coordinator.join(timeoutMillis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * lists the bookIds, loads the chunks on the loaders and waits for them
+	 */
+	private void run() {
+		List<Session> loaderSessions = Lists.newArrayList();
+		boolean interrupted = false;
+		try {
+			List<String> bookIds = bookIdSource.getBookIds(session);
+			BookCache.getInstance().warmUpBooksFound(bookIds.size());
+			log.info("{} book(s) found, loading by {} loader(s) in chunks of {}", bookIds.size(), loaderCount,
+					chunkSize);
+
+			Queue<List<String>> chunks = new ConcurrentLinkedQueue<>(Lists.partition(bookIds, chunkSize));
+			List<Future<?>> futures = Lists.newArrayList();
+			for (int i = 0; i < Math.min(loaderCount, chunks.size()); i++) {
+				// JCR sessions are not thread-safe, each loader reads with its
+				// own session
+				Session loaderSession = session
+						.impersonate(new SimpleCredentials(session.getUserID(), new char[] {}));
+				loaderSessions.add(loaderSession);
+				futures.add(loaders.submit(() -> loadChunks(loaderSession, chunks)));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} catch (InterruptedException e) {
+			interrupted = true;
+			log.warn("Loading books interrupted");
+		} catch (Exception e) {
+			log.error("", BookException.newInstance(ResultCode.FAILED, "Error while loading books", e));
+		} finally {
+			loaders.shutdownNow();
+			awaitLoaders();
+			running = false;
+			changedBookIds.clear();
+			loaderSessions.forEach(Session::logout);
+			session.logout();
+			BookCache.getInstance().warmUpFinished();
+			log.info("{} book(s) stored in {} ms", BookCache.getInstance().size(),
+					BookCache.getInstance().getStatus().getWarmUpMillis());
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * loads chunks until no chunk is left
+	 *
+	 * @param loaderSession
+	 *            session of the loader
+	 * @param chunks
+	 *            chunks shared by the loaders
+	 */
+	private void loadChunks(Session loaderSession, Queue<List<String>> chunks) {
+		List<String> chunk;
+		while (!Thread.currentThread().isInterrupted() && (chunk = chunks.poll()) != null) {
+			loadChunk(loaderSession, chunk);
+		}
+	}
+
+	/**
+	 * reads the books of the chunk and puts them in store or removes them If
+	 * missing in repository, unless changed by an event
+	 *
+	 * @param loaderSession
+	 *            session of the loader
+	 * @param chunk
+	 *            bookIds to load
+	 */
+	private void loadChunk(Session loaderSession, List<String> chunk) {
+		long loaded = 0;
+		long failed = 0;
+		for (String bookId : chunk) {
+			if (changedBookIds.contains(bookId)) {
+				// the event loads the book
+				loaded++;
+				continue;
+			}
+			try {
+				Optional<Book> bookOptional = RepositoryUtil.getBookByPath(loaderSession,
+						Constants.REPOSITORY + Constants.PATH_SEPARATOR + bookId);
+				if (bookOptional.isPresent()) {
+					BookCache.getInstance().addOrUpdateBookUnless(bookOptional.get(), changedBookIds::contains);
+					BookSearchIndex.getInstance().indexUnless(bookOptional.get(), changedBookIds::contains);
+				} else {
+					BookCache.getInstance().removeBookUnless(bookId, changedBookIds::contains);
+					BookSearchIndex.getInstance().removeUnless(bookId, changedBookIds::contains);
+				}
+				loaded++;
+			} catch (Exception e) {
+				failed++;
+				failedBookHandler.accept(bookId);
+				log.error("", BookException.newInstance(ResultCode.FAILED, "Error while loading book " + bookId, e));
+			}
+		}
+
+		try {
+			// release the node states of the chunk
+			loaderSession.refresh(false);
+		} catch (RepositoryException e) {
+			log.warn("Error while refreshing loader session", e);
+		}
+		BookCache.getInstance().warmUpBooksLoaded(loaded, failed);
+	}
+
+	private void awaitLoaders() {
+		try {
+			loaders.awaitTermination(1, TimeUnit.MINUTES);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,232 @@
+package org.example.assessment.store;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.lang3.StringUtils;
+import org.example.assessment.common.ResultCode;
+import org.example.assessment.exception.BookException;
+import org.example.assessment.util.BookUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+
+/**
+ * Compressed JSON of the full book list of {@link BookCache}. The list is
+ * compressed in the background once per version of the cache, so the
+ * requests accepting a compressed response are served without compressing
+ * per request. A version is compressed once it is unchanged for a check
+ * interval, so a burst of changes is not compressed per interval only to be
+ * stale already. Until then the requests are served uncompressed.
+ *
+ * @author resulav
+ *
+ */
+public class CompressedBookList {
+
+	public static final String GZIP = "gzip";
+	public static final String DEFLATE = "deflate";
+	public static final List<String> SUPPORTED_ENCODINGS = ImmutableList.of(GZIP, DEFLATE);
+
+	protected final Logger log = LoggerFactory.getLogger(getClass());
+
+	private final BookCache bookCache;
+	// in the order of preference
+	private final List<String> encodings;
+	private final long checkIntervalMillis;
+	private final ScheduledExecutorService executor;
+	private volatile Renditions renditions = new Renditions(-1, ImmutableMap.of());
+	// version of the previous check, read and written by the checking thread
+	private long checkedVersion = -1;
+	private final AtomicLong compressedVersions = new AtomicLong();
+
+	/**
+	 * @param encodings
+	 *            content encodings to keep, {@link #GZIP} and/or
+	 *            {@link #DEFLATE} in the order of preference
+	 * @param checkIntervalMillis
+	 *            interval to check the version of the cache
+	 */
+	public CompressedBookList(List<String> encodings, long checkIntervalMillis) {
+		this(BookCache.getInstance(), encodings, checkIntervalMillis);
+	}
+
+	/**
+	 * @param bookCache
+	 *            cache to compress
+	 * @param encodings
+	 *            content encodings to keep
+	 * @param checkIntervalMillis
+	 *            interval to check the version of the cache
+	 */
+	CompressedBookList(BookCache bookCache, List<String> encodings, long checkIntervalMillis) {
+		for (String encoding : encodings) {
+			if (!SUPPORTED_ENCODINGS.contains(encoding)) {
+				throw BookException.newInstance(ResultCode.VALIDATION_FAILED,
+						"Unsupported content encoding " + encoding);
+			}
+		}
+		this.bookCache = bookCache;
+		this.encodings = ImmutableList.copyOf(encodings);
+		this.checkIntervalMillis = checkIntervalMillis;
+		this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "book-list-compressor");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * starts checking the version of the cache in the background
+	 */
+	public void start() {
+		if (!encodings.isEmpty()) {
+			executor.scheduleWithFixedDelay(this::compress, 0, checkIntervalMillis, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * stops checking, the requests are served uncompressed
+	 */
+	public void shutdown() {
+		executor.shutdownNow();
+		renditions = new Renditions(-1, ImmutableMap.of());
+	}
+
+	/**
+	 * Selects the preferred encoding accepted by the client
+	 *
+	 * @param acceptEncoding
+	 *            Accept-Encoding header of the request, may be null
+	 * @return the encoding, empty If no kept encoding is accepted
+	 */
+	public Optional<String> selectEncoding(String acceptEncoding) {
+		if (StringUtils.isBlank(acceptEncoding)) {
+			return Optional.empty();
+		}
+		Map<String, Boolean> accepted = parseAcceptEncoding(acceptEncoding);
+		Boolean any = accepted.get("*");
+		return encodings.stream().filter(e -> accepted.getOrDefault(e, any != null && any)).findFirst();
+	}
+
+	/**
+	 * Finds the compressed book list of the version
+	 *
+	 * @param version
+	 *            version of the cache
+	 * @param encoding
+	 *            content encoding
+	 * @return the compressed JSON array of the books, empty If the version is
+	 *         not compressed yet
+	 */
+	public Optional<byte[]> getBookList(long version, String encoding) {
+		Renditions current = renditions;
+		if (current.version != version) {
+			return Optional.empty();
+		}
+		return Optional.ofNullable(current.bytes.get(encoding));
+	}
+
+	/**
+	 * @return count of the versions compressed
+	 */
+	public long getCompressedVersionCount() {
+		return compressedVersions.get();
+	}
+
+	/**
+	 * compresses the book list If the version of the cache changed and is
+	 * unchanged since the previous check
+	 */
+	void compress() {
+		try {
+			// read the version before the list, the list is never older than
+			// the version
+			long version = bookCache.getSnapshotVersion();
+			if (version == renditions.version) {
+				return;
+			}
+			if (version != checkedVersion) {
+				// changed within the interval, wait until it settles
+				checkedVersion = version;
+				return;
+			}
+			List<byte[]> jsonBooks = bookCache.getBookListJson();
+			ImmutableMap.Builder<String, byte[]> bytes = ImmutableMap.builder();
+			long start = System.currentTimeMillis();
+			for (String encoding : encodings) {
+				bytes.put(encoding, compress(jsonBooks, encoding));
+			}
+			renditions = new Renditions(version, bytes.build());
+			compressedVersions.incrementAndGet();
+			log.debug("{} book(s) of version {} compressed in {} ms", jsonBooks.size(), version,
+					System.currentTimeMillis() - start);
+		} catch (Exception e) {
+			log.error("", BookException.newInstance(ResultCode.FAILED, "Error while compressing book list", e));
+		}
+	}
+
+	private static byte[] compress(List<byte[]> jsonBooks, String encoding) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (OutputStream out = GZIP.equals(encoding) ? new GZIPOutputStream(bytes)
+				: new DeflaterOutputStream(bytes)) {
+			BookUtil.writeJsonArray(out, jsonBooks);
+		}
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * @param acceptEncoding
+	 *            like {@code gzip, deflate;q=0.5, br;q=0}
+	 * @return accepted state of each coding, false If its q is 0
+	 */
+	private static Map<String, Boolean> parseAcceptEncoding(String acceptEncoding) {
+		Map<String, Boolean> accepted = Maps.newHashMap();
+		for (String coding : acceptEncoding.split(",")) {
+			String[] parts = coding.split(";");
+			String name = parts[0].trim().toLowerCase();
+			boolean isAccepted = true;
+			for (int i = 1; i < parts.length; i++) {
+				String parameter = parts[i].trim();
+				if (parameter.startsWith("q=")) {
+					try {
+						isAccepted = Double.parseDouble(parameter.substring(2)) > 0;
+					} catch (NumberFormatException e) {
+						isAccepted = false;
+					}
+				}
+			}
+			accepted.put(name, isAccepted);
+		}
+		return accepted;
+	}
+
+	/**
+	 * Compressed book lists of a cache version, key = encoding
+	 *
+	 * @author resulav
+	 *
+	 */
+	private static final class Renditions {
+		private final long version;
+		private final Map<String, byte[]> bytes;
+
+		private Renditions(long version, Map<String, byte[]> bytes) {
+			this.version = version;
+			this.bytes = bytes;
+		}
+	}
+}
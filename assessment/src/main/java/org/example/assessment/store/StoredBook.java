@@ -0,0 +1,138 @@
+package org.example.assessment.store;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.example.assessment.common.BookStorage;
+import org.example.assessment.model.Book;
+import org.example.assessment.util.BookUtil;
+
+import com.google.common.io.ByteStreams;
+
+/**
+ * A book of {@link BookCache} in its storage with its JSON. The fields of the
+ * indexes are kept on heap in each storage, the other fields of the compact
+ * storages are decoded from the JSON on read.
+ *
+ * @author resulav
+ *
+ */
+final class StoredBook {
+
+	private final BookStorage storage;
+	// the book If stored on heap, otherwise only bookId, name, author and ISBN
+	private final Book header;
+	// compressed If the storage is COMPRESSED
+	private final byte[] json;
+	// ETag of the book, hashed once per update
+	private final String contentHash;
+	private final long estimatedBytes;
+
+	private StoredBook(BookStorage storage, Book header, byte[] json, String contentHash, long estimatedBytes) {
+		this.storage = storage;
+		this.header = header;
+		this.json = json;
+		this.contentHash = contentHash;
+		this.estimatedBytes = estimatedBytes + 2L * contentHash.length();
+	}
+
+	/**
+	 * Encodes the book in the storage
+	 *
+	 * @param book
+	 *            book to store
+	 * @param storage
+	 *            storage of the book
+	 * @return the stored book
+	 */
+	static StoredBook of(Book book, BookStorage storage) {
+		byte[] json = BookUtil.toJson(book);
+		String contentHash = BookUtil.contentHash(book);
+		if (storage == BookStorage.HEAP) {
+			// the strings of the book take about two bytes per character of
+			// its JSON, besides the JSON itself
+			return new StoredBook(storage, book, json, contentHash, 3L * json.length);
+		}
+		Book header = new Book();
+		header.setBookId(book.getBookId());
+		header.setName(book.getName());
+		header.setAuthor(book.getAuthor());
+		header.setIsbn(book.getIsbn());
+		byte[] storedJson = storage == BookStorage.COMPRESSED ? deflate(json) : json;
+		long headerBytes = 2L * (length(book.getBookId()) + length(book.getName()) + length(book.getAuthor())
+				+ length(book.getIsbn()));
+		return new StoredBook(storage, header, storedJson, contentHash, headerBytes + storedJson.length);
+	}
+
+	/**
+	 * @return storage of the book
+	 */
+	BookStorage getStorage() {
+		return storage;
+	}
+
+	/**
+	 * @return the fields of the indexes without decoding the book, the book
+	 *         itself If stored on heap
+	 */
+	Book getHeader() {
+		return header;
+	}
+
+	/**
+	 * @return ETag of the book
+	 */
+	String getContentHash() {
+		return contentHash;
+	}
+
+	/**
+	 * @return the estimated heap of the book in bytes
+	 */
+	long getEstimatedBytes() {
+		return estimatedBytes;
+	}
+
+	/**
+	 * @return the book, decoded on each call unless stored on heap
+	 */
+	Book getBook() {
+		return storage == BookStorage.HEAP ? header : BookUtil.fromJson(getJson());
+	}
+
+	/**
+	 * @return UTF-8 JSON of the book, inflated on each call If compressed
+	 */
+	byte[] getJson() {
+		return storage == BookStorage.COMPRESSED ? inflate(json) : json;
+	}
+
+	private static int length(String value) {
+		return value == null ? 0 : value.length();
+	}
+
+	private static byte[] deflate(byte[] bytes) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 2);
+		try (OutputStream deflater = new DeflaterOutputStream(out, new Deflater(Deflater.BEST_SPEED))) {
+			deflater.write(bytes);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return out.toByteArray();
+	}
+
+	private static byte[] inflate(byte[] bytes) {
+		try (InputStream inflater = new InflaterInputStream(new ByteArrayInputStream(bytes))) {
+			return ByteStreams.toByteArray(inflater);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
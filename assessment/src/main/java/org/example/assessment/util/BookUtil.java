@@ -1,8 +1,15 @@
 package org.example.assessment.util;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import javax.jcr.Node;
 import javax.jcr.NodeIterator;
@@ -10,17 +17,36 @@ import javax.jcr.Property;
 import javax.jcr.RepositoryException;
 
 import org.apache.commons.lang3.ArrayUtils;
+import org.apache.commons.lang3.StringUtils;
 import org.example.assessment.common.BookField;
 import org.example.assessment.common.ResultCode;
 import org.example.assessment.exception.BookException;
+import org.example.assessment.metrics.BookMetrics;
 import org.example.assessment.model.Book;
+import org.example.assessment.model.BookBody;
+import org.example.assessment.model.BookCursor;
+import org.example.assessment.model.BookPage;
+import org.example.assessment.model.BookProjection;
+import org.example.assessment.model.BookSummary;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 
 /**
  * Created by resulav on 02.05.2018.
  */
 public class BookUtil {
+
+	public static final Set<BookField> ALL_FIELDS = Sets.immutableEnumSet(EnumSet.allOf(BookField.class));
+	private static final ObjectWriter BOOK_JSON_WRITER = new ObjectMapper().writerFor(Book.class);
+	private static final ObjectReader BOOK_JSON_READER = new ObjectMapper().readerFor(Book.class);
+
 	private BookUtil() {
 		// for sonarqube
 	}
@@ -52,29 +78,306 @@ public class BookUtil {
 	 *             as generic exception
 	 */
 	public static Book toBook(Node node) throws RepositoryException {
+		return toBook(node, ALL_FIELDS);
+	}
+
+	/**
+	 * Converts nodeIterator to BookSummary list.
+	 *
+	 * @param nodeIterator
+	 *            nodes in iterator
+	 * @return list of {@link BookSummary}
+	 * @throws RepositoryException
+	 *             as generic exception
+	 */
+	public static List<BookSummary> toBookSummaryList(NodeIterator nodeIterator) throws RepositoryException {
+		List<BookSummary> summaries = Lists.newArrayList();
+		while (nodeIterator.hasNext()) {
+			summaries.add(BookUtil.toBookSummary(nodeIterator.nextNode()));
+		}
+		return summaries;
+	}
+
+	/**
+	 * Converts node to BookSummary without reading the introduction and the
+	 * paragraphs.
+	 *
+	 * @param node
+	 *            book node
+	 * @return a {@link BookSummary} instance
+	 * @throws RepositoryException
+	 *             as generic exception
+	 */
+	public static BookSummary toBookSummary(Node node) throws RepositoryException {
+		long start = System.nanoTime();
+		BookSummary summary = new BookSummary();
+		summary.setBookId(node.getName());
+		if (node.hasProperty(BookField.NAME.getFieldName())) {
+			summary.setName(node.getProperty(BookField.NAME.getFieldName()).getString());
+		}
+		if (node.hasProperty(BookField.AUTHOR.getFieldName())) {
+			summary.setAuthor(node.getProperty(BookField.AUTHOR.getFieldName()).getString());
+		}
+		if (node.hasProperty(BookField.ISBN.getFieldName())) {
+			summary.setIsbn(node.getProperty(BookField.ISBN.getFieldName()).getString());
+		}
+		BookMetrics.getInstance().recordPhase(BookMetrics.Phase.CONVERSION, start);
+
+		return summary;
+	}
+
+	/**
+	 * Converts node to BookBody reading only the introduction and the
+	 * paragraphs.
+	 *
+	 * @param node
+	 *            book node
+	 * @return a {@link BookBody} instance
+	 * @throws RepositoryException
+	 *             as generic exception
+	 */
+	public static BookBody toBookBody(Node node) throws RepositoryException {
+		long start = System.nanoTime();
+		BookBody body = new BookBody();
+		body.setBookId(node.getName());
+		if (node.hasProperty(BookField.INTRODUCTION.getFieldName())) {
+			body.setIntroduction(toStringArray(node.getProperty(BookField.INTRODUCTION.getFieldName()),
+					BookField.INTRODUCTION.getFieldName()));
+		}
+		if (node.hasProperty(BookField.PARAGRAPHS.getFieldName())) {
+			body.setParagraphs(toStringArray(node.getProperty(BookField.PARAGRAPHS.getFieldName()),
+					BookField.PARAGRAPHS.getFieldName()));
+		}
+		BookMetrics.getInstance().recordPhase(BookMetrics.Phase.CONVERSION, start);
+
+		return body;
+	}
+
+	/**
+	 * Converts node to Book reading only the properties of the fields. The
+	 * bookId is always set.
+	 *
+	 * @param node
+	 *            book node
+	 * @param fields
+	 *            fields to read
+	 * @return a {@link Book} instance
+	 * @throws RepositoryException
+	 *             as generic exception
+	 */
+	public static Book toBook(Node node, Set<BookField> fields) throws RepositoryException {
+		long start = System.nanoTime();
 		Book book = new Book();
 		book.setBookId(node.getName());
-		if (node.hasProperty(BookField.NAME.getFieldName())) {
+		if (fields.contains(BookField.NAME) && node.hasProperty(BookField.NAME.getFieldName())) {
 			book.setName(node.getProperty(BookField.NAME.getFieldName()).getString());
 		}
-		if (node.hasProperty(BookField.AUTHOR.getFieldName())) {
+		if (fields.contains(BookField.AUTHOR) && node.hasProperty(BookField.AUTHOR.getFieldName())) {
 			book.setAuthor(node.getProperty(BookField.AUTHOR.getFieldName()).getString());
 		}
-		if (node.hasProperty(BookField.ISBN.getFieldName())) {
+		if (fields.contains(BookField.ISBN) && node.hasProperty(BookField.ISBN.getFieldName())) {
 			book.setIsbn(node.getProperty(BookField.ISBN.getFieldName()).getString());
 		}
-		if (node.hasProperty(BookField.INTRODUCTION.getFieldName())) {
+		if (fields.contains(BookField.INTRODUCTION) && node.hasProperty(BookField.INTRODUCTION.getFieldName())) {
 			book.setIntroduction(toStringArray(node.getProperty(BookField.INTRODUCTION.getFieldName()),
 					BookField.INTRODUCTION.getFieldName()));
 		}
-		if (node.hasProperty(BookField.PARAGRAPHS.getFieldName())) {
+		if (fields.contains(BookField.PARAGRAPHS) && node.hasProperty(BookField.PARAGRAPHS.getFieldName())) {
 			book.setParagraphs(toStringArray(node.getProperty(BookField.PARAGRAPHS.getFieldName()),
 					BookField.PARAGRAPHS.getFieldName()));
 		}
+		BookMetrics.getInstance().recordPhase(BookMetrics.Phase.CONVERSION, start);
 
 		return book;
 	}
 
+	/**
+	 * Copies the fields of the book to a new book of a page. The bookId is
+	 * always copied.
+	 *
+	 * @param book
+	 *            book to copy
+	 * @param fields
+	 *            fields to copy
+	 * @return a copy having only the fields
+	 */
+	public static BookProjection project(Book book, Set<BookField> fields) {
+		BookProjection projection = new BookProjection();
+		projection.setBookId(book.getBookId());
+		if (fields.contains(BookField.NAME)) {
+			projection.setName(book.getName());
+		}
+		if (fields.contains(BookField.AUTHOR)) {
+			projection.setAuthor(book.getAuthor());
+		}
+		if (fields.contains(BookField.ISBN)) {
+			projection.setIsbn(book.getIsbn());
+		}
+		if (fields.contains(BookField.INTRODUCTION)) {
+			projection.setIntroduction(book.getIntroduction());
+		}
+		if (fields.contains(BookField.PARAGRAPHS)) {
+			projection.setParagraphs(book.getParagraphs());
+		}
+
+		return projection;
+	}
+
+	/**
+	 * Parses the comma separated json property names of the book fields
+	 *
+	 * @param fields
+	 *            property names like {@code bookId,name,author}, empty for all
+	 *            fields
+	 * @return the fields
+	 * @throws BookException
+	 *             If a property name is unknown
+	 */
+	public static Set<BookField> toFields(String fields) {
+		if (StringUtils.isBlank(fields)) {
+			return ALL_FIELDS;
+		}
+		Set<BookField> bookFields = EnumSet.noneOf(BookField.class);
+		for (String propertyName : StringUtils.split(fields, ',')) {
+			bookFields.add(BookField.fromPropertyName(propertyName.trim())
+					.orElseThrow(() -> BookException.newInstance(ResultCode.VALIDATION_FAILED,
+							String.format("unknown field: %s", propertyName.trim()))));
+		}
+		return bookFields;
+	}
+
+	/**
+	 * Parses the sort field of the pages
+	 *
+	 * @param sort
+	 *            {@code bookId} or {@code name}
+	 * @return the sort field
+	 * @throws BookException
+	 *             If the books can not be sorted by the field
+	 */
+	public static BookField toSortField(String sort) {
+		Optional<BookField> sortField = BookField.fromPropertyName(sort);
+		Preconditions.checkArgument(
+				sortField.isPresent() && (sortField.get() == BookField.BOOK_ID || sortField.get() == BookField.NAME),
+				"sort should be bookId or name");
+		return sortField.get();
+	}
+
+	/**
+	 * Creates the page of the books read with one book more than the limit.
+	 * The extra book tells that a next page exists and is not returned.
+	 *
+	 * @param books
+	 *            books after the cursor, at most limit + 1
+	 * @param sort
+	 *            sort field of the books
+	 * @param limit
+	 *            maximum count of the books of the page
+	 * @param fields
+	 *            fields of the returned books
+	 * @return the page
+	 */
+	public static BookPage toPage(List<Book> books, BookField sort, int limit, Set<BookField> fields) {
+		BookPage.Builder page = BookPage.newBuilder().withSort(sort.getPropertyName()).withLimit(limit);
+		List<Book> pageBooks = books;
+		if (books.size() > limit) {
+			pageBooks = books.subList(0, limit);
+			page.withNextCursor(BookCursor.after(sort, pageBooks.get(limit - 1)).encode());
+		}
+		return page.withBooks(pageBooks.stream().map(b -> project(b, fields)).collect(Collectors.toList())).build();
+	}
+
+	/**
+	 * Hashes the fields of the book, books having the same content have the
+	 * same hash
+	 *
+	 * @param book
+	 *            book to hash
+	 * @return hash of the content as hex text
+	 */
+	public static String contentHash(Book book) {
+		Hasher hasher = Hashing.murmur3_128().newHasher();
+		putString(hasher, book.getBookId());
+		putString(hasher, book.getName());
+		putString(hasher, book.getAuthor());
+		putString(hasher, book.getIsbn());
+		putStrings(hasher, book.getIntroduction());
+		putStrings(hasher, book.getParagraphs());
+		return hasher.hash().toString();
+	}
+
+	/**
+	 * Encodes the book as UTF-8 JSON, the same as the JSON provider of the
+	 * resources writes it
+	 *
+	 * @param book
+	 *            book to encode
+	 * @return the JSON of the book
+	 */
+	public static byte[] toJson(Book book) {
+		try {
+			return BOOK_JSON_WRITER.writeValueAsBytes(book);
+		} catch (JsonProcessingException e) {
+			throw BookException.newInstance(ResultCode.FAILED, "Book can not be encoded as JSON", e);
+		}
+	}
+
+	/**
+	 * Decodes the book from the JSON of {@link #toJson(Book)}
+	 *
+	 * @param json
+	 *            the JSON of the book
+	 * @return the book
+	 */
+	public static Book fromJson(byte[] json) {
+		try {
+			return BOOK_JSON_READER.readValue(json);
+		} catch (IOException e) {
+			throw BookException.newInstance(ResultCode.FAILED, "Book can not be decoded from JSON", e);
+		}
+	}
+
+	/**
+	 * writes the JSON of the books as a JSON array
+	 *
+	 * @param output
+	 *            the stream to write
+	 * @param jsonBooks
+	 *            JSON of each book, see {@link #toJson(Book)}
+	 * @throws IOException
+	 *             If the stream can not be written
+	 */
+	public static void writeJsonArray(OutputStream output, List<byte[]> jsonBooks) throws IOException {
+		output.write('[');
+		for (int i = 0; i < jsonBooks.size(); i++) {
+			if (i > 0) {
+				output.write(',');
+			}
+			output.write(jsonBooks.get(i));
+		}
+		output.write(']');
+	}
+
+	private static void putString(Hasher hasher, String value) {
+		// length prefix keeps the boundaries of the fields, -1 for null
+		if (value == null) {
+			hasher.putInt(-1);
+			return;
+		}
+		hasher.putInt(value.length()).putString(value, StandardCharsets.UTF_8);
+	}
+
+	private static void putStrings(Hasher hasher, String[] values) {
+		if (values == null) {
+			hasher.putInt(-1);
+			return;
+		}
+		hasher.putInt(values.length);
+		for (String value : values) {
+			putString(hasher, value);
+		}
+	}
+
 	/**
 	 * Converts Book to node.
 	 *
@@ -7,6 +7,7 @@ import java.util.List;
 import java.util.Optional;
 
 import javax.jcr.Node;
+import javax.jcr.NodeIterator;
 import javax.jcr.RepositoryException;
 import javax.jcr.Session;
 import javax.jcr.nodetype.NodeType;
@@ -16,6 +17,8 @@ import org.example.assessment.model.Book;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.collect.Lists;
+
 /**
  * @author resulav
  *
@@ -93,6 +96,26 @@ public class RepositoryUtil {
 	 *             as generic exception
 	 */
 	public static Optional<Book> getBookByPath(Session session, String bookRealPath) throws RepositoryException {
+		// receive book from repository
+		Optional<Node> bookNode = getBookNode(session, bookRealPath);
+
+		// convert book node to Book
+		return bookNode.isPresent() ? Optional.of(BookUtil.toBook(bookNode.get())) : Optional.empty();
+
+	}
+
+	/**
+	 * Gets book node by real path without reading its properties
+	 *
+	 * @param session
+	 *            session system session
+	 * @param bookRealPath
+	 *            path of book
+	 * @return the node of the book If path exists
+	 * @throws RepositoryException
+	 *             as generic exception
+	 */
+	public static Optional<Node> getBookNode(Session session, String bookRealPath) throws RepositoryException {
 		// path can not start with "/" under root node. Remove "/"If
 		// bookRealPath is starting with "/"
 		String bookPath = bookRealPath.startsWith(Constants.PATH_SEPARATOR)
@@ -103,12 +126,29 @@ public class RepositoryUtil {
 			return Optional.empty();
 		}
 
-		// receive book from repository
-		Node bookNode = session.getRootNode().getNode(bookPath);
-
-		// convert book node to Book
-		return Optional.of(BookUtil.toBook(bookNode));
+		return Optional.of(rootNode.getNode(bookPath));
+	}
 
+	/**
+	 * Lists the bookIds without reading the books. Unlike
+	 * {@link #getBooksNode(Session)}, the books node is not added If missing.
+	 *
+	 * @param session
+	 *            session to read
+	 * @return bookIds in repository order, empty If there is no books node
+	 * @throws RepositoryException
+	 *             as generic exception
+	 */
+	public static List<String> getBookIds(Session session) throws RepositoryException {
+		List<String> bookIds = Lists.newArrayList();
+		if (!session.getRootNode().hasNode(Constants.REPOSITORY)) {
+			return bookIds;
+		}
+		NodeIterator nodeIterator = session.getRootNode().getNode(Constants.REPOSITORY).getNodes();
+		while (nodeIterator.hasNext()) {
+			bookIds.add(nodeIterator.nextNode().getName());
+		}
+		return bookIds;
 	}
 
 	/**
@@ -121,4 +161,55 @@ public class RepositoryUtil {
 		Node booksNode = getBooksNode(session);
 		return BookUtil.toBookList(booksNode.getNodes());
 	}
+
+	/**
+	 * reads a text option of a module configuration
+	 *
+	 * @param session
+	 *            system session
+	 * @param configPath
+	 *            path of the module configuration
+	 * @param name
+	 *            name of the option
+	 * @return configured value, null If the option is not configured
+	 * @throws RepositoryException
+	 *             as generic exception
+	 */
+	public static String getConfigString(Session session, String configPath, String name)
+			throws RepositoryException {
+		if (session.nodeExists(configPath)) {
+			Node moduleConfig = session.getNode(configPath);
+			if (moduleConfig.hasProperty(name)) {
+				return moduleConfig.getProperty(name).getString();
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * reads a number option of a module configuration
+	 *
+	 * @param session
+	 *            system session
+	 * @param configPath
+	 *            path of the module configuration
+	 * @param name
+	 *            name of the option
+	 * @param defaultValue
+	 *            value If the option is not configured
+	 * @return configured value or default value
+	 * @throws RepositoryException
+	 *             as generic exception
+	 */
+	public static long getConfigLong(Session session, String configPath, String name, long defaultValue)
+			throws RepositoryException {
+		if (session.nodeExists(configPath)) {
+			Node moduleConfig = session.getNode(configPath);
+			if (moduleConfig.hasProperty(name)) {
+				return moduleConfig.getProperty(name).getLong();
+			}
+		}
+		log.debug("{} is not configured, using {}", name, defaultValue);
+		return defaultValue;
+	}
 }
@@ -23,6 +23,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.example.assessment.common.Constants;
 import org.example.assessment.common.ResultCode;
 import org.example.assessment.model.Book;
+import org.example.assessment.model.BookBody;
 import org.example.assessment.model.BookResponse;
 import org.example.assessment.resource.BookResources;
 import org.example.assessment.resource.BookStoreResources;
@@ -153,6 +154,28 @@ public class JaxrsTest extends RepositoryTestCase {
 				addBookResponse.getResultCode());
 	}
 
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	public void test33_AddBooks_DuplicateIsbn() throws Exception {
+		Book newBook = createBook("nameBook4", "authorBook4", "95-8929-675-4",
+				ArrayUtils.toArray("introduction paragraph41"), ArrayUtils.toArray("book paragraph41"));
+		Book duplicateBook = createBook("nameBook5", "authorBook5", "95-8929-675-4",
+				ArrayUtils.toArray("introduction paragraph51"), ArrayUtils.toArray("book paragraph51"));
+
+		BookResponse addBookResponse = addBooks(Lists.newArrayList(book1, newBook, duplicateBook));
+		Assert.assertEquals("addBooks result failed", ResultCode.ALREADY_EXIST.getCode(),
+				addBookResponse.getResultCode());
+		Assert.assertEquals("book results not matched", 3, addBookResponse.getResults().size());
+		Assert.assertEquals("existing ISBN not detected", ResultCode.ALREADY_EXIST.getCode(),
+				addBookResponse.getResults().get(0).getResultCode());
+		Assert.assertEquals("valid book failed", ResultCode.SUCCESS.getCode(),
+				addBookResponse.getResults().get(1).getResultCode());
+		Assert.assertEquals("duplicate ISBN of request not detected", ResultCode.ALREADY_EXIST.getCode(),
+				addBookResponse.getResults().get(2).getResultCode());
+	}
+
 	/**
 	 * @throws Exception
 	 */
@@ -244,6 +267,65 @@ public class JaxrsTest extends RepositoryTestCase {
 		searchBookInternal(QUERY_ESCAPE_CHARS);
 	}
 	
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	public void test7_GetBookParagraphs() throws Exception {
+		Book book = getBooksNotEmpty()[0];
+
+		String response = expectGetOK(BookResources.SERVICE_PATH + Constants.PATH_SEPARATOR + book.getBookId()
+				+ BookResources.METHOD_GET_BOOK_PARAGRAPHS);
+		BookBody body = objectMapper.readValue(response, BookBody.class);
+
+		Assert.assertEquals("bookId not matched", book.getBookId(), body.getBookId());
+		Assert.assertArrayEquals("paragraphs not matched", book.getParagraphs(), body.getParagraphs());
+		Assert.assertArrayEquals("introduction not matched", book.getIntroduction(), body.getIntroduction());
+
+		getClient().get(getServiceUrl(BookResources.SERVICE_PATH + Constants.PATH_SEPARATOR
+				+ UUID.randomUUID().toString() + BookResources.METHOD_GET_BOOK_PARAGRAPHS)).then().statusCode(404);
+	}
+
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	public void test8_GetBook_NotModified() throws Exception {
+		Book book = getBooksNotEmpty()[0];
+		String bookPath = getServiceUrl(BookResources.SERVICE_PATH + Constants.PATH_SEPARATOR + book.getBookId());
+
+		Response response = getClient().get(bookPath);
+		response.then().statusCode(200);
+		String entityTag = response.getHeader("ETag");
+		Assert.assertNotNull("ETag missing", entityTag);
+		Assert.assertEquals("book not matched", book.getName(),
+				objectMapper.readValue(response.body().asString(), Book.class).getName());
+
+		getClient().header("If-None-Match", entityTag).get(bookPath).then().statusCode(304);
+		getClient().get(getServiceUrl(BookResources.SERVICE_PATH + Constants.PATH_SEPARATOR
+				+ UUID.randomUUID().toString())).then().statusCode(404);
+	}
+
+	/**
+	 * @throws Exception
+	 */
+	@Test
+	public void test9_GetStoredBooks_NotModified() throws Exception {
+		getBooksNotEmpty();
+		String storePath = getServiceUrl(BookStoreResources.SERVICE_PATH);
+
+		// the store may still apply the events of the previous tests
+		int status = 0;
+		for (int i = 0; i < 10 && status != 304; i++) {
+			Response response = getClient().get(storePath);
+			response.then().statusCode(200);
+			Assert.assertNotNull("Last-Modified missing", response.getHeader("Last-Modified"));
+			status = getClient().header("If-None-Match", response.getHeader("ETag")).get(storePath).getStatusCode();
+			Thread.sleep(100);
+		}
+		Assert.assertEquals("stored books modified", 304, status);
+	}
+
 	private void searchBookInternal(String queryText) throws Exception {
 		Book[] books = getBooksNotEmpty();
 		Book[] booksSearchResult = searchBooks(queryText);
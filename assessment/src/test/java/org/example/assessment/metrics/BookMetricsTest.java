@@ -0,0 +1,82 @@
+package org.example.assessment.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+
+import org.example.assessment.model.BookMetricsReport;
+import org.example.assessment.model.TimerMetrics;
+import org.example.assessment.store.BookCache;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Created by resulav on 04.05.2018.
+ */
+public class BookMetricsTest {
+
+	private BookMetrics bookMetrics;
+
+	@Before
+	public void before() {
+		bookMetrics = new BookMetrics(BookCache.getInstance());
+	}
+
+	@Test
+	public void testRecordRequests() {
+		long start = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(5);
+		bookMetrics.recordRequest("BookResources.getBooks", start);
+		bookMetrics.recordRequest("BookResources.getBooks", start);
+		bookMetrics.recordPhase(BookMetrics.Phase.QUERY, start);
+
+		BookMetricsReport report = bookMetrics.getReport();
+		TimerMetrics requests = report.getRequests().get("BookResources.getBooks");
+		Assert.assertEquals("request count not matched", 2, requests.getCount());
+		Assert.assertTrue("request latency not recorded", requests.getP99Millis() >= 5);
+		Assert.assertEquals("query count not matched", 1, report.getPhases().get("query").getCount());
+		Assert.assertEquals("serialization recorded", 0, report.getPhases().get("serialization").getCount());
+	}
+
+	@Test
+	public void testEvents() {
+		bookMetrics.eventsReceived(3);
+		bookMetrics.eventsApplied(2, System.currentTimeMillis() - 200);
+		bookMetrics.eventsFailed(1);
+
+		BookMetricsReport report = bookMetrics.getReport();
+		Assert.assertEquals("received events not matched", 3, report.getReceivedEvents());
+		Assert.assertEquals("applied events not matched", 2, report.getAppliedEvents());
+		Assert.assertEquals("failed events not matched", 1, report.getFailedEvents());
+		Assert.assertEquals("lag count not matched", 1, report.getEventLag().getCount());
+		Assert.assertTrue("lag not recorded", report.getEventLag().getMaxMillis() >= 200);
+	}
+
+	@Test
+	public void testJmx() throws Exception {
+		bookMetrics.recordRequest("BookStoreResources.getMetrics", System.nanoTime());
+		bookMetrics.register();
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName objectName = new ObjectName(BookMetrics.OBJECT_NAME);
+			Assert.assertEquals("cached books not matched", BookCache.getInstance().size(),
+					server.getAttribute(objectName, "CachedBooks"));
+			TabularData requests = (TabularData) server.getAttribute(objectName, "Requests");
+			Assert.assertEquals("requests not matched", 1, requests.size());
+			CompositeData eventLag = (CompositeData) server.getAttribute(objectName, "EventLag");
+			Assert.assertEquals("event lag not matched", 0L, eventLag.get("count"));
+
+			// a new initialization replaces the metrics
+			bookMetrics.register();
+			Assert.assertTrue("metrics not registered", server.isRegistered(objectName));
+		} finally {
+			bookMetrics.unregister();
+		}
+		Assert.assertFalse("metrics not unregistered",
+				ManagementFactory.getPlatformMBeanServer().isRegistered(new ObjectName(BookMetrics.OBJECT_NAME)));
+	}
+}
@@ -0,0 +1,46 @@
+package org.example.assessment.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Created by resulav on 04.05.2018.
+ */
+public class LatencyHistogramTest {
+
+	@Test
+	public void testBucketsCoverValues() {
+		for (long value : new long[] { 0, 1, 127, 128, 129, 255, 256, 1000, 123456789L, Long.MAX_VALUE }) {
+			int index = LatencyHistogram.toIndex(value);
+			long highest = LatencyHistogram.toHighestValue(index);
+			Assert.assertTrue("value above its bucket " + value, value <= highest);
+			Assert.assertTrue("bucket wider than 1/64 of " + value, highest - value <= value / 64);
+			if (index > 0) {
+				Assert.assertTrue("value in the previous bucket " + value,
+						value > LatencyHistogram.toHighestValue(index - 1));
+			}
+		}
+	}
+
+	@Test
+	public void testPercentiles() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		Assert.assertEquals("empty percentile not matched", 0, histogram.getMicrosAtPercentile(99));
+
+		for (int i = 1; i <= 1000; i++) {
+			histogram.recordNanos(TimeUnit.MILLISECONDS.toNanos(i));
+		}
+
+		Assert.assertEquals("count not matched", 1000, histogram.getTotalCount());
+		Assert.assertEquals("max not matched", 1_000_000, histogram.getMaxMicros());
+		assertNear("p50 not matched", 500_000, histogram.getMicrosAtPercentile(50));
+		assertNear("p99 not matched", 990_000, histogram.getMicrosAtPercentile(99));
+		Assert.assertEquals("p100 not matched", 1_000_000, histogram.getMicrosAtPercentile(100));
+	}
+
+	private static void assertNear(String message, long expected, long actual) {
+		Assert.assertTrue(message + ": " + actual, actual >= expected && actual - expected <= expected / 64);
+	}
+}
@@ -16,4 +16,16 @@ public class ModelTest {
 				Method.TO_STRING).areWellImplemented();
 	}
 
+	@Test
+	public void testBookSummary() {
+		Assertions.assertPojoMethodsFor(BookSummary.class).testing(Method.CONSTRUCTOR, Method.GETTER, Method.SETTER,
+				Method.TO_STRING).areWellImplemented();
+	}
+
+	@Test
+	public void testBookBody() {
+		Assertions.assertPojoMethodsFor(BookBody.class).testing(Method.CONSTRUCTOR, Method.GETTER, Method.SETTER,
+				Method.TO_STRING).areWellImplemented();
+	}
+
 }
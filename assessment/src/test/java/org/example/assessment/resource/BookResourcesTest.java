@@ -0,0 +1,77 @@
+package org.example.assessment.resource;
+
+import static org.example.assessment.util.BookTestUtil.createBooks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import javax.jcr.RepositoryException;
+
+import org.example.assessment.common.Constants;
+import org.example.assessment.model.Book;
+import org.example.assessment.service.BookService;
+import org.example.assessment.service.SessionPool;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.onehippo.repository.testutils.RepositoryTestCase;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Streams the books of the repository by GET /books/stream
+ */
+public class BookResourcesTest extends RepositoryTestCase {
+
+	private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+	private SessionPool sessionPool;
+
+	@Before
+	public void before() throws RepositoryException {
+		sessionPool = SessionPool.newBuilder().withSession(session).build();
+	}
+
+	@After
+	@Override
+	public void tearDown() throws Exception {
+		sessionPool.close();
+		if (session.nodeExists("/" + Constants.REPOSITORY)) {
+			session.getNode("/" + Constants.REPOSITORY).remove();
+			session.save();
+		}
+		super.tearDown();
+	}
+
+	@Test
+	public void testStreamBooks() throws Exception {
+		List<Book> books = createBooks(3);
+		new BookService(sessionPool).addBooks(books);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		new BookResources(sessionPool).streamBooks().write(out);
+
+		List<Book> streamedBooks = readBooks(out);
+		Assert.assertEquals("streamed books not matched", books.size(), streamedBooks.size());
+		Assert.assertTrue("streamed book not matched",
+				streamedBooks.stream().anyMatch(b -> b.getBookId().equals(books.get(0).getBookId())
+						&& b.getName().equals(books.get(0).getName())));
+	}
+
+	@Test
+	public void testStreamEmptyRepository() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		new BookResources(sessionPool).streamBooks().write(out);
+
+		Assert.assertTrue("books streamed", readBooks(out).isEmpty());
+	}
+
+	private static List<Book> readBooks(ByteArrayOutputStream out) throws IOException {
+		return OBJECT_MAPPER.readValue(out.toByteArray(), new TypeReference<List<Book>>() {
+		});
+	}
+}
@@ -0,0 +1,68 @@
+package org.example.assessment.service;
+
+import static org.example.assessment.util.BookTestUtil.createBooks;
+
+import java.util.List;
+
+import javax.jcr.RepositoryException;
+
+import org.example.assessment.common.Constants;
+import org.example.assessment.common.ResultCode;
+import org.example.assessment.model.Book;
+import org.example.assessment.model.ChunkResult;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.onehippo.repository.testutils.RepositoryTestCase;
+
+/**
+ * Imports the books by chunks and resumes a failed import
+ */
+public class BookServiceImportTest extends RepositoryTestCase {
+
+	private SessionPool sessionPool;
+
+	@Before
+	public void before() throws RepositoryException {
+		sessionPool = SessionPool.newBuilder().withSession(session).build();
+	}
+
+	@After
+	@Override
+	public void tearDown() throws Exception {
+		sessionPool.close();
+		removeBooks();
+		super.tearDown();
+	}
+
+	@Test
+	public void testResumeFromFailedChunk() throws RepositoryException {
+		BookService bookService = new BookService(sessionPool);
+		List<Book> books = createBooks(10);
+
+		List<ChunkResult> results = bookService.importBooks(books, 3, 0, chunk -> {
+			if (chunk.contains(books.get(7))) {
+				throw new IllegalStateException("chunk rejected");
+			}
+		});
+		Assert.assertEquals("processed chunks not matched", 3, results.size());
+		Assert.assertEquals("failed chunk not matched", ResultCode.FAILED.getCode(), results.get(2).getResultCode());
+		Assert.assertEquals("committed books not matched", 6,
+				session.getNode("/" + Constants.REPOSITORY).getNodes().getSize());
+
+		results = bookService.importBooks(books, 3, 2, chunk -> {
+		});
+		Assert.assertEquals("resumed chunks not matched", 2, results.size());
+		Assert.assertEquals("first resumed chunk not matched", 2, results.get(0).getChunk());
+		Assert.assertEquals("imported books not matched", 10,
+				session.getNode("/" + Constants.REPOSITORY).getNodes().getSize());
+	}
+
+	private void removeBooks() throws RepositoryException {
+		if (session.nodeExists("/" + Constants.REPOSITORY)) {
+			session.getNode("/" + Constants.REPOSITORY).remove();
+			session.save();
+		}
+	}
+}
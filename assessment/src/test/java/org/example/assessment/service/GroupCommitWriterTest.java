@@ -0,0 +1,189 @@
+package org.example.assessment.service;
+
+import static org.example.assessment.util.BookTestUtil.createBooks;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.jcr.RepositoryException;
+
+import org.example.assessment.common.Constants;
+import org.example.assessment.common.ResultCode;
+import org.example.assessment.exception.BookException;
+import org.example.assessment.model.Book;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.onehippo.repository.testutils.RepositoryTestCase;
+
+/**
+ * Created by resulav on 04.05.2018.
+ */
+public class GroupCommitWriterTest extends RepositoryTestCase {
+
+	private static final String BOOKS_PATH = "/" + Constants.REPOSITORY + "/";
+
+	private SessionPool sessionPool;
+	private GroupCommitWriter groupCommitWriter;
+	private BookService bookService;
+	private ExecutorService executor;
+
+	@Before
+	public void before() throws RepositoryException {
+		sessionPool = SessionPool.newBuilder().withSession(session).build();
+		// the window is long enough for the writes of a test to share a batch
+		groupCommitWriter = GroupCommitWriter.newBuilder().withSessionPool(sessionPool).withBatchSize(3)
+				.withWindowMillis(2000).build();
+		bookService = new BookService(sessionPool, groupCommitWriter);
+		executor = Executors.newFixedThreadPool(3);
+	}
+
+	@After
+	@Override
+	public void tearDown() throws Exception {
+		executor.shutdownNow();
+		groupCommitWriter.shutdown();
+		sessionPool.close();
+		if (session.nodeExists("/" + Constants.REPOSITORY)) {
+			session.getNode("/" + Constants.REPOSITORY).remove();
+			session.save();
+		}
+		super.tearDown();
+	}
+
+	@Test
+	public void testWritesCommittedTogether() throws Exception {
+		List<Book> books = createBooks(3);
+		new BookService(sessionPool).addBooks(books.subList(0, 2));
+		Book updatedBook = books.get(0);
+		updatedBook.setName("updated name");
+		Book missingBook = books.get(2);
+
+		Future<?> update = executor.submit(() -> {
+			bookService.updateBook(updatedBook);
+			return null;
+		});
+		Future<?> updateMissing = executor.submit(() -> {
+			bookService.updateBook(missingBook);
+			return null;
+		});
+		Future<?> delete = executor.submit(() -> {
+			bookService.deleteBook(books.get(1).getBookId());
+			return null;
+		});
+
+		update.get(10, TimeUnit.SECONDS);
+		delete.get(10, TimeUnit.SECONDS);
+		try {
+			updateMissing.get(10, TimeUnit.SECONDS);
+			Assert.fail("missing book updated");
+		} catch (ExecutionException e) {
+			Assert.assertTrue("not a book error", e.getCause() instanceof BookException);
+			Assert.assertEquals("result code not matched", ResultCode.NOT_FOUND,
+					((BookException) e.getCause()).getResultCode());
+		}
+		Assert.assertEquals("committed writes not counted", 2, groupCommitWriter.getWriteCount());
+		Assert.assertEquals("writes not committed together", 1, groupCommitWriter.getCommitCount());
+		Assert.assertEquals("book not updated", "updated name",
+				session.getNode(BOOKS_PATH + updatedBook.getBookId()).getProperty("name").getString());
+		Assert.assertFalse("book not deleted", session.nodeExists(BOOKS_PATH + books.get(1).getBookId()));
+	}
+
+	@Test
+	public void testBookExceptionDropsItsChanges() throws Exception {
+		List<Book> books = createBooks(2);
+
+		Future<?> first = executor.submit(() -> {
+			bookService.addBooks(books.subList(0, 1));
+			return null;
+		});
+		Future<?> failed = executor.submit(() -> groupCommitWriter.write(s -> {
+			s.getRootNode().addNode("failedWrite");
+			throw BookException.newInstance(ResultCode.NOT_FOUND, "write failed");
+		}));
+		Future<?> second = executor.submit(() -> {
+			bookService.addBooks(books.subList(1, 2));
+			return null;
+		});
+
+		first.get(10, TimeUnit.SECONDS);
+		second.get(10, TimeUnit.SECONDS);
+		try {
+			failed.get(10, TimeUnit.SECONDS);
+			Assert.fail("write error not thrown");
+		} catch (ExecutionException e) {
+			Assert.assertTrue("not a book error", e.getCause() instanceof BookException);
+		}
+		Assert.assertEquals("writes not committed together", 1, groupCommitWriter.getCommitCount());
+		Assert.assertFalse("changes of the failed write saved", session.nodeExists("/failedWrite"));
+		Assert.assertTrue("first book not added", session.nodeExists(BOOKS_PATH + books.get(0).getBookId()));
+		Assert.assertTrue("second book not added", session.nodeExists(BOOKS_PATH + books.get(1).getBookId()));
+	}
+
+	@Test
+	public void testFailedWriteCommittedAlone() throws Exception {
+		List<Book> books = createBooks(2);
+
+		Future<?> failed = executor.submit(() -> groupCommitWriter.write(s -> {
+			s.getRootNode().addNode("failedWrite");
+			throw new IllegalStateException("write failed");
+		}));
+		Future<?> first = executor.submit(() -> {
+			bookService.addBooks(books.subList(0, 1));
+			return null;
+		});
+		Future<?> second = executor.submit(() -> {
+			bookService.addBooks(books.subList(1, 2));
+			return null;
+		});
+
+		first.get(10, TimeUnit.SECONDS);
+		second.get(10, TimeUnit.SECONDS);
+		try {
+			failed.get(10, TimeUnit.SECONDS);
+			Assert.fail("write error not thrown");
+		} catch (ExecutionException e) {
+			Assert.assertTrue("write error not matched", e.getCause() instanceof IllegalStateException);
+		}
+		Assert.assertFalse("failed write saved", session.nodeExists("/failedWrite"));
+		Assert.assertTrue("first book not added", session.nodeExists(BOOKS_PATH + books.get(0).getBookId()));
+		Assert.assertTrue("second book not added", session.nodeExists(BOOKS_PATH + books.get(1).getBookId()));
+	}
+
+	@Test
+	public void testErrorFailsWaitingWrites() throws Exception {
+		Future<?> failed = executor.submit(() -> groupCommitWriter.write(s -> {
+			throw new LinkageError("write error");
+		}));
+		try {
+			failed.get(10, TimeUnit.SECONDS);
+			Assert.fail("write error not thrown");
+		} catch (ExecutionException e) {
+			Assert.assertTrue("not a book error", e.getCause() instanceof BookException);
+		}
+
+		// the committer is stopped, the later writes fail instead of waiting
+		try {
+			bookService.addBooks(createBooks(1));
+			Assert.fail("write after the committer stopped");
+		} catch (BookException e) {
+			Assert.assertEquals("result code not matched", ResultCode.FAILED, e.getResultCode());
+		}
+	}
+
+	@Test
+	public void testShutdown() throws RepositoryException {
+		groupCommitWriter.shutdown();
+		try {
+			bookService.addBooks(createBooks(1));
+			Assert.fail("write after shutdown");
+		} catch (BookException e) {
+			Assert.assertEquals("result code not matched", ResultCode.FAILED, e.getResultCode());
+		}
+	}
+}
@@ -0,0 +1,198 @@
+package org.example.assessment.service;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.jcr.AccessDeniedException;
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+
+import org.example.assessment.common.Constants;
+import org.example.assessment.common.ResultCode;
+import org.example.assessment.exception.BookException;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.onehippo.repository.testutils.RepositoryTestCase;
+
+/**
+ * Created by resulav on 04.05.2018.
+ */
+public class SessionPoolTest extends RepositoryTestCase {
+
+	private SessionPool sessionPool;
+	private ExecutorService executor;
+
+	@Before
+	public void before() throws RepositoryException {
+		sessionPool = SessionPool.newBuilder().withSession(session).withReadSessionCount(2).withWriteSessionCount(1)
+				.withStreamSessionCount(1).withBorrowTimeoutMillis(200).build();
+		executor = Executors.newFixedThreadPool(2);
+	}
+
+	@After
+	@Override
+	public void tearDown() throws Exception {
+		executor.shutdownNow();
+		sessionPool.close();
+		if (session.nodeExists("/" + Constants.REPOSITORY)) {
+			session.getNode("/" + Constants.REPOSITORY).remove();
+			session.save();
+		}
+		super.tearDown();
+	}
+
+	@Test
+	public void testConcurrentReadsUseOwnSessions() throws Exception {
+		CountDownLatch borrowed = new CountDownLatch(2);
+		Future<Session> first = executor.submit(() -> sessionPool.read(s -> awaitOthers(borrowed, s)));
+		Future<Session> second = executor.submit(() -> sessionPool.read(s -> awaitOthers(borrowed, s)));
+
+		Assert.assertNotSame("read sessions shared", first.get(), second.get());
+		Assert.assertNotSame("system session borrowed", session, first.get());
+		Assert.assertEquals("read sessions not kept", 2, sessionPool.getIdleReadSessionCount());
+
+		// the idle session is borrowed again
+		Session reused = sessionPool.read(s -> s);
+		Assert.assertTrue("read session not reused", reused == first.get() || reused == second.get());
+	}
+
+	@Test
+	public void testSessionsImpersonatedByBuild() throws RepositoryException {
+		Assert.assertEquals("read sessions not impersonated", 2, sessionPool.getIdleReadSessionCount());
+		Assert.assertEquals("write sessions not impersonated", 1, sessionPool.getIdleWriteSessionCount());
+		Assert.assertEquals("stream sessions not impersonated", 1, sessionPool.getIdleStreamSessionCount());
+
+		// a logged out session is replaced
+		sessionPool.read(s -> {
+			s.logout();
+			return null;
+		});
+		Assert.assertTrue("logged out session borrowed", sessionPool.read(s -> s.isLive()));
+	}
+
+	@Test
+	public void testReadSessionsReadOnly() throws RepositoryException {
+		try {
+			sessionPool.read(s -> {
+				s.getRootNode().addNode(Constants.REPOSITORY);
+				s.save();
+				return null;
+			});
+			Assert.fail("read session saved");
+		} catch (AccessDeniedException e) {
+			// expected
+		}
+		try {
+			sessionPool.stream(s -> {
+				s.getWorkspace().copy("/jcr:system", "/" + Constants.REPOSITORY);
+				return null;
+			});
+			Assert.fail("stream session workspace changed");
+		} catch (AccessDeniedException e) {
+			// expected
+		}
+		Assert.assertFalse("read session saved", session.nodeExists("/" + Constants.REPOSITORY));
+	}
+
+	@Test
+	public void testBorrowTimeout() throws Exception {
+		CountDownLatch borrowed = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		executor.submit(() -> sessionPool.write(s -> {
+			borrowed.countDown();
+			return await(release);
+		}));
+		Assert.assertTrue("write session not borrowed", borrowed.await(10, TimeUnit.SECONDS));
+
+		try {
+			sessionPool.write(s -> null);
+			Assert.fail("write session borrowed beyond the limit");
+		} catch (BookException e) {
+			Assert.assertEquals("result code not matched", ResultCode.FAILED, e.getResultCode());
+		} finally {
+			release.countDown();
+		}
+		// the reads are not limited by the writes
+		Assert.assertNotNull("read session not borrowed", sessionPool.read(s -> s));
+	}
+
+	@Test
+	public void testStreamsDoNotTakeReadSessions() throws Exception {
+		CountDownLatch borrowed = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		executor.submit(() -> sessionPool.stream(s -> {
+			borrowed.countDown();
+			return await(release);
+		}));
+		Assert.assertTrue("stream session not borrowed", borrowed.await(10, TimeUnit.SECONDS));
+
+		try {
+			sessionPool.stream(s -> null);
+			Assert.fail("stream session borrowed beyond the limit");
+		} catch (BookException e) {
+			Assert.assertEquals("result code not matched", ResultCode.FAILED, e.getResultCode());
+		} finally {
+			release.countDown();
+		}
+		Assert.assertNotNull("read session not borrowed", sessionPool.read(s -> s));
+		Assert.assertNotNull("read session not borrowed", sessionPool.read(s -> s));
+	}
+
+	@Test
+	public void testUnsavedChangesDropped() throws RepositoryException {
+		try {
+			sessionPool.write(s -> {
+				s.getRootNode().addNode(Constants.REPOSITORY);
+				throw new IllegalStateException("write failed");
+			});
+			Assert.fail("write error not thrown");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+
+		Assert.assertFalse("unsaved node kept", sessionPool.write(s -> s.hasPendingChanges()));
+		Assert.assertFalse("unsaved node saved", session.nodeExists("/" + Constants.REPOSITORY));
+
+		sessionPool.write(s -> {
+			s.getRootNode().addNode(Constants.REPOSITORY);
+			s.save();
+			return null;
+		});
+		Assert.assertTrue("saved node not read", sessionPool.read(s -> s.nodeExists("/" + Constants.REPOSITORY)));
+	}
+
+	@Test
+	public void testClose() throws RepositoryException {
+		Session idle = sessionPool.read(s -> s);
+		sessionPool.close();
+
+		Assert.assertFalse("idle session not logged out", idle.isLive());
+		Assert.assertTrue("system session logged out", session.isLive());
+		try {
+			sessionPool.read(s -> s);
+			Assert.fail("closed pool borrowed");
+		} catch (BookException e) {
+			Assert.assertEquals("result code not matched", ResultCode.FAILED, e.getResultCode());
+		}
+	}
+
+	private static Session awaitOthers(CountDownLatch borrowed, Session session) {
+		borrowed.countDown();
+		await(borrowed);
+		return session;
+	}
+
+	private static boolean await(CountDownLatch latch) {
+		try {
+			return latch.await(10, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+}
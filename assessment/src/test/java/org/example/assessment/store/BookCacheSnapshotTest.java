@@ -0,0 +1,85 @@
+package org.example.assessment.store;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Optional;
+
+import org.apache.commons.lang3.ArrayUtils;
+import org.example.assessment.model.Book;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Created by resulav on 04.05.2018.
+ */
+public class BookCacheSnapshotTest {
+
+	private Path directory;
+	private BookCacheSnapshot snapshot;
+
+	@Before
+	public void before() throws IOException {
+		directory = Files.createTempDirectory("book-cache-snapshot");
+		snapshot = new BookCacheSnapshot(directory.resolve("book-cache.snapshot"));
+	}
+
+	@After
+	public void after() throws IOException {
+		Files.deleteIfExists(snapshot.getFile());
+		Files.deleteIfExists(directory);
+	}
+
+	@Test
+	public void testWriteAndRead() throws IOException {
+		Book book = new Book();
+		book.setBookId("8394e063-807e-4bf5-8c15-b21804d803e0");
+		book.setName("Mice And Dogs \u00e7\u011f");
+		book.setAuthor("Joanna Shaffer");
+		book.setIsbn("95-8929-676-7");
+		book.setIntroduction(ArrayUtils.toArray("introduction"));
+		book.setParagraphs(ArrayUtils.toArray("paragraph1", "paragraph2"));
+		Book emptyBook = new Book();
+		emptyBook.setBookId("emptyBook");
+
+		long writtenDate = System.currentTimeMillis();
+		snapshot.write(42L, Lists.newArrayList(book, emptyBook));
+		Optional<BookCacheSnapshot.Content> content = snapshot.read();
+
+		Assert.assertTrue("snapshot not read", content.isPresent());
+		Assert.assertEquals("replay date not matched", 42L, content.get().getReplayFromDate());
+		Assert.assertTrue("written date not matched", content.get().getWrittenDate() >= writtenDate);
+		List<Book> books = content.get().getBooks();
+		Assert.assertEquals("books not matched", Lists.newArrayList(book, emptyBook), books);
+		Assert.assertEquals("name not matched", book.getName(), books.get(0).getName());
+		Assert.assertArrayEquals("paragraphs not matched", book.getParagraphs(), books.get(0).getParagraphs());
+		Assert.assertNull("null field not kept", books.get(1).getParagraphs());
+	}
+
+	@Test
+	public void testMissingSnapshot() {
+		Assert.assertFalse("missing snapshot read", snapshot.read().isPresent());
+	}
+
+	@Test
+	public void testCorruptSnapshot() throws IOException {
+		Book book = new Book();
+		book.setBookId("bookId");
+		book.setName("name");
+		snapshot.write(42L, Lists.newArrayList(book));
+
+		try (FileChannel channel = FileChannel.open(snapshot.getFile(), StandardOpenOption.WRITE)) {
+			channel.write(ByteBuffer.wrap(new byte[] { 'X' }), 30);
+		}
+
+		Assert.assertFalse("corrupt snapshot read", snapshot.read().isPresent());
+	}
+}
@@ -0,0 +1,442 @@
+package org.example.assessment.store;
+
+import static org.example.assessment.util.BookTestUtil.createBook;
+
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.apache.commons.lang3.ArrayUtils;
+import org.example.assessment.common.BookField;
+import org.example.assessment.common.BookStorage;
+import org.example.assessment.common.ChangeType;
+import org.example.assessment.model.Book;
+import org.example.assessment.model.BookChange;
+import org.example.assessment.model.BookChanges;
+import org.example.assessment.model.BookCursor;
+import org.example.assessment.model.BookPage;
+import org.example.assessment.model.BookStoreStatus;
+import org.example.assessment.util.BookUtil;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.Lists;
+
+/**
+ * Created by resulav on 04.05.2018.
+ */
+public class BookCacheTest {
+
+	private BookCache bookCache;
+
+	@Before
+	public void before() {
+		bookCache = new BookCache();
+	}
+
+	@Test
+	public void testAddBook() {
+		Book book = createBook("name");
+
+		Assert.assertNull("new book should not have a previous instance", bookCache.addOrUpdateBook(book));
+		Assert.assertEquals("cache size not matched", 1, bookCache.size());
+		Assert.assertEquals("cached book not matched", book, bookCache.getBookList().get(0));
+	}
+
+	@Test
+	public void testUpdateBookKeepsOrder() {
+		List<Book> books = IntStream.range(0, 3).mapToObj(i -> createBook("name" + i)).collect(Collectors.toList());
+		books.forEach(bookCache::addOrUpdateBook);
+
+		Book updatedBook = createBook("nameUpdated");
+		updatedBook.setBookId(books.get(1).getBookId());
+
+		Assert.assertSame("previous book not returned", books.get(1), bookCache.addOrUpdateBook(updatedBook));
+		Assert.assertEquals("cache size not matched", books.size(), bookCache.size());
+
+		List<Book> cachedBooks = bookCache.getBookList();
+		Assert.assertEquals("book order not matched", books, cachedBooks);
+		Assert.assertEquals("book not updated", "nameUpdated", cachedBooks.get(1).getName());
+	}
+
+	@Test
+	public void testRemoveBook() {
+		Book book1 = createBook("name1");
+		Book book2 = createBook("name2");
+		bookCache.addOrUpdateBook(book1);
+		bookCache.addOrUpdateBook(book2);
+
+		Assert.assertSame("removed book not matched", book1, bookCache.removeBook(book1.getBookId()));
+		Assert.assertNull("unknown book removed", bookCache.removeBook("someBookId"));
+		Assert.assertEquals("cached books not matched", Lists.newArrayList(book2), bookCache.getBookList());
+	}
+
+	@Test
+	public void testReAddRemovedBookMovesToEnd() {
+		Book book1 = createBook("name1");
+		Book book2 = createBook("name2");
+		bookCache.addOrUpdateBook(book1);
+		bookCache.addOrUpdateBook(book2);
+		bookCache.removeBook(book1.getBookId());
+		bookCache.addOrUpdateBook(book1);
+
+		Assert.assertEquals("cached books not matched", Lists.newArrayList(book2, book1), bookCache.getBookList());
+	}
+
+	@Test
+	public void testSnapshotIsSharedUntilMutation() {
+		bookCache.addOrUpdateBook(createBook("name1"));
+		long version = bookCache.getSnapshotVersion();
+
+		List<Book> snapshot = bookCache.getBookList();
+		Assert.assertSame("unchanged cache should return the same snapshot", snapshot, bookCache.getBookList());
+		Assert.assertEquals("version changed without mutation", version, bookCache.getSnapshotVersion());
+
+		bookCache.addOrUpdateBook(createBook("name2"));
+		Assert.assertNotEquals("version not changed by mutation", version, bookCache.getSnapshotVersion());
+
+		List<Book> newSnapshot = bookCache.getBookList();
+		Assert.assertEquals("previous snapshot changed", 1, snapshot.size());
+		Assert.assertEquals("new snapshot size not matched", 2, newSnapshot.size());
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testSnapshotIsImmutable() {
+		bookCache.getBookList().add(createBook("name"));
+	}
+
+	@Test
+	public void testBookListJsonFollowsUpdates() throws IOException {
+		Book book1 = createBook("name1");
+		Book book2 = createBook("name2");
+		bookCache.addOrUpdateBook(book1);
+		bookCache.addOrUpdateBook(book2);
+		Book updatedBook = copyBook(book1);
+		updatedBook.setName("nameUpdated");
+		bookCache.addOrUpdateBook(updatedBook);
+
+		List<byte[]> jsonBooks = bookCache.getBookListJson();
+		Assert.assertSame("unchanged cache should return the same JSON", jsonBooks, bookCache.getBookListJson());
+		ObjectMapper objectMapper = new ObjectMapper();
+		List<String> names = Lists.newArrayList();
+		for (byte[] json : jsonBooks) {
+			names.add(objectMapper.readValue(json, Book.class).getName());
+		}
+		Assert.assertEquals("JSON of the books not matched", Lists.newArrayList("nameUpdated", "name2"), names);
+		Assert.assertArrayEquals("JSON not matched", BookUtil.toJson(book2), jsonBooks.get(1));
+	}
+
+	@Test
+	public void testCompactStoragesDecodeBooks() {
+		for (BookStorage storage : EnumSet.of(BookStorage.COMPACT, BookStorage.COMPRESSED)) {
+			bookCache = new BookCache();
+			bookCache.setStorage(storage);
+			Book book = createBook("name");
+			bookCache.addOrUpdateBook(book);
+			Book updatedBook = copyBook(book);
+			updatedBook.setParagraphs(ArrayUtils.toArray("updated paragraph"));
+			bookCache.addOrUpdateBook(updatedBook);
+
+			Book cachedBook = bookCache.getBook(book.getBookId()).get();
+			Assert.assertNotSame(storage + " book not decoded", updatedBook, cachedBook);
+			Assert.assertArrayEquals(storage + " paragraphs not matched", updatedBook.getParagraphs(),
+					cachedBook.getParagraphs());
+			Assert.assertArrayEquals(storage + " introduction not matched", book.getIntroduction(),
+					cachedBook.getIntroduction());
+			Assert.assertEquals(storage + " ISBN lookup not matched", book,
+					bookCache.getBookByIsbn(book.getIsbn()).get());
+			Assert.assertEquals(storage + " author lookup not matched", 1,
+					bookCache.getBooksByAuthor(book.getAuthor()).size());
+			Assert.assertArrayEquals(storage + " JSON not matched", BookUtil.toJson(updatedBook),
+					bookCache.getBookListJson().get(0));
+			Assert.assertArrayEquals(storage + " changed book not matched", updatedBook.getParagraphs(),
+					bookCache.getChangesSince(1, 1).getChanges().get(0).getBook().getParagraphs());
+		}
+	}
+
+	@Test
+	public void testLookupAndFootprintMetrics() {
+		Book book = createBook("name");
+		bookCache.addOrUpdateBook(book);
+		long bookBytes = bookCache.getEstimatedBytes();
+		Assert.assertTrue("estimated bytes not counted", bookBytes > BookUtil.toJson(book).length);
+
+		bookCache.getBook(book.getBookId());
+		bookCache.getBookByIsbn(book.getIsbn());
+		bookCache.getBook("someBookId");
+		Assert.assertEquals("hits not matched", 2, bookCache.getHitCount());
+		Assert.assertEquals("misses not matched", 1, bookCache.getMissCount());
+
+		bookCache.addOrUpdateBook(copyBook(book));
+		Assert.assertEquals("update changed estimated bytes", bookBytes, bookCache.getEstimatedBytes());
+		bookCache.removeBook(book.getBookId());
+		Assert.assertEquals("removed book still counted", 0, bookCache.getEstimatedBytes());
+	}
+
+	@Test
+	public void testRemoveUnknownBookKeepsVersion() {
+		long version = bookCache.getSnapshotVersion();
+		bookCache.removeBook("someBookId");
+		Assert.assertEquals("version changed without mutation", version, bookCache.getSnapshotVersion());
+	}
+
+	@Test
+	public void testWarmUpDoesNotOverrideEvents() {
+		Book eventBook = createBook("event");
+		bookCache.addOrUpdateBook(eventBook);
+		Book loadedBook = createBook("loaded");
+		loadedBook.setBookId(eventBook.getBookId());
+
+		Assert.assertFalse("book changed by event updated",
+				bookCache.addOrUpdateBookUnless(loadedBook, eventBook.getBookId()::equals));
+		Assert.assertFalse("book changed by event removed",
+				bookCache.removeBookUnless(eventBook.getBookId(), eventBook.getBookId()::equals));
+		Assert.assertTrue("book not added", bookCache.addOrUpdateBookUnless(createBook("new"), id -> false));
+		Assert.assertEquals("cached books not matched", Lists.newArrayList("event", "new"),
+				bookCache.getBookList().stream().map(Book::getName).collect(Collectors.toList()));
+
+		Assert.assertTrue("book missing in repository not removed",
+				bookCache.removeBookUnless(eventBook.getBookId(), id -> false));
+		Assert.assertEquals("cache size not matched", 1, bookCache.size());
+	}
+
+	@Test
+	public void testWarmUpStatus() {
+		bookCache.warmUpStarted();
+		bookCache.warmUpBooksFound(4);
+		bookCache.warmUpBooksLoaded(1, 1);
+
+		BookStoreStatus status = bookCache.getStatus();
+		Assert.assertFalse("store ready before warm-up finished", status.isReady());
+		Assert.assertEquals("progress not matched", 50, status.getProgressPercentage());
+		Assert.assertEquals("failed books not matched", 1, status.getFailedBooks());
+
+		bookCache.warmUpBooksLoaded(2, 0);
+		bookCache.warmUpFinished();
+		status = bookCache.getStatus();
+		Assert.assertTrue("store not ready", status.isReady());
+		Assert.assertEquals("progress not matched", 100, status.getProgressPercentage());
+		Assert.assertEquals("loaded books not matched", 3, status.getLoadedBooks());
+	}
+
+	@Test
+	public void testIndexesFollowUpdates() {
+		Book book = createBook("Mice And Dogs");
+		bookCache.addOrUpdateBook(book);
+
+		Assert.assertEquals("book not found by ISBN", book, bookCache.getBookByIsbn(book.getIsbn()).orElse(null));
+		Assert.assertEquals("book not found by author", Lists.newArrayList(book), bookCache.getBooksByAuthor("AUTHOR"));
+		Assert.assertEquals("book not found by name prefix", Lists.newArrayList(book),
+				bookCache.getBooksByNamePrefix("mice"));
+
+		Book updatedBook = createBook("Cats");
+		updatedBook.setBookId(book.getBookId());
+		updatedBook.setIsbn("95-8929-675-9");
+		updatedBook.setAuthor("another author");
+		bookCache.addOrUpdateBook(updatedBook);
+
+		Assert.assertFalse("old ISBN still indexed", bookCache.getBookByIsbn(book.getIsbn()).isPresent());
+		Assert.assertTrue("old author still indexed", bookCache.getBooksByAuthor("author").isEmpty());
+		Assert.assertTrue("old name still indexed", bookCache.getBooksByNamePrefix("mice").isEmpty());
+		Assert.assertTrue("new ISBN not indexed", bookCache.getBookByIsbn("95-8929-675-9").isPresent());
+		Assert.assertEquals("new author not indexed", 1, bookCache.getBooksByAuthor("another author").size());
+		Assert.assertEquals("new name not indexed", 1, bookCache.getBooksByNamePrefix("c").size());
+
+		bookCache.removeBook(book.getBookId());
+		Assert.assertFalse("removed book still indexed", bookCache.getBookByIsbn("95-8929-675-9").isPresent());
+		Assert.assertTrue("removed book still indexed", bookCache.getBooksByAuthor("another author").isEmpty());
+		Assert.assertTrue("removed book still indexed", bookCache.getBooksByNamePrefix("c").isEmpty());
+	}
+
+	@Test
+	public void testNamePrefixOrderedByName() {
+		Book book1 = createBook("nameB");
+		Book book2 = createBook("NameA");
+		Book book3 = createBook("other");
+		bookCache.addOrUpdateBook(book1);
+		bookCache.addOrUpdateBook(book2);
+		bookCache.addOrUpdateBook(book3);
+
+		Assert.assertEquals("name prefix result not matched", Lists.newArrayList(book2, book1),
+				bookCache.getBooksByNamePrefix("name"));
+	}
+
+	@Test
+	public void testLastModifiedFollowsMutations() throws InterruptedException {
+		long lastModified = bookCache.getLastModifiedMillis();
+		Assert.assertEquals("initial last modified not matched", bookCache.getCreatedMillis(), lastModified);
+
+		Thread.sleep(5);
+		Book book = createBook("name");
+		bookCache.addOrUpdateBook(book);
+		Assert.assertTrue("last modified not updated", bookCache.getLastModifiedMillis() > lastModified);
+
+		lastModified = bookCache.getLastModifiedMillis();
+		Thread.sleep(5);
+		bookCache.removeBook("unknown");
+		Assert.assertEquals("last modified updated without mutation", lastModified, bookCache.getLastModifiedMillis());
+	}
+
+	@Test
+	public void testChangesSince() {
+		long since = bookCache.getSnapshotVersion();
+		Book book = createBook("name");
+		bookCache.addOrUpdateBook(book);
+		bookCache.addOrUpdateBook(copyBook(book));
+		bookCache.removeBook(book.getBookId());
+
+		BookChanges changes = bookCache.getChangesSince(since, 2);
+		Assert.assertFalse("resync required", changes.isResyncRequired());
+		Assert.assertEquals("change types not matched", Lists.newArrayList(ChangeType.ADDED, ChangeType.UPDATED),
+				changes.getChanges().stream().map(BookChange::getType).collect(Collectors.toList()));
+		Assert.assertEquals("next since not matched", since + 2, changes.getNextSince());
+		Assert.assertEquals("latest sequence not matched", since + 3, changes.getLatestSequence());
+
+		changes = bookCache.getChangesSince(changes.getNextSince(), 2);
+		Assert.assertEquals("changes not matched", 1, changes.getChanges().size());
+		Assert.assertEquals("remove not matched", ChangeType.REMOVED, changes.getChanges().get(0).getType());
+		Assert.assertNull("removed book returned", changes.getChanges().get(0).getBook());
+
+		changes = bookCache.getChangesSince(changes.getNextSince(), 2);
+		Assert.assertTrue("changes after the latest", changes.getChanges().isEmpty());
+		Assert.assertFalse("resync required", changes.isResyncRequired());
+	}
+
+	@Test
+	public void testSharedIsbnKeepsOtherBook() {
+		Book book1 = createBook("name1");
+		Book book2 = createBook("name2");
+		book2.setIsbn(book1.getIsbn());
+		bookCache.addOrUpdateBook(book1);
+		bookCache.addOrUpdateBook(book2);
+
+		Assert.assertEquals("books of the ISBN not matched", Lists.newArrayList(book1, book2),
+				bookCache.getBooksByIsbn(book1.getIsbn()));
+
+		bookCache.removeBook(book1.getBookId());
+		Assert.assertEquals("other book of the ISBN dropped", book2,
+				bookCache.getBookByIsbn(book1.getIsbn()).orElse(null));
+	}
+
+	@Test
+	public void testReadBookWithContentHash() {
+		Book book = createBook("name");
+		bookCache.addOrUpdateBook(book);
+
+		Assert.assertEquals("content hash not matched", Optional.of(BookUtil.contentHash(book)),
+				bookCache.readBook(book.getBookId(), (contentHash, b) -> contentHash));
+		Assert.assertEquals("book not matched", Optional.of(book),
+				bookCache.readBook(book.getBookId(), (contentHash, b) -> b.get()));
+		Assert.assertFalse("missing book read", bookCache.readBook("unknown", (contentHash, b) -> b.get()).isPresent());
+	}
+
+	@Test
+	public void testChangesReadCurrentBook() {
+		long since = bookCache.getSnapshotVersion();
+		Book book = createBook("name");
+		bookCache.addOrUpdateBook(book);
+		Book updatedBook = copyBook(book);
+		updatedBook.setName("updated name");
+		bookCache.addOrUpdateBook(updatedBook);
+
+		List<BookChange> changes = bookCache.getChangesSince(since, 10).getChanges();
+		Assert.assertEquals("changes not matched", 2, changes.size());
+		Assert.assertEquals("replaced book returned", "updated name", changes.get(0).getBook().getName());
+	}
+
+	@Test
+	public void testChangesResyncAfterLogWindow() {
+		bookCache = new BookCache(3);
+		long since = bookCache.getSnapshotVersion();
+		IntStream.range(0, 5).forEach(i -> bookCache.addOrUpdateBook(createBook("name" + i)));
+
+		BookChanges changes = bookCache.getChangesSince(since, 10);
+		Assert.assertTrue("resync not required", changes.isResyncRequired());
+		Assert.assertEquals("next since not matched", bookCache.getSnapshotVersion(), changes.getNextSince());
+
+		changes = bookCache.getChangesSince(since + 2, 10);
+		Assert.assertFalse("resync required in window", changes.isResyncRequired());
+		Assert.assertEquals("changes in window not matched", 3, changes.getChanges().size());
+
+		Assert.assertTrue("resync not required for future", bookCache.getChangesSince(since + 6, 10).isResyncRequired());
+	}
+
+	@Test
+	public void testNoResyncWhileChangesAreLogged() throws InterruptedException {
+		long since = bookCache.getSnapshotVersion();
+		List<Thread> writers = Lists.newArrayList();
+		for (int w = 0; w < 4; w++) {
+			Thread writer = new Thread(() -> IntStream.range(0, 2000)
+					.forEach(i -> bookCache.addOrUpdateBook(createBook("name" + i))));
+			writers.add(writer);
+			writer.start();
+		}
+
+		// the changes are within the log capacity, a poll never misses one
+		long seen = 0;
+		while (seen < 8000) {
+			BookChanges changes = bookCache.getChangesSince(since + seen, 100);
+			Assert.assertFalse("resync required while logging", changes.isResyncRequired());
+			seen += changes.getChanges().size();
+			Assert.assertEquals("next since not matched", since + seen, changes.getNextSince());
+		}
+		for (Thread writer : writers) {
+			writer.join();
+		}
+	}
+
+	@Test
+	public void testPagesByNameWithCursor() {
+		List<Book> books = IntStream.range(0, 5).mapToObj(i -> createBook("name" + (4 - i)))
+				.collect(Collectors.toList());
+		books.forEach(bookCache::addOrUpdateBook);
+		Set<BookField> fields = EnumSet.of(BookField.NAME);
+
+		BookPage page = BookUtil.toPage(bookCache.getBookPage(BookField.NAME, null, 3), BookField.NAME, 2, fields);
+		Assert.assertEquals("first page not matched", Lists.newArrayList("name0", "name1"),
+				page.getBooks().stream().map(Book::getName).collect(Collectors.toList()));
+		Assert.assertNull("projected field returned", page.getBooks().get(0).getParagraphs());
+		Assert.assertNotNull("next cursor missing", page.getNextCursor());
+
+		// a book added before the cursor does not shift the next page
+		bookCache.addOrUpdateBook(createBook("name00"));
+		BookCursor cursor = BookCursor.decode(BookField.NAME, page.getNextCursor()).get();
+		page = BookUtil.toPage(bookCache.getBookPage(BookField.NAME, cursor, 3), BookField.NAME, 2, fields);
+		Assert.assertEquals("second page not matched", Lists.newArrayList("name2", "name3"),
+				page.getBooks().stream().map(Book::getName).collect(Collectors.toList()));
+
+		cursor = BookCursor.decode(BookField.NAME, page.getNextCursor()).get();
+		page = BookUtil.toPage(bookCache.getBookPage(BookField.NAME, cursor, 3), BookField.NAME, 2, fields);
+		Assert.assertEquals("last page not matched", 1, page.getBooks().size());
+		Assert.assertNull("last page has next cursor", page.getNextCursor());
+	}
+
+	@Test
+	public void testPagesByBookId() {
+		List<Book> books = IntStream.range(0, 3).mapToObj(i -> createBook("name" + i)).collect(Collectors.toList());
+		books.forEach(bookCache::addOrUpdateBook);
+		List<String> bookIds = books.stream().map(Book::getBookId).sorted().collect(Collectors.toList());
+
+		List<Book> page = bookCache.getBookPage(BookField.BOOK_ID, null, 2);
+		Assert.assertEquals("first page not matched", bookIds.subList(0, 2),
+				page.stream().map(Book::getBookId).collect(Collectors.toList()));
+
+		bookCache.removeBook(bookIds.get(1));
+		page = bookCache.getBookPage(BookField.BOOK_ID, BookCursor.after(BookField.BOOK_ID, page.get(1)), 2);
+		Assert.assertEquals("next page not matched", bookIds.subList(2, 3),
+				page.stream().map(Book::getBookId).collect(Collectors.toList()));
+	}
+
+	private static Book copyBook(Book book) {
+		Book copy = createBook(book.getName());
+		copy.setBookId(book.getBookId());
+
+		return copy;
+	}
+}
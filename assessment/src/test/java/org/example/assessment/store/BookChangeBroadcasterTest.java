@@ -0,0 +1,130 @@
+package org.example.assessment.store;
+
+import static org.example.assessment.util.BookTestUtil.createBook;
+
+import org.example.assessment.common.ChangeType;
+import org.example.assessment.model.Book;
+import org.example.assessment.model.BookChange;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Created by resulav on 04.05.2018.
+ */
+public class BookChangeBroadcasterTest {
+
+	private static final long POLL_MILLIS = 5000;
+
+	private BookCache bookCache;
+	private BookChangeBroadcaster broadcaster;
+
+	@Before
+	public void before() {
+		bookCache = new BookCache();
+		broadcaster = new BookChangeBroadcaster(bookCache, 10);
+	}
+
+	@After
+	public void after() {
+		broadcaster.shutdown();
+	}
+
+	@Test
+	public void testNewSubscriberResyncs() throws InterruptedException {
+		BookChangeBroadcaster.Subscriber subscriber = broadcaster.subscribe(null).get();
+		Assert.assertTrue("resync not required", subscriber.takeResync());
+		Assert.assertFalse("resync required twice", subscriber.takeResync());
+
+		Book book = createBook("name");
+		bookCache.addOrUpdateBook(book);
+		broadcaster.changed();
+
+		BookChange change = subscriber.poll(POLL_MILLIS);
+		Assert.assertNotNull("change not received", change);
+		Assert.assertEquals("change type not matched", ChangeType.ADDED, change.getType());
+		Assert.assertEquals("bookId not matched", book.getBookId(), change.getBookId());
+	}
+
+	@Test
+	public void testResumeByLastEventId() throws InterruptedException {
+		BookChangeBroadcaster.Subscriber subscriber = broadcaster.subscribe(null).get();
+		bookCache.addOrUpdateBook(createBook("name1"));
+		broadcaster.changed();
+		String lastEventId = broadcaster.toEventId(subscriber.poll(POLL_MILLIS));
+		subscriber.close();
+
+		Book book2 = createBook("name2");
+		bookCache.addOrUpdateBook(book2);
+		broadcaster.changed();
+		awaitDispatched(2);
+		bookCache.removeBook(book2.getBookId());
+
+		BookChangeBroadcaster.Subscriber resumed = broadcaster.subscribe(lastEventId).get();
+		broadcaster.changed();
+		Assert.assertFalse("resync required", resumed.takeResync());
+		Assert.assertEquals("missed change not matched", ChangeType.ADDED, resumed.poll(POLL_MILLIS).getType());
+		Assert.assertEquals("later change not matched", ChangeType.REMOVED, resumed.poll(POLL_MILLIS).getType());
+	}
+
+	@Test
+	public void testResumeOfAnotherEpochResyncs() {
+		broadcaster.subscribe(null).get().close();
+		Assert.assertTrue("resync not required", broadcaster.subscribe("0-1").get().takeResync());
+		Assert.assertTrue("resync not required", broadcaster.subscribe("invalid").get().takeResync());
+	}
+
+	@Test
+	public void testSlowConsumerClosed() throws InterruptedException {
+		BookChangeBroadcaster.Subscriber slow = broadcaster.subscribe(null).get();
+		BookChangeBroadcaster.Subscriber fast = broadcaster.subscribe(null).get();
+
+		// one more change than the buffer holds
+		for (int i = 0; i < 11; i++) {
+			bookCache.addOrUpdateBook(createBook("name" + i));
+			broadcaster.changed();
+			Assert.assertNotNull("change not received", fast.poll(POLL_MILLIS));
+		}
+
+		Assert.assertTrue("slow subscriber not closed", slow.isClosed());
+		Assert.assertFalse("fast subscriber closed", fast.isClosed());
+		Assert.assertEquals("closed subscribers not matched", 1, broadcaster.getClosedSubscriberCount());
+		Assert.assertEquals("subscribers not matched", 1, broadcaster.getSubscriberCount());
+		int buffered = 0;
+		while (slow.poll(0) != null) {
+			buffered++;
+		}
+		Assert.assertEquals("buffered changes not matched", 10, buffered);
+	}
+
+	@Test
+	public void testSubscriberLimit() {
+		broadcaster.setMaxSubscribers(2);
+		BookChangeBroadcaster.Subscriber first = broadcaster.subscribe(null).get();
+		broadcaster.subscribe(null).get();
+		Assert.assertFalse("subscriber beyond the limit added", broadcaster.subscribe(null).isPresent());
+
+		first.close();
+		Assert.assertTrue("subscriber not added after a close", broadcaster.subscribe(null).isPresent());
+	}
+
+	@Test
+	public void testRestartAfterShutdown() throws InterruptedException {
+		BookChangeBroadcaster.Subscriber subscriber = broadcaster.subscribe(null).get();
+		broadcaster.shutdown();
+		Assert.assertTrue("subscriber not closed", subscriber.isClosed());
+
+		broadcaster.start();
+		BookChangeBroadcaster.Subscriber restarted = broadcaster.subscribe(null).get();
+		bookCache.addOrUpdateBook(createBook("name"));
+		broadcaster.changed();
+		Assert.assertNotNull("change not received after restart", restarted.poll(POLL_MILLIS));
+	}
+
+	private void awaitDispatched(long count) throws InterruptedException {
+		for (int i = 0; i < 50 && broadcaster.getDispatchedChangeCount() < count; i++) {
+			Thread.sleep(100);
+		}
+	}
+}
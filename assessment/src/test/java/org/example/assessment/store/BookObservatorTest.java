@@ -0,0 +1,255 @@
+package org.example.assessment.store;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+
+import javax.jcr.Credentials;
+import javax.jcr.Node;
+import javax.jcr.NodeIterator;
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import javax.jcr.Workspace;
+import javax.jcr.observation.Event;
+import javax.jcr.observation.EventIterator;
+import javax.jcr.observation.EventJournal;
+import javax.jcr.observation.EventListener;
+import javax.jcr.observation.ObservationManager;
+
+import org.example.assessment.common.Constants;
+import org.example.assessment.model.Book;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Created by resulav on 04.05.2018.
+ */
+public class BookObservatorTest {
+
+	private static final String[] PROPERTY_NAMES = { "name", "author", "isbn", "introduction", "paragraphs" };
+
+	private Session session;
+	private Node rootNode;
+	private Node booksNode;
+	private Node bookNode;
+	private ObservationManager observationManager;
+
+	private String bookId;
+	private String bookPath;
+
+	private BookObservator bookObservator;
+
+	@Before
+	public void before() throws RepositoryException {
+		session = mock(Session.class);
+		rootNode = mock(Node.class);
+		observationManager = mock(ObservationManager.class);
+
+		Workspace workspace = mock(Workspace.class);
+		booksNode = mock(Node.class);
+		NodeIterator noBooks = mock(NodeIterator.class);
+
+		when(session.getRootNode()).thenReturn(rootNode);
+		when(session.getWorkspace()).thenReturn(workspace);
+		when(workspace.getObservationManager()).thenReturn(observationManager);
+		when(rootNode.hasNode(Constants.REPOSITORY)).thenReturn(true);
+		when(rootNode.getNode(Constants.REPOSITORY)).thenReturn(booksNode);
+		when(booksNode.getNodes()).thenReturn(noBooks);
+
+		bookId = UUID.randomUUID().toString();
+		bookPath = Constants.REPOSITORY + Constants.PATH_SEPARATOR + bookId;
+		bookNode = mock(Node.class);
+		when(bookNode.getName()).thenReturn(bookId);
+		when(rootNode.hasNode(bookPath)).thenReturn(true);
+		when(rootNode.getNode(bookPath)).thenReturn(bookNode);
+	}
+
+	@After
+	public void after() {
+		if (bookObservator != null) {
+			bookObservator.shutdown();
+		}
+		BookCache.getInstance().removeBook(bookId);
+		BookSearchIndex.getInstance().remove(bookId);
+	}
+
+	@Test
+	public void testPropertyEventsOfBatchReloadBookOnce() throws RepositoryException {
+		bookObservator = BookObservator.newBuilder().withSession(session).build();
+		EventListener listener = captureListener();
+
+		listener.onEvent(toEventIterator(createBookSaveEvents()));
+
+		verify(rootNode, times(1)).getNode(bookPath);
+		Assert.assertEquals("received events not matched", PROPERTY_NAMES.length + 1,
+				bookObservator.getReceivedEventCount());
+		Assert.assertEquals("reloaded books not matched", 1, bookObservator.getReloadedBookCount());
+		Assert.assertTrue("book not stored", BookCache.getInstance().getBook(bookId).isPresent());
+	}
+
+	@Test
+	public void testEventsOfWindowReloadBookOnce() throws Exception {
+		bookObservator = BookObservator.newBuilder().withSession(session).withCoalesceWindowMillis(100).build();
+		EventListener listener = captureListener();
+
+		listener.onEvent(toEventIterator(createBookSaveEvents()));
+		listener.onEvent(toEventIterator(createBookSaveEvents()));
+		Thread.sleep(500);
+
+		verify(rootNode, times(1)).getNode(bookPath);
+		Assert.assertEquals("reloaded books not matched", 1, bookObservator.getReloadedBookCount());
+	}
+
+	@Test
+	public void testWorkersReloadWithOwnSession() throws Exception {
+		Session workerSession = mock(Session.class);
+		when(session.getUserID()).thenReturn("system");
+		when(session.impersonate(any(Credentials.class))).thenReturn(workerSession);
+		when(workerSession.getRootNode()).thenReturn(rootNode);
+
+		bookObservator = BookObservator.newBuilder().withSession(session).withWorkerCount(2).build();
+		EventListener listener = captureListener();
+
+		listener.onEvent(toEventIterator(createBookSaveEvents()));
+		bookObservator.shutdown();
+		bookObservator = null;
+
+		verify(session, times(2)).impersonate(any(Credentials.class));
+		verify(workerSession, times(1)).getRootNode();
+		verify(workerSession, times(2)).logout();
+		Assert.assertTrue("book not stored", BookCache.getInstance().getBook(bookId).isPresent());
+	}
+
+	@Test
+	public void testWarmUpLoadsBooksAfterObserving() throws Exception {
+		Session loaderSession = mock(Session.class);
+		NodeIterator books = mock(NodeIterator.class);
+		when(session.getUserID()).thenReturn("system");
+		when(session.impersonate(any(Credentials.class))).thenReturn(loaderSession);
+		when(loaderSession.impersonate(any(Credentials.class))).thenReturn(loaderSession);
+		when(loaderSession.getRootNode()).thenReturn(rootNode);
+		when(booksNode.getNodes()).thenReturn(books);
+		when(books.hasNext()).thenReturn(true, false);
+		when(books.nextNode()).thenReturn(bookNode);
+
+		bookObservator = BookObservator.newBuilder().withSession(session).withWarmUpLoaderCount(2)
+				.withWarmUpChunkSize(1).build();
+		captureListener();
+
+		for (int i = 0; i < 50 && !BookCache.getInstance().getStatus().isReady(); i++) {
+			Thread.sleep(100);
+		}
+		Assert.assertTrue("store not ready", BookCache.getInstance().getStatus().isReady());
+		Assert.assertEquals("progress not matched", 100, BookCache.getInstance().getStatus().getProgressPercentage());
+		Assert.assertTrue("book not stored", BookCache.getInstance().getBook(bookId).isPresent());
+		verify(session, times(0)).getRootNode();
+	}
+
+	@Test
+	public void testPurgedJournalLoadsBooksFromRepository() throws Exception {
+		Path snapshotFile = Files.createTempFile("book-cache", ".snapshot");
+		Book snapshotBook = new Book();
+		snapshotBook.setBookId(UUID.randomUUID().toString());
+		new BookCacheSnapshot(snapshotFile).write(1000L, Lists.newArrayList(snapshotBook));
+		// the first event of the journal is later than the replay date
+		EventJournal journal = mock(EventJournal.class);
+		Event purgedAfter = createEvent(Event.NODE_ADDED, Constants.PATH_SEPARATOR + bookPath);
+		when(purgedAfter.getDate()).thenReturn(2000L);
+		when(journal.hasNext()).thenReturn(true);
+		when(journal.nextEvent()).thenReturn(purgedAfter);
+		when(observationManager.getEventJournal(anyInt(), anyString(), anyBoolean(), any(String[].class),
+				any(String[].class))).thenReturn(journal);
+
+		try {
+			bookObservator = BookObservator.newBuilder().withSession(session).withSnapshotFile(snapshotFile).build();
+
+			Assert.assertFalse("snapshot restored", BookCache.getInstance().getBook(snapshotBook.getBookId())
+					.isPresent());
+			verify(journal, times(0)).skipTo(anyLong());
+		} finally {
+			// the snapshot is written at shutdown
+			if (bookObservator != null) {
+				bookObservator.shutdown();
+				bookObservator = null;
+			}
+			BookCache.getInstance().removeBook(snapshotBook.getBookId());
+			Files.deleteIfExists(snapshotFile);
+		}
+	}
+
+	@Test
+	public void testRemoveEventWinsOverEarlierChanges() throws RepositoryException {
+		bookObservator = BookObservator.newBuilder().withSession(session).build();
+		EventListener listener = captureListener();
+
+		Event[] saveEvents = createBookSaveEvents();
+		Event[] events = new Event[saveEvents.length + 1];
+		System.arraycopy(saveEvents, 0, events, 0, saveEvents.length);
+		events[saveEvents.length] = createEvent(Event.NODE_REMOVED, Constants.PATH_SEPARATOR + bookPath);
+
+		listener.onEvent(toEventIterator(events));
+
+		verify(rootNode, times(0)).getNode(bookPath);
+		Assert.assertEquals("removed books not matched", 1, bookObservator.getRemovedBookCount());
+		Assert.assertFalse("removed book stored", BookCache.getInstance().getBook(bookId).isPresent());
+	}
+
+	private EventListener captureListener() throws RepositoryException {
+		ArgumentCaptor<EventListener> listenerCaptor = ArgumentCaptor.forClass(EventListener.class);
+		verify(observationManager).addEventListener(listenerCaptor.capture(), anyInt(), anyString(), anyBoolean(),
+				any(String[].class), any(String[].class), anyBoolean());
+		return listenerCaptor.getValue();
+	}
+
+	/**
+	 * @return events of one session.save() adding a book and changing all of
+	 *         its properties
+	 */
+	private Event[] createBookSaveEvents() throws RepositoryException {
+		Event[] events = new Event[PROPERTY_NAMES.length + 1];
+		events[0] = createEvent(Event.NODE_ADDED, Constants.PATH_SEPARATOR + bookPath);
+		for (int i = 0; i < PROPERTY_NAMES.length; i++) {
+			events[i + 1] = createEvent(Event.PROPERTY_CHANGED,
+					Constants.PATH_SEPARATOR + bookPath + Constants.PATH_SEPARATOR + PROPERTY_NAMES[i]);
+		}
+		return events;
+	}
+
+	private static Event createEvent(int type, String path) throws RepositoryException {
+		Event event = mock(Event.class);
+		when(event.getType()).thenReturn(type);
+		when(event.getPath()).thenReturn(path);
+		when(event.getDate()).thenReturn(System.currentTimeMillis());
+		return event;
+	}
+
+	private static EventIterator toEventIterator(Event... events) {
+		EventIterator eventIterator = mock(EventIterator.class);
+		Boolean[] hasNext = new Boolean[events.length];
+		for (int i = 0; i < events.length; i++) {
+			hasNext[i] = i < events.length - 1;
+		}
+		when(eventIterator.hasNext()).thenReturn(events.length > 0, hasNext);
+		if (events.length > 0) {
+			Event[] nextEvents = new Event[events.length - 1];
+			System.arraycopy(events, 1, nextEvents, 0, nextEvents.length);
+			when(eventIterator.nextEvent()).thenReturn(events[0], nextEvents);
+		}
+		return eventIterator;
+	}
+}
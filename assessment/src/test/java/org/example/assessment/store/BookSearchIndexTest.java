@@ -0,0 +1,89 @@
+package org.example.assessment.store;
+
+import static org.example.assessment.util.BookTestUtil.createBook;
+
+import org.example.assessment.model.Book;
+import org.example.assessment.model.SearchIndexStatus;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.Sets;
+
+/**
+ * Created by resulav on 04.05.2018.
+ */
+public class BookSearchIndexTest {
+
+	private BookSearchIndex searchIndex;
+
+	private Book book1;
+	private Book book2;
+
+	@Before
+	public void before() {
+		searchIndex = new BookSearchIndex();
+
+		book1 = createBook("Mice And Dogs", "Joanna Shaffer", "95-8929-676-7", "Lorem ipsum dolor sit amet");
+		book2 = createBook("Cats And Dogs", "John Doe", "95-8929-676-8", "Vitae luptatum cu eam");
+		searchIndex.index(book1);
+		searchIndex.index(book2);
+	}
+
+	@Test
+	public void testSearchSingleTerm() {
+		Assert.assertEquals("search result not matched", Sets.newHashSet(book1.getBookId(), book2.getBookId()),
+				searchIndex.search("DOGS"));
+		Assert.assertEquals("search result not matched", Sets.newHashSet(book1.getBookId()),
+				searchIndex.search("shaffer"));
+		Assert.assertTrue("unknown term matched", searchIndex.search("unknown").isEmpty());
+	}
+
+	@Test
+	public void testSearchIntersectsTerms() {
+		Assert.assertEquals("search result not matched", Sets.newHashSet(book2.getBookId()),
+				searchIndex.search("dogs luptatum"));
+		Assert.assertTrue("books having only one term matched", searchIndex.search("mice luptatum").isEmpty());
+		Assert.assertEquals("ISBN not matched", Sets.newHashSet(book1.getBookId()),
+				searchIndex.search("95-8929-676-7"));
+	}
+
+	@Test
+	public void testReIndexAndRemove() {
+		Book updatedBook = createBook("Birds", "Joanna Shaffer", "95-8929-676-7", "Lorem ipsum");
+		updatedBook.setBookId(book1.getBookId());
+		searchIndex.index(updatedBook);
+
+		Assert.assertEquals("old token still indexed", Sets.newHashSet(book2.getBookId()), searchIndex.search("dogs"));
+		Assert.assertEquals("new token not indexed", Sets.newHashSet(book1.getBookId()), searchIndex.search("birds"));
+
+		searchIndex.remove(book1.getBookId());
+		Assert.assertTrue("removed book still indexed", searchIndex.search("birds").isEmpty());
+		Assert.assertEquals("indexed book count not matched", 1, searchIndex.getStatus().getBookCount());
+	}
+
+	@Test
+	public void testStatusReportsPendingEvents() {
+		SearchIndexStatus status = searchIndex.getStatus();
+		Assert.assertEquals("pending events not matched", 0, status.getPendingEvents());
+		Assert.assertEquals("staleness not matched", 0, status.getStalenessMillis());
+
+		searchIndex.eventReceived(1L);
+		searchIndex.eventReceived(2L);
+		searchIndex.eventReceived(10L);
+		searchIndex.index(book1);
+		searchIndex.eventsApplied(2L, 2);
+
+		status = searchIndex.getStatus();
+		Assert.assertEquals("pending events not matched", 1, status.getPendingEvents());
+		Assert.assertEquals("last applied event not matched", 2L, status.getLastAppliedEventDate());
+		Assert.assertEquals("staleness not matched", 8L, status.getStalenessMillis());
+
+		searchIndex.eventsFailed(1);
+
+		status = searchIndex.getStatus();
+		Assert.assertEquals("failed event still pending", 0, status.getPendingEvents());
+		Assert.assertEquals("failed events not matched", 1, status.getFailedEvents());
+		Assert.assertEquals("staleness not matched", 0, status.getStalenessMillis());
+	}
+}
@@ -0,0 +1,105 @@
+package org.example.assessment.store;
+
+import static org.example.assessment.util.BookTestUtil.createBook;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.example.assessment.exception.BookException;
+import org.example.assessment.util.BookUtil;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteStreams;
+
+/**
+ * Created by resulav on 04.05.2018.
+ */
+public class CompressedBookListTest {
+
+	private BookCache bookCache;
+	private CompressedBookList compressedBookList;
+
+	@Before
+	public void before() {
+		bookCache = new BookCache();
+		compressedBookList = new CompressedBookList(bookCache,
+				ImmutableList.of(CompressedBookList.GZIP, CompressedBookList.DEFLATE), 1000);
+	}
+
+	@Test
+	public void testCompressOncePerVersion() throws IOException {
+		bookCache.addOrUpdateBook(createBook("name1"));
+		long version = bookCache.getSnapshotVersion();
+		Assert.assertFalse("version compressed before check",
+				compressedBookList.getBookList(version, CompressedBookList.GZIP).isPresent());
+
+		compressedBookList.compress();
+		compressedBookList.compress();
+		compressedBookList.compress();
+		Assert.assertEquals("compressed versions not matched", 1, compressedBookList.getCompressedVersionCount());
+		byte[] json = toJson();
+		Assert.assertArrayEquals("gzip content not matched", json, uncompress(new GZIPInputStream(
+				new ByteArrayInputStream(compressedBookList.getBookList(version, CompressedBookList.GZIP).get()))));
+		Assert.assertArrayEquals("deflate content not matched", json, uncompress(new InflaterInputStream(
+				new ByteArrayInputStream(compressedBookList.getBookList(version, CompressedBookList.DEFLATE).get()))));
+
+		bookCache.addOrUpdateBook(createBook("name2"));
+		Assert.assertFalse("stale version served",
+				compressedBookList.getBookList(bookCache.getSnapshotVersion(), CompressedBookList.GZIP).isPresent());
+		compressedBookList.compress();
+		compressedBookList.compress();
+		Assert.assertTrue("new version not compressed",
+				compressedBookList.getBookList(bookCache.getSnapshotVersion(), CompressedBookList.GZIP).isPresent());
+		Assert.assertEquals("compressed versions not matched", 2, compressedBookList.getCompressedVersionCount());
+	}
+
+	@Test
+	public void testBurstCompressedOnceSettled() {
+		for (int i = 0; i < 5; i++) {
+			bookCache.addOrUpdateBook(createBook("name" + i));
+			compressedBookList.compress();
+		}
+		Assert.assertEquals("changing version compressed", 0, compressedBookList.getCompressedVersionCount());
+
+		compressedBookList.compress();
+		Assert.assertEquals("settled version not compressed", 1, compressedBookList.getCompressedVersionCount());
+		Assert.assertTrue("settled version not served",
+				compressedBookList.getBookList(bookCache.getSnapshotVersion(), CompressedBookList.GZIP).isPresent());
+	}
+
+	@Test
+	public void testSelectEncoding() {
+		Assert.assertEquals("gzip not preferred", CompressedBookList.GZIP,
+				compressedBookList.selectEncoding("deflate, gzip").get());
+		Assert.assertEquals("refused gzip selected", CompressedBookList.DEFLATE,
+				compressedBookList.selectEncoding("gzip;q=0, deflate;q=0.5").get());
+		Assert.assertEquals("wildcard not accepted", CompressedBookList.GZIP,
+				compressedBookList.selectEncoding("*").get());
+		Assert.assertFalse("identity compressed", compressedBookList.selectEncoding("identity").isPresent());
+		Assert.assertFalse("missing header compressed", compressedBookList.selectEncoding(null).isPresent());
+	}
+
+	@Test(expected = BookException.class)
+	public void testUnsupportedEncoding() {
+		new CompressedBookList(bookCache, ImmutableList.of("br"), 1000);
+	}
+
+	private byte[] toJson() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		BookUtil.writeJsonArray(out, bookCache.getBookListJson());
+		return out.toByteArray();
+	}
+
+	private static byte[] uncompress(InputStream in) throws IOException {
+		try (InputStream input = in) {
+			return ByteStreams.toByteArray(input);
+		}
+	}
+}
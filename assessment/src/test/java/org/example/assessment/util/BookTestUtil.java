@@ -0,0 +1,60 @@
+package org.example.assessment.util;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.apache.commons.lang3.ArrayUtils;
+import org.example.assessment.model.Book;
+
+/**
+ * Books of the tests
+ */
+public final class BookTestUtil {
+
+	private BookTestUtil() {
+	}
+
+	/**
+	 * @param name
+	 *            name of the book
+	 * @return a valid book with a new bookId
+	 */
+	public static Book createBook(String name) {
+		return createBook(name, "author", "95-8929-675-1", "book paragraph1", "book paragraph2");
+	}
+
+	/**
+	 * @param name
+	 *            name of the book
+	 * @param author
+	 *            author of the book
+	 * @param isbn
+	 *            ISBN of the book
+	 * @param paragraphs
+	 *            paragraphs of the book
+	 * @return a book with a new bookId and an introduction paragraph
+	 */
+	public static Book createBook(String name, String author, String isbn, String... paragraphs) {
+		Book book = new Book();
+		book.setBookId(UUID.randomUUID().toString());
+		book.setName(name);
+		book.setAuthor(author);
+		book.setIsbn(isbn);
+		book.setIntroduction(ArrayUtils.toArray("introduction paragraph"));
+		book.setParagraphs(paragraphs);
+
+		return book;
+	}
+
+	/**
+	 * @param count
+	 *            count of the books
+	 * @return valid books with unique bookIds and ISBNs
+	 */
+	public static List<Book> createBooks(int count) {
+		return IntStream.range(0, count).mapToObj(i -> createBook("name" + i, "author",
+				String.format("95-8929-%05d", i), "book paragraph1", "book paragraph2")).collect(Collectors.toList());
+	}
+}